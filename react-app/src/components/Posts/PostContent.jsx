@@ -1,6 +1,23 @@
 import React from 'react';
 
-const PostContent = ({ content, mediaUrls }) => {
+const PostContent = ({ content, mediaUrls, media }) => {
+  // Resized copies and a blurred placeholder, once the server has made them
+  const imageProps = (url, sizes) => {
+    const item = media && media.find((m) => m.url === url);
+    if (!item || !item.srcset) {
+      return { src: encodeURI(url) };
+    }
+    return {
+      src: encodeURI(url),
+      srcSet: item.srcset,
+      sizes,
+      loading: 'lazy',
+      style: item.placeholder
+        ? { backgroundImage: `url(${item.placeholder})`, backgroundSize: 'cover' }
+        : undefined,
+    };
+  };
+
   const renderMediaGallery = () => {
     if (!mediaUrls || mediaUrls.length === 0) return null;
 
@@ -17,7 +34,7 @@ const PostContent = ({ content, mediaUrls }) => {
             />
           ) : (
             <img
-              src={encodeURI(mediaUrl)}
+              {...imageProps(mediaUrl, '(max-width: 640px) 100vw, 640px')}
               alt="Post media"
               className="w-full max-h-96 object-cover"
             />
@@ -30,7 +47,7 @@ const PostContent = ({ content, mediaUrls }) => {
           {mediaUrls.map((url, index) => (
             <div key={index} className="rounded-lg overflow-hidden shadow-sm">
               <img
-                src={encodeURI(url)}
+                {...imageProps(url, '(max-width: 640px) 50vw, 320px')}
                 alt={`Post media ${index + 1}`}
                 className="w-full h-64 object-cover"
               />
@@ -44,7 +61,7 @@ const PostContent = ({ content, mediaUrls }) => {
           <div className="grid grid-cols-2 gap-2">
             <div className="rounded-lg overflow-hidden shadow-sm">
               <img
-                src={encodeURI(mediaUrls[0])}
+                {...imageProps(mediaUrls[0], '(max-width: 640px) 50vw, 320px')}
                 alt="Post media 1"
                 className="w-full h-64 object-cover"
               />
@@ -53,7 +70,7 @@ const PostContent = ({ content, mediaUrls }) => {
               {mediaUrls.slice(1, 3).map((url, index) => (
                 <div key={index} className="rounded-lg overflow-hidden shadow-sm">
                   <img
-                    src={encodeURI(url)}
+                    {...imageProps(url, '(max-width: 640px) 50vw, 320px')}
                     alt={`Post media ${index + 2}`}
                     className="w-full h-[7.75rem] object-cover"
                   />
@@ -67,7 +84,7 @@ const PostContent = ({ content, mediaUrls }) => {
               {mediaUrls.slice(3).map((url, index) => (
                 <div key={index} className="flex-shrink-0 w-48 rounded-lg overflow-hidden shadow-sm">
                   <img
-                    src={encodeURI(url)}
+                    {...imageProps(url, '192px')}
                     alt={`Post media ${index + 4}`}
                     className="w-full h-32 object-cover"
                   />
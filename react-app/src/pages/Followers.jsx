@@ -10,6 +10,8 @@ const Followers = () => {
   const [followers, setFollowers] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
+  const [cursor, setCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchFollowers();
@@ -18,9 +20,8 @@ const Followers = () => {
   const fetchFollowers = async () => {
     try {
       setLoading(true);
-      const response = await api.get(`/api/users/${userId}/followers`);
-      console.log('Followers API response:', response.data);
-      setFollowers(response.data);
+      const items = await fetchPage();
+      setFollowers(items);
     } catch (err) {
       console.error('Error fetching followers:', err);
       setError('Failed to load followers');
@@ -29,6 +30,25 @@ const Followers = () => {
     }
   };
 
+  const fetchPage = async (after) => {
+    const response = await api.get(`/api/users/${userId}/followers`, { params: after ? { cursor: after } : {} });
+    setCursor(response.data?.nextCursor || null);
+    return response.data?.items || [];
+  };
+
+  const fetchMore = async () => {
+    if (!cursor) return;
+    try {
+      setLoadingMore(true);
+      const items = await fetchPage(cursor);
+      setFollowers(prev => [...prev, ...items]);
+    } catch (err) {
+      console.error('Error fetching more followers:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleFollowToggle = async (followId) => {
     if (!currentUser) return;
     
@@ -99,7 +119,6 @@ const Followers = () => {
                 </div>
                 <div>
                   <h3 className="font-medium text-gray-900">{follower.name || 'Unknown'}</h3>
-                  <p className="text-sm text-gray-600">{follower.email}</p>
                 </div>
               </Link>
               {currentUser && currentUser.id !== follower.id && (
@@ -118,6 +137,17 @@ const Followers = () => {
           ))}
         </div>
       )}
+      {cursor && (
+        <div className="text-center py-4">
+          <button
+            onClick={fetchMore}
+            disabled={loadingMore}
+            className="px-4 py-2 bg-primary-600 text-white rounded hover:bg-primary-700 disabled:opacity-50"
+          >
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
@@ -10,6 +10,8 @@ const Following = () => {
   const [following, setFollowing] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
+  const [cursor, setCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     fetchFollowing();
@@ -18,8 +20,8 @@ const Following = () => {
   const fetchFollowing = async () => {
     try {
       setLoading(true);
-      const response = await api.get(`/api/users/${userId}/following`);
-      setFollowing(response.data);
+      const items = await fetchPage();
+      setFollowing(items);
     } catch (err) {
       console.error('Error fetching following:', err);
       setError('Failed to load following');
@@ -28,6 +30,25 @@ const Following = () => {
     }
   };
 
+  const fetchPage = async (after) => {
+    const response = await api.get(`/api/users/${userId}/following`, { params: after ? { cursor: after } : {} });
+    setCursor(response.data?.nextCursor || null);
+    return response.data?.items || [];
+  };
+
+  const fetchMore = async () => {
+    if (!cursor) return;
+    try {
+      setLoadingMore(true);
+      const items = await fetchPage(cursor);
+      setFollowing(prev => [...prev, ...items]);
+    } catch (err) {
+      console.error('Error fetching more following:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handleFollowToggle = async (followId) => {
     if (!currentUser) return;
     
@@ -98,7 +119,6 @@ const Following = () => {
                 </div>
                 <div>
                   <h3 className="font-medium text-gray-900">{followedUser.name || 'Unknown'}</h3>
-                  <p className="text-sm text-gray-600">{followedUser.email}</p>
                 </div>
               </Link>
               {currentUser && currentUser.id !== followedUser.id && (
@@ -117,6 +137,17 @@ const Following = () => {
           ))}
         </div>
       )}
+      {cursor && (
+        <div className="text-center py-4">
+          <button
+            onClick={fetchMore}
+            disabled={loadingMore}
+            className="px-4 py-2 bg-primary-600 text-white rounded hover:bg-primary-700 disabled:opacity-50"
+          >
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </button>
+        </div>
+      )}
     </div>
   );
 };
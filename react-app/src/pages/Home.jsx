@@ -8,6 +8,8 @@ import CreatePostForm from '../components/CreatePostForm';
 const Home = () => {
   const { user, loading: authLoading } = useAuth();
   const [posts, setPosts] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const navigate = useNavigate();
@@ -31,9 +33,10 @@ const Home = () => {
     try {
       setLoading(true);
       setError('');
-      const response = await api.get('/api/posts');
-      const fetchedPosts = Array.isArray(response.data) ? response.data : [];
+      const response = await api.get('/api/posts/feed');
+      const fetchedPosts = Array.isArray(response.data?.items) ? response.data.items : [];
       setPosts(fetchedPosts);
+      setNextCursor(response.data?.nextCursor || null);
     } catch (err) {
       console.error('Error fetching posts:', err);
       if (err.response?.status === 401) {
@@ -48,6 +51,21 @@ const Home = () => {
     }
   };
 
+  const fetchMorePosts = async () => {
+    if (!nextCursor) return;
+    try {
+      setLoadingMore(true);
+      const response = await api.get('/api/posts/feed', { params: { cursor: nextCursor } });
+      const fetchedPosts = Array.isArray(response.data?.items) ? response.data.items : [];
+      setPosts(prev => [...prev, ...fetchedPosts]);
+      setNextCursor(response.data?.nextCursor || null);
+    } catch (err) {
+      console.error('Error fetching more posts:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const handlePostDeleted = (postId) => {
     setPosts(posts.filter(post => post.id !== postId));
   };
@@ -94,6 +112,17 @@ const Home = () => {
               onLike={handlePostLiked}
             />
           ))}
+          {nextCursor && (
+            <div className="text-center py-4">
+              <button
+                onClick={fetchMorePosts}
+                disabled={loadingMore}
+                className="px-4 py-2 bg-primary-600 text-white rounded hover:bg-primary-700 disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       )}
     </div>
@@ -12,6 +12,8 @@ const Profile = () => {
   const [user, setUser] = useState(null);
   const [posts, setPosts] = useState([]);
   const [sharedPosts, setSharedPosts] = useState([]);
+  const [activityCursor, setActivityCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState('');
   const [isEditing, setIsEditing] = useState(false);
@@ -40,27 +42,9 @@ const Profile = () => {
         bio: userResponse.data.bio || '',
         profilePhoto: null
       });
-      const postsResponse = await api.get(`/api/users/${userId}/posts`);
-      setPosts(postsResponse.data);
-  
-      try {
-        const sharedPostsResponse = await api.get(`/api/posts/shared/user/${userId}`);
-        if (Array.isArray(sharedPostsResponse.data)) {
-          const validSharedPosts = sharedPostsResponse.data.filter(
-            sharedPost => sharedPost.originalPost && 
-                         sharedPost.originalPost.id && 
-                         sharedPost.originalPost.user
-          );
-          setSharedPosts(validSharedPosts);
-        } else {
-          setError('Invalid shared posts response format');
-          setSharedPosts([]);
-        }
-      } catch (sharedPostsError) {
-        console.error('Error fetching shared posts:', sharedPostsError);
-        setError('Failed to load shared posts');
-        setSharedPosts([]);
-      }
+      const activity = await fetchActivity();
+      setPosts(activity.posts);
+      setSharedPosts(activity.sharedPosts);
   
       if (currentUser && currentUser.id !== parseInt(userId)) {
         checkFollowStatus();
@@ -73,6 +57,34 @@ const Profile = () => {
     }
   };
 
+  // Posts and shares come interleaved from one paginated endpoint; split them for the two tabs
+  const fetchActivity = async (cursor) => {
+    const response = await api.get(`/api/users/${userId}/activity`, { params: cursor ? { cursor } : {} });
+    const items = Array.isArray(response.data?.items) ? response.data.items : [];
+    setActivityCursor(response.data?.nextCursor || null);
+    return {
+      posts: items.filter(item => item.type === 'post').map(item => item.post),
+      sharedPosts: items
+        .filter(item => item.type === 'share')
+        .map(item => item.sharedPost)
+        .filter(sharedPost => sharedPost.originalPost && sharedPost.originalPost.id && sharedPost.originalPost.user),
+    };
+  };
+
+  const fetchMoreActivity = async () => {
+    if (!activityCursor) return;
+    try {
+      setLoadingMore(true);
+      const activity = await fetchActivity(activityCursor);
+      setPosts(prev => [...prev, ...activity.posts]);
+      setSharedPosts(prev => [...prev, ...activity.sharedPosts]);
+    } catch (err) {
+      console.error('Error fetching more activity:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   const checkFollowStatus = async () => {
     try {
       const response = await api.get(`/api/users/${currentUser.id}/following/${userId}`);
@@ -197,13 +209,13 @@ const Profile = () => {
             <div className="flex gap-4 mt-2">
               <Link to={`/profile/${userId}/followers`}>
                 <div className="hover:text-blue-600">
-                  <span className="font-medium">{user?.followers?.length || 0}</span>{' '}
+                  <span className="font-medium">{user?.followerCount || 0}</span>{' '}
                   <span className="text-gray-600">Followers</span>
                 </div>
               </Link>
               <Link to={`/profile/${userId}/following`}>
                 <div className="hover:text-blue-600">
-                  <span className="font-medium">{user?.following?.length || 0}</span>{' '}
+                  <span className="font-medium">{user?.followingCount || 0}</span>{' '}
                   <span className="text-gray-600">Following</span>
                 </div>
               </Link>
@@ -386,6 +398,17 @@ const Profile = () => {
             </div>
           ))
         )}
+        {activityCursor && (
+          <div className="text-center py-4">
+            <button
+              onClick={fetchMoreActivity}
+              disabled={loadingMore}
+              className="px-4 py-2 bg-primary-600 text-white rounded hover:bg-primary-700 disabled:opacity-50"
+            >
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          </div>
+        )}
       </div>
     </div>
   );
@@ -1,13 +1,20 @@
 package com.skillshare.platform.config;
 
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.skillshare.platform.service.FakeS3Client;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
 @Configuration
 public class AwsConfig {
 
@@ -20,13 +27,18 @@ public class AwsConfig {
     @Value("${aws.region}")
     private String region;
 
+    // Only built when media is kept in S3; a fake-dir swaps in a local stand-in for load tests
     @Bean
-    public AmazonS3 amazonS3() {
-        BasicAWSCredentials credentials = new BasicAWSCredentials(accessKeyId, secretAccessKey);
-        return AmazonS3ClientBuilder
-                .standard()
-                .withCredentials(new AWSStaticCredentialsProvider(credentials))
-                .withRegion(region)
+    @ConditionalOnProperty(name = "media.storage.type", havingValue = "s3")
+    public S3Client s3Client(@Value("${media.storage.s3.fake-dir:}") String fakeDir,
+                             @Value("${media.storage.s3.fake-latency:PT0S}") Duration fakeLatency) {
+        if (!fakeDir.isBlank()) {
+            return new FakeS3Client(Paths.get(fakeDir), fakeLatency);
+        }
+        return S3Client.builder()
+                .credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
+                .region(Region.of(region))
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package com.skillshare.platform.config;
+
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.service.CurrentUserCache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Resolves the authenticated principal to a {@link CurrentUser} once per request and stores
+ * it as a request attribute, where {@link CurrentUserArgumentResolver} picks it up.
+ * Runs inside the security filter chain, after authentication.
+ */
+public class CurrentUserFilter extends OncePerRequestFilter {
+
+    private final CurrentUserCache currentUserCache;
+
+    public CurrentUserFilter(CurrentUserCache currentUserCache) {
+        this.currentUserCache = currentUserCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String email = emailOf(SecurityContextHolder.getContext().getAuthentication());
+        if (email != null) {
+            currentUserCache.resolve(email)
+                    .ifPresent(user -> request.setAttribute(CurrentUser.REQUEST_ATTRIBUTE, user));
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** Email of a form-login or OAuth2 principal; null when the request is not authenticated. */
+    public static String emailOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserDetails userDetails) {
+            return userDetails.getUsername();
+        } else if (principal instanceof OAuth2User oauth2User) {
+            return oauth2User.getAttribute("email");
+        }
+        return null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.skillshare.platform.config;
 
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.service.CurrentUserCache;
 import com.skillshare.platform.service.CustomOAuth2UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -7,6 +9,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -20,13 +23,18 @@ public class SecurityConfig {
     @Autowired
     private CustomOAuth2UserService customOAuth2UserService;
 
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/users/current", "/api/users/**", "/api/posts/**", "/api/comments/**", "/api/learning-plans/**", "/api/progress-updates/**", "/api/notifications/**").authenticated()
+                // Cache controls, exports, index rebuilds, garbage collection and account deactivation
+                .requestMatchers("/api/admin/**").hasRole(User.ROLE_ADMIN)
+                .requestMatchers("/api/users/current", "/api/users/**", "/api/posts/**", "/api/comments/**", "/api/learning-plans/**", "/api/progress-updates/**", "/api/notifications/**", "/api/search/**", "/api/uploads/**").authenticated()
                 .requestMatchers("/logout", "/login").permitAll()
                 .anyRequest().permitAll()
             )
@@ -42,7 +50,9 @@ public class SecurityConfig {
                 .invalidateHttpSession(true)
                 .deleteCookies("JSESSIONID")
                 .permitAll()
-            );
+            )
+            // Principal to user id once per request, for controllers taking a CurrentUser
+            .addFilterBefore(new CurrentUserFilter(currentUserCache), AuthorizationFilter.class);
         System.out.println("Security configuration loaded");
         return http.build();
     }
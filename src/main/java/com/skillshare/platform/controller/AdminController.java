@@ -0,0 +1,115 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.service.CurrentUserCache;
+import com.skillshare.platform.service.HotFileCache;
+import com.skillshare.platform.service.MediaGarbageCollector;
+import com.skillshare.platform.service.PostCache;
+import com.skillshare.platform.service.PostExportService;
+import com.skillshare.platform.service.SearchService;
+import com.skillshare.platform.service.TrendingRanking;
+import com.skillshare.platform.service.UserService;
+import com.skillshare.platform.service.UserSummaryLoader;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private CurrentUserCache currentUserCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSummaryLoader userSummaryLoader;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    private PostExportService postExportService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private TrendingRanking trendingRanking;
+
+    @Autowired
+    private MediaGarbageCollector mediaGarbageCollector;
+
+    @GetMapping("/caches")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Map<String, Object>> stats = postCache.stats();
+        stats.put("currentUsers", currentUserCache.stats());
+        stats.put("userSummaries", userSummaryLoader.stats());
+        stats.put("hotFiles", hotFileCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+
+    // Deactivated users are refused on their next request, even with a live session
+    @PutMapping("/users/{id}/active")
+    public ResponseEntity<?> setUserActive(@PathVariable Long id, @RequestParam boolean active, CurrentUser currentUser) {
+        try {
+            userService.setActive(id, active, currentUser.id());
+            return ResponseEntity.ok().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Scored posts per trending window
+    @GetMapping("/trending")
+    public ResponseEntity<Map<String, Integer>> getTrendingStats() {
+        return ResponseEntity.ok(trendingRanking.sizes());
+    }
+
+    // The last media garbage collection; 204 until one has finished
+    @GetMapping("/media-gc")
+    public ResponseEntity<MediaGarbageCollector.Report> getMediaGcReport() {
+        MediaGarbageCollector.Report report = mediaGarbageCollector.lastReport();
+        return report == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(report);
+    }
+
+    // Runs in the background; ignored while a collection is in progress
+    @PostMapping("/media-gc")
+    public ResponseEntity<Void> startMediaGc() {
+        mediaGarbageCollector.start();
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildSearchIndex() {
+        return ResponseEntity.ok(Map.of("indexed", searchService.rebuild()));
+    }
+
+    // Newline-delimited JSON written while the posts are read, so the export is never held in memory
+    @GetMapping("/posts/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts(@RequestParam(required = false) Long userId) {
+        String filename = userId == null ? "posts.ndjson" : "posts-user-" + userId + ".ndjson";
+        StreamingResponseBody body = out -> postExportService.exportPosts(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
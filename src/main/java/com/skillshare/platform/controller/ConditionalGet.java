@@ -0,0 +1,32 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.dto.ResourceVersion;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.function.Supplier;
+
+/** Answers a GET with 304 when the client's validators match, building the body only otherwise. */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(ServletWebRequest request, ResourceVersion version, Supplier<T> body) {
+        HttpServletResponse response = request.getResponse();
+        if (response != null) {
+            // Replaces Spring Security's default no-store so browsers keep the body and revalidate it
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        if (request.checkNotModified(version.getEtag(), version.getLastModified())) {
+            // Status and validators are already on the response; a null body ends the request as is
+            return null;
+        }
+        return ResponseEntity.ok(body.get());
+    }
+}
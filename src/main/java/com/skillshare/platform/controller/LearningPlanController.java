@@ -1,5 +1,6 @@
 package com.skillshare.platform.controller;
 
+import com.skillshare.platform.dto.CurrentUser;
 import com.skillshare.platform.dto.LearningPlanDTO;
 import com.skillshare.platform.model.LearningPlan;
 import com.skillshare.platform.model.Task;
@@ -8,8 +9,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -23,16 +22,6 @@ public class LearningPlanController {
     @Autowired
     private LearningPlanService learningPlanService;
     
-    private String extractEmail(Authentication authentication) {
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof User userDetails) {
-            return userDetails.getUsername(); // form login
-        } else if (principal instanceof OAuth2User oauth2User) {
-            return oauth2User.getAttribute("email"); // OAuth2 login
-        }
-        throw new RuntimeException("Unsupported principal type");
-    }
-
     @GetMapping
     public ResponseEntity<?> getAllPlans(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -43,21 +32,16 @@ public class LearningPlanController {
     }
 
     @GetMapping("/my-plans")
-    public ResponseEntity<?> getUserPlans(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-        String email = extractEmail(authentication);
-        List<LearningPlanDTO> plans = learningPlanService.findByUserEmail(email);
+    public ResponseEntity<?> getUserPlans(CurrentUser currentUser) {
+        List<LearningPlanDTO> plans = learningPlanService.findByUserId(currentUser.id());
         return ResponseEntity.ok(plans);
     }
 
     @PostMapping
     public ResponseEntity<LearningPlan> createPlan(
             @RequestBody LearningPlan plan,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        LearningPlan createdPlan = learningPlanService.createPlan(email, plan);
+            CurrentUser currentUser) {
+        LearningPlan createdPlan = learningPlanService.createPlan(currentUser.id(), plan);
         return ResponseEntity.ok(createdPlan);
     }
 
@@ -65,18 +49,16 @@ public class LearningPlanController {
     public ResponseEntity<LearningPlan> updatePlan(
             @PathVariable Long id,
             @RequestBody LearningPlan plan,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        LearningPlan updatedPlan = learningPlanService.updatePlan(id, email, plan);
+            CurrentUser currentUser) {
+        LearningPlan updatedPlan = learningPlanService.updatePlan(id, currentUser.id(), plan);
         return ResponseEntity.ok(updatedPlan);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePlan(
             @PathVariable Long id,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        learningPlanService.deletePlan(id, email);
+            CurrentUser currentUser) {
+        learningPlanService.deletePlan(id, currentUser.id());
         return ResponseEntity.ok().build();
     }
 
@@ -84,8 +66,7 @@ public class LearningPlanController {
     public ResponseEntity<LearningPlan> extendPlan(
             @PathVariable Long id,
             @RequestBody String newEndDate,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
+            CurrentUser currentUser) {
         // Parse the date string (e.g., "2025-05-27T00:00:00" or "2025-05-27")
         LocalDateTime parsedDateTime;
         try {
@@ -97,16 +78,15 @@ public class LearningPlanController {
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid date format. Use YYYY-MM-DD or YYYY-MM-DDThh:mm:ss");
         }
-        LearningPlan extendedPlan = learningPlanService.extendPlan(id, email, parsedDateTime);
+        LearningPlan extendedPlan = learningPlanService.extendPlan(id, currentUser.id(), parsedDateTime);
         return ResponseEntity.ok(extendedPlan);
     }
 
     @PostMapping("/tasks/{taskId}/complete")
     public ResponseEntity<Task> completeTask(
             @PathVariable Long taskId,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        Task completedTask = learningPlanService.completeTask(taskId, email);
+            CurrentUser currentUser) {
+        Task completedTask = learningPlanService.completeTask(taskId, currentUser.id());
         return ResponseEntity.ok(completedTask);
     }
 }
\ No newline at end of file
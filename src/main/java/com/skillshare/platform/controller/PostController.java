@@ -1,19 +1,24 @@
 package com.skillshare.platform.controller;
 
-import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
+import com.skillshare.platform.dto.ResourceVersion;
 import com.skillshare.platform.dto.SharedPostDTO;
 import com.skillshare.platform.model.Post;
 import com.skillshare.platform.model.SharedPost;
 import com.skillshare.platform.service.PostService;
+import com.skillshare.platform.service.ResourceVersionService;
+import com.skillshare.platform.service.TimelineService;
+import com.skillshare.platform.service.TrendingService;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.http.MediaType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -26,35 +31,66 @@ public class PostController {
     @Autowired
     private PostService postService;
 
-    private String extractEmail(Authentication authentication) {
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof User userDetails) {
-            System.out.println("User email: " + userDetails.getUsername());
-            return userDetails.getUsername();
-        } else if (principal instanceof OAuth2User oauth2User) {
-            return oauth2User.getAttribute("email"); // OAuth2 login
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @GetMapping
+    public ResponseEntity<?> getAllPosts(CurrentUser currentUser, ServletWebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, resourceVersionService.forAllPosts(currentUser.id()),
+            () -> postService.findAllPosts(currentUser.id()));
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            CurrentUser currentUser,
+            ServletWebRequest webRequest) {
+        try {
+            return ConditionalGet.respond(webRequest, resourceVersionService.forFeedPage(currentUser.id(), cursor, size),
+                () -> postService.findFeedPage(currentUser.id(), cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
-        throw new RuntimeException("Unsupported principal type");
     }
 
-    @GetMapping
-    public ResponseEntity<?> getAllPosts(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getTimeline(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            CurrentUser currentUser) {
+        try {
+            FeedPageDTO<FeedItemDTO> page = timelineService.getTimeline(currentUser.id(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
+    }
 
-        String email = extractEmail(authentication);
-        List<PostDTO> posts = postService.findAllPosts(email);
-        return ResponseEntity.ok(posts);
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(
+            @RequestParam(defaultValue = "day") String window,
+            @RequestParam(defaultValue = "20") int size,
+            CurrentUser currentUser) {
+        try {
+            return ResponseEntity.ok(trendingService.getTrending(currentUser.id(), window, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PostMapping(value = "/posts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Post> createPost(
-            Authentication authentication,
+            CurrentUser currentUser,
             @RequestParam String content,
-            @RequestParam(required = false) MultipartFile[] mediaFiles) {
-
-        String email = extractEmail(authentication);
+            @RequestParam(required = false) MultipartFile[] mediaFiles,
+            @RequestParam(required = false) List<Long> mediaIds) {
 
         if (mediaFiles != null && mediaFiles.length > 0) {
             System.out.println("Received " + mediaFiles.length + " media files");
@@ -65,51 +101,45 @@ public class PostController {
             }
         }
 
-        Post post = postService.createPost(email, content, mediaFiles);
+        Post post = postService.createPost(currentUser.id(), content, mediaFiles, mediaIds);
         return ResponseEntity.ok(post);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getPostById(
             @PathVariable Long id,
-            Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
-
-        String email = extractEmail(authentication);
+            CurrentUser currentUser,
+            ServletWebRequest webRequest) {
         try {
-            PostDTO post = postService.findPostById(id, email);
-            return ResponseEntity.ok(post);
+            ResourceVersion version = resourceVersionService.forPost(id, currentUser.id())
+                    .orElseThrow(() -> new RuntimeException("Post not found with ID: " + id));
+            return ConditionalGet.respond(webRequest, version, () -> postService.findPostById(id, currentUser.id()));
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         }
     }
 
     @PostMapping("/{id}/like")
-    public ResponseEntity<Map<String, Object>> likePost(@PathVariable Long id, Authentication authentication) {
-        String email = extractEmail(authentication);
-        Map<String, Object> response = postService.likePost(id, email);
+    public ResponseEntity<Map<String, Object>> likePost(@PathVariable Long id, CurrentUser currentUser) {
+        Map<String, Object> response = postService.likePost(id, currentUser.id());
         return ResponseEntity.ok(response);
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deletePost(@PathVariable Long id, Authentication authentication) {
-        String email = extractEmail(authentication);
-        postService.deletePost(id, email);
+    public ResponseEntity<Void> deletePost(@PathVariable Long id, CurrentUser currentUser) {
+        postService.deletePost(id, currentUser.id());
         return ResponseEntity.ok().build();
     }
 
     @PutMapping(value = "/update/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Post> updatePost(
             @PathVariable Long id,
-            Authentication authentication,
+            CurrentUser currentUser,
             @RequestParam(required = false) String content,
-            @RequestParam(required = false) MultipartFile[] mediaFiles) {
+            @RequestParam(required = false) MultipartFile[] mediaFiles,
+            @RequestParam(required = false) List<Long> mediaIds) {
 
-        String email = extractEmail(authentication);
-
-        Post updatedPost = postService.updatePost(id, email, content, mediaFiles);
+        Post updatedPost = postService.updatePost(id, currentUser.id(), content, mediaFiles, mediaIds);
         return ResponseEntity.ok(updatedPost);
     }
 
@@ -117,12 +147,11 @@ public class PostController {
     public ResponseEntity<SharedPost> sharePost(
             @PathVariable Long id,
             @RequestBody(required = false) Map<String, String> shareData,
-            Authentication authentication) {
+            CurrentUser currentUser) {
 
-        String email = extractEmail(authentication);
         String shareComment = (shareData != null) ? shareData.get("shareComment") : null;
 
-        SharedPost sharedPost = postService.sharePost(id, email, shareComment);
+        SharedPost sharedPost = postService.sharePost(id, currentUser.id(), shareComment);
         return ResponseEntity.ok(sharedPost);
     }
 
@@ -138,19 +167,17 @@ public class PostController {
     }
 
     @GetMapping("/shared/me")
-    public ResponseEntity<List<SharedPostDTO>> getMySharedPosts(Authentication authentication) {
-        String email = extractEmail(authentication);
-        List<SharedPostDTO> sharedPosts = postService.getMySharedPosts(email);
+    public ResponseEntity<List<SharedPostDTO>> getMySharedPosts(CurrentUser currentUser) {
+        List<SharedPostDTO> sharedPosts = postService.getMySharedPosts(currentUser.id());
         return ResponseEntity.ok(sharedPosts);
     }
 
     @DeleteMapping("/shared/{id}")
     public ResponseEntity<Void> deleteSharedPost(
             @PathVariable Long id,
-            Authentication authentication) {
+            CurrentUser currentUser) {
 
-        String email = extractEmail(authentication);
-        postService.deleteSharedPost(id, email);
+        postService.deleteSharedPost(id, currentUser.id());
         return ResponseEntity.ok().build();
     }
 }
@@ -1,5 +1,6 @@
 package com.skillshare.platform.controller;
 
+import com.skillshare.platform.dto.CurrentUser;
 import com.skillshare.platform.dto.ProgressDTO;
 import com.skillshare.platform.service.ProgressUpdateService;
 import jakarta.validation.Valid;
@@ -56,11 +57,10 @@ public class ProgressUpdateController {
     @PostMapping("/add")
     public ResponseEntity<?> createUpdate(
             @Valid @RequestBody ProgressDTO progressDTO,
-            Authentication authentication) {
+            CurrentUser currentUser) {
         try {
-            String email = extractEmail(authentication);
-            logger.info("Creating update for user: {}", email);
-            ProgressDTO createdUpdate = progressUpdateService.createUpdate(email, progressDTO);
+            logger.info("Creating update for user: {}", currentUser.id());
+            ProgressDTO createdUpdate = progressUpdateService.createUpdate(currentUser.id(), progressDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdUpdate);
         } catch (Exception e) {
             logger.error("Error creating update: {}", e.getMessage());
@@ -72,11 +72,10 @@ public class ProgressUpdateController {
     public ResponseEntity<?> updateUpdate(
             @PathVariable Long id,
             @Valid @RequestBody ProgressDTO progressDTO,
-            Authentication authentication) {
+            CurrentUser currentUser) {
         try {
-            String email = extractEmail(authentication);
-            logger.info("Updating update ID: {} for user: {}", id, email);
-            ProgressDTO updatedUpdate = progressUpdateService.updateUpdate(id, email, progressDTO);
+            logger.info("Updating update ID: {} for user: {}", id, currentUser.id());
+            ProgressDTO updatedUpdate = progressUpdateService.updateUpdate(id, currentUser.id(), progressDTO);
             return ResponseEntity.ok(updatedUpdate);
         } catch (RuntimeException e) {
             logger.error("Error updating update: {}", e.getMessage());
@@ -87,11 +86,10 @@ public class ProgressUpdateController {
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteUpdate(
             @PathVariable Long id,
-            Authentication authentication) {
+            CurrentUser currentUser) {
         try {
-            String email = extractEmail(authentication);
-            logger.info("Deleting update ID: {} for user: {}", id, email);
-            progressUpdateService.deleteUpdate(id, email);
+            logger.info("Deleting update ID: {} for user: {}", id, currentUser.id());
+            progressUpdateService.deleteUpdate(id, currentUser.id());
             return ResponseEntity.noContent().build();
         } catch (RuntimeException e) {
             logger.error("Error deleting update: {}", e.getMessage());
@@ -0,0 +1,34 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.dto.SearchResultDTO;
+import com.skillshare.platform.service.SearchService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<?> search(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) String type,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            List<SearchResultDTO> results = searchService.search(query, type, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.service.ChunkedUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * Resumable uploads: {@code POST /api/uploads} with the file size opens a session, each
+ * {@code PUT /api/uploads/{id}} sends the next chunk as a raw body with its offset in the
+ * {@code Upload-Offset} header, and {@code POST /api/uploads/{id}/complete} turns it into
+ * media whose id goes into {@code mediaIds} when creating a post. After a dropped
+ * connection, {@code GET /api/uploads/{id}} tells where to continue.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(CurrentUser currentUser, @RequestBody Map<String, Long> request) {
+        Long size = request.get("size");
+        if (size == null) {
+            return ResponseEntity.badRequest().body("size is required");
+        }
+        return respond(() -> chunkedUploadService.create(currentUser.id(), size), HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getUpload(@PathVariable String id, CurrentUser currentUser) {
+        return respond(() -> chunkedUploadService.status(id, currentUser.id()), HttpStatus.OK);
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<?> putChunk(
+            @PathVariable String id,
+            CurrentUser currentUser,
+            @RequestHeader("Upload-Offset") long offset,
+            HttpServletRequest request) {
+        return respond(() -> {
+            try {
+                return chunkedUploadService.append(id, currentUser.id(), offset, request.getInputStream());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read chunk: " + e.getMessage(), e);
+            }
+        }, HttpStatus.OK);
+    }
+
+    @PostMapping("/{id}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable String id, CurrentUser currentUser) {
+        return respond(() -> chunkedUploadService.complete(id, currentUser.id()), HttpStatus.OK);
+    }
+
+    private static ResponseEntity<?> respond(Supplier<UploadSessionDTO> action, HttpStatus status) {
+        try {
+            return ResponseEntity.status(status).body(action.get());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // Wrong offset, a concurrent chunk, or not yet complete; GET shows the current state
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.skillshare.platform.controller;
 
+import com.skillshare.platform.config.CurrentUserFilter;
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
 import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.dto.ResourceVersion;
 import com.skillshare.platform.dto.UserDTO;
+import com.skillshare.platform.dto.UserSuggestionDTO;
+import com.skillshare.platform.dto.UserSummaryDTO;
 import com.skillshare.platform.model.User;
+import com.skillshare.platform.service.ActivityService;
+import com.skillshare.platform.service.ResourceVersionService;
+import com.skillshare.platform.service.SuggestionService;
 import com.skillshare.platform.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.HashMap;
 import java.util.List;
@@ -22,20 +33,18 @@ public class UserController {
     @Autowired
     private UserService userService;
 
-    private String extractEmail(Authentication authentication) {
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof UserDetails userDetails) {
-            return userDetails.getUsername();
-        } else if (principal instanceof OAuth2User oauth2User) {
-            return oauth2User.getAttribute("email");
-        }
-        throw new RuntimeException("Unsupported principal type");
-    }
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ActivityService activityService;
+
+    @Autowired
+    private SuggestionService suggestionService;
 
     @GetMapping("/current")
-    public ResponseEntity<Map<String, Object>> getCurrentUser(Authentication authentication) {
-        String email = extractEmail(authentication);
-        User user = userService.findByEmail(email)
+    public ResponseEntity<Map<String, Object>> getCurrentUser(CurrentUser currentUser) {
+        User user = userService.findByEmail(currentUser.email())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Map<String, Object> response = new HashMap<>();
@@ -52,7 +61,11 @@ public class UserController {
 
     @PostMapping
     public ResponseEntity<User> registerOrGetUser(Authentication authentication) {
-        String email = extractEmail(authentication);
+        // Runs before the account exists, so the principal is read directly
+        String email = CurrentUserFilter.emailOf(authentication);
+        if (email == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
         final String name = (authentication.getPrincipal() instanceof OAuth2User oauth2User) 
                 ? oauth2User.getAttribute("name") 
                 : null;
@@ -68,20 +81,37 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<UserSuggestionDTO>> getSuggestions(
+            @RequestParam(defaultValue = "10") int size,
+            CurrentUser currentUser) {
+        return ResponseEntity.ok(suggestionService.getSuggestions(currentUser.id(), size));
+    }
+
+    // Names and avatars for a set of ids, e.g. ?ids=1,2,3
+    @GetMapping("/batch")
+    public ResponseEntity<?> getUserSummaries(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(userService.getSummaries(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUser(@PathVariable Long id) {
-        UserDTO user = userService.findById(id)
+    public ResponseEntity<UserDTO> getUser(@PathVariable Long id, ServletWebRequest webRequest) {
+        ResourceVersion version = resourceVersionService.forUser(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(user);
+        return ConditionalGet.respond(webRequest, version, () -> userService.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found")));
     }
 
     @PostMapping("/{id}/follow/{followId}")
     public ResponseEntity<Void> followUser(
             @PathVariable Long id,
             @PathVariable Long followId,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        userService.followUser(id, followId, email);
+            CurrentUser currentUser) {
+        userService.followUser(id, followId, currentUser.id());
         return ResponseEntity.ok().build();
     }
 
@@ -89,9 +119,8 @@ public class UserController {
     public ResponseEntity<Void> unfollowUser(
             @PathVariable Long id,
             @PathVariable Long followId,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        userService.unfollowUser(id, followId, email);
+            CurrentUser currentUser) {
+        userService.unfollowUser(id, followId, currentUser.id());
         return ResponseEntity.ok().build();
     }
 
@@ -99,16 +128,29 @@ public class UserController {
     public ResponseEntity<Map<String, Boolean>> isFollowing(
             @PathVariable Long id,
             @PathVariable Long followId,
-            Authentication authentication) {
-        String email = extractEmail(authentication);
-        boolean isFollowing = userService.isFollowing(id, followId, email);
+            CurrentUser currentUser) {
+        boolean isFollowing = userService.isFollowing(id, followId, currentUser.id());
         return ResponseEntity.ok(Map.of("isFollowing", isFollowing));
     }
 
     @GetMapping("/{id}/posts")
-    public ResponseEntity<List<PostDTO>> getUserPosts(@PathVariable Long id) {
-        List<PostDTO> posts = userService.getUserPosts(id);
-        return ResponseEntity.ok(posts);
+    public ResponseEntity<List<PostDTO>> getUserPosts(@PathVariable Long id, ServletWebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, resourceVersionService.forUserPosts(id),
+            () -> userService.getUserPosts(id));
+    }
+
+    @GetMapping("/{id}/activity")
+    public ResponseEntity<?> getUserActivity(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            CurrentUser currentUser) {
+        try {
+            FeedPageDTO<FeedItemDTO> page = activityService.getActivity(id, currentUser.id(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @PatchMapping(value = "/{id}", consumes = "multipart/form-data")
@@ -118,22 +160,34 @@ public class UserController {
             @RequestParam(value = "email", required = false) String email,
             @RequestParam(value = "bio", required = false) String bio,
             @RequestParam(value = "profilePhoto", required = false) MultipartFile profilePhoto,
-            Authentication authentication) {
-        
-        String authEmail = extractEmail(authentication);
-        UserDTO updatedUser = userService.updateUser(id, name, email, bio, profilePhoto, authEmail);
+            CurrentUser currentUser) {
+        UserDTO updatedUser = userService.updateUser(id, name, email, bio, profilePhoto, currentUser.id());
         return ResponseEntity.ok(updatedUser);
     }
 
     @GetMapping("/{id}/followers")
-    public ResponseEntity<List<UserDTO>> getFollowers(@PathVariable Long id) {
-        List<UserDTO> followers = userService.getFollowers(id);
-        return ResponseEntity.ok(followers);
+    public ResponseEntity<?> getFollowers(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            FeedPageDTO<UserSummaryDTO> page = userService.getFollowers(id, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     @GetMapping("/{id}/following")
-    public ResponseEntity<List<UserDTO>> getFollowing(@PathVariable Long id) {
-        List<UserDTO> following = userService.getFollowing(id);
-        return ResponseEntity.ok(following);
+    public ResponseEntity<?> getFollowing(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            FeedPageDTO<UserSummaryDTO> page = userService.getFollowing(id, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 }
\ No newline at end of file
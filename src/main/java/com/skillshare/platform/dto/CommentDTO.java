@@ -14,6 +14,7 @@ public class CommentDTO {
     private String content;
     private LocalDateTime createdAt;
     private String username;
+    private UserSummaryDTO user;
 
     // Constructors, getters, and setters
 }
\ No newline at end of file
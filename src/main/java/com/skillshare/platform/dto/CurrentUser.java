@@ -0,0 +1,10 @@
+package com.skillshare.platform.dto;
+
+/**
+ * The authenticated user of a request, resolved once from the security principal. Controllers
+ * receive it as a handler argument and hand the id to services.
+ */
+public record CurrentUser(Long id, String email, String name) {
+
+    public static final String REQUEST_ATTRIBUTE = CurrentUser.class.getName();
+}
@@ -0,0 +1,48 @@
+package com.skillshare.platform.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Position in a feed ordered by (createdAt DESC, id DESC). Clients receive it as an
+ * opaque url-safe string and send it back unchanged to fetch the next page. Mixed feeds
+ * also record the item type, because post and share ids are not unique across types.
+ */
+@Data
+@AllArgsConstructor
+public class FeedCursor {
+    private LocalDateTime createdAt;
+    private Long id;
+    private String type; // null for single-type feeds
+
+    public FeedCursor(LocalDateTime createdAt, Long id) {
+        this(createdAt, id, null);
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id + (type != null ? "|" + type : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid feed cursor");
+            }
+            return new FeedCursor(
+                LocalDateTime.parse(parts[0]),
+                Long.parseLong(parts[1]),
+                parts.length == 3 ? parts[2] : null
+            );
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid feed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.skillshare.platform.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One entry of a mixed feed: either an original post or a share of one. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedItemDTO {
+    public static final String TYPE_POST = "post";
+    public static final String TYPE_SHARE = "share";
+
+    private String type;
+    private LocalDateTime timestamp;
+    private PostDTO post;             // set when type is "post"
+    private SharedPostDTO sharedPost; // set when type is "share"
+}
@@ -0,0 +1,15 @@
+package com.skillshare.platform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedPageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // null when there are no more pages
+}
@@ -0,0 +1,22 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One attachment of a post. For images that have been processed, {@code srcset} lists
+ * resized copies by width (original included) and {@code placeholder} is a tiny inline
+ * JPEG to show blurred until one loads; both are null until then and for videos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaDTO {
+    private String url;
+    private String type;
+    private Integer width;
+    private Integer height;
+    private String srcset;
+    private String placeholder;
+}
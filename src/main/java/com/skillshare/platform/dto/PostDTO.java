@@ -2,11 +2,9 @@ package com.skillshare.platform.dto;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import com.skillshare.platform.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import net.minidev.json.annotate.JsonIgnore;
 
 @Data
 @AllArgsConstructor
@@ -18,9 +16,11 @@ public class PostDTO {
     private LocalDateTime createdAt;
     private boolean isLiked; 
 
-    @JsonIgnore
-    private User user;
+    // Filled from UserSummaryLoader when the DTO is served; cached copies only hold the id
+    private UserSummaryDTO user;
     
     private List<CommentDTO> comments;
     private List<String> mediaUrls;
+    private List<MediaDTO> media;
+    private long commentCount;
 }
\ No newline at end of file
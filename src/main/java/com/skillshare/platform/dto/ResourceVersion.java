@@ -0,0 +1,14 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Validators for a conditional GET: a weak ETag and Last-Modified in epoch millis (-1 when not sent). */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResourceVersion {
+    private String etag;
+    private long lastModified;
+}
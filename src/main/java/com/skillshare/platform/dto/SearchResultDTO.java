@@ -0,0 +1,21 @@
+package com.skillshare.platform.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One ranked search match. For comments, postId is the post the comment belongs to. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchResultDTO {
+    private String type; // "post", "comment" or "plan"
+    private Long id;
+    private Long postId;
+    private Long authorId;
+    private LocalDateTime createdAt;
+    private String snippet;
+    private float score;
+}
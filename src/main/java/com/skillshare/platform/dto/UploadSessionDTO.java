@@ -0,0 +1,24 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a resumable upload. The next chunk starts at {@code offset}; once it equals
+ * {@code size} the upload can be completed, after which {@code mediaId} is the id to send
+ * when creating the post.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String id;
+    private long size;
+    private long offset;
+    private LocalDateTime expiresAt;
+    private Long mediaId;
+    private String url;
+}
@@ -3,10 +3,6 @@ package com.skillshare.platform.dto;
 
 import lombok.NoArgsConstructor;
 
-import java.util.List;
-
-import com.skillshare.platform.model.User;
-
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -17,8 +13,9 @@ public class UserDTO {
     private Long id;
     private String name;
     private String email;
-    private List<User> following;
-    private List<User> followers;
+    // Counts only; the people themselves are paged through /followers and /following
+    private int followerCount;
+    private int followingCount;
     private String bio;
     private String profilePhotoUrl;
 
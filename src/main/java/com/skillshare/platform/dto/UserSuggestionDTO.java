@@ -0,0 +1,19 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** A suggested person and why: how many of the viewer's followees follow them, and skills in common. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSuggestionDTO {
+    private Long id;
+    private String name;
+    private String profilePhotoUrl;
+    private int mutualFollows;
+    private List<String> sharedSkills;
+}
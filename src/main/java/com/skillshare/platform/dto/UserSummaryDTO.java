@@ -0,0 +1,15 @@
+package com.skillshare.platform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** The few fields needed to show a person in a list: who they are and their avatar. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String name;
+    private String profilePhotoUrl;
+}
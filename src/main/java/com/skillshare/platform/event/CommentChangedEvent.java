@@ -0,0 +1,11 @@
+package com.skillshare.platform.event;
+
+/** Published by CommentService when a comment on a post is created, edited or deleted. */
+public record CommentChangedEvent(Long commentId, Long postId, Change change) {
+
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
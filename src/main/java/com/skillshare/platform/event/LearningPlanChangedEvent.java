@@ -0,0 +1,5 @@
+package com.skillshare.platform.event;
+
+/** Published by LearningPlanService when a learning plan is created, edited or deleted. */
+public record LearningPlanChangedEvent(Long planId) {
+}
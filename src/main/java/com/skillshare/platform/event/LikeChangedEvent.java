@@ -0,0 +1,5 @@
+package com.skillshare.platform.event;
+
+/** Published by LikeService when a like edge was actually added or removed. */
+public record LikeChangedEvent(Long postId, Long userId, boolean liked) {
+}
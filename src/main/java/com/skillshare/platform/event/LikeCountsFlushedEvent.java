@@ -0,0 +1,7 @@
+package com.skillshare.platform.event;
+
+import java.util.Set;
+
+/** Published by LikeCounterBuffer after buffered like deltas for these posts were committed. */
+public record LikeCountsFlushedEvent(Set<Long> postIds) {
+}
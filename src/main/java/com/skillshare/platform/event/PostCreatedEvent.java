@@ -0,0 +1,7 @@
+package com.skillshare.platform.event;
+
+import java.time.LocalDateTime;
+
+/** Published by PostService when a post is created; listeners run after the transaction commits. */
+public record PostCreatedEvent(Long postId, Long authorId, LocalDateTime createdAt) {
+}
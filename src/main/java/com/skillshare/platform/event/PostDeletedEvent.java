@@ -0,0 +1,5 @@
+package com.skillshare.platform.event;
+
+/** Published by PostService when a post is deleted. */
+public record PostDeletedEvent(Long postId, Long authorId) {
+}
@@ -0,0 +1,7 @@
+package com.skillshare.platform.event;
+
+import java.time.LocalDateTime;
+
+/** Published by PostService when a user shares a post; listeners run after the transaction commits. */
+public record PostSharedEvent(Long sharedPostId, Long postId, Long sharerId, LocalDateTime sharedAt) {
+}
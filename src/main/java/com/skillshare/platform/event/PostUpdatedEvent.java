@@ -0,0 +1,5 @@
+package com.skillshare.platform.event;
+
+/** Published by PostService when a post's content or media changed. */
+public record PostUpdatedEvent(Long postId) {
+}
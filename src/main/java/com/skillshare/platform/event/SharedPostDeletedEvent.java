@@ -0,0 +1,7 @@
+package com.skillshare.platform.event;
+
+import java.time.LocalDateTime;
+
+/** Published by PostService when a user deletes one of their shares; listeners run after the transaction commits. */
+public record SharedPostDeletedEvent(Long sharedPostId, Long sharerId, LocalDateTime sharedAt) {
+}
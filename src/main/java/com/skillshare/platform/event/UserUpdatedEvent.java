@@ -0,0 +1,5 @@
+package com.skillshare.platform.event;
+
+/** Published by UserService when a user's profile (name, email, bio or photo) or active flag changed. */
+public record UserUpdatedEvent(Long userId) {
+}
@@ -10,7 +10,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"user", "post"})
 @Data
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = {
+    @Index(name = "idx_comments_post_created_at", columnList = "post_id, created_at")
+})
 public class Comment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
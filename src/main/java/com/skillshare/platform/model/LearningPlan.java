@@ -20,6 +20,9 @@ public class LearningPlan {
     private String resources;
     private String timeline;
     private LocalDateTime createdAt;
+    // Bumped when the plan is created or edited; the search index replays plans changed since its
+    // last commit from it. Null on rows older than the column
+    private LocalDateTime updatedAt;
     private LocalDateTime startDate;
     private LocalDateTime endDate;
     private boolean extended;
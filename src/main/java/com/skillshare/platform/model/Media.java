@@ -19,6 +19,14 @@ public class Media {
     private String url;
     private String type; // "image" or "video"
 
+    // Set by MediaDerivativeService once an image has been resized; null until then
+    private Integer width;
+    private Integer height;
+    @Column(length = 2048)
+    private String srcset;
+    @Column(length = 4096)
+    private String placeholder;
+
     @ManyToOne
     @JoinColumn(name = "post_id")
     @JsonIgnore
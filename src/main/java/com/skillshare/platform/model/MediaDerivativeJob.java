@@ -0,0 +1,27 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/** A queued request to make the resized copies of one image {@link Media}. */
+@Data
+@Entity
+@Table(name = "media_derivative_jobs", indexes = {
+    @Index(name = "idx_media_derivative_jobs_run_after", columnList = "run_after")
+})
+public class MediaDerivativeJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long mediaId;
+    private int attempts;
+
+    // Not picked up before this; claiming pushes it out by a lease, so a crashed worker's jobs come back
+    @Column(name = "run_after")
+    private LocalDateTime runAfter;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One stored file, keyed by the SHA-256 of its content. Identical uploads share the
+ * object; {@code refCount} is the number of {@link Media} rows and profile photos using it.
+ */
+@Data
+@Entity
+@Table(name = "media_objects")
+public class MediaObject {
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    private String filename;
+    private String contentType;
+    private long size;
+    private int refCount;
+
+    // Last time these bytes were uploaded, referenced or not
+    private LocalDateTime storedAt;
+}
@@ -14,7 +14,12 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"user", "mediaFiles", "comments"})
 @Data
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+    // Backs the keyset-paginated feed: ORDER BY created_at DESC, id DESC
+    @Index(name = "idx_posts_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_posts_user_created_at", columnList = "user_id, created_at"),
+    @Index(name = "idx_posts_updated_at", columnList = "updated_at")
+})
 public class Post {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,14 +27,28 @@ public class Post {
 
     private String content;
 
+    // Maintained by LikeCounterBuffer with atomic increments; never read-modify-written
     private int likes;
 
+    // Never initialized on read paths: "liked by me" is resolved per page with
+    // PostRepository.findLikedPostIds against the join table instead
     @JsonIgnore
     @ManyToMany
+    @JoinTable(
+        name = "posts_liked_users",
+        joinColumns = @JoinColumn(name = "post_id"),
+        inverseJoinColumns = @JoinColumn(name = "liked_users_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_posts_liked_users_post_user", columnNames = {"post_id", "liked_users_id"}),
+        indexes = @Index(name = "idx_posts_liked_users_user_post", columnList = "liked_users_id, post_id")
+    )
     private Set<User> likedUsers = new HashSet<>();
 
     private LocalDateTime createdAt;
 
+    // Bumped whenever anything shown in the post's DTO changes (content, media, comments,
+    // flushed likes); the source of its ETag and Last-Modified. Null on rows older than the column
+    private LocalDateTime updatedAt;
+
     private boolean isLiked; // New field to indicate if the user liked the post
 
     @ManyToOne
@@ -10,7 +10,11 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"user", "originalPost"})
 @Data
 @Entity
-@Table(name = "shared_posts")
+@Table(name = "shared_posts", indexes = {
+    @Index(name = "idx_shared_posts_user_shared_at", columnList = "user_id, shared_at"),
+    // Answers "is there a later share of this post by this user" for activity de-duplication
+    @Index(name = "idx_shared_posts_user_post_shared_at", columnList = "user_id, post_id, shared_at")
+})
 public class SharedPost {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
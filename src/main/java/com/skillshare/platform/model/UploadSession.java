@@ -0,0 +1,37 @@
+package com.skillshare.platform.model;
+
+import lombok.Data;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A resumable upload in progress. Chunks are written into a staged file of the full
+ * {@code size}; {@code received} is how much of it is in place. Once complete, the file
+ * becomes a {@link Media} row with no post, which a new post can claim by its id.
+ */
+@Data
+@Entity
+@Table(name = "upload_sessions", indexes = {
+    @Index(name = "idx_upload_sessions_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_upload_sessions_media_id", columnList = "media_id")
+})
+public class UploadSession {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    private Long userId;
+    private long size;
+    private long received;
+
+    // Set once the upload has been finished and stored
+    @Column(name = "media_id")
+    private Long mediaId;
+
+    private LocalDateTime createdAt;
+
+    // Pushed out by every chunk; after it, the session and any unclaimed media are removed
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+}
@@ -3,6 +3,7 @@ package com.skillshare.platform.model;
 import lombok.Data;
 import lombok.ToString;
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,8 +12,13 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @ToString(exclude = {"posts", "learningPlans", "progressUpdates", "followers", "following", "sharedPosts"})
 @Data
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_updated_at", columnList = "updated_at")
+})
 public class User {
+    public static final String ROLE_USER = "USER";
+    public static final String ROLE_ADMIN = "ADMIN";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,9 +38,19 @@ public class User {
     // Flag to determine if account is active
     private boolean active = true;
 
+    // "USER" or "ADMIN"; only admins may call /api/admin/**. Granted directly in the database
+    private String role = ROLE_USER;
+
     // Profile photo URL
     private String profilePhotoUrl;
 
+    // Bumped on profile edits and follow changes; feeds embedding the user are versioned by it
+    private LocalDateTime updatedAt;
+
+    // Denormalized user_followers counts, changed in the same transaction as the edge row
+    private int followerCount;
+    private int followingCount;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonIgnore
     private List<Post> posts = new ArrayList<>();
@@ -51,7 +67,9 @@ public class User {
     @JoinTable(
         name = "user_followers",
         joinColumns = @JoinColumn(name = "user_id"),
-        inverseJoinColumns = @JoinColumn(name = "follower_id")
+        inverseJoinColumns = @JoinColumn(name = "follower_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_followers_user_follower", columnNames = {"user_id", "follower_id"}),
+        indexes = @Index(name = "idx_user_followers_follower_user", columnList = "follower_id, user_id")
     )
     @JsonIgnore
     private List<User> followers = new ArrayList<>();
@@ -1,10 +1,88 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Comment;
-import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByPostId(Long postId);
+
+    // Authors are resolved through UserSummaryLoader, so the users table is not joined
+    @Query("SELECT c.post.id AS postId, c.id AS id, c.content AS content, c.createdAt AS createdAt, c.user.id AS userId " +
+           "FROM Comment c WHERE c.post.id IN :postIds ORDER BY c.createdAt, c.id")
+    List<CommentView> findViewsByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT c.post.id AS postId, c.id AS id, c.content AS content, c.createdAt AS createdAt, c.user.id AS userId " +
+           "FROM Comment c WHERE c.id IN :ids ORDER BY c.createdAt, c.id")
+    List<CommentView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Ids of the newest :limit comments of each post, resolved with a single window-function scan
+    @Query(value = "SELECT ranked.id FROM (" +
+                   "  SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.post_id ORDER BY c.created_at DESC, c.id DESC) AS rn" +
+                   "  FROM comments c WHERE c.post_id IN (:postIds)" +
+                   ") ranked WHERE ranked.rn <= :limit",
+           nativeQuery = true)
+    List<Long> findLatestIdsPerPost(@Param("postIds") Collection<Long> postIds, @Param("limit") int limit);
+
+    @Query("SELECT c.post.id AS postId, COUNT(c) AS total FROM Comment c WHERE c.post.id IN :postIds GROUP BY c.post.id")
+    List<PostCommentCount> countByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    // Comments are shown with their author's current name and photo, so a profile edit changes them
+    @Query("SELECT MAX(u.updatedAt) FROM Comment c JOIN c.user u WHERE c.post.id IN :postIds")
+    LocalDateTime findLastCommenterUpdateByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT MAX(u.updatedAt) FROM Comment c JOIN c.user u")
+    LocalDateTime findLastCommenterUpdate();
+
+    @Query("SELECT c.id AS id, c.post.id AS postId, c.user.id AS authorId, c.createdAt AS createdAt, c.content AS content " +
+           "FROM Comment c WHERE c.id = :commentId")
+    Optional<CommentSearchSource> findSearchSourceById(@Param("commentId") Long commentId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.id AS id, c.post.id AS postId, c.user.id AS authorId, c.createdAt AS createdAt, c.content AS content " +
+           "FROM Comment c")
+    Stream<CommentSearchSource> streamSearchSources();
+
+    // Comment changes touch their post, so these are all comments that may have changed since
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.id AS id, c.post.id AS postId, c.user.id AS authorId, c.createdAt AS createdAt, c.content AS content " +
+           "FROM Comment c WHERE c.post.updatedAt >= :since")
+    Stream<CommentSearchSource> streamSearchSourcesOfPostsUpdatedSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.post.id AS postId, c.createdAt AS occurredAt FROM Comment c WHERE c.createdAt >= :since")
+    Stream<PostRepository.PostEngagement> streamEngagementsSince(@Param("since") LocalDateTime since);
+
+    interface CommentView {
+        Long getPostId();
+        Long getId();
+        String getContent();
+        LocalDateTime getCreatedAt();
+        Long getUserId();
+    }
+
+    interface PostCommentCount {
+        Long getPostId();
+        Long getTotal();
+    }
+
+    interface CommentSearchSource {
+        Long getId();
+        Long getPostId();
+        Long getAuthorId();
+        LocalDateTime getCreatedAt();
+        String getContent();
+    }
 }
@@ -1,7 +1,46 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.LearningPlan;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.QueryHint;
 
 public interface LearningPlanRepository extends JpaRepository<LearningPlan, Long> {
-}
\ No newline at end of file
+
+    // Text and metadata for the search index, without loading plans or their tasks
+    @Query("SELECT l.id AS id, l.user.id AS authorId, l.createdAt AS createdAt, l.topic AS topic, l.resources AS resources " +
+           "FROM LearningPlan l WHERE l.id = :planId")
+    Optional<LearningPlanSearchSource> findSearchSourceById(@Param("planId") Long planId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l.id AS id, l.user.id AS authorId, l.createdAt AS createdAt, l.topic AS topic, l.resources AS resources " +
+           "FROM LearningPlan l")
+    Stream<LearningPlanSearchSource> streamSearchSources();
+
+    // Plans changed since the search index's last commit, and every id, to replay what a crash lost
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l.id AS id, l.user.id AS authorId, l.createdAt AS createdAt, l.topic AS topic, l.resources AS resources " +
+           "FROM LearningPlan l WHERE l.updatedAt >= :since")
+    Stream<LearningPlanSearchSource> streamSearchSourcesUpdatedSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT l.id FROM LearningPlan l")
+    Stream<Long> streamIds();
+
+    interface LearningPlanSearchSource {
+        Long getId();
+        Long getAuthorId();
+        LocalDateTime getCreatedAt();
+        String getTopic();
+        String getResources();
+    }
+}
@@ -0,0 +1,27 @@
+package com.skillshare.platform.repository;
+
+import com.skillshare.platform.model.MediaDerivativeJob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface MediaDerivativeJobRepository extends JpaRepository<MediaDerivativeJob, Long> {
+
+    @Query("SELECT j FROM MediaDerivativeJob j WHERE j.runAfter <= :now ORDER BY j.runAfter, j.id")
+    List<MediaDerivativeJob> findDue(@Param("now") LocalDateTime now, Pageable limit);
+
+    // Only one poller can move run_after away from the value it read
+    @Modifying
+    @Query("UPDATE MediaDerivativeJob j SET j.runAfter = :leaseUntil WHERE j.id = :id AND j.runAfter = :seen")
+    int claim(@Param("id") Long id, @Param("seen") LocalDateTime seen, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE MediaDerivativeJob j SET j.attempts = j.attempts + 1, j.runAfter = :retryAt WHERE j.id = :id")
+    int reschedule(@Param("id") Long id, @Param("retryAt") LocalDateTime retryAt);
+}
@@ -0,0 +1,39 @@
+package com.skillshare.platform.repository;
+
+import com.skillshare.platform.model.MediaObject;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface MediaObjectRepository extends JpaRepository<MediaObject, String> {
+
+    // A repeated upload of the same bytes only refreshes stored_at
+    @Modifying
+    @Query(value = "INSERT INTO media_objects (sha256, filename, content_type, size, ref_count, stored_at) " +
+                   "VALUES (:sha256, :filename, :contentType, :size, 0, :storedAt) " +
+                   "ON DUPLICATE KEY UPDATE stored_at = :storedAt", nativeQuery = true)
+    int upsert(@Param("sha256") String sha256, @Param("filename") String filename,
+               @Param("contentType") String contentType, @Param("size") long size,
+               @Param("storedAt") LocalDateTime storedAt);
+
+    @Modifying
+    @Query("UPDATE MediaObject o SET o.refCount = o.refCount + :delta WHERE o.sha256 = :sha256")
+    int adjustRefCount(@Param("sha256") String sha256, @Param("delta") int delta);
+
+    // Keyset pages of objects nothing counts as referencing, last stored before the cutoff
+    @Query("SELECT o FROM MediaObject o WHERE o.refCount <= 0 AND o.storedAt < :cutoff AND o.sha256 > :after " +
+           "ORDER BY o.sha256")
+    List<MediaObject> findUnreferenced(@Param("cutoff") LocalDateTime cutoff, @Param("after") String after,
+                                       Pageable limit);
+
+    // Rechecked at delete time; a retain or a repeated upload since the page was read keeps the object
+    @Modifying
+    @Query("DELETE FROM MediaObject o WHERE o.sha256 = :sha256 AND o.refCount <= 0 AND o.storedAt < :cutoff")
+    int deleteUnreferenced(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff);
+}
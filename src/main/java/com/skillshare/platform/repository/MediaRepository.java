@@ -1,7 +1,69 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Media;
+
+import jakarta.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface MediaRepository extends JpaRepository<Media, Long> {
-}
\ No newline at end of file
+
+    @Query("SELECT m.post.id AS postId, m.url AS url, m.type AS type, m.width AS width, m.height AS height, " +
+           "m.srcset AS srcset, m.placeholder AS placeholder FROM Media m WHERE m.post.id IN :postIds ORDER BY m.id")
+    List<PostMediaView> findViewsByPostIdIn(@Param("postIds") Collection<Long> postIds);
+
+    @Query("SELECT m.id AS id, m.post.id AS postId, m.url AS url, m.type AS type FROM Media m WHERE m.id = :id")
+    Optional<MediaSourceView> findSourceById(@Param("id") Long id);
+
+    // Derivatives already made for the same file, e.g. a duplicate upload in another post
+    @Query("SELECT m.width AS width, m.height AS height, m.srcset AS srcset, m.placeholder AS placeholder " +
+           "FROM Media m WHERE m.url = :url AND m.srcset IS NOT NULL")
+    List<DerivativesView> findDerivativesByUrl(@Param("url") String url, Pageable limit);
+
+    @Modifying
+    @Query("UPDATE Media m SET m.width = :width, m.height = :height, m.srcset = :srcset, " +
+           "m.placeholder = :placeholder WHERE m.id = :id")
+    int saveDerivatives(@Param("id") Long id, @Param("width") Integer width, @Param("height") Integer height,
+                        @Param("srcset") String srcset, @Param("placeholder") String placeholder);
+
+    // Every stored file URL, for marking live files before a garbage collection sweep
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT m.url FROM Media m")
+    Stream<String> streamUrls();
+
+    // Media of a finished upload that no post has claimed
+    @Modifying
+    @Query("DELETE FROM Media m WHERE m.id = :id AND m.post IS NULL")
+    int deleteUnclaimed(@Param("id") Long id);
+
+    interface PostMediaView extends DerivativesView {
+        Long getPostId();
+        String getUrl();
+        String getType();
+    }
+
+    interface MediaSourceView {
+        Long getId();
+        Long getPostId();
+        String getUrl();
+        String getType();
+    }
+
+    interface DerivativesView {
+        Integer getWidth();
+        Integer getHeight();
+        String getSrcset();
+        String getPlaceholder();
+    }
+}
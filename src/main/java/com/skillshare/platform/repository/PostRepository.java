@@ -2,10 +2,208 @@ package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.Post;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
     List<Post> findAllByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC")
+    List<Post> findAllWithUser();
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.user.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findByUserIdWithUser(@Param("userId") Long userId);
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.id IN :ids")
+    List<Post> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Newest posts of a set of authors as (id, createdAt) pairs, for timeline hydration and pull-on-read
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt FROM Post p WHERE p.user.id IN :authorIds " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<TimelineSeed> findTimelineSeeds(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt FROM Post p WHERE p.user.id IN :authorIds " +
+           "AND p.createdAt <= :before ORDER BY p.createdAt DESC, p.id DESC")
+    List<TimelineSeed> findTimelineSeedsBefore(@Param("authorIds") Collection<Long> authorIds,
+                                               @Param("before") LocalDateTime before,
+                                               Pageable pageable);
+
+    // One author's posts after a position in their activity feed. At exactly :createdAt only ids
+    // below :idBound are left, which lets the caller resume from a post or a share cursor
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt FROM Post p WHERE p.user.id = :userId " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :idBound)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<TimelineSeed> findActivitySeedsAfter(@Param("userId") Long userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("idBound") Long idBound,
+                                              Pageable pageable);
+
+    // Keyset pagination over (createdAt, id); only the page size is requested from the database
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedFirstPage(Pageable pageable);
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findFeedPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+
+    // Forward-only scans for exports. PostExportService enables cursor fetch on its connection, so
+    // the fetch size makes MySQL return rows through a server-side cursor instead of buffering them
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user ORDER BY p.id")
+    Stream<Post> streamAllWithUser();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.user WHERE p.user.id = :userId ORDER BY p.id")
+    Stream<Post> streamByUserIdWithUser(@Param("userId") Long userId);
+
+    // Text and metadata for the search index, without loading entities
+    @Query("SELECT p.id AS id, p.user.id AS authorId, p.createdAt AS createdAt, p.content AS content " +
+           "FROM Post p WHERE p.id = :postId")
+    Optional<PostSearchSource> findSearchSourceById(@Param("postId") Long postId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS id, p.user.id AS authorId, p.createdAt AS createdAt, p.content AS content FROM Post p")
+    Stream<PostSearchSource> streamSearchSources();
+
+    // Posts changed since the search index's last commit, and every id, to replay what a crash lost
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS id, p.user.id AS authorId, p.createdAt AS createdAt, p.content AS content FROM Post p " +
+           "WHERE p.updatedAt >= :since")
+    Stream<PostSearchSource> streamSearchSourcesUpdatedSince(@Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id FROM Post p")
+    Stream<Long> streamIds();
+
+    // Seeds the trending ranking. Like edges carry no timestamp, so a recent post's likes are
+    // replayed at its creation time
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS postId, p.createdAt AS occurredAt, p.likes AS likes FROM Post p " +
+           "WHERE p.createdAt >= :since AND p.likes > 0")
+    Stream<PostLikeTotal> streamLikeTotalsSince(@Param("since") LocalDateTime since);
+
+    // Subset of postIds the user has liked, answered from the likes join table alone
+    @Query("SELECT p.id FROM Post p JOIN p.likedUsers u WHERE u.id = :userId AND p.id IN :postIds")
+    Set<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    // Like edges are written directly; the unique (post_id, liked_users_id) key makes a repeated like a no-op
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO posts_liked_users (post_id, liked_users_id) VALUES (:postId, :userId)", nativeQuery = true)
+    int insertLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM posts_liked_users WHERE post_id = :postId AND liked_users_id = :userId", nativeQuery = true)
+    int deleteLike(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Post p SET p.likes = p.likes + :delta, p.updatedAt = :now WHERE p.id = :postId")
+    int addLikes(@Param("postId") Long postId, @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    // Marks the post changed for conditional GETs when something it embeds (e.g. comments) changes
+    @Transactional
+    @Modifying
+    @Query("UPDATE Post p SET p.updatedAt = :now WHERE p.id = :postId")
+    int touch(@Param("postId") Long postId, @Param("now") LocalDateTime now);
+
+    // Cheap version data for conditional GETs, read without building any DTO
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.likes AS likes, " +
+           "u.updatedAt AS authorUpdatedAt FROM Post p LEFT JOIN p.user u WHERE p.id = :postId")
+    Optional<PostVersion> findVersionById(@Param("postId") Long postId);
+
+    // Version rows of one feed page, walking the same (created_at, id) index range as the page itself
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.likes AS likes, " +
+           "u.updatedAt AS authorUpdatedAt FROM Post p LEFT JOIN p.user u ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostVersion> findFeedFirstPageVersions(Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.likes AS likes, " +
+           "u.updatedAt AS authorUpdatedAt FROM Post p LEFT JOIN p.user u " +
+           "WHERE p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostVersion> findFeedPageVersionsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query("SELECT p.id AS id, p.createdAt AS createdAt, p.updatedAt AS updatedAt, p.likes AS likes, " +
+           "u.updatedAt AS authorUpdatedAt FROM Post p JOIN p.user u WHERE u.id = :userId " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PostVersion> findVersionsByUserId(@Param("userId") Long userId);
+
+    // The unpaged post list shows every post, so only an aggregate over all of them can version it
+    @Query("SELECT COUNT(p) AS total, MAX(p.createdAt) AS lastCreatedAt, MAX(p.updatedAt) AS lastUpdatedAt, " +
+           "MAX(u.updatedAt) AS lastAuthorUpdatedAt FROM Post p LEFT JOIN p.user u")
+    PostSetVersion findAllPostsVersion();
+
+    @Query("SELECT p.likes FROM Post p WHERE p.id = :postId")
+    Optional<Integer> findLikesById(@Param("postId") Long postId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE posts p SET p.likes = (SELECT COUNT(*) FROM posts_liked_users l WHERE l.post_id = p.id)", nativeQuery = true)
+    int recountLikes();
+
+    // One timestamped engagement (comment, share) with a post
+    interface PostEngagement {
+        Long getPostId();
+        LocalDateTime getOccurredAt();
+    }
+
+    interface PostLikeTotal {
+        Long getPostId();
+        LocalDateTime getOccurredAt();
+        int getLikes();
+    }
+
+    interface TimelineSeed {
+        Long getId();
+        LocalDateTime getCreatedAt();
+    }
+
+    interface PostSearchSource {
+        Long getId();
+        Long getAuthorId();
+        LocalDateTime getCreatedAt();
+        String getContent();
+    }
+
+    interface PostVersion {
+        Long getId();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        int getLikes();
+        LocalDateTime getAuthorUpdatedAt();
+    }
+
+    // A deletion lowers the total and a creation raises lastCreatedAt, so both show up
+    interface PostSetVersion {
+        long getTotal();
+        LocalDateTime getLastCreatedAt();
+        LocalDateTime getLastUpdatedAt();
+        LocalDateTime getLastAuthorUpdatedAt();
+    }
+}
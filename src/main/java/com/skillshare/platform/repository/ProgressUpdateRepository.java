@@ -1,7 +1,23 @@
 package com.skillshare.platform.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import com.skillshare.platform.model.ProgressUpdate;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ProgressUpdateRepository extends JpaRepository<ProgressUpdate, Long> {
-}
\ No newline at end of file
+
+    // Raw skill lists of the users' progress updates, for matching people by skill
+    @Query("SELECT p.user.id AS userId, p.newSkills AS newSkills FROM ProgressUpdate p " +
+           "WHERE p.user.id IN :userIds AND p.newSkills IS NOT NULL")
+    List<UserSkills> findSkillsByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    interface UserSkills {
+        Long getUserId();
+        String getNewSkills();
+    }
+}
@@ -1,15 +1,64 @@
 package com.skillshare.platform.repository;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.model.SharedPost;
 import com.skillshare.platform.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface SharedPostRepository extends JpaRepository<SharedPost, Long> {
+    // Keeps only a user's latest share of each original post
+    String LATEST_SHARE_OF_POST = "NOT EXISTS (SELECT n.id FROM SharedPost n WHERE n.user = s.user " +
+           "AND n.originalPost = s.originalPost AND (n.sharedAt > s.sharedAt OR (n.sharedAt = s.sharedAt AND n.id > s.id)))";
+
     List<SharedPost> findByUserOrderBySharedAtDesc(User user);
     List<SharedPost> findByUserIdOrderBySharedAtDesc(Long userId);
+
+    @Query("SELECT s FROM SharedPost s JOIN FETCH s.user JOIN FETCH s.originalPost p LEFT JOIN FETCH p.user " +
+           "WHERE s.user.id = :userId ORDER BY s.sharedAt DESC")
+    List<SharedPost> findWithPostsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT s FROM SharedPost s JOIN FETCH s.user JOIN FETCH s.originalPost p LEFT JOIN FETCH p.user " +
+           "WHERE s.id IN :ids")
+    List<SharedPost> findWithPostsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT s.id AS id, s.sharedAt AS createdAt FROM SharedPost s WHERE s.user.id IN :userIds " +
+           "ORDER BY s.sharedAt DESC, s.id DESC")
+    List<PostRepository.TimelineSeed> findTimelineSeeds(@Param("userIds") Collection<Long> userIds, Pageable pageable);
+
+    @Query("SELECT s.id AS id, s.sharedAt AS createdAt FROM SharedPost s WHERE s.user.id IN :userIds " +
+           "AND s.sharedAt <= :before ORDER BY s.sharedAt DESC, s.id DESC")
+    List<PostRepository.TimelineSeed> findTimelineSeedsBefore(@Param("userIds") Collection<Long> userIds,
+                                                              @Param("before") LocalDateTime before,
+                                                              Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s.originalPost.id AS postId, s.sharedAt AS occurredAt FROM SharedPost s WHERE s.sharedAt >= :since")
+    Stream<PostRepository.PostEngagement> streamEngagementsSince(@Param("since") LocalDateTime since);
+
+    // A user's shares for their activity feed, repeated shares of one post collapsed to the latest
+    @Query("SELECT s.id AS id, s.sharedAt AS createdAt FROM SharedPost s WHERE s.user.id = :userId " +
+           "AND " + LATEST_SHARE_OF_POST + " ORDER BY s.sharedAt DESC, s.id DESC")
+    List<PostRepository.TimelineSeed> findActivitySeeds(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT s.id AS id, s.sharedAt AS createdAt FROM SharedPost s WHERE s.user.id = :userId " +
+           "AND (s.sharedAt < :sharedAt OR (s.sharedAt = :sharedAt AND s.id < :idBound)) " +
+           "AND " + LATEST_SHARE_OF_POST + " ORDER BY s.sharedAt DESC, s.id DESC")
+    List<PostRepository.TimelineSeed> findActivitySeedsAfter(@Param("userId") Long userId,
+                                                             @Param("sharedAt") LocalDateTime sharedAt,
+                                                             @Param("idBound") Long idBound,
+                                                             Pageable pageable);
 }
\ No newline at end of file
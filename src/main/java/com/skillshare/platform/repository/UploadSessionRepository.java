@@ -0,0 +1,43 @@
+package com.skillshare.platform.repository;
+
+import com.skillshare.platform.model.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    Optional<UploadSession> findByIdAndUserId(String id, Long userId);
+
+    @Query("SELECT s FROM UploadSession s WHERE s.expiresAt < :now ORDER BY s.expiresAt")
+    List<UploadSession> findExpired(@Param("now") LocalDateTime now, Pageable limit);
+
+    // Only the request that wrote from the offset last read can move it on
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.received = :received, s.expiresAt = :expiresAt " +
+           "WHERE s.id = :id AND s.received = :seen AND s.mediaId IS NULL")
+    int advance(@Param("id") String id, @Param("seen") long seen, @Param("received") long received,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.mediaId = :mediaId, s.expiresAt = :expiresAt " +
+           "WHERE s.id = :id AND s.mediaId IS NULL")
+    int complete(@Param("id") String id, @Param("mediaId") Long mediaId, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Claiming and expiry both delete the session; whichever deletes it owns the media
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.userId = :userId AND s.mediaId IN :mediaIds")
+    int deleteCompleted(@Param("userId") Long userId, @Param("mediaIds") Collection<Long> mediaIds);
+
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.id = :id AND s.expiresAt < :now")
+    int deleteExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+}
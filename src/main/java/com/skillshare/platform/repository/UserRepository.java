@@ -1,9 +1,122 @@
 package com.skillshare.platform.repository;
 
 import com.skillshare.platform.model.User;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+
+    @Query("SELECT u.id AS id, u.email AS email, u.name AS name, u.active AS active FROM User u WHERE u.email = :email")
+    Optional<UserIdentity> findIdentityByEmail(@Param("email") String email);
+
+    // Every profile photo URL, for marking live files before a garbage collection sweep
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.profilePhotoUrl FROM User u WHERE u.profilePhotoUrl IS NOT NULL")
+    Stream<String> streamProfilePhotoUrls();
+
+    // Every follow edge, for rebuilding the in-memory follow graph
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT f.id AS followerId, u.id AS followeeId FROM User u JOIN u.followers f")
+    Stream<FollowEdge> streamFollowEdges();
+
+    // Follow edges are written directly; the unique (user_id, follower_id) key makes a repeated follow a no-op
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_followers (user_id, follower_id) VALUES (:userId, :followerId)", nativeQuery = true)
+    int insertFollower(@Param("userId") Long userId, @Param("followerId") Long followerId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM user_followers WHERE user_id = :userId AND follower_id = :followerId", nativeQuery = true)
+    int deleteFollower(@Param("userId") Long userId, @Param("followerId") Long followerId);
+
+    // One statement for both users, so concurrent follows lock the two rows in key order.
+    // Never below zero, should a counter have missed an edge
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET " +
+           "u.followingCount = GREATEST(u.followingCount + CASE WHEN u.id = :followerId THEN :delta ELSE 0 END, 0), " +
+           "u.followerCount = GREATEST(u.followerCount + CASE WHEN u.id = :followeeId THEN :delta ELSE 0 END, 0), " +
+           "u.updatedAt = :now " +
+           "WHERE u.id IN (:followerId, :followeeId)")
+    int adjustFollowCounts(@Param("followerId") Long followerId,
+                           @Param("followeeId") Long followeeId,
+                           @Param("delta") int delta,
+                           @Param("now") LocalDateTime now);
+
+    // Reconciliation: recompute both counters from the join table
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+                   "u.follower_count = (SELECT COUNT(*) FROM user_followers f WHERE f.user_id = u.id), " +
+                   "u.following_count = (SELECT COUNT(*) FROM user_followers f WHERE f.follower_id = u.id)",
+           nativeQuery = true)
+    int recountFollows();
+
+    // Each total equals the number of user_followers rows while the counters are in step
+    @Query("SELECT COALESCE(SUM(u.followerCount), 0) AS followers, COALESCE(SUM(u.followingCount), 0) AS following FROM User u")
+    FollowCountTotals sumFollowCounts();
+
+    @Query("SELECT u.id AS id, u.name AS name, u.profilePhotoUrl AS profilePhotoUrl FROM User u WHERE u.id IN :userIds")
+    List<UserSummaryView> findSummariesByIdIn(@Param("userIds") Collection<Long> userIds);
+
+    // Keyset pages of a user's followers, highest id first; :afterId is the last id of the previous page
+    @Query("SELECT f.id AS id, f.name AS name, f.profilePhotoUrl AS profilePhotoUrl FROM User u JOIN u.followers f " +
+           "WHERE u.id = :userId AND f.id < :afterId ORDER BY f.id DESC")
+    List<UserSummaryView> findFollowerSummaries(@Param("userId") Long userId,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.name AS name, u.profilePhotoUrl AS profilePhotoUrl FROM User u JOIN u.followers f " +
+           "WHERE f.id = :userId AND u.id < :afterId ORDER BY u.id DESC")
+    List<UserSummaryView> findFollowingSummaries(@Param("userId") Long userId,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    @Query("SELECT u.id AS id, u.updatedAt AS updatedAt FROM User u WHERE u.id = :userId")
+    Optional<UserVersion> findVersionById(@Param("userId") Long userId);
+
+    interface UserIdentity {
+        Long getId();
+        String getEmail();
+        String getName();
+        Boolean getActive();
+    }
+
+    interface FollowCountTotals {
+        long getFollowers();
+        long getFollowing();
+    }
+
+    interface FollowEdge {
+        Long getFollowerId();
+        Long getFolloweeId();
+    }
+
+    interface UserSummaryView {
+        Long getId();
+        String getName();
+        String getProfilePhotoUrl();
+    }
+
+    interface UserVersion {
+        Long getId();
+        LocalDateTime getUpdatedAt();
+    }
+}
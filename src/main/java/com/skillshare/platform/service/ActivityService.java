@@ -0,0 +1,112 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.TimelineSeed;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A user's own posts and shares as one feed, newest first. Each page reads at most one
+ * page plus one row from each source, both walking their (user, time) index, and merges
+ * them. Repeated shares of the same post are collapsed to the latest one in the query,
+ * so page sizes and cursors are not disturbed by the de-duplication.
+ */
+@Service
+public class ActivityService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    public FeedPageDTO<FeedItemDTO> getActivity(Long userId, Long viewerId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with ID: " + userId);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Entry after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            FeedCursor position = FeedCursor.decode(cursor);
+            if (position.getType() == null) {
+                throw new IllegalArgumentException("Invalid feed cursor");
+            }
+            after = new Entry(position.getType(), position.getId(), position.getCreatedAt());
+        }
+
+        // Ask each source for one extra row to learn whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<TimelineSeed> posts = after == null
+                ? postRepository.findTimelineSeeds(List.of(userId), limit)
+                : postRepository.findActivitySeedsAfter(userId, after.timestamp(), idBound(after, FeedItemDTO.TYPE_POST), limit);
+        List<TimelineSeed> shares = after == null
+                ? sharedPostRepository.findActivitySeeds(userId, limit)
+                : sharedPostRepository.findActivitySeedsAfter(userId, after.timestamp(), idBound(after, FeedItemDTO.TYPE_SHARE), limit);
+
+        List<Entry> page = merge(toEntries(FeedItemDTO.TYPE_POST, posts), toEntries(FeedItemDTO.TYPE_SHARE, shares), pageSize + 1);
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Entry last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.timestamp(), last.id(), last.type()).encode();
+        }
+        return new FeedPageDTO<>(postMapper.toFeedItems(page, viewerId), nextCursor);
+    }
+
+    /*
+     * At the cursor's timestamp, items of the cursor's own type continue below its id. Posts
+     * order before shares at equal timestamps (TimelineStore.NEWEST_FIRST), so after a share
+     * every post at that instant was already served, and after a post none of the shares were.
+     */
+    private static long idBound(Entry after, String type) {
+        if (type.equals(after.type())) {
+            return after.id();
+        }
+        return FeedItemDTO.TYPE_POST.equals(type) ? 0 : Long.MAX_VALUE;
+    }
+
+    private static List<Entry> toEntries(String type, List<TimelineSeed> seeds) {
+        List<Entry> entries = new ArrayList<>(seeds.size());
+        seeds.forEach(seed -> entries.add(new Entry(type, seed.getId(), seed.getCreatedAt())));
+        return entries;
+    }
+
+    // Both inputs are already newest first, so only their heads are ever compared
+    private static List<Entry> merge(List<Entry> posts, List<Entry> shares, int limit) {
+        List<Entry> merged = new ArrayList<>(Math.min(limit, posts.size() + shares.size()));
+        int p = 0;
+        int s = 0;
+        while (merged.size() < limit && (p < posts.size() || s < shares.size())) {
+            if (s == shares.size()
+                    || (p < posts.size() && TimelineStore.NEWEST_FIRST.compare(posts.get(p), shares.get(s)) <= 0)) {
+                merged.add(posts.get(p++));
+            } else {
+                merged.add(shares.get(s++));
+            }
+        }
+        return merged;
+    }
+}
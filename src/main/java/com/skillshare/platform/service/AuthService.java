@@ -5,20 +5,17 @@ import com.skillshare.platform.dto.RegistrationRequest;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.List;
 
 @Service
 public class AuthService {
@@ -32,8 +29,14 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AuthService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     public User registerUser(RegistrationRequest registrationRequest, MultipartFile profilePhoto) {
         // Check if user already exists
@@ -52,18 +55,16 @@ public class AuthService {
 
         // Handle profile photo upload
         if (profilePhoto != null && !profilePhoto.isEmpty()) {
-            try {
-                String fileName = UUID.randomUUID().toString() + "_" + profilePhoto.getOriginalFilename();
-                Path filePath = Paths.get(uploadDir).toAbsolutePath().normalize().resolve(fileName);
-                Files.createDirectories(filePath.getParent());
-                Files.write(filePath, profilePhoto.getBytes());
-                user.setProfilePhotoUrl("/media/" + fileName);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload profile photo", e);
-            }
+            user.setProfilePhotoUrl(fileStorageService.uploadProfilePhoto(profilePhoto).url());
         }
 
-        return userRepository.save(user);
+        return transactionTemplate.execute(status -> {
+            User saved = userRepository.save(user);
+            if (saved.getProfilePhotoUrl() != null) {
+                fileStorageService.retain(List.of(saved.getProfilePhotoUrl()));
+            }
+            return saved;
+        });
     }
 
     public User authenticateUser(LoginRequest loginRequest) {
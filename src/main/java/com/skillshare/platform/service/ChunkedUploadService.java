@@ -0,0 +1,300 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.UploadSession;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.MediaSourceView;
+import com.skillshare.platform.repository.UploadSessionRepository;
+import com.skillshare.platform.service.FileStorageService.StoredFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable uploads, for files too large to send in one multipart request. A session
+ * stages a file of the declared size under {@code .sessions} in the upload directory;
+ * each chunk is written in place at its offset, so a dropped connection costs only the
+ * chunk in flight, and each request holds a thread only for one bounded chunk. A complete
+ * upload is stored like any other and becomes a {@link Media} row without a post, which
+ * {@link PostService} claims by id. Sessions nobody finishes or claims expire.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final int EXPIRY_BATCH = 100;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${media.chunked.max-size:1GB}")
+    private DataSize maxSize;
+
+    @Value("${media.chunked.max-chunk-size:8MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${media.chunked.session-ttl:PT24H}")
+    private Duration sessionTtl;
+
+    // Sessions with a chunk being written or a completion running on this instance
+    private final Set<String> busy = ConcurrentHashMap.newKeySet();
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ChunkedUploadService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public UploadSessionDTO create(Long userId, long size) {
+        if (size <= 0 || size > maxSize.toBytes()) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxSize.toBytes() + " bytes");
+        }
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setSize(size);
+        session.setCreatedAt(LocalDateTime.now());
+        session.setExpiresAt(session.getCreatedAt().plus(sessionTtl));
+
+        Path staged = stagedPath(session.getId());
+        try {
+            Files.createDirectories(staged.getParent());
+            // Sized up front, so every chunk is a write at its offset and completion never copies
+            try (RandomAccessFile file = new RandomAccessFile(staged.toFile(), "rw")) {
+                file.setLength(size);
+            }
+            uploadSessionRepository.save(session);
+        } catch (IOException | RuntimeException e) {
+            deleteStaged(staged);
+            throw e instanceof RuntimeException runtime ? runtime
+                : new RuntimeException("Failed to start upload: " + e.getMessage(), e);
+        }
+        return toDTO(session, null);
+    }
+
+    public UploadSessionDTO status(String id, Long userId) {
+        UploadSession session = find(id, userId);
+        String url = session.getMediaId() == null ? null : mediaRepository.findSourceById(session.getMediaId())
+                .map(MediaSourceView::getUrl)
+                .orElse(null);
+        return toDTO(session, url);
+    }
+
+    /**
+     * Writes a chunk starting at {@code offset}, which must be where the last one ended.
+     * At most {@code media.chunked.max-chunk-size} bytes are taken, and if the body breaks
+     * off, what arrived is kept; the returned offset says where to continue either way.
+     */
+    public UploadSessionDTO append(String id, Long userId, long offset, InputStream body) {
+        UploadSession session = find(id, userId);
+        if (session.getMediaId() != null) {
+            throw new IllegalStateException("Upload is already complete");
+        }
+        if (offset != session.getReceived()) {
+            throw new IllegalStateException("Expected offset " + session.getReceived() + ", got " + offset);
+        }
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Another chunk of this upload is being written");
+        }
+        try {
+            long end = offset + Math.min(maxChunkSize.toBytes(), session.getSize() - offset);
+            long position = offset;
+            try (FileChannel file = FileChannel.open(stagedPath(id), StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(body)) {
+                try {
+                    long transferred;
+                    while (position < end
+                            && (transferred = file.transferFrom(source, position, Math.min(TRANSFER_CHUNK, end - position))) > 0) {
+                        position += transferred;
+                    }
+                } catch (IOException e) {
+                    logger.debug("Chunk of upload {} broke off at {}: {}", id, position, e.getMessage());
+                }
+                // On disk before the offset says so, or a crash could leave a hole the client never resends
+                file.force(false);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write upload " + id + ": " + e.getMessage(), e);
+            }
+
+            long received = position;
+            LocalDateTime expiresAt = LocalDateTime.now().plus(sessionTtl);
+            Integer advanced = transactionTemplate.execute(status ->
+                uploadSessionRepository.advance(id, offset, received, expiresAt));
+            if (advanced == null || advanced == 0) {
+                throw new IllegalStateException("Upload " + id + " changed while the chunk was written");
+            }
+            session.setReceived(received);
+            session.setExpiresAt(expiresAt);
+            return toDTO(session, null);
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Stores a fully received upload and creates its {@link Media} row. Completing twice
+     * returns the same media, so a client that lost the first response can simply retry.
+     */
+    public UploadSessionDTO complete(String id, Long userId) {
+        UploadSession session = find(id, userId);
+        if (session.getMediaId() != null) {
+            return status(id, userId);
+        }
+        if (session.getReceived() < session.getSize()) {
+            throw new IllegalStateException("Upload is incomplete: " + session.getReceived()
+                + " of " + session.getSize() + " bytes received");
+        }
+        if (!busy.add(id)) {
+            throw new IllegalStateException("Upload is still being written");
+        }
+        try {
+            Path staged = stagedPath(id);
+            // Hashing and storing run before the transaction, as for multipart uploads
+            StoredFile stored = fileStorageService.uploadStagedFile(staged);
+            LocalDateTime expiresAt = LocalDateTime.now().plus(sessionTtl);
+            Media media = transactionTemplate.execute(status -> {
+                Media created = new Media();
+                created.setUrl(stored.url());
+                created.setType(stored.isImage() ? "image" : "video");
+                mediaRepository.save(created);
+                if (uploadSessionRepository.complete(id, created.getId(), expiresAt) == 0) {
+                    throw new IllegalStateException("Upload " + id + " is gone or was completed elsewhere");
+                }
+                fileStorageService.retain(List.of(stored.url()));
+                return created;
+            });
+            deleteStaged(staged);
+            session.setMediaId(media.getId());
+            session.setExpiresAt(expiresAt);
+            return toDTO(session, media.getUrl());
+        } finally {
+            busy.remove(id);
+        }
+    }
+
+    /**
+     * Hands the media of the user's completed uploads to a post being saved, in the order
+     * given; call in its transaction. Each upload can be claimed once.
+     */
+    public List<Media> claim(Long userId, List<Long> mediaIds) {
+        if (mediaIds == null || mediaIds.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>(mediaIds);
+        // Rolled back with the post if the count is short
+        if (uploadSessionRepository.deleteCompleted(userId, ids) != ids.size()) {
+            throw new IllegalArgumentException("Unknown, expired or already used upload among " + ids);
+        }
+        Map<Long, Media> media = mediaRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Media::getId, Function.identity()));
+        List<Media> claimed = new ArrayList<>(ids.size());
+        ids.forEach(mediaId -> claimed.add(media.get(mediaId)));
+        return claimed;
+    }
+
+    @Scheduled(fixedDelayString = "${media.chunked.cleanup-interval-ms:600000}")
+    public void expireSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        List<UploadSession> batch;
+        do {
+            batch = uploadSessionRepository.findExpired(now, PageRequest.of(0, EXPIRY_BATCH));
+            for (UploadSession session : batch) {
+                if (expire(session, now)) {
+                    expired++;
+                }
+            }
+        } while (batch.size() == EXPIRY_BATCH);
+        if (expired > 0) {
+            logger.info("Expired {} upload sessions", expired);
+        }
+    }
+
+    private boolean expire(UploadSession session, LocalDateTime now) {
+        Boolean deleted = transactionTemplate.execute(status -> {
+            // Lost to a post claiming the upload, or to a chunk that pushed the expiry out
+            if (uploadSessionRepository.deleteExpired(session.getId(), now) == 0) {
+                return false;
+            }
+            if (session.getMediaId() != null) {
+                String url = mediaRepository.findSourceById(session.getMediaId())
+                        .map(MediaSourceView::getUrl)
+                        .orElse(null);
+                if (url != null && mediaRepository.deleteUnclaimed(session.getMediaId()) > 0) {
+                    fileStorageService.release(List.of(url));
+                }
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(deleted)) {
+            return false;
+        }
+        deleteStaged(stagedPath(session.getId()));
+        return true;
+    }
+
+    private UploadSession find(String id, Long userId) {
+        return uploadSessionRepository.findByIdAndUserId(id, userId)
+                .orElseThrow(() -> new NoSuchElementException("Upload not found: " + id));
+    }
+
+    private Path stagedPath(String id) {
+        return Paths.get(uploadDir).toAbsolutePath().normalize().resolve(".sessions").resolve(id + ".part");
+    }
+
+    private static void deleteStaged(Path staged) {
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            logger.warn("Failed to delete staged upload {}: {}", staged, e.getMessage());
+        }
+    }
+
+    private static UploadSessionDTO toDTO(UploadSession session, String url) {
+        return new UploadSessionDTO(session.getId(), session.getSize(), session.getReceived(),
+            session.getExpiresAt(), session.getMediaId(), url);
+    }
+}
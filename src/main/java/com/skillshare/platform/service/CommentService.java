@@ -1,17 +1,23 @@
 package com.skillshare.platform.service;
 
 import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.event.CommentChangedEvent;
+import com.skillshare.platform.event.CommentChangedEvent.Change;
 import com.skillshare.platform.model.Comment;
 import com.skillshare.platform.model.Post;
-import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.CommentRepository.CommentView;
 import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,53 +35,62 @@ public class CommentService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private UserSummaryLoader userSummaryLoader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<CommentDTO> findByPostId(Long postId) {
-    return commentRepository.findByPostId(postId).stream()
-        .map(comment -> new CommentDTO(
-            comment.getId(),
-            comment.getContent(),
-            comment.getCreatedAt(),
-            comment.getUser().getName()
-        ))
-        .collect(Collectors.toList());
+        List<CommentView> views = commentRepository.findViewsByPostIdIn(List.of(postId));
+        Map<Long, UserSummaryDTO> users = userSummaryLoader.loadAll(
+            views.stream().map(CommentView::getUserId).collect(Collectors.toList()));
+        return views.stream()
+                .map(view -> {
+                    UserSummaryDTO user = users.get(view.getUserId());
+                    return new CommentDTO(view.getId(), view.getContent(), view.getCreatedAt(),
+                        user != null ? user.getName() : null, user);
+                })
+                .collect(Collectors.toList());
     }
 
-
-    public Comment createComment(Long postId, String email, String content) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public Comment createComment(Long postId, CurrentUser author, String content) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         Comment comment = new Comment();
         comment.setContent(content);
-        comment.setUser(user);
+        comment.setUser(userRepository.getReferenceById(author.id()));
         comment.setPost(post);
         comment.setCreatedAt(LocalDateTime.now());
         Comment savedComment = commentRepository.save(comment);
-        notificationService.createNotification(post.getUser(), user.getName() + " commented on your post!");
+        postRepository.touch(postId, LocalDateTime.now());
+        eventPublisher.publishEvent(new CommentChangedEvent(savedComment.getId(), postId, Change.CREATED));
+        notificationService.createNotification(post.getUser(), author.name() + " commented on your post!");
         return savedComment;
     }
 
-    public Comment updateComment(Long commentId, String email, String content) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public Comment updateComment(Long commentId, Long userId, String content) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
-        if (!comment.getUser().getId().equals(user.getId())) {
+        if (!comment.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         comment.setContent(content);
-        return commentRepository.save(comment);
+        Comment savedComment = commentRepository.save(comment);
+        postRepository.touch(comment.getPost().getId(), LocalDateTime.now());
+        eventPublisher.publishEvent(new CommentChangedEvent(savedComment.getId(), comment.getPost().getId(), Change.UPDATED));
+        return savedComment;
     }
 
-    public void deleteComment(Long commentId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public void deleteComment(Long commentId, Long userId) {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
-        if (!comment.getUser().getId().equals(user.getId()) && !comment.getPost().getUser().getId().equals(user.getId())) {
+        if (!comment.getUser().getId().equals(userId) && !comment.getPost().getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
+        Long postId = comment.getPost().getId();
         commentRepository.delete(comment);
+        postRepository.touch(postId, LocalDateTime.now());
+        eventPublisher.publishEvent(new CommentChangedEvent(commentId, postId, Change.DELETED));
     }
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.event.UserUpdatedEvent;
+import com.skillshare.platform.repository.UserRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded email to {@link CurrentUser} cache behind the per-request principal lookup.
+ * Only active users resolve. Entries are dropped when the user is updated, which covers
+ * email changes and deactivation, and a TTL bounds staleness from edits made elsewhere.
+ */
+@Component
+public class CurrentUserCache {
+
+    private final Cache<String, CurrentUser> users;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public CurrentUserCache(@Value("${cache.current-users.max-size:10000}") long maxSize,
+                            @Value("${cache.current-users.ttl:PT10M}") Duration ttl) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /** The active user with this email; unknown and deactivated accounts are not cached. */
+    public Optional<CurrentUser> resolve(String email) {
+        return Optional.ofNullable(users.get(email, key -> userRepository.findIdentityByEmail(key)
+                .filter(user -> Boolean.TRUE.equals(user.getActive()))
+                .map(user -> new CurrentUser(user.getId(), user.getEmail(), user.getName()))
+                .orElse(null)));
+    }
+
+    public void evictUser(Long userId) {
+        users.asMap().values().removeIf(user -> user.id().equals(userId));
+    }
+
+    public Map<String, Object> stats() {
+        return PostCache.describe(users);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        evictUser(event.userId());
+    }
+}
@@ -3,13 +3,17 @@ package com.skillshare.platform.service;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
@@ -27,6 +31,7 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
         String picture = oauth2User.getAttribute("picture"); // For Google OAuth
         String provider = userRequest.getClientRegistration().getRegistrationId();
         
+        User user = null;
         if (email != null) {
             // Check if user exists
             Optional<User> userOptional = userRepository.findByEmail(email);
@@ -42,11 +47,12 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                 newUser.setProfilePhotoUrl(picture != null ? picture : ""); // Set profile photo URL
                 
                 // Save the new user
-                userRepository.save(newUser);
+                user = userRepository.save(newUser);
                 System.out.println("Created new OAuth user: " + email);
             } else {
                 // Update existing user's OAuth provider and profile photo if needed
                 User existingUser = userOptional.get();
+                user = existingUser;
                 if (existingUser.getProvider() == null || !existingUser.getProvider().equals(provider)) {
                     existingUser.setProvider(provider);
                     existingUser.setProfilePhotoUrl(picture != null ? picture : existingUser.getProfilePhotoUrl());
@@ -56,6 +62,15 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
             }
         }
         
-        return oauth2User;
+        if (user == null) {
+            return oauth2User;
+        }
+
+        // The provider's authorities, plus the roles form login would grant this user
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>(oauth2User.getAuthorities());
+        authorities.addAll(CustomUserDetailsService.authoritiesOf(user));
+        String nameAttribute = userRequest.getClientRegistration().getProviderDetails()
+                .getUserInfoEndpoint().getUserNameAttributeName();
+        return new DefaultOAuth2User(authorities, oauth2User.getAttributes(), nameAttribute);
     }
 }
\ No newline at end of file
@@ -3,13 +3,15 @@ package com.skillshare.platform.service;
 import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -32,7 +34,17 @@ public class CustomUserDetailsService implements UserDetailsService {
                 user.getPassword(),
                 user.isActive(),
                 true, true, true,
-                Collections.singleton(new SimpleGrantedAuthority("ROLE_USER"))
+                authoritiesOf(user)
         );
     }
+
+    /** ROLE_USER for everyone, plus ROLE_ADMIN for admins; rows from before the role column count as users. */
+    public static List<GrantedAuthority> authoritiesOf(User user) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_" + User.ROLE_USER));
+        if (User.ROLE_ADMIN.equals(user.getRole())) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + User.ROLE_ADMIN));
+        }
+        return authorities;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,276 @@
+package com.skillshare.platform.service;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An S3 bucket kept in a local directory, for running {@link S3MediaStorage} and its
+ * multipart uploads without a network. It covers only the calls the storage makes, checks
+ * part sizes the way S3 does, and can add a fixed latency to every call so that load
+ * tests show the effect of part concurrency. Enabled with {@code media.storage.s3.fake-dir}.
+ */
+public class FakeS3Client implements S3Client {
+
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final Path root;
+    private final Path uploads;
+    private final Duration latency;
+    private final AtomicLong requests = new AtomicLong();
+
+    public FakeS3Client(Path root, Duration latency) {
+        this.root = root.toAbsolutePath().normalize();
+        this.uploads = this.root.resolve(".uploads");
+        this.latency = latency;
+        try {
+            Files.createDirectories(uploads);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Calls served so far. */
+    public long requestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+        call();
+        write(body, objectPath(request.bucket(), request.key()));
+        return PutObjectResponse.builder().build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        call();
+        String uploadId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(uploads.resolve(uploadId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CreateMultipartUploadResponse.builder()
+                .bucket(request.bucket())
+                .key(request.key())
+                .uploadId(uploadId)
+                .build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+        call();
+        Path part = uploadPath(request.uploadId()).resolve(String.valueOf(request.partNumber()));
+        write(body, part);
+        try {
+            return UploadPartResponse.builder()
+                    .eTag("\"" + request.partNumber() + "-" + Files.size(part) + "\"")
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        call();
+        Path upload = uploadPath(request.uploadId());
+        List<CompletedPart> parts = request.multipartUpload().parts();
+        Path target = objectPath(request.bucket(), request.key());
+        try {
+            Path assembled = Files.createTempFile(uploads, "complete-", ".part");
+            try (OutputStream out = Files.newOutputStream(assembled)) {
+                int expected = 1;
+                for (CompletedPart part : parts) {
+                    if (part.partNumber() != expected++) {
+                        throw error(400, "InvalidPartOrder", "Parts must be listed in ascending order");
+                    }
+                    Path partFile = upload.resolve(String.valueOf(part.partNumber()));
+                    if (!Files.exists(partFile)) {
+                        throw error(400, "InvalidPart", "Part " + part.partNumber() + " was not uploaded");
+                    }
+                    if (part.partNumber() < parts.size() && Files.size(partFile) < MIN_PART_SIZE) {
+                        throw error(400, "EntityTooSmall", "Part " + part.partNumber() + " is smaller than 5MB");
+                    }
+                    Files.copy(partFile, out);
+                }
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(assembled, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            deleteUpload(upload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CompleteMultipartUploadResponse.builder().bucket(request.bucket()).key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        call();
+        try {
+            deleteUpload(uploadPath(request.uploadId()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        call();
+        Path path = existing(request.bucket(), request.key());
+        try {
+            return HeadObjectResponse.builder().contentLength(Files.size(path)).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                       ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        call();
+        Path path = existing(request.bucket(), request.key());
+        try {
+            GetObjectResponse response = GetObjectResponse.builder().contentLength(Files.size(path)).build();
+            return transformer.transform(response, AbortableInputStream.create(Files.newInputStream(path)));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read " + request.key() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+        return getObject(request, ResponseTransformer.toInputStream());
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        call();
+        try {
+            Files.deleteIfExists(objectPath(request.bucket(), request.key()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void call() {
+        requests.incrementAndGet();
+        if (!latency.isZero()) {
+            try {
+                Thread.sleep(latency.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted", e);
+            }
+        }
+    }
+
+    private static void write(RequestBody body, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "put-", ".part");
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path existing(String bucket, String key) {
+        Path path = objectPath(bucket, key);
+        if (!Files.isRegularFile(path)) {
+            throw (NoSuchKeyException) NoSuchKeyException.builder()
+                    .statusCode(404)
+                    .message("The specified key does not exist: " + key)
+                    .build();
+        }
+        return path;
+    }
+
+    private Path objectPath(String bucket, String key) {
+        Path bucketPath = root.resolve(bucket).normalize();
+        Path path = bucketPath.resolve(key).normalize();
+        if (!bucketPath.startsWith(root) || !path.startsWith(bucketPath) || path.equals(bucketPath)) {
+            throw error(400, "InvalidArgument", "Invalid key: " + key);
+        }
+        return path;
+    }
+
+    private Path uploadPath(String uploadId) {
+        Path path = uploads.resolve(uploadId).normalize();
+        if (!path.startsWith(uploads) || !Files.isDirectory(path)) {
+            throw (NoSuchUploadException) NoSuchUploadException.builder()
+                    .statusCode(404)
+                    .message("No such upload: " + uploadId)
+                    .build();
+        }
+        return path;
+    }
+
+    private static void deleteUpload(Path upload) throws IOException {
+        if (!Files.exists(upload)) {
+            return;
+        }
+        try (var files = Files.list(upload)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(upload);
+    }
+
+    private static S3Exception error(int status, String code, String message) {
+        return (S3Exception) S3Exception.builder()
+                .statusCode(status)
+                .message(code + ": " + message)
+                .build();
+    }
+}
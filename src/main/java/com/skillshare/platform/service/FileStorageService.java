@@ -1,47 +1,380 @@
 package com.skillshare.platform.service;
 
+import com.skillshare.platform.repository.MediaObjectRepository;
+
+import jakarta.transaction.Transactional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+/**
+ * The one place uploads are received. The multipart stream is staged in the upload
+ * directory with {@link FileChannel#transferFrom} in bounded chunks, so a file is never
+ * held on the heap. The type is sniffed from the first bytes rather than taken from the
+ * client, and the size limit is enforced while copying. Complete files are handed to the
+ * configured {@link MediaStorage}.
+ *
+ * <p>Files are content-addressed: the name is the SHA-256 of the bytes, computed while
+ * they are copied, so a repeated upload finds its file already stored and only refreshes
+ * the {@code media_objects} row. Since a URL always means the same bytes, it can be cached
+ * forever. Shared files are never deleted here; callers {@link #retain} and {@link #release}
+ * the URLs they store, and objects nothing references are left for garbage collection.
+ */
 @Service
 public class FileStorageService {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+
+    private static final int SNIFF_BYTES = 16;
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+        "image/jpeg", ".jpg",
+        "image/png", ".png",
+        "image/gif", ".gif",
+        "image/webp", ".webp",
+        "video/mp4", ".mp4",
+        "video/quicktime", ".mov",
+        "video/webm", ".webm");
+
+    // Names of content-addressed files; anything else predates them
+    private static final Pattern CONTENT_NAME = Pattern.compile("([0-9a-f]{64})\\.[a-z0-9]+");
+
+    // A derivative's name is its source's base name with the width appended
+    private static final Pattern DERIVATIVE_BASE = Pattern.compile("(.+)-w\\d+");
+
+    /** A file in the upload directory; {@code contentType} is the sniffed type. */
+    public record StoredFile(String url, String filename, String contentType, long size) {
+        public boolean isImage() {
+            return contentType.startsWith("image/");
+        }
+    }
+
     @Value("${file.upload-dir:uploads}")
     private String uploadDir;
-    
+
     @Value("${file.base-url:http://localhost:8081/media}")
     private String baseUrl;
-    
-    public String uploadFile(MultipartFile file) {
+
+    @Value("${file.max-media-size:10MB}")
+    private DataSize maxMediaSize;
+
+    @Value("${file.max-photo-size:5MB}")
+    private DataSize maxPhotoSize;
+
+    @Autowired
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    // Striped by hash: storing takes the read side, so uploads never wait on each other, and
+    // garbage collection the write side, so it cannot delete an object an upload just found
+    private final ReadWriteLock[] objectLocks = new ReadWriteLock[64];
+
+    private final TransactionTemplate transactionTemplate;
+
+    public FileStorageService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < objectLocks.length; i++) {
+            objectLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /** Stores an image or video attached to a post. */
+    public StoredFile uploadFile(MultipartFile file) {
+        return store(file, true, maxMediaSize.toBytes(), false);
+    }
+
+    /**
+     * Stores a profile photo; only images are accepted. The URL is relative to this
+     * server, whatever the storage, as clients expect for profile photos.
+     */
+    public StoredFile uploadProfilePhoto(MultipartFile file) {
+        return store(file, false, maxPhotoSize.toBytes(), true);
+    }
+
+    /**
+     * Stores a file made from an uploaded one, such as a resized image. The name should be
+     * derived from the source's, so regenerating it yields the same file and URL.
+     */
+    public String storeDerivative(String filename, String contentType, byte[] content) {
+        Path uploadPath = uploadPath();
+        Path temp = null;
         try {
-            // Create upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+            Files.createDirectories(uploadPath);
+            temp = Files.createTempFile(uploadPath, "derivative-", ".part");
+            Files.write(temp, content);
+            mediaStorage.put(filename, temp, contentType);
+            temp = null;
+            return mediaStorage.urlOf(filename);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store derivative: " + e.getMessage(), e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    /** The stored name behind a URL this service handed out, or null for any other URL. */
+    public String nameOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        String name;
+        String storageUrl = mediaStorage.urlOf("");
+        if (url.startsWith(storageUrl)) {
+            name = url.substring(storageUrl.length());
+        } else if (url.startsWith(baseUrl + "/")) {
+            name = url.substring(baseUrl.length() + 1);
+        } else if (url.startsWith("/media/")) {
+            name = url.substring("/media/".length());
+        } else {
+            return null;
+        }
+        return isValidName(name) ? name : null;
+    }
+
+    /** A stored file's bytes; {@link java.nio.file.NoSuchFileException} when it is gone. */
+    public InputStream open(String name) throws IOException {
+        return mediaStorage.open(name);
+    }
+
+    /** Whether a name could be a stored one: a single path segment, not hidden. */
+    public static boolean isValidName(String name) {
+        return !name.isEmpty() && !name.startsWith(".") && name.indexOf('/') < 0 && name.indexOf('\\') < 0;
+    }
+
+    /**
+     * Runs {@code action} while no upload of the object with this hash is between finding
+     * it stored and refreshing its {@code media_objects} row, for deleting the object safely.
+     */
+    public <T> T exclusively(String sha256, Supplier<T> action) {
+        Lock lock = lockFor(sha256).writeLock();
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReadWriteLock lockFor(String sha256) {
+        return objectLocks[Math.floorMod(sha256.hashCode(), objectLocks.length)];
+    }
+
+    /** A stored name without its extension and, for a derivative, the width: what it shares with its source. */
+    public static String baseNameOf(String name) {
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        Matcher derivative = DERIVATIVE_BASE.matcher(base);
+        return derivative.matches() ? derivative.group(1) : base;
+    }
+
+    /** Counts one more reference to each content-addressed URL; other URLs are ignored. */
+    @Transactional
+    public void retain(Collection<String> urls) {
+        adjust(urls, 1);
+    }
+
+    /** Drops one reference to each content-addressed URL; other URLs are ignored. */
+    @Transactional
+    public void release(Collection<String> urls) {
+        adjust(urls, -1);
+    }
+
+    private void adjust(Collection<String> urls, int delta) {
+        // Sorted, so concurrent adjustments lock rows in the same order
+        Map<String, Long> counts = urls.stream()
+                .map(FileStorageService::contentHashOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+        counts.forEach((sha256, count) -> mediaObjectRepository.adjustRefCount(sha256, delta * count.intValue()));
+    }
+
+    /** The content hash a URL's file is named after, or null for files stored before hashing. */
+    static String contentHashOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        Matcher name = CONTENT_NAME.matcher(url.substring(url.lastIndexOf('/') + 1));
+        return name.matches() ? name.group(1) : null;
+    }
+
+    private StoredFile store(MultipartFile file, boolean allowVideo, long maxBytes, boolean profilePhoto) {
+        Path uploadPath = uploadPath();
+        Path temp = null;
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            byte[] head = new byte[SNIFF_BYTES];
+            int headLength = in.readNBytes(head, 0, head.length);
+            String contentType = sniff(head, headLength);
+            if (contentType == null || (!allowVideo && !contentType.startsWith("image/"))) {
+                throw new IllegalArgumentException("Unsupported file type: " + file.getOriginalFilename());
+            }
+
+            Files.createDirectories(uploadPath);
+            temp = Files.createTempFile(uploadPath, "upload-", ".part");
+            long size = headLength;
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(in)) {
+                target.write(ByteBuffer.wrap(head, 0, headLength));
+                // Never ask for more than one byte past the limit, so an oversized upload stops there
+                long transferred;
+                while ((transferred = target.transferFrom(source, size, Math.min(TRANSFER_CHUNK, maxBytes + 1 - size))) > 0) {
+                    size += transferred;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("File is larger than " + maxBytes + " bytes: "
+                            + file.getOriginalFilename());
+                    }
+                }
             }
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String filename = UUID.randomUUID().toString() + 
-                              (originalFilename != null ? "-" + originalFilename : "");
-            Path filePath = uploadPath.resolve(filename);
-            
-            // Save the file with overwrite option
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            // Return URL for accessing the file
-            return baseUrl + "/" + filename;
+
+            return commit(temp, contentType, HexFormat.of().formatHex(digest.digest()), size, profilePhoto);
         } catch (IOException e) {
-            e.printStackTrace();
-            throw new RuntimeException("Failed to store file locally: " + e.getMessage(), e);
+            throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    /**
+     * Stores a complete file assembled elsewhere, such as a finished chunked upload. It is
+     * read once more to sniff and hash it, and is moved into storage or, when the same bytes
+     * are already stored, left for the caller to delete.
+     */
+    public StoredFile uploadStagedFile(Path staged) {
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(staged), digest)) {
+            byte[] head = new byte[SNIFF_BYTES];
+            int headLength = in.readNBytes(head, 0, head.length);
+            String contentType = sniff(head, headLength);
+            if (contentType == null) {
+                throw new IllegalArgumentException("Unsupported file type");
+            }
+            long size = headLength + in.transferTo(OutputStream.nullOutputStream());
+            in.close();
+            return commit(staged, contentType, HexFormat.of().formatHex(digest.digest()), size, false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store file: " + e.getMessage(), e);
+        }
+    }
+
+    private StoredFile commit(Path staged, String contentType, String sha256, long size, boolean profilePhoto)
+            throws IOException {
+        String filename = sha256 + EXTENSIONS.get(contentType);
+        Lock lock = lockFor(sha256).readLock();
+        lock.lock();
+        try {
+            // A concurrent upload of the same bytes may store it too; the result is identical
+            if (!mediaStorage.exists(filename)) {
+                mediaStorage.put(filename, staged, contentType);
+            }
+            transactionTemplate.executeWithoutResult(status -> mediaObjectRepository.upsert(
+                sha256, filename, contentType, size, LocalDateTime.now()));
+        } finally {
+            lock.unlock();
+        }
+        String url = profilePhoto ? "/media/" + filename : mediaStorage.urlOf(filename);
+        return new StoredFile(url, filename, contentType, size);
+    }
+
+    private static void deleteTemp(Path temp) {
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                logger.warn("Failed to delete partial file {}: {}", temp, e.getMessage());
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Path uploadPath() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    /** Content type from the file's magic number, or null if it is not a supported image or video. */
+    static String sniff(byte[] head, int length) {
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
         }
+        if (startsWith(head, length, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (length >= 12 && startsWith(head, length, 'R', 'I', 'F', 'F') && ascii(head, 8, 4).equals("WEBP")) {
+            return "image/webp";
+        }
+        // ISO base media (MP4, MOV): a box size followed by "ftyp" and the major brand
+        if (length >= 12 && ascii(head, 4, 4).equals("ftyp")) {
+            return ascii(head, 8, 4).equals("qt  ") ? "video/quicktime" : "video/mp4";
+        }
+        if (startsWith(head, length, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return "video/webm";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] head, int offset, int length) {
+        return new String(Arrays.copyOfRange(head, offset, offset + length), StandardCharsets.US_ASCII);
     }
-}
\ No newline at end of file
+}
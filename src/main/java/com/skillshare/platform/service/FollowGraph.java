@@ -0,0 +1,161 @@
+package com.skillshare.platform.service;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of the {@code user_followers} table. Each user's followers and followees
+ * are kept as primitive long hash sets, so membership checks and counts are O(1) and
+ * nothing is boxed or loaded through JPA. {@link FollowService} is the only writer, and
+ * it changes the graph after the matching edge row has been written.
+ */
+@Component
+public class FollowGraph {
+
+    private static final long[] NONE = new long[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Long2ObjectOpenHashMap<LongOpenHashSet> followers = new Long2ObjectOpenHashMap<>();
+    private Long2ObjectOpenHashMap<LongOpenHashSet> following = new Long2ObjectOpenHashMap<>();
+
+    /** @return true if the edge was not already present */
+    public boolean add(long followerId, long followeeId) {
+        lock.writeLock().lock();
+        try {
+            boolean added = followers.computeIfAbsent(followeeId, id -> new LongOpenHashSet()).add(followerId);
+            following.computeIfAbsent(followerId, id -> new LongOpenHashSet()).add(followeeId);
+            return added;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** @return true if the edge was present */
+    public boolean remove(long followerId, long followeeId) {
+        lock.writeLock().lock();
+        try {
+            boolean removed = removeFrom(followers, followeeId, followerId);
+            removeFrom(following, followerId, followeeId);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isFollowing(long followerId, long followeeId) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet followees = following.get(followerId);
+            return followees != null && followees.contains(followeeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followerCount(long userId) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet ids = followers.get(userId);
+            return ids == null ? 0 : ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int followingCount(long userId) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet ids = following.get(userId);
+            return ids == null ? 0 : ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids of the users following {@code userId}, in no particular order. */
+    public long[] followerIds(long userId) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet ids = followers.get(userId);
+            return ids == null ? NONE : ids.toLongArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Ids of the users {@code userId} follows, in no particular order. */
+    public long[] followingIds(long userId) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet ids = following.get(userId);
+            return ids == null ? NONE : ids.toLongArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} of the users {@code userId} follows, in no particular order. */
+    public long[] followingIds(long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongOpenHashSet ids = following.get(userId);
+            if (ids == null) {
+                return NONE;
+            }
+            long[] result = new long[Math.min(limit, ids.size())];
+            LongIterator iterator = ids.iterator();
+            for (int i = 0; i < result.length; i++) {
+                result[i] = iterator.nextLong();
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole graph with the edges {@code source} feeds to its sink as
+     * (follower, followee) pairs. The new graph is built aside and swapped in, so readers
+     * see either the old or the new graph; writes made while it is built are not kept.
+     */
+    public long rebuild(Consumer<BiConsumer<Long, Long>> source) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> newFollowers = new Long2ObjectOpenHashMap<>();
+        Long2ObjectOpenHashMap<LongOpenHashSet> newFollowing = new Long2ObjectOpenHashMap<>();
+        long[] edges = {0};
+        source.accept((followerId, followeeId) -> {
+            if (newFollowers.computeIfAbsent((long) followeeId, id -> new LongOpenHashSet()).add((long) followerId)) {
+                newFollowing.computeIfAbsent((long) followerId, id -> new LongOpenHashSet()).add((long) followeeId);
+                edges[0]++;
+            }
+        });
+        newFollowers.values().forEach(LongOpenHashSet::trim);
+        newFollowing.values().forEach(LongOpenHashSet::trim);
+
+        lock.writeLock().lock();
+        try {
+            followers = newFollowers;
+            following = newFollowing;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return edges[0];
+    }
+
+    private static boolean removeFrom(Long2ObjectOpenHashMap<LongOpenHashSet> adjacency, long key, long value) {
+        LongOpenHashSet ids = adjacency.get(key);
+        if (ids == null || !ids.remove(value)) {
+            return false;
+        }
+        if (ids.isEmpty()) {
+            adjacency.remove(key);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.FollowCountTotals;
+import com.skillshare.platform.repository.UserRepository.FollowEdge;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Owns the follow edge in {@code user_followers}, the denormalized follower and following
+ * counts on {@code users}, and {@link FollowGraph}. Following or unfollowing writes or
+ * removes the single edge row and adjusts both counters in the same transaction; it never
+ * loads the {@code User.followers}/{@code following} collections. Edge writes for the same
+ * follower are serialized, so the graph is changed in the same order as the table. The
+ * graph is loaded from the table before the web server starts taking requests, and the
+ * counters are recounted then if their totals do not match the edges loaded.
+ */
+@Service
+public class FollowService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowService.class);
+
+    private static final int STRIPE_COUNT = 64;
+
+    private final Object[] stripes = new Object[STRIPE_COUNT];
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${follows.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTemplate;
+
+    public FollowService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long edges = rebuild();
+        if (reconcileOnStartup || !countsMatch(edges)) {
+            reconcileCounts();
+        }
+    }
+
+    // Totals off means the columns were just added, at zero, or rows were edited by hand
+    private boolean countsMatch(long edges) {
+        FollowCountTotals totals = readOnlyTemplate.execute(status -> userRepository.sumFollowCounts());
+        if (totals == null || (totals.getFollowers() == edges && totals.getFollowing() == edges)) {
+            return true;
+        }
+        logger.warn("Follow counters total {} followers and {} followings for {} edges",
+            totals.getFollowers(), totals.getFollowing(), edges);
+        return false;
+    }
+
+    // Counters only drift if rows are edited by hand, and they are filled once when the
+    // columns are added. Runs before requests are served, so no follow races it
+    void reconcileCounts() {
+        int updated = userRepository.recountFollows();
+        logger.info("Reconciled follow counters for {} users", updated);
+    }
+
+    public long rebuild() {
+        long started = System.currentTimeMillis();
+        Long edges = readOnlyTemplate.execute(status -> followGraph.rebuild(sink -> {
+            try (Stream<FollowEdge> stream = userRepository.streamFollowEdges()) {
+                stream.forEach(edge -> sink.accept(edge.getFollowerId(), edge.getFolloweeId()));
+            }
+        }));
+        logger.info("Loaded follow graph with {} edges in {} ms", edges, System.currentTimeMillis() - started);
+        return edges == null ? 0 : edges;
+    }
+
+    /**
+     * Makes {@code followerId} follow {@code followeeId}.
+     *
+     * @return true if the edge is new; both users' profiles then changed
+     */
+    public boolean follow(Long followerId, Long followeeId) {
+        synchronized (stripeFor(followerId)) {
+            if (followGraph.isFollowing(followerId, followeeId)) {
+                return false;
+            }
+            boolean inserted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (userRepository.insertFollower(followeeId, followerId) == 0) {
+                    return false;
+                }
+                userRepository.adjustFollowCounts(followerId, followeeId, 1, LocalDateTime.now());
+                return true;
+            }));
+            followGraph.add(followerId, followeeId);
+            return inserted;
+        }
+    }
+
+    /** @return true if there was an edge to remove */
+    public boolean unfollow(Long followerId, Long followeeId) {
+        synchronized (stripeFor(followerId)) {
+            boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (userRepository.deleteFollower(followeeId, followerId) == 0) {
+                    return false;
+                }
+                userRepository.adjustFollowCounts(followerId, followeeId, -1, LocalDateTime.now());
+                return true;
+            }));
+            followGraph.remove(followerId, followeeId);
+            return deleted;
+        }
+    }
+
+    public boolean isFollowing(Long followerId, Long followeeId) {
+        return followGraph.isFollowing(followerId, followeeId);
+    }
+
+    private Object stripeFor(Long followerId) {
+        return stripes[Math.floorMod(followerId.hashCode(), STRIPE_COUNT)];
+    }
+}
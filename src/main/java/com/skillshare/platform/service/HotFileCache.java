@@ -0,0 +1,61 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Contents of small, frequently served media files (thumbnails, placeholders, avatars),
+ * keyed by file name. Names are never reused for different bytes, so entries need no
+ * invalidation while the file exists. W-TinyLFU admission keeps one-off requests from
+ * pushing out the files everyone asks for; the total is bounded in bytes.
+ */
+@Component
+public class HotFileCache {
+
+    private final Cache<String, byte[]> files;
+    private final long maxFileSize;
+
+    public HotFileCache(@Value("${media.hot-cache.max-size:32MB}") DataSize maxSize,
+                        @Value("${media.hot-cache.max-file-size:256KB}") DataSize maxFileSize) {
+        this.maxFileSize = maxFileSize.toBytes();
+        this.files = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String name, byte[] content) -> content.length)
+                .recordStats()
+                .build();
+    }
+
+    /** The file's bytes, read on first use; null when it is too large to cache. */
+    public byte[] get(String filename, Path path, long size) {
+        if (size > maxFileSize) {
+            return null;
+        }
+        return files.get(filename, name -> {
+            try {
+                return Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public void invalidate(String filename) {
+        files.invalidate(filename);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = PostCache.describe(files);
+        stats.put("bytes", files.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L));
+        return stats;
+    }
+}
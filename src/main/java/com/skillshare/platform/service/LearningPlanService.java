@@ -2,13 +2,14 @@ package com.skillshare.platform.service;
 
 import com.skillshare.platform.dto.LearningPlanDTO;
 import com.skillshare.platform.dto.TaskDTO;
+import com.skillshare.platform.event.LearningPlanChangedEvent;
 import com.skillshare.platform.model.LearningPlan;
 import com.skillshare.platform.model.Task;
-import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.LearningPlanRepository;
 import com.skillshare.platform.repository.TaskRepository;
 import com.skillshare.platform.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -27,6 +28,9 @@ public class LearningPlanService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<LearningPlanDTO> findAll() {
         return learningPlanRepository.findAll().stream().map(plan -> {
             List<TaskDTO> taskDTOs = plan.getTasks().stream().map(task -> 
@@ -54,11 +58,9 @@ public class LearningPlanService {
         }).collect(Collectors.toList());
     }
 
-    public List<LearningPlanDTO> findByUserEmail(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+    public List<LearningPlanDTO> findByUserId(Long userId) {
         return learningPlanRepository.findAll().stream()
-                .filter(plan -> plan.getUser().getId().equals(user.getId()))
+                .filter(plan -> plan.getUser().getId().equals(userId))
                 .map(plan -> {
                     List<TaskDTO> taskDTOs = plan.getTasks().stream().map(task -> 
                         new TaskDTO(
@@ -85,21 +87,20 @@ public class LearningPlanService {
                 }).collect(Collectors.toList());
     }
 
-    public LearningPlan createPlan(String email, LearningPlan plan) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        plan.setUser(user);
+    public LearningPlan createPlan(Long userId, LearningPlan plan) {
+        plan.setUser(userRepository.getReferenceById(userId));
         plan.setCreatedAt(LocalDateTime.now());
+        plan.setUpdatedAt(plan.getCreatedAt());
         plan.getTasks().forEach(task -> task.setLearningPlan(plan));
-        return learningPlanRepository.save(plan);
+        LearningPlan savedPlan = learningPlanRepository.save(plan);
+        eventPublisher.publishEvent(new LearningPlanChangedEvent(savedPlan.getId()));
+        return savedPlan;
     }
 
-    public LearningPlan updatePlan(Long planId, String email, LearningPlan plan) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public LearningPlan updatePlan(Long planId, Long userId, LearningPlan plan) {
         LearningPlan existingPlan = learningPlanRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found"));
-        if (!existingPlan.getUser().getId().equals(user.getId())) {
+        if (!existingPlan.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         existingPlan.setTopic(plan.getTopic());
@@ -108,6 +109,7 @@ public class LearningPlanService {
         existingPlan.setStartDate(plan.getStartDate());
         existingPlan.setEndDate(plan.getEndDate());
         existingPlan.setExtended(plan.isExtended());
+        existingPlan.setUpdatedAt(LocalDateTime.now());
         
         // Update tasks
         existingPlan.getTasks().clear();
@@ -116,26 +118,25 @@ public class LearningPlanService {
             existingPlan.getTasks().add(task);
         });
         
-        return learningPlanRepository.save(existingPlan);
+        LearningPlan savedPlan = learningPlanRepository.save(existingPlan);
+        eventPublisher.publishEvent(new LearningPlanChangedEvent(savedPlan.getId()));
+        return savedPlan;
     }
 
-    public void deletePlan(Long planId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public void deletePlan(Long planId, Long userId) {
         LearningPlan plan = learningPlanRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found"));
-        if (!plan.getUser().getId().equals(user.getId())) {
+        if (!plan.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         learningPlanRepository.delete(plan);
+        eventPublisher.publishEvent(new LearningPlanChangedEvent(planId));
     }
 
-    public Task completeTask(Long taskId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public Task completeTask(Long taskId, Long userId) {
         Task task = taskRepository.findById(taskId)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
-        if (!task.getLearningPlan().getUser().getId().equals(user.getId())) {
+        if (!task.getLearningPlan().getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         task.setCompleted(true);
@@ -143,12 +144,10 @@ public class LearningPlanService {
         return taskRepository.save(task);
     }
 
-    public LearningPlan extendPlan(Long planId, String email, LocalDateTime newEndDate) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public LearningPlan extendPlan(Long planId, Long userId, LocalDateTime newEndDate) {
         LearningPlan plan = learningPlanRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Plan not found"));
-        if (!plan.getUser().getId().equals(user.getId())) {
+        if (!plan.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         plan.setEndDate(newEndDate);
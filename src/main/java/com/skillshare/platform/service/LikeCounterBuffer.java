@@ -0,0 +1,169 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.LikeCountsFlushedEvent;
+import com.skillshare.platform.repository.PostRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind aggregation of {@code posts.likes} deltas. Likes add to an in-memory delta
+ * in one of several lock stripes. A scheduled flush applies each post's accumulated delta
+ * with a single {@code UPDATE ... SET likes = likes + ?}, so a burst of likes on a hot
+ * post costs one statement per flush instead of one row lock per like.
+ *
+ * <p>Deltas that have been drained but not yet committed stay visible as "in flight".
+ * The per-stripe flush lock makes {@link #currentLikes} read the persisted value and the
+ * outstanding deltas as one consistent snapshot.
+ */
+@Component
+public class LikeCounterBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeCounterBuffer.class);
+
+    private static final int STRIPE_COUNT = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    // Changes on every like or unlike. Seeded from the clock so that deltas lost in a restart
+    // cannot leave a version tag that matches a response computed before it
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public LikeCounterBuffer(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(Long postId, int delta) {
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            stripe.pending.merge(postId, (long) delta, LikeCounterBuffer::sumOrRemove);
+        }
+        version.incrementAndGet();
+    }
+
+    /** Changes whenever a like count visible through {@link #pendingDelta} may have changed. */
+    public long version() {
+        return version.get();
+    }
+
+    /** Sum of deltas for the post that are not yet reflected in the database. */
+    public long pendingDelta(Long postId) {
+        Stripe stripe = stripeFor(postId);
+        synchronized (stripe) {
+            return stripe.pending.getOrDefault(postId, 0L) + stripe.inFlight.getOrDefault(postId, 0L);
+        }
+    }
+
+    /** Whether any delta is buffered or being flushed. */
+    public boolean hasPending() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.pending.isEmpty() || !stripe.inFlight.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** Exact like count: the persisted counter plus every delta not yet committed. */
+    public int currentLikes(Long postId) {
+        Stripe stripe = stripeFor(postId);
+        stripe.flushLock.readLock().lock();
+        try {
+            int persisted = postRepository.findLikesById(postId)
+                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            return (int) (persisted + pendingDelta(postId));
+        } finally {
+            stripe.flushLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${likes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        for (Stripe stripe : stripes) {
+            flushStripe(stripe);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void flushStripe(Stripe stripe) {
+        Map<Long, Long> drained;
+        synchronized (stripe) {
+            if (stripe.pending.isEmpty()) {
+                return;
+            }
+            drained = stripe.pending;
+            stripe.pending = new HashMap<>();
+            drained.forEach((postId, delta) -> stripe.inFlight.merge(postId, delta, LikeCounterBuffer::sumOrRemove));
+        }
+
+        boolean applied = false;
+        stripe.flushLock.writeLock().lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status ->
+                drained.forEach((postId, delta) -> postRepository.addLikes(postId, Math.toIntExact(delta), now)));
+            applied = true;
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} like counter deltas, will retry: {}", drained.size(), e.getMessage());
+        } finally {
+            synchronized (stripe) {
+                for (Map.Entry<Long, Long> entry : drained.entrySet()) {
+                    stripe.inFlight.merge(entry.getKey(), -entry.getValue(), LikeCounterBuffer::sumOrRemove);
+                    if (!applied) {
+                        stripe.pending.merge(entry.getKey(), entry.getValue(), LikeCounterBuffer::sumOrRemove);
+                    }
+                }
+            }
+            stripe.flushLock.writeLock().unlock();
+        }
+        if (applied) {
+            eventPublisher.publishEvent(new LikeCountsFlushedEvent(drained.keySet()));
+        }
+    }
+
+    private Stripe stripeFor(Long postId) {
+        return stripes[Math.floorMod(Long.hashCode(postId), STRIPE_COUNT)];
+    }
+
+    private static Long sumOrRemove(Long current, Long delta) {
+        long sum = current + delta;
+        return sum == 0 ? null : sum;
+    }
+
+    private static final class Stripe {
+        private Map<Long, Long> pending = new HashMap<>();
+        private final Map<Long, Long> inFlight = new HashMap<>();
+        private final ReentrantReadWriteLock flushLock = new ReentrantReadWriteLock();
+    }
+}
@@ -0,0 +1,80 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.LikeChangedEvent;
+import com.skillshare.platform.repository.PostRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Owns the like edge in {@code posts_liked_users} and the denormalized {@code posts.likes}
+ * counter. Toggling writes or removes the single edge row and never loads
+ * {@code Post.likedUsers}. Only an edge change that actually happened produces a counter
+ * delta, so concurrent duplicate requests cannot skew the count.
+ */
+@Service
+public class LikeService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeService.class);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${likes.reconcile-on-startup:false}")
+    private boolean reconcileOnStartup;
+
+    /**
+     * Flips the user's like on the post.
+     *
+     * @return true if the post is liked after the call
+     */
+    public boolean toggleLike(Long postId, Long userId) {
+        if (postRepository.deleteLike(postId, userId) > 0) {
+            likeCounterBuffer.add(postId, -1);
+            eventPublisher.publishEvent(new LikeChangedEvent(postId, userId, false));
+            return false;
+        }
+        if (postRepository.insertLike(postId, userId) > 0) {
+            likeCounterBuffer.add(postId, 1);
+            eventPublisher.publishEvent(new LikeChangedEvent(postId, userId, true));
+        }
+        // Zero rows inserted means a concurrent request already liked it
+        return true;
+    }
+
+    public int likeCount(Long postId) {
+        return likeCounterBuffer.currentLikes(postId);
+    }
+
+    /**
+     * Deltas still buffered when the process died are lost; opting in re-derives every
+     * counter from the edges. Runs once all beans exist but before the web server and the
+     * scheduled flush start, so no like can be both in the buffer and already recounted.
+     * Only safe while no other instance is serving likes.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (reconcileOnStartup) {
+            reconcileCounters();
+        }
+    }
+
+    void reconcileCounters() {
+        if (likeCounterBuffer.hasPending()) {
+            throw new IllegalStateException("Like counters cannot be recounted while deltas are buffered");
+        }
+        int updated = postRepository.recountLikes();
+        logger.info("Reconciled like counters for {} posts", updated);
+    }
+}
@@ -0,0 +1,148 @@
+package com.skillshare.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Media kept in {@code file.upload-dir} and served by {@code MediaController}. Files sit two
+ * directory levels down, as {@code ab/cd/name}, so no directory grows past a few thousand
+ * entries. The levels come from the first hex digits of the base name, which for content
+ * addressed names is already a hash; other names use a hash of it. Derivatives land next
+ * to their source. URLs carry only the name, so they are the same in either layout.
+ *
+ * <p>Files from the older flat layout stay readable at the top level until
+ * {@link UploadDirectoryMigrator} has moved them all into their shards.
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalMediaStorage implements MediaStorage {
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("[0-9a-f]{4}.*");
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${file.base-url:http://localhost:8081/media}")
+    private String baseUrl;
+
+    // Cleared by the migrator once no flat files are left, so lookups stop checking for them
+    private volatile boolean flatFilesLeft = true;
+
+    @Override
+    public void put(String name, Path file, String contentType) throws IOException {
+        Path target = shardedPath(name);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Names are derived from content, so what is there already is the same
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        return Files.exists(localPath(name));
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        try {
+            return Files.newInputStream(shardedPath(name));
+        } catch (NoSuchFileException e) {
+            if (!flatFilesLeft) {
+                throw e;
+            }
+            return Files.newInputStream(flatPath(name));
+        }
+    }
+
+    @Override
+    public void delete(String name) throws IOException {
+        Files.deleteIfExists(shardedPath(name));
+        if (flatFilesLeft) {
+            Files.deleteIfExists(flatPath(name));
+        }
+    }
+
+    @Override
+    public String urlOf(String name) {
+        return baseUrl + "/" + name;
+    }
+
+    /** Where the file is now: in its shard, or while migration runs, possibly still at the top level. */
+    @Override
+    public Path localPath(String name) {
+        Path sharded = shardedPath(name);
+        if (flatFilesLeft && !Files.exists(sharded)) {
+            Path flat = flatPath(name);
+            if (Files.exists(flat)) {
+                return flat;
+            }
+        }
+        return sharded;
+    }
+
+    Path shardedPath(String name) {
+        String shard = shardOf(name);
+        return resolve(shard.substring(0, 2), shard.substring(2, 4), name);
+    }
+
+    Path flatPath(String name) {
+        return resolve(name);
+    }
+
+    void flatFilesMigrated() {
+        flatFilesLeft = false;
+    }
+
+    Path uploadPath() {
+        return Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    private Path resolve(String... segments) {
+        String name = segments[segments.length - 1];
+        if (!FileStorageService.isValidName(name)) {
+            throw new IllegalArgumentException("Invalid media name: " + name);
+        }
+        Path uploadPath = uploadPath();
+        Path path = uploadPath;
+        for (String segment : segments) {
+            path = path.resolve(segment);
+        }
+        path = path.normalize();
+        if (!path.startsWith(uploadPath) || path.equals(uploadPath)) {
+            throw new IllegalArgumentException("Invalid media name: " + name);
+        }
+        return path;
+    }
+
+    // Four hex digits: 65536 directories, enough for a few hundred million files
+    static String shardOf(String name) {
+        String base = FileStorageService.baseNameOf(name);
+        if (HEX_PREFIX.matcher(base).matches()) {
+            return base.substring(0, 4);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(base.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
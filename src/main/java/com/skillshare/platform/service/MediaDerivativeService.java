@@ -0,0 +1,294 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.PostUpdatedEvent;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.MediaDerivativeJob;
+import com.skillshare.platform.repository.MediaDerivativeJobRepository;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.DerivativesView;
+import com.skillshare.platform.repository.MediaRepository.MediaSourceView;
+import com.skillshare.platform.repository.PostRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Makes smaller copies of uploaded images so list views need not load originals: JPEGs
+ * at a few widths, exposed as a {@code srcset}, and a tiny placeholder the client shows
+ * blurred until one of them loads. Jobs are written to {@code media_derivative_jobs} in
+ * the transaction that writes the {@link Media} rows, so none are lost on restart. A
+ * poller claims due jobs and runs them on {@code derivativeExecutor}, never handing it
+ * more than it can queue. Images are decoded with ImageIO; formats it cannot read, such
+ * as WebP, keep only the original.
+ */
+@Service
+public class MediaDerivativeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDerivativeService.class);
+
+    private static final int PLACEHOLDER_WIDTH = 16;
+
+    private record Derivatives(int width, int height, String srcset, String placeholder) {
+    }
+
+    @Autowired
+    private MediaDerivativeJobRepository jobRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("derivativeExecutor")
+    private Executor derivativeExecutor;
+
+    @Value("${media.derivatives.widths:320,640,1280}")
+    private int[] widths;
+
+    @Value("${media.derivatives.quality:0.8}")
+    private float quality;
+
+    @Value("${media.derivatives.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${media.derivatives.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${media.derivatives.lease:PT5M}")
+    private Duration lease;
+
+    @Value("${media.derivatives.retry-delay:PT1M}")
+    private Duration retryDelay;
+
+    // Jobs handed to the executor and not finished; capped at what its pool and queue hold
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int capacity;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public MediaDerivativeService(PlatformTransactionManager transactionManager,
+                                  @Value("${media.derivatives.threads:2}") int threads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.capacity = threads * 2;
+    }
+
+    /** Queues the images among {@code media}; call in the transaction that saved them. */
+    public void enqueue(List<Media> media) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Media item : media) {
+            if ("image".equals(item.getType())) {
+                MediaDerivativeJob job = new MediaDerivativeJob();
+                job.setMediaId(item.getId());
+                job.setRunAfter(now);
+                job.setCreatedAt(now);
+                jobRepository.save(job);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${media.derivatives.poll-interval-ms:2000}")
+    public void pollJobs() {
+        int free = capacity - inFlight.get();
+        if (free <= 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (MediaDerivativeJob job : jobRepository.findDue(now, PageRequest.of(0, free))) {
+            Integer claimed = transactionTemplate.execute(status ->
+                jobRepository.claim(job.getId(), job.getRunAfter(), now.plus(lease)));
+            if (claimed == null || claimed == 0) {
+                continue;
+            }
+            inFlight.incrementAndGet();
+            try {
+                derivativeExecutor.execute(() -> {
+                    try {
+                        run(job);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The lease runs out and the job is picked up again
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void run(MediaDerivativeJob job) {
+        try {
+            MediaSourceView media = mediaRepository.findSourceById(job.getMediaId()).orElse(null);
+            // The media may have been replaced or its post deleted since the job was queued
+            Derivatives derivatives = media == null ? null : derivativesFor(media);
+            transactionTemplate.executeWithoutResult(status -> {
+                if (derivatives != null) {
+                    mediaRepository.saveDerivatives(media.getId(), derivatives.width(), derivatives.height(),
+                        derivatives.srcset(), derivatives.placeholder());
+                    postRepository.touch(media.getPostId(), LocalDateTime.now());
+                    eventPublisher.publishEvent(new PostUpdatedEvent(media.getPostId()));
+                }
+                jobRepository.deleteById(job.getId());
+            });
+        } catch (RuntimeException e) {
+            if (job.getAttempts() + 1 >= maxAttempts) {
+                logger.error("Giving up on derivatives for media {}: {}", job.getMediaId(), e.getMessage());
+                transactionTemplate.executeWithoutResult(status -> jobRepository.deleteById(job.getId()));
+            } else {
+                logger.warn("Failed to make derivatives for media {}, will retry: {}", job.getMediaId(), e.getMessage());
+                LocalDateTime retryAt = LocalDateTime.now().plus(retryDelay.multipliedBy(job.getAttempts() + 1L));
+                transactionTemplate.executeWithoutResult(status -> jobRepository.reschedule(job.getId(), retryAt));
+            }
+        }
+    }
+
+    private Derivatives derivativesFor(MediaSourceView media) {
+        List<DerivativesView> existing = mediaRepository.findDerivativesByUrl(media.getUrl(), PageRequest.of(0, 1));
+        if (!existing.isEmpty()) {
+            DerivativesView copy = existing.get(0);
+            return new Derivatives(copy.getWidth(), copy.getHeight(), copy.getSrcset(), copy.getPlaceholder());
+        }
+        String name = fileStorageService.nameOf(media.getUrl());
+        if (name == null) {
+            return null;
+        }
+        try (InputStream source = fileStorageService.open(name)) {
+            return generate(source, name, media.getUrl());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to resize " + media.getUrl() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Derivatives generate(InputStream source, String name, String sourceUrl) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // Checked from the header, before a hostile image can be decoded into a huge raster
+                if ((long) width * height > maxPixels) {
+                    logger.warn("Not resizing {}: {}x{} is over the pixel limit", sourceUrl, width, height);
+                    return null;
+                }
+                BufferedImage image = reader.read(0);
+
+                StringJoiner srcset = new StringJoiner(", ");
+                for (int target : widths) {
+                    if (target < width) {
+                        String url = fileStorageService.storeDerivative(derivativeName(name, target),
+                            "image/jpeg", encodeJpeg(scale(image, target), quality));
+                        srcset.add(url + " " + target + "w");
+                    }
+                }
+                srcset.add(sourceUrl + " " + width + "w");
+
+                String placeholder = "data:image/jpeg;base64," + Base64.getEncoder()
+                    .encodeToString(encodeJpeg(scale(image, Math.min(PLACEHOLDER_WIDTH, width)), 0.5f));
+                return new Derivatives(width, height, srcset.toString(), placeholder);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** The names resized copies of {@code sourceName} are stored under, one per configured width. */
+    public List<String> derivativeNames(String sourceName) {
+        List<String> names = new ArrayList<>(widths.length);
+        for (int width : widths) {
+            names.add(derivativeName(sourceName, width));
+        }
+        return names;
+    }
+
+    static String derivativeName(String sourceName, int width) {
+        int dot = sourceName.lastIndexOf('.');
+        return (dot < 0 ? sourceName : sourceName.substring(0, dot)) + "-w" + width + ".jpg";
+    }
+
+    /** Downscales in halving steps; a single bilinear step from far above the target aliases badly. */
+    static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            // Drawn onto white, since JPEG has no alpha
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
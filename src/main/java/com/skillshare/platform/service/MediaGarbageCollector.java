@@ -0,0 +1,357 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.model.MediaObject;
+import com.skillshare.platform.repository.MediaObjectRepository;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.UserRepository;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored media nothing references, by mark and sweep. The mark phase streams every
+ * {@code media} URL and profile photo into a set of 64-bit name hashes; a collision only
+ * keeps a file that could have gone. The sweep then deletes content-addressed objects whose
+ * {@code media_objects} row counts no references, followed by a walk of the upload
+ * directory and its shards for older uploads, stray derivatives and abandoned temporary files. Resized
+ * copies live and die with their source.
+ *
+ * <p>Nothing younger than {@code media.gc.grace} is touched, so uploads whose post is not
+ * saved yet survive. Every storage operation is paced to {@code media.gc.io-per-second},
+ * and runs happen on one minimum-priority thread.
+ */
+@Service
+public class MediaGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaGarbageCollector.class);
+
+    private static final int OBJECT_BATCH = 100;
+
+    private static final Pattern CONTENT_BASE = Pattern.compile("[0-9a-f]{64}");
+
+    /** What one collection did; {@code keptInUse} counts unreferenced rows that were still in use. */
+    public record Report(LocalDateTime startedAt, long durationMs, int marked, long objectsDeleted,
+                         long filesScanned, long filesDeleted, long keptInUse, long bytesReclaimed) {
+    }
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MediaObjectRepository mediaObjectRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    @Autowired
+    private MediaDerivativeService mediaDerivativeService;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    @Autowired
+    @Qualifier("mediaGcExecutor")
+    private Executor mediaGcExecutor;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${media.gc.grace:P1D}")
+    private Duration grace;
+
+    @Value("${media.gc.io-per-second:200}")
+    private int ioPerSecond;
+
+    private final AtomicReference<Report> lastReport = new AtomicReference<>();
+
+    private final TransactionTemplate transactionTemplate;
+
+    public MediaGarbageCollector(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Starts a collection in the background, unless one is already running. */
+    @Scheduled(cron = "${media.gc.cron:0 30 3 * * *}")
+    public void start() {
+        mediaGcExecutor.execute(() -> {
+            try {
+                collect();
+            } catch (RuntimeException e) {
+                logger.error("Media garbage collection failed: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /** The last finished collection, or null if none has run since startup. */
+    public Report lastReport() {
+        return lastReport.get();
+    }
+
+    Report collect() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long started = System.currentTimeMillis();
+        LocalDateTime cutoff = startedAt.minus(grace);
+        Sweep sweep = new Sweep(cutoff, new Throttle(ioPerSecond));
+
+        // Marked before anything is swept; later references keep objects through their rows and the grace period
+        LongOpenHashSet live = mark();
+        sweepObjects(sweep, live);
+        sweepDirectory(sweep, live);
+
+        Report report = new Report(startedAt, System.currentTimeMillis() - started, live.size(),
+            sweep.objectsDeleted, sweep.filesScanned, sweep.filesDeleted, sweep.keptInUse, sweep.bytesReclaimed);
+        lastReport.set(report);
+        logger.info("Media garbage collection reclaimed {} bytes: {} objects and {} files deleted, "
+                + "{} files scanned, {} names marked, in {} ms", report.bytesReclaimed(), report.objectsDeleted(),
+            report.filesDeleted(), report.filesScanned(), report.marked(), report.durationMs());
+        if (report.keptInUse() > 0) {
+            logger.warn("{} media objects counted no references but are still in use", report.keptInUse());
+        }
+        return report;
+    }
+
+    private LongOpenHashSet mark() {
+        LongOpenHashSet live = new LongOpenHashSet();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> urls = mediaRepository.streamUrls()) {
+                urls.forEach(url -> markUrl(live, url));
+            }
+            try (Stream<String> urls = userRepository.streamProfilePhotoUrls()) {
+                urls.forEach(url -> markUrl(live, url));
+            }
+        });
+        return live;
+    }
+
+    private void markUrl(LongOpenHashSet live, String url) {
+        String name = fileStorageService.nameOf(url);
+        if (name != null) {
+            live.add(key(FileStorageService.baseNameOf(name)));
+        }
+    }
+
+    private void sweepObjects(Sweep sweep, LongOpenHashSet live) {
+        String after = "";
+        List<MediaObject> batch;
+        do {
+            batch = mediaObjectRepository.findUnreferenced(sweep.cutoff, after, PageRequest.of(0, OBJECT_BATCH));
+            for (MediaObject object : batch) {
+                after = object.getSha256();
+                if (live.contains(key(object.getSha256()))) {
+                    sweep.keptInUse++;
+                    continue;
+                }
+                Long reclaimed = fileStorageService.exclusively(object.getSha256(), () -> {
+                    Integer deleted = transactionTemplate.execute(status ->
+                        mediaObjectRepository.deleteUnreferenced(object.getSha256(), sweep.cutoff));
+                    if (deleted == null || deleted == 0) {
+                        return null;
+                    }
+                    // The row goes first: if a delete below fails, the directory walk finds the file without one
+                    long bytes = object.getSize();
+                    deleteStored(sweep, object.getFilename());
+                    for (String derivative : mediaDerivativeService.derivativeNames(object.getFilename())) {
+                        bytes += deleteStored(sweep, derivative);
+                    }
+                    return bytes;
+                });
+                if (reclaimed != null) {
+                    sweep.objectsDeleted++;
+                    sweep.bytesReclaimed += reclaimed;
+                }
+            }
+        } while (batch.size() == OBJECT_BATCH);
+    }
+
+    // Size of what was deleted, when it was a local file
+    private long deleteStored(Sweep sweep, String name) {
+        sweep.throttle.acquire();
+        long size = 0;
+        try {
+            Path local = mediaStorage.localPath(name);
+            if (local != null) {
+                size = Files.size(local);
+            }
+        } catch (NoSuchFileException e) {
+            // Derivatives exist for some widths only
+        } catch (IOException e) {
+            logger.debug("Could not size {}: {}", name, e.getMessage());
+        }
+        try {
+            mediaStorage.delete(name);
+        } catch (IOException e) {
+            logger.warn("Failed to delete media {}: {}", name, e.getMessage());
+            return 0;
+        }
+        hotFileCache.invalidate(name);
+        return size;
+    }
+
+    private void sweepDirectory(Sweep sweep, LongOpenHashSet live) {
+        Path dir = Paths.get(uploadDir).toAbsolutePath().normalize();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // Read directory by directory, never listed whole: the top level, then the two shard levels
+        try {
+            Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 3, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path subdir, BasicFileAttributes attributes) {
+                    // Hidden entries are staging areas with their own cleanup, such as chunked upload sessions
+                    return subdir.equals(dir) || !subdir.getFileName().toString().startsWith(".")
+                        ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    sweepFile(sweep, live, file, attributes);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Failed to walk {}: {}", dir, e.getMessage());
+        }
+    }
+
+    private void sweepFile(Sweep sweep, LongOpenHashSet live, Path file, BasicFileAttributes attributes) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || !attributes.isRegularFile()) {
+            return;
+        }
+        sweep.throttle.acquire();
+        sweep.filesScanned++;
+        if (!isBefore(attributes, sweep.cutoff)) {
+            return;
+        }
+
+        // Temporary files still here after the grace period belong to uploads that died
+        if (!name.endsWith(".part")) {
+            String base = FileStorageService.baseNameOf(name);
+            if (live.contains(key(base))) {
+                return;
+            }
+            if (CONTENT_BASE.matcher(base).matches()) {
+                // With a row, the object (and its derivatives) is the row's to delete
+                Boolean deleted = fileStorageService.exclusively(base, () ->
+                    !mediaObjectRepository.existsById(base) && deleteFile(sweep, file, name));
+                if (Boolean.TRUE.equals(deleted)) {
+                    sweep.bytesReclaimed += attributes.size();
+                }
+                return;
+            }
+        }
+        if (deleteFile(sweep, file, name)) {
+            sweep.bytesReclaimed += attributes.size();
+        }
+    }
+
+    private boolean deleteFile(Sweep sweep, Path file, String name) {
+        sweep.throttle.acquire();
+        try {
+            if (!Files.deleteIfExists(file)) {
+                return false;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete {}: {}", file, e.getMessage());
+            return false;
+        }
+        hotFileCache.invalidate(name);
+        sweep.filesDeleted++;
+        return true;
+    }
+
+    private static boolean isBefore(BasicFileAttributes attributes, LocalDateTime cutoff) {
+        return attributes.lastModifiedTime().toInstant()
+                .isBefore(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // 64-bit FNV-1a
+    static long key(String base) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < base.length(); i++) {
+            hash ^= base.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static final class Sweep {
+        final LocalDateTime cutoff;
+        final Throttle throttle;
+        long objectsDeleted;
+        long filesScanned;
+        long filesDeleted;
+        long keptInUse;
+        long bytesReclaimed;
+
+        Sweep(LocalDateTime cutoff, Throttle throttle) {
+            this.cutoff = cutoff;
+            this.throttle = throttle;
+        }
+    }
+
+    /** Spaces operations evenly at a fixed rate; unused time is not saved up for bursts. */
+    private static final class Throttle {
+        private final long interval;
+        private long next = System.nanoTime();
+
+        Throttle(int perSecond) {
+            this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, perSecond);
+        }
+
+        void acquire() {
+            long now = System.nanoTime();
+            if (next > now) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(next - now);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted", e);
+                }
+                now = next;
+            }
+            next = now + interval;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.skillshare.platform.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Where stored media bytes live, by file name. {@link FileStorageService} stages each
+ * upload in a local file, then hands it over with {@link #put}. The implementation is
+ * chosen with {@code media.storage.type}: {@code local} (the default) or {@code s3}.
+ */
+public interface MediaStorage {
+
+    /** Stores the file under {@code name}; the file is moved or deleted, never left behind. */
+    void put(String name, Path file, String contentType) throws IOException;
+
+    boolean exists(String name) throws IOException;
+
+    /** @throws java.nio.file.NoSuchFileException when nothing is stored under the name */
+    InputStream open(String name) throws IOException;
+
+    void delete(String name) throws IOException;
+
+    /** The absolute URL clients fetch the object from. */
+    String urlOf(String name);
+
+    /** The file behind the name when it is kept on this machine; null for remote stores. */
+    Path localPath(String name);
+}
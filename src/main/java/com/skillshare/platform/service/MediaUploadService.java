@@ -0,0 +1,68 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.service.FileStorageService.StoredFile;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Stores the media files of a post concurrently on {@code mediaUploadExecutor}, before any
+ * transaction is opened, so no pool connection waits on disk or S3. When one upload fails
+ * the request fails; files that were stored anyway stay unreferenced, since their bytes
+ * may be shared with other posts.
+ */
+@Service
+public class MediaUploadService {
+
+    /** A stored file, ready to be written as a {@code Media} row. */
+    public record StoredMedia(String url, String type) {
+    }
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    @Qualifier("mediaUploadExecutor")
+    private Executor mediaUploadExecutor;
+
+    /** Stores the non-empty files in their original order; empty or missing input stores nothing. */
+    public List<StoredMedia> storeAll(MultipartFile[] files) {
+        if (files == null || files.length == 0) {
+            return List.of();
+        }
+        List<CompletableFuture<StoredMedia>> uploads = new ArrayList<>(files.length);
+        for (MultipartFile file : files) {
+            if (!file.isEmpty()) {
+                uploads.add(CompletableFuture.supplyAsync(() -> {
+                    StoredFile stored = fileStorageService.uploadFile(file);
+                    return new StoredMedia(stored.url(), stored.isImage() ? "image" : "video");
+                }, mediaUploadExecutor));
+            }
+        }
+
+        // Wait for every upload, not just the first failure, so nothing is left running
+        List<StoredMedia> stored = new ArrayList<>(uploads.size());
+        RuntimeException failure = null;
+        for (CompletableFuture<StoredMedia> upload : uploads) {
+            try {
+                stored.add(upload.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return stored;
+    }
+}
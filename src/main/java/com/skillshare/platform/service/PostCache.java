@@ -0,0 +1,181 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.event.CommentChangedEvent;
+import com.skillshare.platform.event.LikeCountsFlushedEvent;
+import com.skillshare.platform.event.PostCreatedEvent;
+import com.skillshare.platform.event.PostDeletedEvent;
+import com.skillshare.platform.event.PostUpdatedEvent;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * In-process read-through cache for posts and feed pages (Caffeine, W-TinyLFU eviction).
+ * It holds only viewer-independent {@link PostDTO}s that refer to users by id; callers
+ * apply the liked flag and the user summaries afterwards with {@link PostMapper#personalize},
+ * so profile edits never invalidate posts. Entries are invalidated by post, comment and
+ * like-flush events, and a TTL bounds staleness from anything that is not evented.
+ */
+@Component
+public class PostCache {
+
+    /** Ids of one feed page and the cursor that follows it. */
+    public record FeedPage(List<Long> postIds, String nextCursor) {
+    }
+
+    private final Cache<Long, PostDTO> summaries;
+    private final Cache<Long, PostDTO> details;
+    private final Cache<String, FeedPage> feedPages;
+
+    // Bumped before a post's summary is invalidated. getAll loads misses outside the map's locks
+    // and puts them afterwards, so a load that saw a bump may have put a DTO read before it
+    private final AtomicLongArray summaryGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private static final int GENERATION_STRIPES = 1024;
+
+    public PostCache(@Value("${cache.posts.max-size:10000}") long postMaxSize,
+                     @Value("${cache.posts.ttl:PT10M}") Duration postTtl,
+                     @Value("${cache.feed.max-size:1000}") long feedMaxSize,
+                     @Value("${cache.feed.ttl:PT30S}") Duration feedTtl) {
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(postMaxSize)
+                .expireAfterWrite(postTtl)
+                .recordStats()
+                .build();
+        this.details = Caffeine.newBuilder()
+                .maximumSize(postMaxSize)
+                .expireAfterWrite(postTtl)
+                .recordStats()
+                .build();
+        this.feedPages = Caffeine.newBuilder()
+                .maximumSize(feedMaxSize)
+                .expireAfterWrite(feedTtl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Feed-shaped DTOs for the ids, in the given order. Misses are loaded together by
+     * {@code loader}; ids the loader does not return (deleted posts) are left out.
+     */
+    public List<PostDTO> getSummaries(List<Long> postIds,
+                                      Function<Collection<Long>, Map<Long, PostDTO>> loader) {
+        Map<Long, Long> loadedAt = new LinkedHashMap<>();
+        Map<Long, PostDTO> found = summaries.getAll(postIds, missing -> {
+            missing.forEach(postId -> loadedAt.put(postId, summaryGeneration(postId)));
+            return loader.apply(toList(missing));
+        });
+        // Invalidated while loading: this caller still gets what it read, but the cache does not
+        loadedAt.forEach((postId, generation) -> {
+            if (summaryGeneration(postId) != generation) {
+                summaries.invalidate(postId);
+            }
+        });
+        return postIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public PostDTO getDetail(Long postId, Function<Long, PostDTO> loader) {
+        return details.get(postId, loader);
+    }
+
+    public FeedPage getFeedPage(String key, Function<String, FeedPage> loader) {
+        return feedPages.get(key, loader);
+    }
+
+    public void evictPost(Long postId) {
+        invalidateSummary(postId);
+        details.invalidate(postId);
+    }
+
+    public void evictFeedPages() {
+        feedPages.invalidateAll();
+    }
+
+    /** Hit, miss and eviction statistics per cache, for the admin endpoint. */
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("postSummaries", describe(summaries));
+        stats.put("postDetails", describe(details));
+        stats.put("feedPages", describe(feedPages));
+        return stats;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        evictFeedPages();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostUpdated(PostUpdatedEvent event) {
+        evictPost(event.postId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        evictPost(event.postId());
+        evictFeedPages();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        evictPost(event.postId());
+    }
+
+    // Cached DTOs carry the persisted like count and readers add the pending delta, so
+    // only a flush (which moves the delta into the persisted count) invalidates them
+    @EventListener
+    public void onLikeCountsFlushed(LikeCountsFlushedEvent event) {
+        event.postIds().forEach(this::invalidateSummary);
+        details.invalidateAll(event.postIds());
+    }
+
+    private void invalidateSummary(Long postId) {
+        summaryGenerations.incrementAndGet(stripe(postId));
+        summaries.invalidate(postId);
+    }
+
+    private long summaryGeneration(Long postId) {
+        return summaryGenerations.get(stripe(postId));
+    }
+
+    private static int stripe(Long postId) {
+        return Long.hashCode(postId) & (GENERATION_STRIPES - 1);
+    }
+
+    static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("size", cache.estimatedSize());
+        description.put("hits", stats.hitCount());
+        description.put("misses", stats.missCount());
+        description.put("hitRate", stats.hitRate());
+        description.put("evictions", stats.evictionCount());
+        description.put("loadFailures", stats.loadFailureCount());
+        description.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        return description;
+    }
+
+    private static <T> List<T> toList(Iterable<? extends T> items) {
+        List<T> list = new ArrayList<>();
+        items.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,144 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.conf.PropertySet;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.repository.PostRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes posts as newline-delimited JSON, one {@link PostDTO} per line, while reading them
+ * through a forward-only cursor. Posts are mapped and written in chunks of
+ * {@code export.chunk-size}, and the persistence context is cleared after every chunk, so
+ * memory use does not depend on how many posts are exported.
+ * <p>
+ * The cursor is a MySQL server-side cursor, switched on for the export's connection only:
+ * with {@code useCursorFetch} on the shared JDBC URL every statement would be server-prepared
+ * and every query with a fetch size would open a cursor.
+ */
+@Service
+public class PostExportService {
+
+    private static final byte NEWLINE = '\n';
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.chunk-size:500}")
+    private int chunkSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PostExportService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Streams every post, or only the posts of {@code authorId} when it is not null, in id
+     * order. Likes are the persisted counters and liked flags are not included.
+     *
+     * @return the number of posts written
+     */
+    public long exportPosts(Long authorId, OutputStream out) {
+        // A Stream result needs an open transaction for as long as it is consumed
+        Long written = transactionTemplate.execute(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            CursorFetch previous = session.doReturningWork(CursorFetch::enable);
+            try (Stream<Post> posts = authorId == null
+                    ? postRepository.streamAllWithUser()
+                    : postRepository.streamByUserIdWithUser(authorId)) {
+                return writeChunks(posts.iterator(), out);
+            } finally {
+                // The connection goes back to the pool after this transaction
+                if (previous != null) {
+                    session.doWork(previous::restore);
+                }
+            }
+        });
+        return written == null ? 0 : written;
+    }
+
+    private long writeChunks(Iterator<Post> posts, OutputStream out) {
+        long written = 0;
+        List<Post> chunk = new ArrayList<>(chunkSize);
+        try {
+            while (posts.hasNext()) {
+                chunk.add(posts.next());
+                if (chunk.size() == chunkSize || !posts.hasNext()) {
+                    for (PostDTO post : postMapper.withUsers(postMapper.buildFeedDTOs(chunk))) {
+                        out.write(objectMapper.writeValueAsBytes(post));
+                        out.write(NEWLINE);
+                    }
+                    out.flush();
+                    written += chunk.size();
+                    chunk.clear();
+                    // Detach the written posts and their authors so the session does not grow
+                    entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Usually the client went away; abandon the cursor and roll back the read transaction
+            throw new UncheckedIOException("Post export aborted after " + written + " posts", e);
+        }
+        return written;
+    }
+
+    /**
+     * Connector/J's cursor settings of one connection. Cursors need server-side prepared
+     * statements, and both are read when a statement is prepared. Other drivers, such as
+     * the in-memory database of tests, are left alone.
+     */
+    private record CursorFetch(boolean useCursorFetch, boolean useServerPrepStmts) {
+
+        static CursorFetch enable(Connection connection) throws SQLException {
+            if (!connection.isWrapperFor(JdbcConnection.class)) {
+                return null;
+            }
+            PropertySet properties = connection.unwrap(JdbcConnection.class).getPropertySet();
+            CursorFetch previous = new CursorFetch(
+                    properties.getBooleanProperty(PropertyKey.useCursorFetch).getValue(),
+                    properties.getBooleanProperty(PropertyKey.useServerPrepStmts).getValue());
+            properties.getBooleanProperty(PropertyKey.useCursorFetch).setValue(true);
+            properties.getBooleanProperty(PropertyKey.useServerPrepStmts).setValue(true);
+            return previous;
+        }
+
+        void restore(Connection connection) throws SQLException {
+            PropertySet properties = connection.unwrap(JdbcConnection.class).getPropertySet();
+            properties.getBooleanProperty(PropertyKey.useCursorFetch).setValue(useCursorFetch);
+            properties.getBooleanProperty(PropertyKey.useServerPrepStmts).setValue(useServerPrepStmts);
+        }
+    }
+}
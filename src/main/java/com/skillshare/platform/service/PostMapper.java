@@ -0,0 +1,348 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.MediaDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.dto.SharedPostDTO;
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.model.SharedPost;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.CommentRepository.CommentView;
+import com.skillshare.platform.repository.CommentRepository.PostCommentCount;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.PostMediaView;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PostDTO}s for a whole page of posts at once. Media, comment previews and
+ * comment counts are each loaded with one query for the page, so the number of statements
+ * does not grow with the number of posts. The viewer's liked flags come from one lookup
+ * against the likes join table, so {@code Post.likedUsers} is never initialized here.
+ * Callers are expected to load the posts with their authors already fetched.
+ *
+ * <p>The viewer-independent DTOs only carry user ids. Authors, commenters and sharers are
+ * filled in when a response is built, all of them with one {@link UserSummaryLoader} call,
+ * so cached DTOs do not go stale when a user changes their name or photo.
+ */
+@Component
+public class PostMapper {
+
+    static final int COMMENT_PREVIEW_SIZE = 3;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Autowired
+    private MediaRepository mediaRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    @Autowired
+    private UserSummaryLoader userSummaryLoader;
+
+    public List<PostDTO> toFeedDTOs(List<Post> posts, Long viewerId) {
+        return personalize(buildFeedDTOs(posts), viewerId);
+    }
+
+    public PostDTO toDetailDTO(Post post, Long viewerId) {
+        return personalize(List.of(buildDetailDTO(post)), viewerId).get(0);
+    }
+
+    /**
+     * Viewer-independent DTOs with comment previews: liked is false, likes is the
+     * persisted counter and users are ids only, so the results can be shared between viewers.
+     */
+    public List<PostDTO> buildFeedDTOs(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+
+        Map<Long, List<MediaDTO>> media = loadMedia(postIds);
+
+        List<Long> previewIds = commentRepository.findLatestIdsPerPost(postIds, COMMENT_PREVIEW_SIZE);
+        Map<Long, List<CommentDTO>> previews = previewIds.isEmpty()
+                ? Collections.emptyMap()
+                : groupComments(commentRepository.findViewsByIdIn(previewIds));
+
+        Map<Long, Long> commentCounts = commentRepository.countByPostIdIn(postIds).stream()
+                .collect(Collectors.toMap(PostCommentCount::getPostId, PostCommentCount::getTotal));
+
+        return posts.stream()
+                .map(post -> toDTO(
+                    post,
+                    previews.getOrDefault(post.getId(), Collections.emptyList()),
+                    media.getOrDefault(post.getId(), Collections.emptyList()),
+                    commentCounts.getOrDefault(post.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    /** Viewer-independent DTO with every comment, as served by the single-post endpoint. */
+    public PostDTO buildDetailDTO(Post post) {
+        List<Long> postIds = List.of(post.getId());
+        List<CommentDTO> comments = groupComments(commentRepository.findViewsByPostIdIn(postIds))
+                .getOrDefault(post.getId(), Collections.emptyList());
+        List<MediaDTO> media = loadMedia(postIds).getOrDefault(post.getId(), Collections.emptyList());
+        return toDTO(post, comments, media, comments.size());
+    }
+
+    /**
+     * Copies of viewer-independent DTOs with the viewer's liked flags, any like deltas
+     * that are not flushed yet and the users applied. The inputs are left untouched.
+     */
+    public List<PostDTO> personalize(List<PostDTO> posts, Long viewerId) {
+        return personalize(posts, viewerId, userSummaryLoader.loadAll(userIdsOf(posts)));
+    }
+
+    /** Copies of viewer-independent DTOs with their users resolved, for output that has no viewer. */
+    public List<PostDTO> withUsers(List<PostDTO> posts) {
+        Map<Long, UserSummaryDTO> users = userSummaryLoader.loadAll(userIdsOf(posts));
+        return posts.stream()
+                .map(post -> new PostDTO(
+                    post.getId(),
+                    post.getContent(),
+                    post.getLikes(),
+                    post.getCreatedAt(),
+                    post.isLiked(),
+                    resolve(post.getUser(), users),
+                    resolveComments(post.getComments(), users),
+                    post.getMediaUrls(),
+                    post.getMedia(),
+                    post.getCommentCount()))
+                .collect(Collectors.toList());
+    }
+
+    private List<PostDTO> personalize(List<PostDTO> posts, Long viewerId, Map<Long, UserSummaryDTO> users) {
+        if (posts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> postIds = posts.stream().map(PostDTO::getId).collect(Collectors.toList());
+        Set<Long> likedPostIds = findLikedPostIds(viewerId, postIds);
+        return posts.stream()
+                .map(post -> new PostDTO(
+                    post.getId(),
+                    post.getContent(),
+                    (int) (post.getLikes() + likeCounterBuffer.pendingDelta(post.getId())),
+                    post.getCreatedAt(),
+                    likedPostIds.contains(post.getId()),
+                    resolve(post.getUser(), users),
+                    resolveComments(post.getComments(), users),
+                    post.getMediaUrls(),
+                    post.getMedia(),
+                    post.getCommentCount()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resolves a page of mixed feed entries with one query per item type. Entries whose post
+     * or share no longer exists are skipped, so callers can hand in ids they read earlier.
+     */
+    public List<FeedItemDTO> toFeedItems(List<Entry> entries, Long viewerId) {
+        Set<Long> postIds = new HashSet<>();
+        Set<Long> shareIds = new HashSet<>();
+        for (Entry entry : entries) {
+            (FeedItemDTO.TYPE_POST.equals(entry.type()) ? postIds : shareIds).add(entry.id());
+        }
+
+        List<PostDTO> postTemplates = postIds.isEmpty()
+                ? Collections.emptyList()
+                : buildFeedDTOs(postRepository.findAllWithUserByIdIn(postIds));
+        List<SharedPost> sharedPosts = shareIds.isEmpty()
+                ? Collections.emptyList()
+                : sharedPostRepository.findWithPostsByIdIn(shareIds);
+        List<PostDTO> originals = buildFeedDTOs(originalsOf(sharedPosts));
+
+        // Every user on the page, resolved together
+        Set<Long> userIds = userIdsOf(postTemplates);
+        userIds.addAll(userIdsOf(originals));
+        sharedPosts.forEach(sharedPost -> userIds.add(sharedPost.getUser().getId()));
+        Map<Long, UserSummaryDTO> users = userSummaryLoader.loadAll(userIds);
+
+        Map<Long, PostDTO> posts = personalize(postTemplates, viewerId, users).stream()
+                .collect(Collectors.toMap(PostDTO::getId, Function.identity()));
+        Map<Long, SharedPostDTO> shares = toSharedPostDTOs(sharedPosts, originals, users).stream()
+                .collect(Collectors.toMap(SharedPostDTO::getId, Function.identity()));
+
+        List<FeedItemDTO> items = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            if (FeedItemDTO.TYPE_POST.equals(entry.type())) {
+                PostDTO post = posts.get(entry.id());
+                if (post != null) {
+                    items.add(new FeedItemDTO(entry.type(), entry.timestamp(), post, null));
+                }
+            } else {
+                SharedPostDTO share = shares.get(entry.id());
+                if (share != null) {
+                    items.add(new FeedItemDTO(entry.type(), entry.timestamp(), null, share));
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Maps shared posts using the sharer as the viewer of the original post, which is how
+     * the liked flag of shared posts has always been reported.
+     */
+    public List<SharedPostDTO> toSharedPostDTOs(List<SharedPost> sharedPosts) {
+        List<PostDTO> originals = buildFeedDTOs(originalsOf(sharedPosts));
+        Set<Long> userIds = userIdsOf(originals);
+        sharedPosts.forEach(sharedPost -> userIds.add(sharedPost.getUser().getId()));
+        return toSharedPostDTOs(sharedPosts, originals, userSummaryLoader.loadAll(userIds));
+    }
+
+    private List<SharedPostDTO> toSharedPostDTOs(List<SharedPost> sharedPosts, List<PostDTO> originals,
+                                                 Map<Long, UserSummaryDTO> users) {
+        if (sharedPosts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, PostDTO> originalDTOs = personalize(originals, null, users).stream()
+                .collect(Collectors.toMap(PostDTO::getId, Function.identity()));
+
+        // One liked-state query per distinct sharer (a user's share list has exactly one)
+        Map<Long, Set<Long>> likedBySharer = new HashMap<>();
+        sharedPosts.stream()
+                .collect(Collectors.groupingBy(
+                    sharedPost -> sharedPost.getUser().getId(),
+                    Collectors.mapping(sharedPost -> sharedPost.getOriginalPost().getId(), Collectors.toSet())))
+                .forEach((sharerId, postIds) ->
+                    likedBySharer.put(sharerId, postRepository.findLikedPostIds(sharerId, postIds)));
+
+        return sharedPosts.stream().map(sharedPost -> {
+            Post originalPost = sharedPost.getOriginalPost();
+            PostDTO template = originalDTOs.get(originalPost.getId());
+            PostDTO originalPostDTO = new PostDTO(
+                template.getId(),
+                template.getContent(),
+                template.getLikes(),
+                template.getCreatedAt(),
+                likedBySharer.get(sharedPost.getUser().getId()).contains(originalPost.getId()),
+                template.getUser(),
+                template.getComments(),
+                template.getMediaUrls(),
+                template.getMedia(),
+                template.getCommentCount()
+            );
+            UserSummaryDTO sharer = users.get(sharedPost.getUser().getId());
+            return new SharedPostDTO(
+                sharedPost.getId(),
+                sharedPost.getSharedAt(),
+                sharedPost.getShareComment(),
+                sharer != null ? sharer.getName() : sharedPost.getUser().getName(),
+                originalPostDTO
+            );
+        }).collect(Collectors.toList());
+    }
+
+    private PostDTO toDTO(Post post, List<CommentDTO> comments, List<MediaDTO> media, long commentCount) {
+        return new PostDTO(
+            post.getId(),
+            post.getContent(),
+            post.getLikes(),
+            post.getCreatedAt(),
+            false,
+            new UserSummaryDTO(post.getUser().getId(), null, null),
+            comments,
+            media.stream().map(MediaDTO::getUrl).collect(Collectors.toList()),
+            media,
+            commentCount
+        );
+    }
+
+    // De-duplicate by id: entity equality would walk the lazy collections
+    private static List<Post> originalsOf(List<SharedPost> sharedPosts) {
+        return new ArrayList<>(sharedPosts.stream()
+                .map(SharedPost::getOriginalPost)
+                .collect(Collectors.toMap(Post::getId, Function.identity(), (a, b) -> a, LinkedHashMap::new))
+                .values());
+    }
+
+    private static Set<Long> userIdsOf(List<PostDTO> posts) {
+        Set<Long> userIds = new HashSet<>();
+        for (PostDTO post : posts) {
+            if (post.getUser() != null) {
+                userIds.add(post.getUser().getId());
+            }
+            for (CommentDTO comment : post.getComments()) {
+                if (comment.getUser() != null) {
+                    userIds.add(comment.getUser().getId());
+                }
+            }
+        }
+        return userIds;
+    }
+
+    // Unknown ids (a user deleted since the DTO was cached) keep the id-only summary
+    private static UserSummaryDTO resolve(UserSummaryDTO user, Map<Long, UserSummaryDTO> users) {
+        return user == null ? null : users.getOrDefault(user.getId(), user);
+    }
+
+    private static List<CommentDTO> resolveComments(List<CommentDTO> comments, Map<Long, UserSummaryDTO> users) {
+        return comments.stream()
+                .map(comment -> {
+                    UserSummaryDTO user = resolve(comment.getUser(), users);
+                    return new CommentDTO(comment.getId(), comment.getContent(), comment.getCreatedAt(),
+                        user != null ? user.getName() : null, user);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Set<Long> findLikedPostIds(Long viewerId, List<Long> postIds) {
+        if (viewerId == null) {
+            return Collections.emptySet();
+        }
+        return postRepository.findLikedPostIds(viewerId, postIds);
+    }
+
+    private Map<Long, List<MediaDTO>> loadMedia(List<Long> postIds) {
+        return mediaRepository.findViewsByPostIdIn(postIds).stream()
+                .collect(Collectors.groupingBy(
+                    PostMediaView::getPostId,
+                    Collectors.mapping(view -> new MediaDTO(
+                        view.getUrl(),
+                        view.getType(),
+                        view.getWidth(),
+                        view.getHeight(),
+                        view.getSrcset(),
+                        view.getPlaceholder()
+                    ), Collectors.toList())));
+    }
+
+    private Map<Long, List<CommentDTO>> groupComments(List<CommentView> views) {
+        return views.stream()
+                .collect(Collectors.groupingBy(
+                    CommentView::getPostId,
+                    Collectors.mapping(view -> new CommentDTO(
+                        view.getId(),
+                        view.getContent(),
+                        view.getCreatedAt(),
+                        null,
+                        new UserSummaryDTO(view.getUserId(), null, null)
+                    ), Collectors.toList())));
+    }
+}
@@ -1,35 +1,46 @@
 package com.skillshare.platform.service;
 
-import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.FeedPageDTO;
 import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.SharedPostDTO;
+import com.skillshare.platform.event.PostCreatedEvent;
+import com.skillshare.platform.event.PostDeletedEvent;
+import com.skillshare.platform.event.PostSharedEvent;
+import com.skillshare.platform.event.SharedPostDeletedEvent;
+import com.skillshare.platform.event.PostUpdatedEvent;
 import com.skillshare.platform.model.Comment;
 import com.skillshare.platform.model.Media;
 import com.skillshare.platform.model.Post;
 import com.skillshare.platform.model.SharedPost;
-import com.skillshare.platform.model.User;
 import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.SharedPostRepository;
 import com.skillshare.platform.repository.UserRepository;
-import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.service.MediaUploadService.StoredMedia;
 
 import jakarta.transaction.Transactional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
 
+    private static final int MAX_FEED_PAGE_SIZE = 50;
+
     @Autowired
     private PostRepository postRepository;
 
@@ -39,223 +50,221 @@ public class PostService {
     @Autowired
     private SharedPostRepository sharedPostRepository;
 
-    @Autowired
-    private MediaRepository mediaRepository;
-    private S3Service s3Service;
-
     // @Autowired
     // private NotificationService notificationService;
 
+    @Autowired
+    private MediaUploadService mediaUploadService;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
     @Autowired
     private FileStorageService fileStorageService;
 
-    public List<PostDTO> findAllPosts(String userEmail) {
-        User currentUser = userEmail != null ? userRepository.findByEmail(userEmail).orElse(null) : null;
-        return postRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt")).stream().map(post -> {
-            List<CommentDTO> commentDTOs = post.getComments().stream().map(comment -> {
-                return new CommentDTO(
-                    comment.getId(),
-                    comment.getContent(),
-                    comment.getCreatedAt(),
-                    comment.getUser().getName()
-                );
-            }).collect(Collectors.toList());
-            
-            List<String> mediaUrls = post.getMediaFiles().stream()
-                .map(Media::getUrl)
-                .collect(Collectors.toList());
-            
-            return new PostDTO(
-                post.getId(),
-                post.getContent(),
-                post.getLikes(),
-                post.getCreatedAt(),
-                currentUser != null && post.getLikedUsers().contains(currentUser), // Ensure this evaluates correctly
-                post.getUser(),
-                commentDTOs,
-                mediaUrls  
-            );
-        }).collect(Collectors.toList());
+    @Autowired
+    private MediaDerivativeService mediaDerivativeService;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private PostCache postCache;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PostService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    public PostDTO findPostById(Long id, String userEmail) {
-        User currentUser = userEmail != null ? userRepository.findByEmail(userEmail).orElse(null) : null;
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Post not found with ID: " + id));
-
-        List<CommentDTO> commentDTOs = post.getComments().stream().map(comment -> {
-            return new CommentDTO(
-                comment.getId(),
-                comment.getContent(),
-                comment.getCreatedAt(),
-                comment.getUser().getName()
-            );
-        }).collect(Collectors.toList());
-
-        List<String> mediaUrls = post.getMediaFiles().stream()
-            .map(Media::getUrl)
-            .collect(Collectors.toList());
-
-        return new PostDTO(
-            post.getId(),
-            post.getContent(),
-            post.getLikes(),
-            post.getCreatedAt(),
-            currentUser != null && post.getLikedUsers().contains(currentUser),
-            post.getUser(),
-            commentDTOs,
-            mediaUrls
-        );
+    public List<PostDTO> findAllPosts(Long viewerId) {
+        return postMapper.toFeedDTOs(postRepository.findAllWithUser(), viewerId);
     }
 
-    public List<Comment> getCommentsByPostId(Long postId) {
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
-        return post.getComments();
+    public FeedPageDTO<PostDTO> findFeedPage(Long viewerId, String cursor, int size) {
+        int pageSize = feedPageSize(size);
+        String pageKey = (cursor == null || cursor.isBlank() ? "" : cursor) + "|" + pageSize;
+
+        PostCache.FeedPage page = postCache.getFeedPage(pageKey, key -> loadFeedPage(cursor, pageSize));
+        return new FeedPageDTO<>(findSummaries(page.postIds(), viewerId), page.nextCursor());
     }
 
-    @Transactional
-    public Post createPost(String email, String content, MultipartFile[] mediaFiles) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        
-        Post post = new Post();
-        post.setContent(content);
-        post.setUser(user);
-        post.setCreatedAt(LocalDateTime.now());
-        post.setLikes(0);
-        
-        // Initialize media collection if null
-        if (post.getMediaFiles() == null) {
-            post.setMediaFiles(new ArrayList<>());
+    /** The page size a feed request for {@code size} posts is served with. */
+    public static int feedPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+    }
+
+    /** Feed-shaped posts for the ids, in order and through the cache; missing posts are skipped. */
+    public List<PostDTO> findSummaries(List<Long> postIds, Long viewerId) {
+        List<PostDTO> items = postCache.getSummaries(postIds, missing ->
+                postMapper.buildFeedDTOs(postRepository.findAllWithUserByIdIn(missing)).stream()
+                        .collect(Collectors.toMap(PostDTO::getId, Function.identity())));
+        return postMapper.personalize(items, viewerId);
+    }
+
+    private PostCache.FeedPage loadFeedPage(String cursor, int pageSize) {
+        // Ask for one extra row to learn whether another page exists without a COUNT query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Post> posts;
+        if (cursor == null || cursor.isBlank()) {
+            posts = postRepository.findFeedFirstPage(limit);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            posts = postRepository.findFeedPageAfter(position.getCreatedAt(), position.getId(), limit);
         }
-        
-        // Save post first to get ID
-        Post savedPost = postRepository.save(post);
-        
-        // Process media files if any
-        if (mediaFiles != null && mediaFiles.length > 0) {
-            for (MultipartFile file : mediaFiles) {
-                try {
-                    // Skip empty files
-                    if (file.isEmpty()) {
-                        continue;
-                    }
-                    
-                    // Upload the file and get URL
-                    String url = fileStorageService.uploadFile(file);
-                    
-                    // Create media entity
-                    Media media = new Media();
-                    media.setUrl(url);
-                    media.setType(file.getContentType().startsWith("image") ? "image" : "video");
-                    media.setPost(savedPost);
-                    
-                    // Save media entity directly
-                    mediaRepository.save(media);
-                    
-                    // Add to post's collection for return value
-                    savedPost.getMediaFiles().add(media);
-                    
-                    System.out.println("Media saved with URL: " + url);
-                } catch (Exception e) {
-                    System.err.println("Error processing media file: " + e.getMessage());
-                    e.printStackTrace();
-                }
-            }
+
+        boolean hasMore = posts.size() > pageSize;
+        if (hasMore) {
+            posts = posts.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Post last = posts.get(posts.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
         }
-        //notificationService.createNotification(post.getUser(), "You created a new post!");
-        return savedPost;
+        return new PostCache.FeedPage(posts.stream().map(Post::getId).collect(Collectors.toList()), nextCursor);
     }
 
-    public Map<String, Object> likePost(Long postId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public PostDTO findPostById(Long id, Long viewerId) {
+        PostDTO post = postCache.getDetail(id, postId -> postMapper.buildDetailDTO(postRepository.findById(postId)
+                .orElseThrow(() -> new RuntimeException("Post not found with ID: " + postId))));
+        return postMapper.personalize(List.of(post), viewerId).get(0);
+    }
+
+    public List<Comment> getCommentsByPostId(Long postId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
+        return post.getComments();
+    }
 
-        boolean liked;
-        if (post.getLikedUsers().contains(user)) {
-            post.getLikedUsers().remove(user);
-            post.setLikes(post.getLikes() - 1);
-            liked = false;
-        } else {
-            post.getLikedUsers().add(user);
-            post.setLikes(post.getLikes() + 1);
-            liked = true;
-            //notificationService.createNotification(post.getUser(), user.getName() + " liked your post!");
+    // Files are stored before the transaction opens; only the post and media rows are written inside it.
+    // mediaIds are finished chunked uploads, attached after the files sent with the request.
+    public Post createPost(Long userId, String content, MultipartFile[] mediaFiles, List<Long> mediaIds) {
+        List<StoredMedia> stored = mediaUploadService.storeAll(mediaFiles);
+        return transactionTemplate.execute(status -> {
+            Post post = new Post();
+            post.setContent(content);
+            post.setUser(userRepository.getReferenceById(userId));
+            post.setCreatedAt(LocalDateTime.now());
+            post.setUpdatedAt(post.getCreatedAt());
+            post.setLikes(0);
+            stored.forEach(media -> post.addMedia(toMedia(media)));
+            // Already referenced since their upload finished
+            chunkedUploadService.claim(userId, mediaIds).forEach(post::addMedia);
+
+            // Media rows are cascaded from the post
+            Post savedPost = postRepository.save(post);
+            fileStorageService.retain(storedUrlsOf(stored));
+            mediaDerivativeService.enqueue(savedPost.getMediaFiles());
+            //notificationService.createNotification(post.getUser(), "You created a new post!");
+            eventPublisher.publishEvent(new PostCreatedEvent(savedPost.getId(), userId, savedPost.getCreatedAt()));
+            return savedPost;
+        });
+    }
+
+    public Map<String, Object> likePost(Long postId, Long userId) {
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post not found");
         }
 
-        postRepository.save(post);
+        boolean liked = likeService.toggleLike(postId, userId);
+        //notificationService.createNotification(post.getUser(), user.getName() + " liked your post!");
 
         Map<String, Object> result = new HashMap<>();
         result.put("liked", liked);
-        result.put("likeCount", post.getLikes());
+        result.put("likeCount", likeService.likeCount(postId));
         return result;
     }
 
 
-    public void deletePost(Long postId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
-        if (!post.getUser().getId().equals(user.getId())) {
-            throw new RuntimeException("Unauthorized");
-        }
-        postRepository.delete(post);
+    public void deletePost(Long postId, Long userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Post post = postRepository.findById(postId)
+                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            if (!post.getUser().getId().equals(userId)) {
+                throw new RuntimeException("Unauthorized");
+            }
+            fileStorageService.release(urlsOf(post.getMediaFiles()));
+            postRepository.delete(post);
+            eventPublisher.publishEvent(new PostDeletedEvent(postId, userId));
+        });
     }
 
-    public Post updatePost(Long postId, String userEmail, String newContent, MultipartFile[] mediaFiles) {
-        Post post = postRepository.findById(postId)
-            .orElseThrow(() -> new RuntimeException("Post not found"));
-    
-        if (!post.getUser().getEmail().equals(userEmail)) {
+    public Post updatePost(Long postId, Long userId, String newContent, MultipartFile[] mediaFiles,
+                           List<Long> mediaIds) {
+        if (!postRepository.findById(postId)
+                .orElseThrow(() -> new RuntimeException("Post not found"))
+                .getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized to update this post");
         }
-    
-        if (newContent != null) {
-            post.setContent(newContent);
-        }
-    
-        if (mediaFiles != null && mediaFiles.length > 0) {
-            // Optional: delete old media
-            post.getMediaFiles().clear();
-    
-            for (MultipartFile file : mediaFiles) {
-                String url = fileStorageService.uploadFile(file); // Upload file and get URL
-                Media media = new Media();
-                media.setUrl(url);
-                media.setType(file.getContentType().startsWith("image") ? "image" : "video");
-                media.setPost(post);
-                mediaRepository.save(media); // Save media entity
-                post.addMedia(media);
+
+        List<StoredMedia> stored = mediaUploadService.storeAll(mediaFiles);
+        boolean replaceMedia = !stored.isEmpty() || (mediaIds != null && !mediaIds.isEmpty());
+        return transactionTemplate.execute(status -> {
+            Post post = postRepository.findById(postId)
+                    .orElseThrow(() -> new RuntimeException("Post not found"));
+            if (newContent != null) {
+                post.setContent(newContent);
             }
-        }
-    
-        return postRepository.save(post);
+            if (replaceMedia) {
+                // New media replaces the old; orphan removal deletes the old rows
+                fileStorageService.release(urlsOf(post.getMediaFiles()));
+                post.getMediaFiles().clear();
+                stored.forEach(media -> post.addMedia(toMedia(media)));
+                chunkedUploadService.claim(userId, mediaIds).forEach(post::addMedia);
+                fileStorageService.retain(storedUrlsOf(stored));
+            }
+
+            post.setUpdatedAt(LocalDateTime.now());
+            // Flushed so new media rows have ids to queue derivatives for
+            Post savedPost = postRepository.saveAndFlush(post);
+            if (replaceMedia) {
+                mediaDerivativeService.enqueue(savedPost.getMediaFiles());
+            }
+            eventPublisher.publishEvent(new PostUpdatedEvent(savedPost.getId()));
+            return savedPost;
+        });
     }
-    
-   
+
+    private static Media toMedia(StoredMedia stored) {
+        Media media = new Media();
+        media.setUrl(stored.url());
+        media.setType(stored.type());
+        return media;
+    }
+
+    private static List<String> urlsOf(List<Media> media) {
+        return media.stream().map(Media::getUrl).collect(Collectors.toList());
+    }
+
+    private static List<String> storedUrlsOf(Collection<StoredMedia> stored) {
+        return stored.stream().map(StoredMedia::url).collect(Collectors.toList());
+    }
+
     @Transactional
-    public SharedPost sharePost(Long postId, String userEmail, String shareComment) {
-        // Find the user sharing the post
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + userEmail));
-        
+    public SharedPost sharePost(Long postId, Long userId, String shareComment) {
         // Find the post to be shared
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found with ID: " + postId));
         
         // Create new SharedPost entity
         SharedPost sharedPost = new SharedPost();
-        sharedPost.setUser(user);
+        sharedPost.setUser(userRepository.getReferenceById(userId));
         sharedPost.setOriginalPost(post);
         sharedPost.setSharedAt(LocalDateTime.now());
         sharedPost.setShareComment(shareComment);
         
         // Save the shared post
         SharedPost savedSharedPost = sharedPostRepository.save(sharedPost);
+        eventPublisher.publishEvent(new PostSharedEvent(
+            savedSharedPost.getId(), post.getId(), userId, savedSharedPost.getSharedAt()));
         
         // Create notification for the original post author
         // notificationService.createNotification(
@@ -268,117 +277,28 @@ public class PostService {
     
    
     public List<SharedPostDTO> getSharedPostsByUserId(Long userId) {
-        return sharedPostRepository.findByUserIdOrderBySharedAtDesc(userId)
-                .stream()
-                .map(sharedPost -> {
-                    Post originalPost = sharedPost.getOriginalPost();
-        
-                    // Convert comments to DTOs
-                    List<CommentDTO> commentDTOs = originalPost.getComments().stream()
-                            .map(comment -> new CommentDTO(
-                                comment.getId(),
-                                comment.getContent(),
-                                comment.getCreatedAt(),
-                                comment.getUser().getName()
-                            ))
-                            .collect(Collectors.toList());
-                
-                    // Get media URLs
-                    List<String> mediaUrls = originalPost.getMediaFiles().stream()
-                            .map(Media::getUrl)
-                            .collect(Collectors.toList());
-                
-                    // Create PostDTO for original post
-                    PostDTO originalPostDTO = new PostDTO(
-                        originalPost.getId(),
-                        originalPost.getContent(),
-                        originalPost.getLikes(),
-                        originalPost.getCreatedAt(),
-                        originalPost.getLikedUsers().contains(sharedPost.getUser()), // Set isLiked
-                        originalPost.getUser(),
-                        commentDTOs,
-                        mediaUrls
-                    );
-                
-                    // Create the final SharedPostDTO
-                    return new SharedPostDTO(
-                        sharedPost.getId(),
-                        sharedPost.getSharedAt(),
-                        sharedPost.getShareComment(),
-                        sharedPost.getUser().getName(),
-                        originalPostDTO
-                    );
-                }).collect(Collectors.toList());
+        return postMapper.toSharedPostDTOs(sharedPostRepository.findWithPostsByUserId(userId));
     }
     
     
-    public List<SharedPostDTO> getMySharedPosts(String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + userEmail));
-        
-        return sharedPostRepository.findByUserOrderBySharedAtDesc(user)
-                .stream()
-                .map(this::convertToSharedPostDTO)
-                .collect(Collectors.toList());
+    public List<SharedPostDTO> getMySharedPosts(Long userId) {
+        return postMapper.toSharedPostDTOs(sharedPostRepository.findWithPostsByUserId(userId));
     }
     
   
     @Transactional
-    public void deleteSharedPost(Long sharedPostId, String userEmail) {
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + userEmail));
-        
+    public void deleteSharedPost(Long sharedPostId, Long userId) {
         SharedPost sharedPost = sharedPostRepository.findById(sharedPostId)
                 .orElseThrow(() -> new RuntimeException("Shared post not found with ID: " + sharedPostId));
         
         // Verify ownership
-        if (!sharedPost.getUser().getId().equals(user.getId())) {
+        if (!sharedPost.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized to delete this shared post");
         }
         
         sharedPostRepository.delete(sharedPost);
-    }
-    
-  
-    private SharedPostDTO convertToSharedPostDTO(SharedPost sharedPost) {
-        Post originalPost = sharedPost.getOriginalPost();
-        
-        // Convert comments to DTOs
-        List<CommentDTO> commentDTOs = originalPost.getComments().stream()
-                .map(comment -> new CommentDTO(
-                    comment.getId(),
-                    comment.getContent(),
-                    comment.getCreatedAt(),
-                    comment.getUser().getName()
-                ))
-                .collect(Collectors.toList());
-        
-        // Get media URLs
-        List<String> mediaUrls = originalPost.getMediaFiles().stream()
-                .map(Media::getUrl)
-                .collect(Collectors.toList());
-        
-        // Create PostDTO for original post
-        PostDTO originalPostDTO = new PostDTO(
-            originalPost.getId(),
-            originalPost.getContent(),
-            originalPost.getLikes(),
-            originalPost.getCreatedAt(),
-            originalPost.getLikedUsers().contains(sharedPost.getUser()),
-            originalPost.getUser(),
-            commentDTOs,
-            mediaUrls
-        );
-        
-        // Create the final SharedPostDTO
-        return new SharedPostDTO(
-            sharedPost.getId(),
-            sharedPost.getSharedAt(),
-            sharedPost.getShareComment(),
-            sharedPost.getUser().getName(),
-            originalPostDTO
-        );
+        eventPublisher.publishEvent(new SharedPostDeletedEvent(sharedPostId, userId, sharedPost.getSharedAt()));
     }
 
-    
+
 }
\ No newline at end of file
@@ -23,20 +23,19 @@ public class ProgressUpdateService {
         return progressUpdateRepository.findAll();
     }
 
-    public ProgressUpdate createUpdate(String email, ProgressUpdate update) {
-        User user = userRepository.findByEmail(email)
+    // The author is serialized with the update, so load it rather than take a reference
+    public ProgressUpdate createUpdate(Long userId, ProgressUpdate update) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         update.setUser(user);
         update.setCreatedAt(LocalDateTime.now());
         return progressUpdateRepository.save(update);
     }
 
-    public void deleteUpdate(Long updateId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public void deleteUpdate(Long updateId, Long userId) {
         ProgressUpdate update = progressUpdateRepository.findById(updateId)
                 .orElseThrow(() -> new RuntimeException("Update not found"));
-        if (!update.getUser().getId().equals(user.getId())) {
+        if (!update.getUser().getId().equals(userId)) {
             throw new RuntimeException("Unauthorized");
         }
         progressUpdateRepository.delete(update);
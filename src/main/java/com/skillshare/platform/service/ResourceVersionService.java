@@ -0,0 +1,136 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.ResourceVersion;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.PostSetVersion;
+import com.skillshare.platform.repository.PostRepository.PostVersion;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserVersion;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Computes validators for the polled GET endpoints from a few indexed columns, so a
+ * matching {@code If-None-Match} can be answered with 304 before any DTO is built.
+ *
+ * <p>ETags cover everything the response shows, including like counts that are still
+ * buffered and the viewer's liked flags. Pages are versioned from their own rows, read
+ * through the same index range as the page, so a like or profile edit elsewhere leaves
+ * them valid. Comments show their authors' current profiles, so the latest profile edit of
+ * the commenters is part of every version that includes comments. Last-Modified is only
+ * sent for single posts and users. A list can change
+ * without any row getting newer (a deletion), so lists are validated by ETag alone.
+ */
+@Service
+public class ResourceVersionService {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private LikeCounterBuffer likeCounterBuffer;
+
+    public Optional<ResourceVersion> forPost(Long postId, Long viewerId) {
+        return postRepository.findVersionById(postId).map(post -> {
+            boolean liked = viewerId != null && !postRepository.findLikedPostIds(viewerId, List.of(postId)).isEmpty();
+            long likes = post.getLikes() + likeCounterBuffer.pendingDelta(postId);
+            LocalDateTime commenters = commentRepository.findLastCommenterUpdateByPostIdIn(List.of(postId));
+            return version(
+                latest(post.getCreatedAt(), post.getUpdatedAt(), post.getAuthorUpdatedAt(), commenters),
+                "post", post.getId(), post.getCreatedAt(), post.getUpdatedAt(), post.getAuthorUpdatedAt(), commenters,
+                likes, liked);
+        });
+    }
+
+    /** Version of one page of the home feed as the viewer sees it; {@code cursor} and size as sent to it. */
+    public ResourceVersion forFeedPage(Long viewerId, String cursor, int size) {
+        int pageSize = PostService.feedPageSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<PostVersion> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = postRepository.findFeedFirstPageVersions(limit);
+        } else {
+            FeedCursor position = FeedCursor.decode(cursor);
+            rows = postRepository.findFeedPageVersionsAfter(position.getCreatedAt(), position.getId(), limit);
+        }
+        // The row after the page only decides whether there is a next cursor
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+        return version(null, "feed", viewerId, cursor, pageSize, hasMore, describe(rows, viewerId));
+    }
+
+    /** Version of the unpaged list of every post, as seen by the viewer. */
+    public ResourceVersion forAllPosts(Long viewerId) {
+        PostSetVersion posts = postRepository.findAllPostsVersion();
+        // Every post is in this list, so any like counted in the buffer changes it
+        return version(null, "posts", viewerId, posts.getTotal(), posts.getLastCreatedAt(),
+            posts.getLastUpdatedAt(), posts.getLastAuthorUpdatedAt(), commentRepository.findLastCommenterUpdate(),
+            likeCounterBuffer.version());
+    }
+
+    public Optional<ResourceVersion> forUser(Long userId) {
+        return userRepository.findVersionById(userId)
+                .map(user -> version(user.getUpdatedAt(), "user", user.getId(), user.getUpdatedAt()));
+    }
+
+    // The user's own likes decide the liked flags of this list, so no viewer is involved
+    public ResourceVersion forUserPosts(Long userId) {
+        LocalDateTime author = userRepository.findVersionById(userId).map(UserVersion::getUpdatedAt).orElse(null);
+        return version(null, "user-posts", userId, author, describe(postRepository.findVersionsByUserId(userId), userId));
+    }
+
+    // Each row with its buffered likes, the commenters' latest edit, then the posts the viewer liked
+    private String describe(List<PostVersion> rows, Long viewerId) {
+        if (rows.isEmpty()) {
+            return "";
+        }
+        List<Long> ids = rows.stream().map(PostVersion::getId).toList();
+        StringBuilder description = new StringBuilder();
+        for (PostVersion row : rows) {
+            description.append(row.getId()).append(',').append(row.getUpdatedAt()).append(',')
+                    .append(row.getLikes() + likeCounterBuffer.pendingDelta(row.getId())).append(',')
+                    .append(row.getAuthorUpdatedAt()).append(';');
+        }
+        description.append(commentRepository.findLastCommenterUpdateByPostIdIn(ids)).append(';');
+        if (viewerId != null) {
+            description.append(new TreeSet<>(postRepository.findLikedPostIds(viewerId, ids)));
+        }
+        return description.toString();
+    }
+
+    private static LocalDateTime latest(LocalDateTime... times) {
+        return Arrays.stream(times).filter(Objects::nonNull).max(LocalDateTime::compareTo).orElse(null);
+    }
+
+    private static ResourceVersion version(LocalDateTime lastModified, Object... parts) {
+        String key = Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("|"));
+        String etag = "W/\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+        long millis = lastModified == null
+                ? -1
+                : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ResourceVersion(etag, millis);
+    }
+}
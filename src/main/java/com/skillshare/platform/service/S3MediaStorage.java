@@ -0,0 +1,216 @@
+package com.skillshare.platform.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Media kept in the {@code aws.s3.bucket} bucket. Files under the multipart threshold are
+ * sent with one {@code PutObject}; larger ones, typically videos, are split into parts that
+ * are uploaded concurrently on {@code s3PartExecutor}. That pool is shared by every upload,
+ * so it bounds both the connections to S3 and the part buffers held in memory
+ * (concurrency × part size).
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "s3")
+public class S3MediaStorage implements MediaStorage {
+
+    // S3 rejects smaller parts, except for the last one
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private S3Client s3Client;
+
+    @Autowired
+    @Qualifier("s3PartExecutor")
+    private Executor s3PartExecutor;
+
+    @Value("${aws.s3.bucket}")
+    private String bucket;
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Value("${media.storage.s3.public-url:}")
+    private String publicUrl;
+
+    private final long partSize;
+    private final long multipartThreshold;
+
+    public S3MediaStorage(@Value("${media.storage.s3.part-size:8MB}") DataSize partSize,
+                          @Value("${media.storage.s3.multipart-threshold:16MB}") DataSize multipartThreshold) {
+        if (partSize.toBytes() < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("media.storage.s3.part-size must be at least 5MB");
+        }
+        this.partSize = partSize.toBytes();
+        this.multipartThreshold = Math.max(multipartThreshold.toBytes(), this.partSize);
+    }
+
+    @Override
+    public void put(String name, Path file, String contentType) throws IOException {
+        try {
+            long size = Files.size(file);
+            if (size < multipartThreshold) {
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(name)
+                        .contentType(contentType)
+                        .cacheControl(CACHE_CONTROL)
+                        .build(), RequestBody.fromFile(file));
+            } else {
+                putMultipart(name, file, size, contentType);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void putMultipart(String name, Path file, long size, String contentType) throws IOException {
+        String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(name)
+                .contentType(contentType)
+                .cacheControl(CACHE_CONTROL)
+                .build()).uploadId();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += partSize) {
+                int partNumber = parts.size() + 1;
+                long position = offset;
+                int length = (int) Math.min(partSize, size - offset);
+                parts.add(CompletableFuture.supplyAsync(
+                    () -> uploadPart(name, uploadId, partNumber, channel, position, length), s3PartExecutor));
+            }
+
+            // Wait for every part, so none is still writing when the upload is aborted
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            RuntimeException failure = null;
+            for (CompletableFuture<CompletedPart> part : parts) {
+                try {
+                    completed.add(part.join());
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(name)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            // Parts of an unfinished upload are billed until it is aborted
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(name)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    private CompletedPart uploadPart(String name, String uploadId, int partNumber,
+                                     FileChannel channel, long position, int length) {
+        try {
+            // Positional reads, so parts can share the channel
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("File ended before part " + partNumber);
+                }
+            }
+            buffer.flip();
+            String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                    .bucket(bucket)
+                    .key(name)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength((long) length)
+                    .build(), RequestBody.fromByteBuffer(buffer)).eTag();
+            return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean exists(String name) {
+        try {
+            s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(name).build());
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String name) throws IOException {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(name).build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                throw new NoSuchFileException(name);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void delete(String name) {
+        s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(name).build());
+    }
+
+    @Override
+    public String urlOf(String name) {
+        String base = publicUrl.isBlank() ? "https://" + bucket + ".s3." + region + ".amazonaws.com" : publicUrl;
+        return base + "/" + name;
+    }
+
+    @Override
+    public Path localPath(String name) {
+        return null;
+    }
+}
@@ -1,33 +0,0 @@
-package com.skillshare.platform.service;
-
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
-
-import java.io.IOException;
-import java.util.UUID;
-
-@Service
-public class S3Service {
-    @Autowired
-    private AmazonS3 amazonS3;
-
-    @Value("${aws.s3.bucket}")
-    private String bucketName;
-
-    public String uploadFile(MultipartFile file) {
-        String fileName = UUID.randomUUID().toString() + "-" + file.getOriginalFilename();
-        try {
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(file.getSize());
-            metadata.setContentType(file.getContentType());
-            amazonS3.putObject(bucketName, fileName, file.getInputStream(), metadata);
-            return amazonS3.getUrl(bucketName, fileName).toString();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to upload file to S3", e);
-        }
-    }
-}
@@ -0,0 +1,351 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.SearchResultDTO;
+
+import jakarta.annotation.PreDestroy;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Embedded Lucene index over posts, comments and learning plans, stored in
+ * {@code search.index-dir}. Text is tokenized and lowercased by the standard analyzer and
+ * ranked with BM25, Lucene's default similarity. Writes are buffered by the IndexWriter.
+ * A scheduled refresh makes them searchable within {@code search.refresh-interval-ms}, and
+ * a scheduled commit makes them durable. Every commit records when it happened, so writes
+ * lost in a crash can be replayed from the rows changed since (see {@link #lastCommittedAt}).
+ */
+@Component
+public class SearchIndex implements Closeable {
+
+    public static final String TYPE_POST = "post";
+    public static final String TYPE_COMMENT = "comment";
+    public static final String TYPE_PLAN = "plan";
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_POST_ID = "postId";
+    private static final String FIELD_AUTHOR_ID = "authorId";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_TEXT = "text";
+    private static final String FIELD_SNIPPET = "snippet";
+
+    // Commit user data: when the commit was made. Everything indexed before then is durable
+    private static final String COMMITTED_AT = "committedAt";
+
+    private static final int SNIPPET_LENGTH = 200;
+    private static final int MAX_QUERY_TERMS = 16;
+    // Shorter prefixes expand to too much of the term dictionary to be useful
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /** One searchable item; postId is set for posts and comments. */
+    public record Item(String type, Long id, Long postId, Long authorId, LocalDateTime createdAt, String text) {
+    }
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    // While a bulk rebuild runs, the half-built index is neither published nor committed
+    private volatile boolean rebuilding;
+
+    public SearchIndex(@Value("${search.index-dir:search-index}") Path indexDir) throws IOException {
+        this.directory = FSDirectory.open(indexDir);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    /** Adds the item or replaces the indexed version of it. Items without text are removed. */
+    public void upsert(Item item) {
+        if (item.text() == null || item.text().isBlank()) {
+            delete(item.type(), item.id());
+            return;
+        }
+        try {
+            writer.updateDocument(keyTerm(item.type(), item.id()), toDocument(item));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to index " + item.type() + " " + item.id(), e);
+        }
+    }
+
+    public void delete(String type, Long id) {
+        try {
+            writer.deleteDocuments(keyTerm(type, id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove " + type + " " + id + " from the search index", e);
+        }
+    }
+
+    /** Removes a post's comments, which the database deletes together with the post. */
+    public void deleteCommentsOfPost(Long postId) {
+        Query comments = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_TYPE, TYPE_COMMENT)), Occur.FILTER)
+                .add(new TermQuery(new Term(FIELD_POST_ID, postId.toString())), Occur.FILTER)
+                .build();
+        try {
+            writer.deleteDocuments(comments);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to remove comments of post " + postId + " from the search index", e);
+        }
+    }
+
+    /**
+     * Every word of the query must match. The last word also matches as a prefix unless the
+     * query ends in whitespace, so results follow the user while they type. Whole-word
+     * matches are BM25-ranked; prefix matches add a constant score.
+     *
+     * @param type one of the TYPE_ constants, or null for all types
+     */
+    public List<SearchResultDTO> search(String text, String type, int limit) {
+        Query query = buildQuery(text, type);
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, limit);
+                StoredFields storedFields = searcher.storedFields();
+                List<SearchResultDTO> results = new ArrayList<>(top.scoreDocs.length);
+                for (ScoreDoc scoreDoc : top.scoreDocs) {
+                    results.add(toResult(storedFields.document(scoreDoc.doc), scoreDoc.score));
+                }
+                return results;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search failed", e);
+        }
+    }
+
+    /**
+     * Replaces the whole index with the items {@code source} passes to its consumer. Searches
+     * keep seeing the previous index until the new one is committed.
+     *
+     * @return the number of items indexed
+     */
+    public synchronized long rebuild(Consumer<Consumer<Item>> source) {
+        rebuilding = true;
+        // Rows changed while the source is read are replayed by the caller from this time
+        LocalDateTime started = LocalDateTime.now();
+        try {
+            writer.deleteAll();
+            long[] count = {0};
+            source.accept(item -> {
+                upsert(item);
+                count[0]++;
+            });
+            commit(started);
+            searcherManager.maybeRefreshBlocking();
+            return count[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search index rebuild failed", e);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    /**
+     * Removes the items of {@code type} whose id {@code exists} rejects, for deletions that
+     * never reached a commit. Reads every item of the index, so it is meant for startup.
+     *
+     * @return the ids removed
+     */
+    public List<Long> removeMissing(String type, LongPredicate exists) {
+        List<Long> missing = new ArrayList<>();
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                StoredFields storedFields = leaf.reader().storedFields();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    Document document = storedFields.document(doc, Set.of(FIELD_TYPE, FIELD_ID));
+                    long id = document.getField(FIELD_ID).numericValue().longValue();
+                    if (type.equals(document.get(FIELD_TYPE)) && !exists.test(id)) {
+                        missing.add(id);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the search index", e);
+        }
+        missing.forEach(id -> delete(type, id));
+        return missing;
+    }
+
+    public boolean isEmpty() {
+        return writer.getDocStats().numDocs == 0;
+    }
+
+    /**
+     * When the index was last committed, or null if it was never committed with a timestamp
+     * (a new index, or one written before they were recorded).
+     */
+    public LocalDateTime lastCommittedAt() {
+        for (Map.Entry<String, String> entry : writer.getLiveCommitData()) {
+            if (COMMITTED_AT.equals(entry.getKey())) {
+                return LocalDateTime.parse(entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    @Scheduled(fixedDelayString = "${search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        if (!rebuilding) {
+            searcherManager.maybeRefresh();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public void commit() throws IOException {
+        if (!rebuilding && writer.hasUncommittedChanges()) {
+            commit(LocalDateTime.now());
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        if (writer.hasUncommittedChanges()) {
+            writer.setLiveCommitData(Map.of(COMMITTED_AT, LocalDateTime.now().toString()).entrySet());
+        }
+        writer.close(); // commits pending changes
+        directory.close();
+    }
+
+    private void commit(LocalDateTime committedAt) throws IOException {
+        writer.setLiveCommitData(Map.of(COMMITTED_AT, committedAt.toString()).entrySet());
+        writer.commit();
+    }
+
+    private Query buildQuery(String text, String type) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        boolean lastIsPartial = !Character.isWhitespace(text.charAt(text.length() - 1));
+
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            Query termQuery = new TermQuery(new Term(FIELD_TEXT, term));
+            if (i == terms.size() - 1 && lastIsPartial && term.length() >= MIN_PREFIX_LENGTH) {
+                termQuery = new BooleanQuery.Builder()
+                        .add(termQuery, Occur.SHOULD)
+                        .add(new PrefixQuery(new Term(FIELD_TEXT, term)), Occur.SHOULD)
+                        .build();
+            }
+            builder.add(termQuery, Occur.MUST);
+        }
+        if (type != null) {
+            builder.add(new TermQuery(new Term(FIELD_TYPE, type)), Occur.FILTER);
+        }
+        return builder.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(FIELD_TEXT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (terms.size() < MAX_QUERY_TERMS && stream.incrementToken()) {
+                terms.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to analyze query", e);
+        }
+        return terms;
+    }
+
+    private static Term keyTerm(String type, Long id) {
+        return new Term(FIELD_KEY, type + ":" + id);
+    }
+
+    private static Document toDocument(Item item) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_KEY, item.type() + ":" + item.id(), Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, item.type(), Field.Store.YES));
+        document.add(new StoredField(FIELD_ID, item.id()));
+        if (item.postId() != null) {
+            document.add(new StringField(FIELD_POST_ID, item.postId().toString(), Field.Store.YES));
+        }
+        if (item.authorId() != null) {
+            document.add(new StoredField(FIELD_AUTHOR_ID, item.authorId()));
+        }
+        if (item.createdAt() != null) {
+            document.add(new StoredField(FIELD_CREATED_AT, item.createdAt().toString()));
+        }
+        document.add(new TextField(FIELD_TEXT, item.text(), Field.Store.NO));
+        String snippet = item.text().length() > SNIPPET_LENGTH ? item.text().substring(0, SNIPPET_LENGTH) : item.text();
+        document.add(new StoredField(FIELD_SNIPPET, snippet));
+        return document;
+    }
+
+    private static SearchResultDTO toResult(Document document, float score) {
+        String postId = document.get(FIELD_POST_ID);
+        IndexableField authorId = document.getField(FIELD_AUTHOR_ID);
+        String createdAt = document.get(FIELD_CREATED_AT);
+        return new SearchResultDTO(
+            document.get(FIELD_TYPE),
+            document.getField(FIELD_ID).numericValue().longValue(),
+            postId != null ? Long.valueOf(postId) : null,
+            authorId != null ? authorId.numericValue().longValue() : null,
+            createdAt != null ? LocalDateTime.parse(createdAt) : null,
+            document.get(FIELD_SNIPPET),
+            score
+        );
+    }
+}
@@ -0,0 +1,247 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.SearchResultDTO;
+import com.skillshare.platform.event.CommentChangedEvent;
+import com.skillshare.platform.event.LearningPlanChangedEvent;
+import com.skillshare.platform.event.PostCreatedEvent;
+import com.skillshare.platform.event.PostDeletedEvent;
+import com.skillshare.platform.event.PostUpdatedEvent;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.CommentRepository.CommentSearchSource;
+import com.skillshare.platform.repository.LearningPlanRepository;
+import com.skillshare.platform.repository.LearningPlanRepository.LearningPlanSearchSource;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.PostSearchSource;
+import com.skillshare.platform.service.SearchIndex.Item;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over posts, comments and learning plans. The index follows the
+ * create/update/delete events of the owning services after they commit, and can be
+ * rebuilt from the database in one pass. A failed incremental update is logged rather
+ * than failing the write that caused it; a rebuild repairs the index.
+ * <p>
+ * Updates that reached the index but not an index commit are lost in a crash. On startup,
+ * before requests are served, rows changed since shortly before the last commit are indexed
+ * again and deleted rows are removed; an index without a commit time is rebuilt instead. A
+ * rebuild while requests are served replays the same way from when it started, since a
+ * row it read may have been changed or deleted before it was added.
+ */
+@Service
+public class SearchService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
+
+    private static final int MAX_RESULTS = 50;
+    private static final Set<String> TYPES = Set.of(SearchIndex.TYPE_POST, SearchIndex.TYPE_COMMENT, SearchIndex.TYPE_PLAN);
+
+    @Autowired
+    private SearchIndex searchIndex;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private LearningPlanRepository learningPlanRepository;
+
+    @Value("${search.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    // How long before the last commit replay starts: a row's updatedAt is set before its
+    // transaction commits, and its index update runs after
+    @Value("${search.replay-margin:PT5M}")
+    private Duration replayMargin;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SearchService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public List<SearchResultDTO> search(String query, String type, int size) {
+        if (type != null && !TYPES.contains(type)) {
+            throw new IllegalArgumentException("Unknown search type: " + type);
+        }
+        return searchIndex.search(query, type, Math.max(1, Math.min(size, MAX_RESULTS)));
+    }
+
+    /** Re-indexes every post, comment and learning plan, streaming them from the database. */
+    public long rebuild() {
+        LocalDateTime started = LocalDateTime.now();
+        long indexed = rebuildIndex();
+        // The events of writes that raced the read may have come before it added their rows
+        replaySince(started.minus(replayMargin));
+        return indexed;
+    }
+
+    private long rebuildIndex() {
+        long started = System.currentTimeMillis();
+        Long indexed = transactionTemplate.execute(status -> searchIndex.rebuild(sink -> {
+            try (Stream<PostSearchSource> posts = postRepository.streamSearchSources()) {
+                posts.forEach(post -> sink.accept(toItem(post)));
+            }
+            try (Stream<CommentSearchSource> comments = commentRepository.streamSearchSources()) {
+                comments.forEach(comment -> sink.accept(toItem(comment)));
+            }
+            try (Stream<LearningPlanSearchSource> plans = learningPlanRepository.streamSearchSources()) {
+                plans.forEach(plan -> sink.accept(toItem(plan)));
+            }
+        }));
+        logger.info("Rebuilt search index with {} documents in {} ms", indexed, System.currentTimeMillis() - started);
+        return indexed == null ? 0 : indexed;
+    }
+
+    /**
+     * Indexes again the posts (with their comments) and learning plans changed since
+     * {@code since}, and removes posts and plans that no longer exist.
+     *
+     * @return the number of posts and plans indexed again or removed
+     */
+    public long replaySince(LocalDateTime since) {
+        long started = System.currentTimeMillis();
+        Long replayed = transactionTemplate.execute(status -> {
+            long[] count = {0};
+            try (Stream<PostSearchSource> posts = postRepository.streamSearchSourcesUpdatedSince(since)) {
+                posts.forEach(post -> {
+                    searchIndex.upsert(toItem(post));
+                    // Drops deleted comments; the ones left are added back below
+                    searchIndex.deleteCommentsOfPost(post.getId());
+                    count[0]++;
+                });
+            }
+            try (Stream<CommentSearchSource> comments = commentRepository.streamSearchSourcesOfPostsUpdatedSince(since)) {
+                comments.forEach(comment -> searchIndex.upsert(toItem(comment)));
+            }
+            try (Stream<LearningPlanSearchSource> plans = learningPlanRepository.streamSearchSourcesUpdatedSince(since)) {
+                plans.forEach(plan -> {
+                    searchIndex.upsert(toItem(plan));
+                    count[0]++;
+                });
+            }
+
+            LongOpenHashSet postIds = new LongOpenHashSet();
+            try (Stream<Long> ids = postRepository.streamIds()) {
+                ids.forEach(id -> postIds.add(id.longValue()));
+            }
+            List<Long> deletedPosts = searchIndex.removeMissing(SearchIndex.TYPE_POST, postIds::contains);
+            deletedPosts.forEach(searchIndex::deleteCommentsOfPost);
+            LongOpenHashSet planIds = new LongOpenHashSet();
+            try (Stream<Long> ids = learningPlanRepository.streamIds()) {
+                ids.forEach(id -> planIds.add(id.longValue()));
+            }
+            List<Long> deletedPlans = searchIndex.removeMissing(SearchIndex.TYPE_PLAN, planIds::contains);
+            return count[0] + deletedPosts.size() + deletedPlans.size();
+        });
+        try {
+            searchIndex.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit the search index", e);
+        }
+        logger.info("Replayed {} search index changes since {} in {} ms", replayed, since,
+            System.currentTimeMillis() - started);
+        return replayed == null ? 0 : replayed;
+    }
+
+    // Runs before requests are served, so no new write interleaves with the rebuild or replay.
+    // An empty index (first start, or a deleted directory), or one committed before commit
+    // times were recorded, is rebuilt
+    @Override
+    public void afterSingletonsInstantiated() {
+        LocalDateTime committedAt = searchIndex.lastCommittedAt();
+        if (rebuildOnStartup || searchIndex.isEmpty() || committedAt == null) {
+            rebuildIndex();
+        } else {
+            replaySince(committedAt.minus(replayMargin));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        reindexPost(event.postId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostUpdated(PostUpdatedEvent event) {
+        reindexPost(event.postId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        try {
+            searchIndex.delete(SearchIndex.TYPE_POST, event.postId());
+            searchIndex.deleteCommentsOfPost(event.postId());
+        } catch (RuntimeException e) {
+            logger.error("Failed to remove post {} from the search index: {}", event.postId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        try {
+            commentRepository.findSearchSourceById(event.commentId()).ifPresentOrElse(
+                comment -> searchIndex.upsert(toItem(comment)),
+                () -> searchIndex.delete(SearchIndex.TYPE_COMMENT, event.commentId()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to index comment {}: {}", event.commentId(), e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLearningPlanChanged(LearningPlanChangedEvent event) {
+        try {
+            learningPlanRepository.findSearchSourceById(event.planId()).ifPresentOrElse(
+                plan -> searchIndex.upsert(toItem(plan)),
+                () -> searchIndex.delete(SearchIndex.TYPE_PLAN, event.planId()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to index learning plan {}: {}", event.planId(), e.getMessage());
+        }
+    }
+
+    private void reindexPost(Long postId) {
+        try {
+            postRepository.findSearchSourceById(postId).ifPresentOrElse(
+                post -> searchIndex.upsert(toItem(post)),
+                () -> searchIndex.delete(SearchIndex.TYPE_POST, postId));
+        } catch (RuntimeException e) {
+            logger.error("Failed to index post {}: {}", postId, e.getMessage());
+        }
+    }
+
+    private static Item toItem(PostSearchSource post) {
+        return new Item(SearchIndex.TYPE_POST, post.getId(), post.getId(), post.getAuthorId(),
+            post.getCreatedAt(), post.getContent());
+    }
+
+    private static Item toItem(CommentSearchSource comment) {
+        return new Item(SearchIndex.TYPE_COMMENT, comment.getId(), comment.getPostId(), comment.getAuthorId(),
+            comment.getCreatedAt(), comment.getContent());
+    }
+
+    private static Item toItem(LearningPlanSearchSource plan) {
+        String text = plan.getResources() == null ? plan.getTopic() : plan.getTopic() + "\n" + plan.getResources();
+        return new Item(SearchIndex.TYPE_PLAN, plan.getId(), null, plan.getAuthorId(), plan.getCreatedAt(), text);
+    }
+}
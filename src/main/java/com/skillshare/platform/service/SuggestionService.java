@@ -0,0 +1,228 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.dto.UserSuggestionDTO;
+import com.skillshare.platform.repository.ProgressUpdateRepository;
+import com.skillshare.platform.repository.ProgressUpdateRepository.UserSkills;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserSummaryView;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * "People you may know". Candidates are the people followed by the people a user follows,
+ * found with a two-hop walk over {@link FollowGraph} and counted in a primitive map.
+ * The best of them by mutual follows are then scored on skills shared through
+ * {@code ProgressUpdate.newSkills}. The walk is bounded by fan-out caps and a time budget,
+ * so a user who follows celebrities costs the same as anyone else.
+ *
+ * <p>Suggestions are kept per user who asked for them recently and recomputed in the
+ * background, so a read only resolves names and drops people the user has followed since.
+ */
+@Service
+public class SuggestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionService.class);
+
+    private static final int MAX_RESULTS = 50;
+
+    /** One precomputed suggestion; names are resolved when it is served. */
+    record Candidate(long userId, int mutualFollows, List<String> sharedSkills, double score) {
+    }
+
+    private record Suggestions(List<Candidate> candidates, long lastRequestedAt) {
+    }
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProgressUpdateRepository progressUpdateRepository;
+
+    @Autowired
+    @Qualifier("suggestionExecutor")
+    private Executor suggestionExecutor;
+
+    @Value("${suggestions.max-first-hop:500}")
+    private int maxFirstHop;
+
+    @Value("${suggestions.max-second-hop:500}")
+    private int maxSecondHop;
+
+    @Value("${suggestions.max-scored:200}")
+    private int maxScored;
+
+    @Value("${suggestions.time-budget:PT0.05S}")
+    private Duration timeBudget;
+
+    @Value("${suggestions.weights.mutual:1}")
+    private double mutualWeight;
+
+    @Value("${suggestions.weights.skill:2}")
+    private double skillWeight;
+
+    @Value("${suggestions.active-for:PT24H}")
+    private Duration activeFor;
+
+    private final Cache<Long, Suggestions> suggestions;
+
+    public SuggestionService(@Value("${suggestions.max-users:50000}") long maxUsers) {
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    public List<UserSuggestionDTO> getSuggestions(long userId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_RESULTS));
+
+        long now = System.currentTimeMillis();
+        Suggestions cached = suggestions.getIfPresent(userId);
+        List<Candidate> candidates;
+        if (cached == null) {
+            candidates = compute(userId);
+            suggestions.asMap().putIfAbsent(userId, new Suggestions(candidates, now));
+        } else {
+            candidates = cached.candidates();
+            suggestions.asMap().computeIfPresent(userId, (id, current) -> new Suggestions(current.candidates(), now));
+        }
+
+        // Precomputed lists can be minutes old; skip anyone followed since
+        List<Candidate> page = candidates.stream()
+                .filter(candidate -> !followGraph.isFollowing(userId, candidate.userId()))
+                .limit(limit)
+                .collect(Collectors.toList());
+        if (page.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserSummaryView> summaries = userRepository
+                .findSummariesByIdIn(page.stream().map(Candidate::userId).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(UserSummaryView::getId, Function.identity()));
+        return page.stream()
+                .filter(candidate -> summaries.containsKey(candidate.userId()))
+                .map(candidate -> {
+                    UserSummaryView summary = summaries.get(candidate.userId());
+                    return new UserSuggestionDTO(summary.getId(), summary.getName(), summary.getProfilePhotoUrl(),
+                        candidate.mutualFollows(), candidate.sharedSkills());
+                })
+                .collect(Collectors.toList());
+    }
+
+    /** Recomputes suggestions for users who asked recently and forgets the others. */
+    @Scheduled(fixedDelayString = "${suggestions.refresh-interval-ms:600000}")
+    public void refreshActive() {
+        long activeSince = System.currentTimeMillis() - activeFor.toMillis();
+        suggestions.asMap().forEach((userId, entry) -> {
+            if (entry.lastRequestedAt() < activeSince) {
+                suggestions.asMap().remove(userId, entry);
+                return;
+            }
+            suggestionExecutor.execute(() -> {
+                try {
+                    List<Candidate> candidates = compute(userId);
+                    // Keep the read time; a refresh is not activity
+                    suggestions.asMap().computeIfPresent(userId,
+                        (id, current) -> new Suggestions(candidates, current.lastRequestedAt()));
+                } catch (RuntimeException e) {
+                    logger.error("Failed to refresh suggestions for user {}: {}", userId, e.getMessage());
+                }
+            });
+        });
+    }
+
+    /** Ranked candidates for the user, best first; at most {@link #MAX_RESULTS}. */
+    List<Candidate> compute(long userId) {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        long[] followees = followGraph.followingIds(userId, maxFirstHop);
+        LongOpenHashSet excluded = new LongOpenHashSet(followGraph.followingIds(userId));
+        excluded.add(userId);
+
+        Long2IntOpenHashMap mutuals = new Long2IntOpenHashMap();
+        int expanded = 0;
+        for (long followee : followees) {
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+            for (long candidate : followGraph.followingIds(followee, maxSecondHop)) {
+                if (!excluded.contains(candidate)) {
+                    mutuals.addTo(candidate, 1);
+                }
+            }
+            expanded++;
+        }
+        if (expanded < followees.length) {
+            logger.debug("Suggestion walk for user {} stopped after {} of {} followees", userId, expanded, followees.length);
+        }
+        if (mutuals.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long2IntMap.Entry> shortlist = new ArrayList<>(mutuals.long2IntEntrySet());
+        shortlist.sort(Comparator.comparingInt(Long2IntMap.Entry::getIntValue).reversed()
+                .thenComparing(Comparator.comparingLong(Long2IntMap.Entry::getLongKey).reversed()));
+        if (shortlist.size() > maxScored) {
+            shortlist = shortlist.subList(0, maxScored);
+        }
+
+        List<Long> userIds = new ArrayList<>(shortlist.size() + 1);
+        userIds.add(userId);
+        shortlist.forEach(entry -> userIds.add(entry.getLongKey()));
+        Map<Long, Set<String>> skills = loadSkills(userIds);
+        Set<String> ownSkills = skills.getOrDefault(userId, Set.of());
+
+        return shortlist.stream()
+                .map(entry -> {
+                    List<String> shared = skills.getOrDefault(entry.getLongKey(), Set.of()).stream()
+                            .filter(ownSkills::contains)
+                            .sorted()
+                            .collect(Collectors.toList());
+                    double score = mutualWeight * entry.getIntValue() + skillWeight * shared.size();
+                    return new Candidate(entry.getLongKey(), entry.getIntValue(), shared, score);
+                })
+                .sorted(Comparator.comparingDouble(Candidate::score).reversed()
+                        .thenComparing(Comparator.comparingLong(Candidate::userId).reversed()))
+                .limit(MAX_RESULTS)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Set<String>> loadSkills(Collection<Long> userIds) {
+        Map<Long, Set<String>> skills = new HashMap<>();
+        for (UserSkills row : progressUpdateRepository.findSkillsByUserIdIn(userIds)) {
+            Set<String> userSkills = skills.computeIfAbsent(row.getUserId(), id -> new HashSet<>());
+            for (String skill : row.getNewSkills().split("[,;\\n]")) {
+                String normalized = skill.trim().toLowerCase(Locale.ROOT);
+                if (!normalized.isEmpty()) {
+                    userSkills.add(normalized);
+                }
+            }
+        }
+        return skills;
+    }
+}
@@ -0,0 +1,176 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
+import com.skillshare.platform.event.PostCreatedEvent;
+import com.skillshare.platform.event.PostSharedEvent;
+import com.skillshare.platform.event.SharedPostDeletedEvent;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.TimelineSeed;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+import com.skillshare.platform.service.TimelineStore.Timeline;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * "Following" feed built by fan-out on write. When a post or share commits, its id is
+ * pushed into the resident timeline of every follower. Authors with more than
+ * {@code timeline.fanout-max-followers} followers are not fanned out. Their recent items
+ * are pulled and merged in when a follower reads; who they are is read from the follow
+ * graph, so it holds for items posted before a restart too. A deleted share is taken out
+ * of the resident timelines again, so it does not leave a gap in a page.
+ */
+@Service
+public class TimelineService {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    @Autowired
+    private TimelineStore timelineStore;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private FollowGraph followGraph;
+
+    @Value("${timeline.fanout-max-followers:5000}")
+    private long fanoutMaxFollowers;
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostCreated(PostCreatedEvent event) {
+        fanOut(event.authorId(), new Entry(FeedItemDTO.TYPE_POST, event.postId(), event.createdAt()));
+    }
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostShared(PostSharedEvent event) {
+        fanOut(event.sharerId(), new Entry(FeedItemDTO.TYPE_SHARE, event.sharedPostId(), event.sharedAt()));
+    }
+
+    @Async("timelineExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSharedPostDeleted(SharedPostDeletedEvent event) {
+        Entry entry = new Entry(FeedItemDTO.TYPE_SHARE, event.sharedPostId(), event.sharedAt());
+        timelineStore.removeIfResident(event.sharerId(), entry);
+        // Every follower, not only those fanned out to: hydration also loads pulled authors' items
+        for (long followerId : followGraph.followerIds(event.sharerId())) {
+            timelineStore.removeIfResident(followerId, entry);
+        }
+    }
+
+    /** The user's timeline no longer matches who they follow; rebuild it on the next read. */
+    public void onFollowingChanged(Long userId) {
+        timelineStore.evict(userId);
+    }
+
+    public FeedPageDTO<FeedItemDTO> getTimeline(Long viewerId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Entry after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            FeedCursor position = FeedCursor.decode(cursor);
+            if (position.getType() == null) {
+                throw new IllegalArgumentException("Invalid feed cursor");
+            }
+            after = new Entry(position.getType(), position.getId(), position.getCreatedAt());
+        }
+
+        Timeline timeline = timelineStore.getOrLoad(viewerId, this::hydrate);
+        TreeSet<Entry> candidates = new TreeSet<>(TimelineStore.NEWEST_FIRST);
+        candidates.addAll(timeline.page(after, pageSize + 1));
+
+        List<Long> authors = authorsFor(viewerId);
+        Set<Long> pulled = authors.stream()
+                .filter(this::isPulledOnRead)
+                .collect(Collectors.toSet());
+        if (!pulled.isEmpty()) {
+            candidates.addAll(loadEntries(pulled, after, pageSize + 1));
+        }
+        if (candidates.size() <= pageSize && timeline.isFull()) {
+            // Scrolled past the resident window: continue straight from the database
+            candidates.addAll(loadEntries(authors, after, pageSize + 1));
+        }
+
+        List<Entry> page = candidates.stream().limit(pageSize + 1).collect(Collectors.toList());
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            Entry last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.timestamp(), last.id(), last.type()).encode();
+        }
+        return new FeedPageDTO<>(postMapper.toFeedItems(page, viewerId), nextCursor);
+    }
+
+    private void fanOut(Long authorId, Entry entry) {
+        timelineStore.pushIfResident(authorId, entry);
+        if (isPulledOnRead(authorId)) {
+            return;
+        }
+        for (long followerId : followGraph.followerIds(authorId)) {
+            timelineStore.pushIfResident(followerId, entry);
+        }
+    }
+
+    // Authors whose items are merged in on read instead of being pushed
+    private boolean isPulledOnRead(Long authorId) {
+        return followGraph.followerCount(authorId) > fanoutMaxFollowers;
+    }
+
+    private List<Entry> hydrate(Long userId) {
+        return loadEntries(authorsFor(userId), null, timelineStore.getCapacity());
+    }
+
+    // A user's timeline shows the people they follow plus their own activity
+    private List<Long> authorsFor(Long userId) {
+        long[] following = followGraph.followingIds(userId);
+        List<Long> authors = new ArrayList<>(following.length + 1);
+        for (long followeeId : following) {
+            authors.add(followeeId);
+        }
+        authors.add(userId);
+        return authors;
+    }
+
+    private List<Entry> loadEntries(Collection<Long> authorIds, Entry after, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<TimelineSeed> posts = after == null
+                ? postRepository.findTimelineSeeds(authorIds, pageRequest)
+                : postRepository.findTimelineSeedsBefore(authorIds, after.timestamp(), pageRequest);
+        List<TimelineSeed> shares = after == null
+                ? sharedPostRepository.findTimelineSeeds(authorIds, pageRequest)
+                : sharedPostRepository.findTimelineSeedsBefore(authorIds, after.timestamp(), pageRequest);
+
+        List<Entry> entries = new ArrayList<>(posts.size() + shares.size());
+        posts.forEach(seed -> entries.add(new Entry(FeedItemDTO.TYPE_POST, seed.getId(), seed.getCreatedAt())));
+        shares.forEach(seed -> entries.add(new Entry(FeedItemDTO.TYPE_SHARE, seed.getId(), seed.getCreatedAt())));
+        if (after != null) {
+            entries.removeIf(entry -> TimelineStore.NEWEST_FIRST.compare(entry, after) <= 0);
+        }
+        return entries;
+    }
+}
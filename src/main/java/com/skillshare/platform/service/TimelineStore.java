@@ -0,0 +1,174 @@
+package com.skillshare.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * In-memory home timelines: for each user, the newest post and share ids from the
+ * people they follow, capped at {@code timeline.capacity} entries. Only the
+ * {@code timeline.max-users} most recently read timelines are kept. A missing timeline is
+ * rebuilt from the database on its next read, so losing one is only a performance event.
+ */
+@Component
+public class TimelineStore {
+
+    /** Newest first; the type breaks ties because post and share ids overlap. */
+    public static final Comparator<Entry> NEWEST_FIRST = Comparator
+            .comparing(Entry::timestamp, Comparator.reverseOrder())
+            .thenComparing(Entry::type)
+            .thenComparing(Entry::id, Comparator.reverseOrder());
+
+    public record Entry(String type, Long id, LocalDateTime timestamp) {
+    }
+
+    private final int capacity;
+    private final Map<Long, Timeline> timelines;
+
+    // Timelines being hydrated, registered before their loader reads so pushes meanwhile land
+    // in them; guarded by the timelines lock
+    private final Map<Long, Timeline> loading = new HashMap<>();
+
+    public TimelineStore(@Value("${timeline.capacity:500}") int capacity,
+                         @Value("${timeline.max-users:50000}") int maxUsers) {
+        this.capacity = capacity;
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Timeline> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the user's timeline, building it with {@code loader} if it is not resident.
+     * The loader runs outside the store lock. Entries pushed while it runs are kept, since
+     * the loader may have read before they were committed.
+     */
+    public Timeline getOrLoad(Long userId, Function<Long, List<Entry>> loader) {
+        Timeline pending;
+        synchronized (timelines) {
+            Timeline existing = timelines.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            // Concurrent loads of one user fill the same timeline
+            pending = loading.computeIfAbsent(userId, id -> new Timeline(capacity));
+        }
+        try {
+            pending.addAll(loader.apply(userId));
+        } catch (RuntimeException e) {
+            synchronized (timelines) {
+                loading.remove(userId, pending);
+            }
+            throw e;
+        }
+        synchronized (timelines) {
+            // Otherwise a concurrent load published it already, or it was evicted while loading
+            // and only serves this read
+            if (loading.remove(userId, pending)) {
+                timelines.put(userId, pending);
+            }
+            return pending;
+        }
+    }
+
+    /**
+     * Pushes an entry into a resident timeline, or one being hydrated; absent timelines pick
+     * it up when they are rebuilt.
+     */
+    public boolean pushIfResident(Long userId, Entry entry) {
+        Timeline timeline;
+        synchronized (timelines) {
+            timeline = timelines.get(userId);
+            if (timeline == null) {
+                timeline = loading.get(userId);
+            }
+        }
+        if (timeline == null) {
+            return false;
+        }
+        timeline.add(entry);
+        return true;
+    }
+
+    /** Removes an entry from a resident timeline, or one being hydrated, if it holds it. */
+    public boolean removeIfResident(Long userId, Entry entry) {
+        Timeline timeline;
+        synchronized (timelines) {
+            timeline = timelines.get(userId);
+            if (timeline == null) {
+                timeline = loading.get(userId);
+            }
+        }
+        return timeline != null && timeline.remove(entry);
+    }
+
+    public void evict(Long userId) {
+        synchronized (timelines) {
+            timelines.remove(userId);
+            loading.remove(userId);
+        }
+    }
+
+    public static final class Timeline {
+        private final int capacity;
+        private final TreeSet<Entry> entries = new TreeSet<>(NEWEST_FIRST);
+        // Set once the timeline has reached capacity and stays set, since removals do not
+        // bring back the older entries it dropped
+        private boolean full;
+
+        private Timeline(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public synchronized void add(Entry entry) {
+            entries.add(entry);
+            while (entries.size() > capacity) {
+                entries.pollLast();
+            }
+            if (entries.size() >= capacity) {
+                full = true;
+            }
+        }
+
+        public synchronized boolean remove(Entry entry) {
+            return entries.remove(entry);
+        }
+
+        public synchronized void addAll(List<Entry> toAdd) {
+            toAdd.forEach(this::add);
+        }
+
+        /** Up to {@code limit} entries strictly after {@code after} (or from the top when null). */
+        public synchronized List<Entry> page(Entry after, int limit) {
+            Iterable<Entry> source = after == null ? entries : entries.tailSet(after, false);
+            List<Entry> page = new ArrayList<>(limit);
+            for (Entry entry : source) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(entry);
+            }
+            return page;
+        }
+
+        /** Whether older entries may be missing, so reads past the last one must go to the database. */
+        public synchronized boolean isFull() {
+            return full;
+        }
+    }
+}
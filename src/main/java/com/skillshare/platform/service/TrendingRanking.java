@@ -0,0 +1,272 @@
+package com.skillshare.platform.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * In-memory trending scores with exponential time decay, one ranking per window.
+ * Scores use forward decay: an interaction at time t adds {@code weight * e^(λ(t - L))}
+ * against a fixed landmark L, so existing scores never have to be touched as time passes
+ * and the ordering is the same as decaying every score to "now". Each window keeps its
+ * {@code trending.top-k} best posts in a sorted set that is updated with every score
+ * change, so reading the ranking never scans all scores. {@link #renormalize} moves the
+ * landmark forward periodically to keep the exponents small and to drop scores that have
+ * decayed to nothing.
+ *
+ * <p>A post's score is kept per kind of interaction, so taking one back (an unlike, a
+ * deleted comment) removes only what that kind contributed and never touches the rest.
+ */
+@Component
+public class TrendingRanking {
+
+    /** Half-life of each window: an interaction counts half as much after this long. */
+    public static final Map<String, Duration> WINDOWS;
+
+    static {
+        Map<String, Duration> windows = new LinkedHashMap<>();
+        windows.put("hour", Duration.ofHours(1));
+        windows.put("day", Duration.ofDays(1));
+        windows.put("week", Duration.ofDays(7));
+        WINDOWS = Collections.unmodifiableMap(windows);
+    }
+
+    // Highest score first; the id breaks ties so equal scores are distinct set members
+    private static final Comparator<Ranked> BEST_FIRST = Comparator
+            .comparingDouble(Ranked::score).reversed()
+            .thenComparing(Ranked::postId, Comparator.reverseOrder());
+
+    private record Ranked(Long postId, double score) {
+    }
+
+    /** What a post is credited for; each kind's contribution is tracked on its own. */
+    public enum Interaction {
+        LIKE,
+        COMMENT,
+        SHARE
+    }
+
+    private final int topK;
+    private final double pruneBelow;
+    private final Map<String, Window> windows = new LinkedHashMap<>();
+
+    public TrendingRanking(@Value("${trending.top-k:100}") int topK,
+                           @Value("${trending.prune-below:0.01}") double pruneBelow) {
+        this.topK = topK;
+        this.pruneBelow = pruneBelow;
+        Instant now = Instant.now();
+        WINDOWS.forEach((name, halfLife) -> windows.put(name, new Window(halfLife, now)));
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /** Adds {@code count} interactions that happened at {@code at}, each worth {@code weight}, in every window. */
+    public void record(Long postId, Interaction interaction, int count, double weight, Instant at) {
+        for (Window window : windows.values()) {
+            window.add(postId, interaction, count, weight, at);
+        }
+    }
+
+    /**
+     * Takes back one earlier interaction of this kind. Which one is not known, so the
+     * average contribution of the post's interactions of the kind is removed: removing all
+     * of them brings that contribution back to exactly zero, and a post never loses more
+     * than its interactions of the kind added. Nothing happens if none are counted.
+     */
+    public void takeBack(Long postId, Interaction interaction) {
+        for (Window window : windows.values()) {
+            window.takeBack(postId, interaction);
+        }
+    }
+
+    public void remove(Long postId) {
+        for (Window window : windows.values()) {
+            window.remove(postId);
+        }
+    }
+
+    /** Up to {@code limit} post ids, best first. */
+    public List<Long> top(String window, int limit) {
+        Window ranking = windows.get(window);
+        if (ranking == null) {
+            throw new IllegalArgumentException("Unknown trending window: " + window);
+        }
+        return ranking.top(limit);
+    }
+
+    /** Decays every score to {@code now}, which becomes the new landmark, and prunes dead scores. */
+    public void renormalize(Instant now) {
+        for (Window window : windows.values()) {
+            window.renormalize(now, pruneBelow);
+        }
+    }
+
+    /** Number of scored posts per window, for the admin endpoint. */
+    public Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        windows.forEach((name, window) -> sizes.put(name, window.size()));
+        return sizes;
+    }
+
+    private final class Window {
+        private final double lambda;
+        private double landmark;
+        private final Map<Long, Score> scores = new HashMap<>();
+        private final TreeSet<Ranked> top = new TreeSet<>(BEST_FIRST);
+        private final Map<Long, Ranked> topIndex = new HashMap<>();
+
+        private Window(Duration halfLife, Instant landmark) {
+            this.lambda = Math.log(2) / halfLife.toSeconds();
+            this.landmark = seconds(landmark);
+        }
+
+        synchronized void add(Long postId, Interaction interaction, int count, double weight, Instant at) {
+            if (count <= 0) {
+                return;
+            }
+            Score score = scores.computeIfAbsent(postId, id -> new Score());
+            score.add(interaction, count, count * weight * Math.exp(lambda * (seconds(at) - landmark)));
+            rerank(postId, score);
+        }
+
+        synchronized void takeBack(Long postId, Interaction interaction) {
+            Score score = scores.get(postId);
+            if (score == null || !score.takeBack(interaction)) {
+                return;
+            }
+            if (score.isEmpty()) {
+                scores.remove(postId);
+            }
+            rerank(postId, score);
+        }
+
+        private void rerank(Long postId, Score score) {
+            Ranked previous = topIndex.remove(postId);
+            if (previous != null) {
+                top.remove(previous);
+            }
+            if (previous != null && score.total < previous.score()) {
+                // A post outside the top may now outrank this one; decreases are rare, rebuild
+                rebuildTop();
+            } else if (!score.isEmpty()) {
+                offer(new Ranked(postId, score.total));
+            }
+        }
+
+        synchronized void remove(Long postId) {
+            scores.remove(postId);
+            if (topIndex.containsKey(postId)) {
+                rebuildTop();
+            }
+        }
+
+        synchronized List<Long> top(int limit) {
+            List<Long> ids = new ArrayList<>(Math.min(limit, top.size()));
+            for (Ranked ranked : top) {
+                if (ids.size() == limit) {
+                    break;
+                }
+                ids.add(ranked.postId());
+            }
+            return ids;
+        }
+
+        synchronized void renormalize(Instant now, double pruneBelow) {
+            double target = seconds(now);
+            double factor = Math.exp(-lambda * (target - landmark));
+            scores.values().forEach(score -> score.scale(factor));
+            scores.values().removeIf(score -> score.total < pruneBelow);
+            landmark = target;
+            rebuildTop();
+        }
+
+        synchronized int size() {
+            return scores.size();
+        }
+
+        private void offer(Ranked ranked) {
+            if (top.size() < topK) {
+                top.add(ranked);
+                topIndex.put(ranked.postId(), ranked);
+            } else if (BEST_FIRST.compare(ranked, top.last()) < 0) {
+                Ranked evicted = top.pollLast();
+                topIndex.remove(evicted.postId());
+                top.add(ranked);
+                topIndex.put(ranked.postId(), ranked);
+            }
+        }
+
+        private void rebuildTop() {
+            top.clear();
+            topIndex.clear();
+            scores.forEach((postId, score) -> offer(new Ranked(postId, score.total)));
+        }
+    }
+
+    // One post's score in one window, split by interaction; total is their sum
+    private static final class Score {
+        private final double[] contributions = new double[Interaction.values().length];
+        private final int[] counts = new int[Interaction.values().length];
+        private double total;
+
+        void add(Interaction interaction, int count, double contribution) {
+            contributions[interaction.ordinal()] += contribution;
+            counts[interaction.ordinal()] += count;
+            updateTotal();
+        }
+
+        boolean takeBack(Interaction interaction) {
+            int kind = interaction.ordinal();
+            if (counts[kind] == 0) {
+                return false;
+            }
+            contributions[kind] -= contributions[kind] / counts[kind];
+            if (--counts[kind] == 0) {
+                // Exactly zero, not a rounding residue
+                contributions[kind] = 0;
+            }
+            updateTotal();
+            return true;
+        }
+
+        void scale(double factor) {
+            for (int kind = 0; kind < contributions.length; kind++) {
+                contributions[kind] *= factor;
+            }
+            updateTotal();
+        }
+
+        boolean isEmpty() {
+            for (int count : counts) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void updateTotal() {
+            double sum = 0;
+            for (double contribution : contributions) {
+                sum += contribution;
+            }
+            total = sum;
+        }
+    }
+
+    private static double seconds(Instant instant) {
+        return instant.getEpochSecond() + instant.getNano() / 1e9;
+    }
+}
@@ -0,0 +1,148 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.event.CommentChangedEvent;
+import com.skillshare.platform.event.LikeChangedEvent;
+import com.skillshare.platform.event.PostDeletedEvent;
+import com.skillshare.platform.event.PostSharedEvent;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.PostEngagement;
+import com.skillshare.platform.repository.PostRepository.PostLikeTotal;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.service.TrendingRanking.Interaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Trending posts. Likes, comments and shares update {@link TrendingRanking} as they
+ * commit, so the ranking is read straight from memory. On startup the ranking is seeded
+ * from the last {@code trending.seed-lookback} of comments and shares at their own
+ * timestamps. Like edges have no timestamp, so a recent post's persisted like count is
+ * credited at the post's creation time.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    @Autowired
+    private TrendingRanking trendingRanking;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private SharedPostRepository sharedPostRepository;
+
+    @Value("${trending.weights.like:1}")
+    private double likeWeight;
+
+    @Value("${trending.weights.comment:3}")
+    private double commentWeight;
+
+    @Value("${trending.weights.share:5}")
+    private double shareWeight;
+
+    @Value("${trending.seed-lookback:P14D}")
+    private Duration seedLookback;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public TrendingService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public List<PostDTO> getTrending(Long viewerId, String window, int size) {
+        int limit = Math.max(1, Math.min(size, trendingRanking.getTopK()));
+        return postService.findSummaries(trendingRanking.top(window, limit), viewerId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long started = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minus(seedLookback);
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<PostLikeTotal> likes = postRepository.streamLikeTotalsSince(since)) {
+                likes.forEach(post ->
+                    trendingRanking.record(post.getPostId(), Interaction.LIKE, post.getLikes(), likeWeight,
+                        toInstant(post.getOccurredAt())));
+            }
+            try (Stream<PostEngagement> comments = commentRepository.streamEngagementsSince(since)) {
+                comments.forEach(comment ->
+                    trendingRanking.record(comment.getPostId(), Interaction.COMMENT, 1, commentWeight,
+                        toInstant(comment.getOccurredAt())));
+            }
+            try (Stream<PostEngagement> shares = sharedPostRepository.streamEngagementsSince(since)) {
+                shares.forEach(share ->
+                    trendingRanking.record(share.getPostId(), Interaction.SHARE, 1, shareWeight,
+                        toInstant(share.getOccurredAt())));
+            }
+        });
+        logger.info("Seeded trending ranking {} in {} ms", trendingRanking.sizes(), System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(fixedDelayString = "${trending.renormalize-interval-ms:300000}")
+    public void renormalize() {
+        trendingRanking.renormalize(Instant.now());
+    }
+
+    // Like edges have no timestamp, so an unlike takes back what the post's likes are worth on average
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLikeChanged(LikeChangedEvent event) {
+        if (event.liked()) {
+            trendingRanking.record(event.postId(), Interaction.LIKE, 1, likeWeight, Instant.now());
+        } else {
+            trendingRanking.takeBack(event.postId(), Interaction.LIKE);
+        }
+    }
+
+    // An edited comment is not new engagement
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentChanged(CommentChangedEvent event) {
+        switch (event.change()) {
+            case CREATED -> trendingRanking.record(event.postId(), Interaction.COMMENT, 1, commentWeight, Instant.now());
+            case DELETED -> trendingRanking.takeBack(event.postId(), Interaction.COMMENT);
+            default -> {
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostShared(PostSharedEvent event) {
+        trendingRanking.record(event.postId(), Interaction.SHARE, 1, shareWeight, toInstant(event.sharedAt()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostDeleted(PostDeletedEvent event) {
+        trendingRanking.remove(event.postId());
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,133 @@
+package com.skillshare.platform.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves files of the flat upload layout into the shards of {@link LocalMediaStorage}, a
+ * batch at a time, while they keep being served. Each file is first hard-linked into its
+ * shard, where lookups find it from then on; its flat name is removed a batch later, once
+ * requests that had already resolved it have opened the file. Where hard links are not
+ * supported, files are renamed instead.
+ */
+@Component
+@ConditionalOnProperty(name = "media.storage.type", havingValue = "local", matchIfMissing = true)
+public class UploadDirectoryMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadDirectoryMigrator.class);
+
+    @Autowired
+    private LocalMediaStorage localMediaStorage;
+
+    @Value("${media.sharding.batch-size:500}")
+    private int batchSize;
+
+    // Flat names linked into shards by the last batch, removed by the next
+    private List<Path> linked = List.of();
+    private long migrated;
+    private volatile boolean done;
+
+    @Scheduled(fixedDelayString = "${media.sharding.interval-ms:1000}", initialDelayString = "${media.sharding.interval-ms:1000}")
+    public void migrateBatch() {
+        if (done) {
+            return;
+        }
+        unlink(linked);
+        linked = List.of();
+
+        List<Path> batch = nextBatch();
+        if (batch == null) {
+            return;
+        }
+        if (batch.isEmpty()) {
+            done = true;
+            localMediaStorage.flatFilesMigrated();
+            if (migrated > 0) {
+                logger.info("Moved {} media files into the sharded layout", migrated);
+            }
+            return;
+        }
+
+        List<Path> linkedNow = new ArrayList<>(batch.size());
+        for (Path flat : batch) {
+            String name = flat.getFileName().toString();
+            try {
+                Path sharded = localMediaStorage.shardedPath(name);
+                Files.createDirectories(sharded.getParent());
+                try {
+                    link(sharded, flat);
+                } catch (FileAlreadyExistsException e) {
+                    // Stored again since, or linked before a restart; the same name is the same file
+                } catch (UnsupportedOperationException e) {
+                    Files.move(flat, sharded, StandardCopyOption.ATOMIC_MOVE);
+                    migrated++;
+                    continue;
+                }
+                linkedNow.add(flat);
+                migrated++;
+            } catch (NoSuchFileException e) {
+                // Deleted meanwhile, e.g. by garbage collection
+            } catch (IOException | IllegalArgumentException e) {
+                logger.warn("Could not move {} into its shard: {}", flat, e.getMessage());
+            }
+        }
+        linked = linkedNow;
+    }
+
+    // Package-private so tests can stand in a file system without hard links
+    void link(Path link, Path existing) throws IOException {
+        Files.createLink(link, existing);
+    }
+
+    // Up to batchSize files still at the top level; null when the directory cannot be read
+    private List<Path> nextBatch() {
+        Path dir = localMediaStorage.uploadPath();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Path> batch = new ArrayList<>(batchSize);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                // Skips shard and staging directories, and uploads still being written
+                if (FileStorageService.isValidName(name) && !name.endsWith(".part")
+                        && Files.isRegularFile(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    batch.add(entry);
+                    if (batch.size() == batchSize) {
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to list {}: {}", dir, e.getMessage());
+            return null;
+        }
+        return batch;
+    }
+
+    private static void unlink(List<Path> flatNames) {
+        for (Path flat : flatNames) {
+            try {
+                Files.deleteIfExists(flat);
+            } catch (IOException e) {
+                logger.warn("Failed to remove {} after moving it: {}", flat, e.getMessage());
+            }
+        }
+    }
+}
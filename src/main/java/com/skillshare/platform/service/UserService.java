@@ -1,37 +1,67 @@
 package com.skillshare.platform.service;
 
-import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
 import com.skillshare.platform.dto.PostDTO;
 import com.skillshare.platform.dto.UserDTO;
-import com.skillshare.platform.model.Media;
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.event.UserUpdatedEvent;
 import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.PostRepository;
 import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserSummaryView;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_BATCH_SIZE = 100;
+
     @Autowired
     private UserRepository userRepository;
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private TimelineService timelineService;
+
+    @Autowired
+    private FollowService followService;
+
+    @Autowired
+    private UserSummaryLoader userSummaryLoader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public UserService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     public Optional<UserDTO> findById(Long id) {
         return userRepository.findById(id).map(user -> {
@@ -39,8 +69,8 @@ public class UserService {
                 user.getId(),
                 user.getName(),
                 user.getEmail(),
-                user.getFollowing(),
-                user.getFollowers(),
+                user.getFollowerCount(),
+                user.getFollowingCount(),
                 user.getBio(),
                 user.getProfilePhotoUrl()
             );
@@ -55,161 +85,176 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public void followUser(Long userId, Long followId, String email) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-        User followUser = userRepository.findById(followId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + followId));
-
+    public void followUser(Long userId, Long followId, Long currentUserId) {
+        requireSelf(userId, currentUserId);
         // Prevent self-follow
         if (userId.equals(followId)) {
             throw new IllegalArgumentException("Users cannot follow themselves");
         }
+        requireExists(userId);
+        requireExists(followId);
 
-        // Check if the user is already following the target user
-        if (!user.getFollowing().contains(followUser)) {
-            user.getFollowing().add(followUser);
-            followUser.getFollowers().add(user);
-            userRepository.save(user);
-            userRepository.save(followUser);
+        // Following someone already followed is a no-op (idempotent operation)
+        if (followService.follow(userId, followId)) {
+            timelineService.onFollowingChanged(userId);
         }
-        // If already following, do nothing (idempotent operation)
     }
 
-    public void unfollowUser(Long userId, Long followId, String email) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-        User followUser = userRepository.findById(followId)
-                .orElseThrow(() -> new RuntimeException("User not found with ID: " + followId));
+    public void unfollowUser(Long userId, Long followId, Long currentUserId) {
+        requireSelf(userId, currentUserId);
+        requireExists(userId);
+        requireExists(followId);
 
-        user.getFollowing().remove(followUser);
-        followUser.getFollowers().remove(user);
-        userRepository.save(user);
-        userRepository.save(followUser);
+        if (followService.unfollow(userId, followId)) {
+            timelineService.onFollowingChanged(userId);
+        }
     }
 
-    public boolean isFollowing(Long userId, Long followId, String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-    
-        if (!user.getId().equals(userId)) {
+    public boolean isFollowing(Long userId, Long followId, Long currentUserId) {
+        if (!userId.equals(currentUserId)) {
             throw new AccessDeniedException("You are not allowed to check this relationship.");
         }
 
-        return user.getFollowing().stream()
-            .anyMatch(followingUser -> followingUser.getId().equals(followId));
+        return followService.isFollowing(userId, followId);
     }
 
     public List<PostDTO> getUserPosts(Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
-        if (user == null) return Collections.emptyList();
-    
-        return user.getPosts().stream()
-            .map(post -> {
-                List<CommentDTO> commentDTOs = post.getComments().stream()
-                    .map(comment -> new CommentDTO(
-                        comment.getId(),
-                        comment.getContent(),
-                        comment.getCreatedAt(),
-                        comment.getUser().getName()
-                    ))
-                    .collect(Collectors.toList());
-    
-                List<String> mediaUrls = post.getMediaFiles() != null
-                    ? post.getMediaFiles().stream()
-                        .map(Media::getUrl)
-                        .collect(Collectors.toList())
-                    : Collections.emptyList();
-    
-                return new PostDTO(
-                    post.getId(),
-                    post.getContent(),
-                    post.getLikes(),
-                    post.getCreatedAt(),
-                    post.getLikedUsers().contains(post.getUser()),
-                    post.getUser(),
-                    commentDTOs,
-                    mediaUrls
-                );
-            })
-            .collect(Collectors.toList());
-    }
-
-    public UserDTO updateUser(Long userId, String name, String email, String bio, MultipartFile profilePhoto, String authEmail) {
-        User authenticatedUser = userRepository.findByEmail(authEmail)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + authEmail));
-        
-        User userToUpdate = userRepository.findById(userId)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
+        if (!userRepository.existsById(userId)) return Collections.emptyList();
+
+        return postMapper.toFeedDTOs(postRepository.findByUserIdWithUser(userId), userId);
+    }
+
+    public UserDTO updateUser(Long userId, String name, String email, String bio, MultipartFile profilePhoto, Long currentUserId) {
+        if (!userRepository.existsById(userId)) {
+            throw new UsernameNotFoundException("User not found with ID: " + userId);
+        }
         
-        if (!authenticatedUser.getId().equals(userId)) {
+        if (!userId.equals(currentUserId)) {
             throw new AccessDeniedException("You are not allowed to update this user's profile");
         }
         
-        if (name != null && !name.trim().isEmpty()) {
-            userToUpdate.setName(name);
-        }
-        if (email != null && !email.trim().isEmpty()) {
-            userToUpdate.setEmail(email);
-        }
-        if (bio != null) {
-            userToUpdate.setBio(bio);
-        }
+        // Stored before the transaction opens, like post media
+        String photoUrl = profilePhoto != null && !profilePhoto.isEmpty()
+                ? fileStorageService.uploadProfilePhoto(profilePhoto).url()
+                : null;
         
-        if (profilePhoto != null && !profilePhoto.isEmpty()) {
-            try {
-                File dir = new File(uploadDir);
-                if (!dir.exists()) {
-                    dir.mkdirs();
+        User updatedUser = transactionTemplate.execute(status -> {
+            User userToUpdate = userRepository.findById(userId)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with ID: " + userId));
+            if (name != null && !name.trim().isEmpty()) {
+                userToUpdate.setName(name);
+            }
+            if (email != null && !email.trim().isEmpty()) {
+                userToUpdate.setEmail(email);
+            }
+            if (bio != null) {
+                userToUpdate.setBio(bio);
+            }
+            if (photoUrl != null) {
+                if (userToUpdate.getProfilePhotoUrl() != null) {
+                    fileStorageService.release(List.of(userToUpdate.getProfilePhotoUrl()));
                 }
-                
-                String fileName = UUID.randomUUID().toString() + "_" + profilePhoto.getOriginalFilename();
-                Path filePath = Paths.get(uploadDir, fileName);
-                
-                Files.write(filePath, profilePhoto.getBytes());
-                
-                userToUpdate.setProfilePhotoUrl("/media/" + fileName);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to upload profile photo", e);
+                fileStorageService.retain(List.of(photoUrl));
+                userToUpdate.setProfilePhotoUrl(photoUrl);
             }
-        }
-        
-        userToUpdate = userRepository.save(userToUpdate);
+            
+            userToUpdate.setUpdatedAt(LocalDateTime.now());
+            User saved = userRepository.save(userToUpdate);
+            eventPublisher.publishEvent(new UserUpdatedEvent(userId));
+            return saved;
+        });
         
         return new UserDTO(
-            userToUpdate.getId(),
-            userToUpdate.getName(),
-            userToUpdate.getEmail(),
-            userToUpdate.getFollowing(),
-            userToUpdate.getFollowers(),
-            userToUpdate.getBio(),
-            userToUpdate.getProfilePhotoUrl()
+            updatedUser.getId(),
+            updatedUser.getName(),
+            updatedUser.getEmail(),
+            updatedUser.getFollowerCount(),
+            updatedUser.getFollowingCount(),
+            updatedUser.getBio(),
+            updatedUser.getProfilePhotoUrl()
         );
     }
 
-    public List<UserDTO> getFollowers(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getFollowers().stream()
-                .map(this::convertToDTO)
+    /** Summaries in the order asked for, without duplicates; unknown ids are skipped. */
+    public List<UserSummaryDTO> getSummaries(List<Long> userIds) {
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ids per request");
+        }
+        Map<Long, UserSummaryDTO> users = userSummaryLoader.loadAll(userIds);
+        return userIds.stream()
+                .distinct()
+                .map(users::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    public List<UserDTO> getFollowing(Long userId) {
+    public FeedPageDTO<UserSummaryDTO> getFollowers(Long userId, String cursor, int size) {
+        requireExists(userId);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return toPage(userRepository.findFollowerSummaries(userId, decodeCursor(cursor), PageRequest.of(0, pageSize + 1)),
+            pageSize);
+    }
+
+    public FeedPageDTO<UserSummaryDTO> getFollowing(Long userId, String cursor, int size) {
+        requireExists(userId);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return toPage(userRepository.findFollowingSummaries(userId, decodeCursor(cursor), PageRequest.of(0, pageSize + 1)),
+            pageSize);
+    }
+
+    /**
+     * Deactivated users can no longer sign in or act on requests already authenticated. Only
+     * admins may call this, checked against the database so a revoked role takes effect at once.
+     */
+    public void setActive(Long userId, boolean active, Long currentUserId) {
+        boolean admin = userRepository.findById(currentUserId)
+                .map(currentUser -> currentUser.isActive() && User.ROLE_ADMIN.equals(currentUser.getRole()))
+                .orElse(false);
+        if (!admin) {
+            throw new AccessDeniedException("Only admins can activate or deactivate accounts");
+        }
+        if (userId.equals(currentUserId) && !active) {
+            throw new IllegalArgumentException("Admins cannot deactivate their own account");
+        }
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getFollowing().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+        user.setActive(active);
+        user.setUpdatedAt(LocalDateTime.now());
+        userRepository.save(user);
+        eventPublisher.publishEvent(new UserUpdatedEvent(userId));
     }
 
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setName(user.getName());
-        dto.setEmail(user.getEmail());
-        dto.setBio(user.getBio());
-        dto.setProfilePhotoUrl(user.getProfilePhotoUrl());
-        return dto;
+    private static void requireSelf(Long userId, Long currentUserId) {
+        if (!userId.equals(currentUserId)) {
+            throw new AccessDeniedException("You can only change who you follow");
+        }
+    }
+
+    private void requireExists(Long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found with ID: " + userId);
+        }
+    }
+
+    // Follow lists are ordered by user id, highest first, and the cursor is the last id served
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static FeedPageDTO<UserSummaryDTO> toPage(List<UserSummaryView> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<UserSummaryDTO> items = rows.stream()
+                .limit(pageSize)
+                .map(row -> new UserSummaryDTO(row.getId(), row.getName(), row.getProfilePhotoUrl()))
+                .collect(Collectors.toList());
+        String nextCursor = hasMore ? String.valueOf(items.get(items.size() - 1).getId()) : null;
+        return new FeedPageDTO<>(items, nextCursor);
     }
 }
\ No newline at end of file
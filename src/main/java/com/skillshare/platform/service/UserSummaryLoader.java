@@ -0,0 +1,120 @@
+package com.skillshare.platform.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.event.UserUpdatedEvent;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserSummaryView;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves user ids to {@link UserSummaryDTO}s for a whole response at once. Callers
+ * collect every author, commenter and sharer id they are about to show and hand them in
+ * together; ids not in the shared cache are loaded with a single {@code IN} query.
+ * Entries are evicted when the user is updated.
+ * <p>
+ * During a web request, summaries are also kept in a request-scoped map, so every mapping
+ * call of one response shares them: a user is looked up once per request, and a response
+ * shows the same name throughout. Scheduled, startup and async work, where no request is
+ * bound, uses only the shared cache.
+ */
+@Component
+public class UserSummaryLoader {
+
+    private static final String REQUEST_ATTRIBUTE = UserSummaryLoader.class.getName() + ".resolved";
+
+    private final Cache<Long, UserSummaryDTO> summaries;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public UserSummaryLoader(@Value("${cache.user-summaries.max-size:50000}") long maxSize,
+                             @Value("${cache.user-summaries.ttl:PT10M}") Duration ttl) {
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /** Summaries by id; unknown ids are left out. Nulls in {@code userIds} are ignored. */
+    public Map<Long, UserSummaryDTO> loadAll(Collection<Long> userIds) {
+        HashSet<Long> ids = userIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(HashSet::new));
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, UserSummaryDTO> resolved = resolvedInRequest();
+        if (resolved == null) {
+            return load(ids);
+        }
+        Map<Long, UserSummaryDTO> found = new HashMap<>();
+        for (Long id : ids) {
+            UserSummaryDTO summary = resolved.get(id);
+            if (summary != null) {
+                found.put(id, summary);
+            }
+        }
+        ids.removeAll(found.keySet());
+        if (!ids.isEmpty()) {
+            Map<Long, UserSummaryDTO> loaded = load(ids);
+            resolved.putAll(loaded);
+            found.putAll(loaded);
+        }
+        return found;
+    }
+
+    public Map<String, Object> stats() {
+        return PostCache.describe(summaries);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        summaries.invalidate(event.userId());
+        // A profile edit is shown by the response of the request that made it
+        Map<Long, UserSummaryDTO> resolved = resolvedInRequest();
+        if (resolved != null) {
+            resolved.remove(event.userId());
+        }
+    }
+
+    private Map<Long, UserSummaryDTO> load(Set<Long> ids) {
+        return summaries.getAll(ids, missing -> userRepository.findSummariesByIdIn(Set.copyOf(missing)).stream()
+                .collect(Collectors.toMap(UserSummaryView::getId, UserSummaryLoader::toDTO)));
+    }
+
+    // Summaries resolved so far in the current request; null outside of one
+    @SuppressWarnings("unchecked")
+    private static Map<Long, UserSummaryDTO> resolvedInRequest() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return null;
+        }
+        Map<Long, UserSummaryDTO> resolved =
+                (Map<Long, UserSummaryDTO>) request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved == null) {
+            resolved = new HashMap<>();
+            request.setAttribute(REQUEST_ATTRIBUTE, resolved, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolved;
+    }
+
+    static UserSummaryDTO toDTO(UserSummaryView view) {
+        return new UserSummaryDTO(view.getId(), view.getName(), view.getProfilePhotoUrl());
+    }
+}
@@ -0,0 +1,107 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.config.SecurityConfig;
+import com.skillshare.platform.dto.CurrentUser;
+import com.skillshare.platform.service.CurrentUserCache;
+import com.skillshare.platform.service.CustomOAuth2UserService;
+import com.skillshare.platform.service.HotFileCache;
+import com.skillshare.platform.service.MediaGarbageCollector;
+import com.skillshare.platform.service.PostCache;
+import com.skillshare.platform.service.PostExportService;
+import com.skillshare.platform.service.SearchService;
+import com.skillshare.platform.service.TrendingRanking;
+import com.skillshare.platform.service.UserService;
+import com.skillshare.platform.service.UserSummaryLoader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+@Import(SecurityConfig.class)
+class AdminControllerSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private CustomOAuth2UserService customOAuth2UserService;
+
+    @MockitoBean
+    private CurrentUserCache currentUserCache;
+
+    @MockitoBean
+    private PostCache postCache;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private UserSummaryLoader userSummaryLoader;
+
+    @MockitoBean
+    private HotFileCache hotFileCache;
+
+    @MockitoBean
+    private PostExportService postExportService;
+
+    @MockitoBean
+    private SearchService searchService;
+
+    @MockitoBean
+    private TrendingRanking trendingRanking;
+
+    @MockitoBean
+    private MediaGarbageCollector mediaGarbageCollector;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void usersAreRefused() throws Exception {
+        mockMvc.perform(put("/api/admin/users/2/active").param("active", "false")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/posts/export")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/search/rebuild")).andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/media-gc")).andExpect(status().isForbidden());
+
+        verify(userService, never()).setActive(anyLong(), anyBoolean(), any());
+        verify(mediaGarbageCollector, never()).start();
+    }
+
+    @Test
+    void anonymousRequestsAreRefused() throws Exception {
+        mockMvc.perform(post("/api/admin/media-gc")).andExpect(status().is3xxRedirection());
+        verify(mediaGarbageCollector, never()).start();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"USER", "ADMIN"})
+    void adminsAreAllowed() throws Exception {
+        when(searchService.rebuild()).thenReturn(3L);
+        when(trendingRanking.sizes()).thenReturn(Map.of());
+        when(currentUserCache.resolve("admin")).thenReturn(Optional.of(new CurrentUser(1L, "admin", "Admin")));
+
+        mockMvc.perform(post("/api/admin/search/rebuild")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/admin/trending")).andExpect(status().isOk());
+        mockMvc.perform(post("/api/admin/media-gc")).andExpect(status().isAccepted());
+        verify(mediaGarbageCollector).start();
+        mockMvc.perform(put("/api/admin/users/2/active").param("active", "false")).andExpect(status().isOk());
+        verify(userService).setActive(2L, false, 1L);
+    }
+}
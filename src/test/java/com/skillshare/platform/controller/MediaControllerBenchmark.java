@@ -0,0 +1,170 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.service.HotFileCache;
+import com.skillshare.platform.service.LocalMediaStorage;
+import com.skillshare.platform.service.MediaStorage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.oauth2.client.servlet.OAuth2ClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityFilterAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.CacheControl;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of {@link MediaController} against Spring's static resource handler, which
+ * served {@code /media/**} before it, on embedded Tomcat over loopback. Both serve the same
+ * large video and small thumbnail; the old handler is mounted at {@code /old/**}.
+ * Excluded from the regular test run; start it with
+ * {@code mvn test -Pbenchmark -Dtest=MediaControllerBenchmark [-Dmedia.benchmark.rounds=2]}.
+ */
+@SpringBootTest(classes = MediaControllerBenchmark.App.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MediaControllerBenchmark {
+
+    private static final String VIDEO = "video.mp4";
+    private static final String THUMBNAIL = "thumb-w320.jpg";
+    private static final int VIDEO_SIZE = 20 * 1024 * 1024;
+    private static final int THUMBNAIL_SIZE = 24 * 1024;
+
+    private static final Path UPLOAD_DIR;
+    private static final Path OLD_DIR;
+
+    static {
+        try {
+            UPLOAD_DIR = Files.createTempDirectory("media-benchmark");
+            OLD_DIR = Files.createTempDirectory("media-benchmark-old");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Not a @SpringBootConfiguration, which slice tests in this package would pick up as theirs
+    @Configuration(proxyBeanMethods = false)
+    @EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class,
+        SecurityAutoConfiguration.class, SecurityFilterAutoConfiguration.class, UserDetailsServiceAutoConfiguration.class,
+        OAuth2ClientAutoConfiguration.class
+    })
+    @Import({MediaController.class, HotFileCache.class, LocalMediaStorage.class})
+    static class App implements WebMvcConfigurer {
+
+        // How /media/** was served before MediaController
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/old/**")
+                    .addResourceLocations(OLD_DIR.toUri().toString())
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable());
+        }
+    }
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("file.upload-dir", UPLOAD_DIR::toString);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MediaStorage mediaStorage;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void throughput() throws Exception {
+        store(VIDEO, VIDEO_SIZE);
+        store(THUMBNAIL, THUMBNAIL_SIZE);
+        assertEquals(VIDEO_SIZE, fetch("/media/" + VIDEO));
+        assertEquals(VIDEO_SIZE, fetch("/old/" + VIDEO));
+
+        // Warm up both handlers, the JIT and the page cache
+        measure("/old/" + VIDEO, 4, 5);
+        measure("/media/" + VIDEO, 4, 5);
+        measure("/old/" + THUMBNAIL, 4, 500);
+        measure("/media/" + THUMBNAIL, 4, 500);
+
+        int rounds = Integer.getInteger("media.benchmark.rounds", 2);
+        for (int round = 1; round <= rounds; round++) {
+            System.out.printf("round %d  %dMB file, 4 clients:      old %6.0f MB/s   new %6.0f MB/s%n", round,
+                VIDEO_SIZE >> 20, measure("/old/" + VIDEO, 4, 25) / 1e6, measure("/media/" + VIDEO, 4, 25) / 1e6);
+            System.out.printf("round %d  %dKB thumbnail, 8 clients: old %6.0f req/s  new %6.0f req/s%n", round,
+                THUMBNAIL_SIZE >> 10, measure("/old/" + THUMBNAIL, 8, 2000) / THUMBNAIL_SIZE,
+                measure("/media/" + THUMBNAIL, 8, 2000) / THUMBNAIL_SIZE);
+        }
+    }
+
+    // The same random bytes where each handler looks for them
+    private void store(String name, int size) throws IOException {
+        byte[] content = new byte[size];
+        new SplittableRandom(size).nextBytes(content);
+        Files.write(OLD_DIR.resolve(name), content);
+        Path staged = Files.write(Files.createTempFile(UPLOAD_DIR, "upload-", ".part"), content);
+        mediaStorage.put(name, staged, null);
+    }
+
+    // Bytes per second over all clients, each fetching the path sequentially
+    private double measure(String path, int clients, int requestsPerClient) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            long started = System.nanoTime();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                results.add(pool.submit(() -> {
+                    long bytes = 0;
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        bytes += fetch(path);
+                    }
+                    return bytes;
+                }));
+            }
+            long bytes = 0;
+            for (Future<Long> result : results) {
+                bytes += result.get();
+            }
+            return bytes / ((System.nanoTime() - started) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long fetch(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            return body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
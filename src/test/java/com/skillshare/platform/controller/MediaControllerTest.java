@@ -0,0 +1,177 @@
+package com.skillshare.platform.controller;
+
+import com.skillshare.platform.controller.MediaController.ByteRange;
+import com.skillshare.platform.service.HotFileCache;
+import com.skillshare.platform.service.MediaStorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MediaControllerTest {
+
+    // Larger than the hot cache takes, so it is copied from the file
+    private static final byte[] VIDEO = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] THUMBNAIL = "thumb".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    private Path dir;
+
+    private final MediaStorage mediaStorage = mock(MediaStorage.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.write(dir.resolve("clip.mp4"), VIDEO);
+        Files.write(dir.resolve("thumb.jpg"), THUMBNAIL);
+        when(mediaStorage.localPath(anyString())).thenAnswer(invocation -> dir.resolve(invocation.<String>getArgument(0)));
+
+        MediaController controller = new MediaController();
+        ReflectionTestUtils.setField(controller, "mediaStorage", mediaStorage);
+        ReflectionTestUtils.setField(controller, "hotFileCache", new HotFileCache(DataSize.ofKilobytes(1), DataSize.ofBytes(16)));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void parsesSingleRanges() {
+        assertEquals(new ByteRange(0, 9), MediaController.parseRange("bytes=0-9", 100));
+        assertEquals(new ByteRange(90, 99), MediaController.parseRange("bytes=90-", 100));
+        assertEquals(new ByteRange(90, 99), MediaController.parseRange("bytes=90-500", 100));
+        assertEquals(new ByteRange(70, 99), MediaController.parseRange("bytes=-30", 100));
+        assertEquals(new ByteRange(0, 99), MediaController.parseRange("bytes=-500", 100));
+        assertEquals(new ByteRange(5, 5), MediaController.parseRange("bytes= 5-5 ", 100));
+    }
+
+    @Test
+    void ignoresRangesItDoesNotServe() {
+        assertNull(MediaController.parseRange("bytes=0-1,5-6", 100));
+        assertNull(MediaController.parseRange("items=0-9", 100));
+        assertNull(MediaController.parseRange("bytes=9-0", 100));
+        assertNull(MediaController.parseRange("bytes=abc", 100));
+        assertNull(MediaController.parseRange("bytes=a-9", 100));
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertThrows(IllegalArgumentException.class, () -> MediaController.parseRange("bytes=100-", 100));
+        assertThrows(IllegalArgumentException.class, () -> MediaController.parseRange("bytes=-0", 100));
+        assertThrows(IllegalArgumentException.class, () -> MediaController.parseRange("bytes=-5", 0));
+    }
+
+    @Test
+    void servesWholeFilesWithCacheHeaders() throws Exception {
+        MvcResult result = mockMvc.perform(get("/media/clip.mp4"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "video/mp4"))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+            .andReturn();
+        assertArrayEquals(VIDEO, result.getResponse().getContentAsByteArray());
+
+        MvcResult cached = mockMvc.perform(get("/profile-photos/thumb.jpg")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(THUMBNAIL, cached.getResponse().getContentAsByteArray());
+    }
+
+    @Test
+    void servesARangeAsPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.RANGE, "bytes=10-15"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-15/36"))
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 6))
+            .andReturn();
+        assertEquals("abcdef", result.getResponse().getContentAsString());
+
+        MvcResult tail = mockMvc.perform(get("/media/thumb.jpg").header(HttpHeaders.RANGE, "bytes=-2"))
+            .andExpect(status().isPartialContent())
+            .andReturn();
+        assertEquals("mb", tail.getResponse().getContentAsString());
+    }
+
+    @Test
+    void rangePastTheEndIsUnsatisfiable() throws Exception {
+        mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.RANGE, "bytes=36-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */36"));
+    }
+
+    @Test
+    void rangeOfAnotherVersionGetsTheWholeFile() throws Exception {
+        String etag = mockMvc.perform(get("/media/clip.mp4")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.RANGE, "bytes=0-1").header(HttpHeaders.IF_RANGE, etag))
+            .andExpect(status().isPartialContent());
+        mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.RANGE, "bytes=0-1").header(HttpHeaders.IF_RANGE, "\"old\""))
+            .andExpect(status().isOk())
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, VIDEO.length));
+    }
+
+    @Test
+    void matchingTagIsNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/media/clip.mp4")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get("/media/clip.mp4").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void contentAddressedNamesAreTheirOwnTag() throws Exception {
+        String hash = "ab".repeat(32);
+        Files.write(dir.resolve(hash + "-w320.jpg"), THUMBNAIL);
+
+        mockMvc.perform(get("/media/" + hash + "-w320.jpg"))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "-w320\""));
+    }
+
+    @Test
+    void headHasTheLengthButNoBody() throws Exception {
+        MvcResult result = mockMvc.perform(head("/media/clip.mp4"))
+            .andExpect(status().isOk())
+            .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, VIDEO.length))
+            .andReturn();
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    void missingAndUnfinishedFilesAreNotFound() throws Exception {
+        Files.write(dir.resolve("upload.part"), VIDEO);
+
+        mockMvc.perform(get("/media/nothing.mp4")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/media/upload.part")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/media/.hidden")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void remoteStorageRedirects() throws Exception {
+        when(mediaStorage.localPath("remote.jpg")).thenReturn(null);
+        when(mediaStorage.urlOf("remote.jpg")).thenReturn("https://cdn.example.com/remote.jpg");
+
+        mockMvc.perform(get("/profile-photos/remote.jpg"))
+            .andExpect(status().isMovedPermanently())
+            .andExpect(header().string(HttpHeaders.LOCATION, "https://cdn.example.com/remote.jpg"));
+    }
+}
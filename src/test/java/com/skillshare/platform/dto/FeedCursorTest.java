@@ -0,0 +1,52 @@
+package com.skillshare.platform.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeedCursorTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 1, 9, 30, 15, 123_000_000);
+
+    @Test
+    void roundTrips() {
+        FeedCursor cursor = FeedCursor.decode(new FeedCursor(CREATED_AT, 42L).encode());
+
+        assertEquals(CREATED_AT, cursor.getCreatedAt());
+        assertEquals(42L, cursor.getId());
+        assertNull(cursor.getType());
+    }
+
+    @Test
+    void roundTripsTheItemType() {
+        assertEquals(new FeedCursor(CREATED_AT, 7L, "share"), FeedCursor.decode(new FeedCursor(CREATED_AT, 7L, "share").encode()));
+    }
+
+    @Test
+    void isUrlSafe() {
+        String encoded = new FeedCursor(CREATED_AT, Long.MAX_VALUE, "post").encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="), encoded);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(raw("2025-03-01T09:30")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(raw("yesterday|42")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(raw("2025-03-01T09:30|forty-two")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(raw("2025-03-01T09:30|42|post|extra")));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(""));
+    }
+
+    private static String raw(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
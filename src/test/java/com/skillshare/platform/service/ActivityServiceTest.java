@@ -0,0 +1,150 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.FeedPageDTO;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.TimelineSeed;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivityServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final Long USER = 1L;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final SharedPostRepository sharedPostRepository = mock(SharedPostRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PostMapper postMapper = mock(PostMapper.class);
+    private final ActivityService activityService = new ActivityService();
+
+    // The user's rows, and the entries each page was mapped from
+    private final List<Seed> posts = new ArrayList<>();
+    private final List<Seed> shares = new ArrayList<>();
+    private final List<Entry> served = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(activityService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(activityService, "sharedPostRepository", sharedPostRepository);
+        ReflectionTestUtils.setField(activityService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(activityService, "postMapper", postMapper);
+        when(userRepository.existsById(USER)).thenReturn(true);
+        when(postRepository.findTimelineSeeds(eq(List.of(USER)), any()))
+            .thenAnswer(invocation -> after(posts, null, null, invocation.getArgument(1)));
+        when(postRepository.findActivitySeedsAfter(eq(USER), any(), any(), any()))
+            .thenAnswer(invocation -> after(posts, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        when(sharedPostRepository.findActivitySeeds(eq(USER), any()))
+            .thenAnswer(invocation -> after(shares, null, null, invocation.getArgument(1)));
+        when(sharedPostRepository.findActivitySeedsAfter(eq(USER), any(), any(), any()))
+            .thenAnswer(invocation -> after(shares, invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(3)));
+        when(postMapper.toFeedItems(anyList(), any())).thenAnswer(invocation -> {
+            served.addAll(invocation.getArgument(0));
+            return List.of();
+        });
+    }
+
+    @Test
+    void mergesPostsAndSharesNewestFirst() {
+        posts.add(new Seed(1L, T0.minusMinutes(3)));
+        posts.add(new Seed(2L, T0.minusMinutes(1)));
+        shares.add(new Seed(7L, T0.minusMinutes(2)));
+        shares.add(new Seed(8L, T0));
+
+        FeedPageDTO<FeedItemDTO> page = activityService.getActivity(USER, 2L, null, 10);
+
+        assertEquals(List.of(share(8L, T0), post(2L, T0.minusMinutes(1)), share(7L, T0.minusMinutes(2)),
+            post(1L, T0.minusMinutes(3))), served);
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pagesThroughTiesAcrossTypesWithoutGapsOrRepeats() {
+        // Posts and shares with overlapping ids, several of them at the same instant
+        for (long id = 1; id <= 5; id++) {
+            posts.add(new Seed(id, id <= 3 ? T0 : T0.minusMinutes(id)));
+            shares.add(new Seed(id, id % 2 == 0 ? T0 : T0.minusMinutes(id)));
+        }
+        List<Entry> expected = new ArrayList<>();
+        posts.forEach(seed -> expected.add(post(seed.id(), seed.createdAt())));
+        shares.forEach(seed -> expected.add(share(seed.id(), seed.createdAt())));
+        expected.sort(TimelineStore.NEWEST_FIRST);
+
+        for (int size = 1; size <= 4; size++) {
+            served.clear();
+            String cursor = null;
+            do {
+                cursor = activityService.getActivity(USER, 2L, cursor, size).getNextCursor();
+            } while (cursor != null);
+
+            assertEquals(expected, served, "page size " + size);
+        }
+    }
+
+    @Test
+    void cursorsCarryTheItemType() {
+        posts.add(new Seed(1L, T0));
+        posts.add(new Seed(2L, T0.minusMinutes(1)));
+
+        String cursor = activityService.getActivity(USER, 2L, null, 1).getNextCursor();
+
+        assertEquals(new FeedCursor(T0, 1L, FeedItemDTO.TYPE_POST), FeedCursor.decode(cursor));
+        String untyped = new FeedCursor(T0, 1L).encode();
+        assertThrows(IllegalArgumentException.class, () -> activityService.getActivity(USER, 2L, untyped, 1));
+    }
+
+    @Test
+    void unknownUserIsRejected() {
+        assertThrows(RuntimeException.class, () -> activityService.getActivity(9L, 2L, null, 10));
+    }
+
+    // What the (createdAt, id) keyset queries return
+    private static List<TimelineSeed> after(List<Seed> rows, LocalDateTime createdAt, Long idBound, PageRequest limit) {
+        return rows.stream()
+            .filter(row -> createdAt == null || row.createdAt().isBefore(createdAt)
+                || (row.createdAt().equals(createdAt) && row.id() < idBound))
+            .sorted(Comparator.comparing(Seed::createdAt).thenComparing(Seed::id).reversed())
+            .limit(limit.getPageSize())
+            .map(row -> (TimelineSeed) row)
+            .toList();
+    }
+
+    private static Entry post(Long id, LocalDateTime timestamp) {
+        return new Entry(FeedItemDTO.TYPE_POST, id, timestamp);
+    }
+
+    private static Entry share(Long id, LocalDateTime timestamp) {
+        return new Entry(FeedItemDTO.TYPE_SHARE, id, timestamp);
+    }
+
+    private record Seed(Long id, LocalDateTime createdAt) implements TimelineSeed {
+        public Long getId() {
+            return id;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UploadSessionDTO;
+import com.skillshare.platform.model.Media;
+import com.skillshare.platform.model.UploadSession;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.MediaSourceView;
+import com.skillshare.platform.repository.UploadSessionRepository;
+import com.skillshare.platform.service.FileStorageService.StoredFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTest {
+
+    private static final String URL = "http://localhost/media/abc.mp4";
+
+    private record Source(Long getId, Long getPostId, String getUrl, String getType) implements MediaSourceView {
+    }
+
+    @TempDir
+    private Path uploadDir;
+
+    // Stand-ins for the rows the repositories would hold
+    private final Map<String, UploadSession> sessions = new HashMap<>();
+    private final Map<Long, Media> media = new HashMap<>();
+
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private final MediaRepository mediaRepository = mock(MediaRepository.class);
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final ChunkedUploadService uploadService = new ChunkedUploadService(mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(uploadService, "uploadSessionRepository", uploadSessionRepository);
+        ReflectionTestUtils.setField(uploadService, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(uploadService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(uploadService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(uploadService, "maxSize", DataSize.ofKilobytes(1));
+        ReflectionTestUtils.setField(uploadService, "maxChunkSize", DataSize.ofBytes(8));
+        ReflectionTestUtils.setField(uploadService, "sessionTtl", Duration.ofHours(1));
+
+        when(uploadSessionRepository.save(any())).thenAnswer(invocation -> {
+            UploadSession session = invocation.getArgument(0);
+            sessions.put(session.getId(), copy(session));
+            return session;
+        });
+        when(uploadSessionRepository.findByIdAndUserId(anyString(), any())).thenAnswer(invocation ->
+            Optional.ofNullable(sessions.get(invocation.<String>getArgument(0)))
+                .filter(session -> session.getUserId().equals(invocation.getArgument(1)))
+                .map(ChunkedUploadServiceTest::copy));
+        when(uploadSessionRepository.advance(anyString(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || session.getReceived() != invocation.<Long>getArgument(1)) {
+                return 0;
+            }
+            session.setReceived(invocation.getArgument(2));
+            session.setExpiresAt(invocation.getArgument(3));
+            return 1;
+        });
+        when(uploadSessionRepository.complete(anyString(), any(), any())).thenAnswer(invocation -> {
+            UploadSession session = sessions.get(invocation.<String>getArgument(0));
+            if (session == null || session.getMediaId() != null) {
+                return 0;
+            }
+            session.setMediaId(invocation.getArgument(1));
+            session.setExpiresAt(invocation.getArgument(2));
+            return 1;
+        });
+        when(uploadSessionRepository.deleteCompleted(any(), any())).thenAnswer(invocation -> {
+            Collection<Long> mediaIds = invocation.getArgument(1);
+            int before = sessions.size();
+            sessions.values().removeIf(session -> session.getUserId().equals(invocation.getArgument(0))
+                && mediaIds.contains(session.getMediaId()));
+            return before - sessions.size();
+        });
+        when(uploadSessionRepository.findExpired(any(), any())).thenAnswer(invocation -> sessions.values().stream()
+            .filter(session -> session.getExpiresAt().isBefore(invocation.getArgument(0)))
+            .sorted(Comparator.comparing(UploadSession::getExpiresAt))
+            .map(ChunkedUploadServiceTest::copy)
+            .toList());
+        when(uploadSessionRepository.deleteExpired(anyString(), any())).thenAnswer(invocation ->
+            sessions.values().removeIf(session -> session.getId().equals(invocation.getArgument(0))
+                && session.getExpiresAt().isBefore(invocation.getArgument(1))) ? 1 : 0);
+
+        when(mediaRepository.save(any())).thenAnswer(invocation -> {
+            Media saved = invocation.getArgument(0);
+            saved.setId(media.size() + 1L);
+            media.put(saved.getId(), saved);
+            return saved;
+        });
+        when(mediaRepository.findSourceById(any())).thenAnswer(invocation ->
+            Optional.ofNullable(media.get(invocation.<Long>getArgument(0)))
+                .map(found -> new Source(found.getId(), null, found.getUrl(), found.getType())));
+        when(mediaRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            List<Media> found = new ArrayList<>();
+            ids.forEach(id -> found.add(media.get(id)));
+            return found;
+        });
+        when(mediaRepository.deleteUnclaimed(any())).thenAnswer(invocation ->
+            media.remove(invocation.<Long>getArgument(0)) != null ? 1 : 0);
+
+        when(fileStorageService.uploadStagedFile(any())).thenReturn(new StoredFile(URL, "abc.mp4", "video/mp4", 12));
+    }
+
+    @Test
+    void chunksAreWrittenAtTheirOffsetsAndCompletionStoresTheFile() throws IOException {
+        UploadSessionDTO created = uploadService.create(1L, 12);
+        Path staged = stagedPath(created.getId());
+        assertEquals(12, Files.size(staged));
+
+        assertEquals(6, uploadService.append(created.getId(), 1L, 0, body("hello ")).getOffset());
+        assertEquals(12, uploadService.append(created.getId(), 1L, 6, body("world!")).getOffset());
+        assertEquals("hello world!", Files.readString(staged));
+
+        UploadSessionDTO completed = uploadService.complete(created.getId(), 1L);
+
+        assertNotNull(completed.getMediaId());
+        assertEquals(URL, completed.getUrl());
+        assertEquals("video", media.get(completed.getMediaId()).getType());
+        verify(fileStorageService).uploadStagedFile(staged);
+        verify(fileStorageService).retain(List.of(URL));
+        assertFalse(Files.exists(staged));
+    }
+
+    @Test
+    void chunkAtTheWrongOffsetIsRejected() {
+        String id = uploadService.create(1L, 12).getId();
+        uploadService.append(id, 1L, 0, body("hello "));
+
+        assertThrows(IllegalStateException.class, () -> uploadService.append(id, 1L, 3, body("lo world!")));
+        assertThrows(IllegalStateException.class, () -> uploadService.append(id, 1L, 0, body("hello ")));
+        assertEquals(6, uploadService.status(id, 1L).getOffset());
+    }
+
+    @Test
+    void bodyThatBreaksOffKeepsWhatArrived() throws IOException {
+        String id = uploadService.create(1L, 12).getId();
+        InputStream broken = new InputStream() {
+            private final InputStream data = body("hell");
+
+            @Override
+            public int read() throws IOException {
+                int next = data.read();
+                if (next < 0) {
+                    throw new IOException("connection reset");
+                }
+                return next;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = data.read(buffer, offset, length);
+                if (read < 0) {
+                    throw new IOException("connection reset");
+                }
+                return read;
+            }
+        };
+
+        assertEquals(4, uploadService.append(id, 1L, 0, broken).getOffset());
+        assertEquals(4, uploadService.status(id, 1L).getOffset());
+
+        assertEquals(12, uploadService.append(id, 1L, 4, body("o world!")).getOffset());
+        assertEquals("hello world!", Files.readString(stagedPath(id)));
+    }
+
+    @Test
+    void chunkIsCappedAtTheMaximumChunkSize() {
+        String id = uploadService.create(1L, 12).getId();
+
+        assertEquals(8, uploadService.append(id, 1L, 0, body("hello world!")).getOffset());
+    }
+
+    @Test
+    void completingTwiceReturnsTheSameMedia() {
+        String id = fullUpload(1L);
+
+        UploadSessionDTO first = uploadService.complete(id, 1L);
+        UploadSessionDTO second = uploadService.complete(id, 1L);
+
+        assertEquals(first.getMediaId(), second.getMediaId());
+        assertEquals(URL, second.getUrl());
+        verify(fileStorageService, times(1)).uploadStagedFile(any());
+        assertEquals(1, media.size());
+    }
+
+    @Test
+    void incompleteUploadCannotBeCompleted() {
+        String id = uploadService.create(1L, 12).getId();
+        uploadService.append(id, 1L, 0, body("hello "));
+
+        assertThrows(IllegalStateException.class, () -> uploadService.complete(id, 1L));
+        verify(fileStorageService, never()).uploadStagedFile(any());
+    }
+
+    @Test
+    void completedUploadIsClaimedOnce() {
+        Long mediaId = uploadService.complete(fullUpload(1L), 1L).getMediaId();
+
+        List<Media> claimed = uploadService.claim(1L, List.of(mediaId));
+
+        assertEquals(List.of(mediaId), claimed.stream().map(Media::getId).toList());
+        assertThrows(IllegalArgumentException.class, () -> uploadService.claim(1L, List.of(mediaId)));
+    }
+
+    @Test
+    void anotherUsersUploadCannotBeClaimedOrSeen() {
+        String id = fullUpload(1L);
+        Long mediaId = uploadService.complete(id, 1L).getMediaId();
+
+        assertThrows(IllegalArgumentException.class, () -> uploadService.claim(2L, List.of(mediaId)));
+        assertThrows(NoSuchElementException.class, () -> uploadService.status(id, 2L));
+        assertThrows(NoSuchElementException.class, () -> uploadService.append(id, 2L, 12, body("")));
+        assertEquals(1, uploadService.claim(1L, List.of(mediaId)).size());
+    }
+
+    @Test
+    void expiryDeletesStagedFilesAndUnclaimedMedia() {
+        String pending = uploadService.create(1L, 12).getId();
+        String completed = fullUpload(1L);
+        Long mediaId = uploadService.complete(completed, 1L).getMediaId();
+        String live = uploadService.create(1L, 12).getId();
+        sessions.get(pending).setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        sessions.get(completed).setExpiresAt(LocalDateTime.now().minusMinutes(1));
+
+        uploadService.expireSessions();
+
+        assertFalse(Files.exists(stagedPath(pending)));
+        assertFalse(sessions.containsKey(pending));
+        assertFalse(sessions.containsKey(completed));
+        assertFalse(media.containsKey(mediaId));
+        verify(fileStorageService).release(List.of(URL));
+        assertTrue(Files.exists(stagedPath(live)));
+        assertTrue(sessions.containsKey(live));
+    }
+
+    @Test
+    void sizeOutsideTheLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> uploadService.create(1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> uploadService.create(1L, 1025));
+        assertTrue(sessions.isEmpty());
+    }
+
+    private String fullUpload(Long userId) {
+        String id = uploadService.create(userId, 12).getId();
+        uploadService.append(id, userId, 0, body("hello wo"));
+        uploadService.append(id, userId, 8, body("rld!"));
+        return id;
+    }
+
+    private Path stagedPath(String id) {
+        return uploadDir.toAbsolutePath().normalize().resolve(".sessions").resolve(id + ".part");
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UploadSession copy(UploadSession session) {
+        UploadSession copy = new UploadSession();
+        copy.setId(session.getId());
+        copy.setUserId(session.getUserId());
+        copy.setSize(session.getSize());
+        copy.setReceived(session.getReceived());
+        copy.setMediaId(session.getMediaId());
+        copy.setCreatedAt(session.getCreatedAt());
+        copy.setExpiresAt(session.getExpiresAt());
+        return copy;
+    }
+}
@@ -0,0 +1,243 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.MediaObjectRepository;
+import com.skillshare.platform.service.FileStorageService.StoredFile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FileStorageServiceTest {
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    @TempDir
+    private Path uploadDir;
+
+    private final MediaObjectRepository mediaObjectRepository = mock(MediaObjectRepository.class);
+    private final LocalMediaStorage mediaStorage = new LocalMediaStorage();
+    private final FileStorageService fileStorageService = new FileStorageService(mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mediaStorage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(mediaStorage, "baseUrl", "http://localhost/media");
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost/media");
+        ReflectionTestUtils.setField(fileStorageService, "maxMediaSize", DataSize.ofMegabytes(3));
+        ReflectionTestUtils.setField(fileStorageService, "maxPhotoSize", DataSize.ofBytes(100));
+        ReflectionTestUtils.setField(fileStorageService, "mediaObjectRepository", mediaObjectRepository);
+        ReflectionTestUtils.setField(fileStorageService, "mediaStorage", mediaStorage);
+    }
+
+    @Test
+    void sniffsSupportedTypes() {
+        assertEquals("image/jpeg", sniff(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals("image/png", sniff(PNG_MAGIC));
+        assertEquals("image/gif", sniff(ascii("GIF89a")));
+        assertEquals("image/webp", sniff(ascii("RIFF\0\0\0\0WEBPVP8 ")));
+        assertEquals("video/mp4", sniff(ascii("\0\0\0\u0018ftypisom")));
+        assertEquals("video/quicktime", sniff(ascii("\0\0\0\u0014ftypqt  ")));
+        assertEquals("video/webm", sniff(new byte[] {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3}));
+    }
+
+    @Test
+    void sniffingRejectsOtherAndTruncatedContent() {
+        assertNull(sniff(ascii("<svg xmlns=")));
+        assertNull(sniff(ascii("RIFF\0\0\0\0WAVE")));
+        assertNull(sniff(new byte[] {(byte) 0x89, 'P', 'N', 'G'}));
+        assertNull(sniff(ascii("\0\0\0\u0018ftyp")));
+        assertNull(sniff(new byte[0]));
+    }
+
+    @Test
+    void storesTheBytesUnderTheSniffedType() throws IOException {
+        byte[] content = png(2_500_000);
+
+        // The client's name and type are not trusted
+        StoredFile stored = fileStorageService.uploadFile(new MockMultipartFile("file", "../../evil.exe", "video/mp4", content));
+
+        assertEquals("image/png", stored.contentType());
+        assertEquals(content.length, stored.size());
+        assertEquals(mediaStorage.urlOf(stored.filename()), stored.url());
+        assertArrayEquals(content, Files.readAllBytes(mediaStorage.localPath(stored.filename())));
+        assertEquals(List.of(), partFiles());
+    }
+
+    @Test
+    void sizeLimitIsEnforcedWhileCopying() throws IOException {
+        byte[] exact = png(100);
+        assertEquals(100, fileStorageService.uploadProfilePhoto(new MockMultipartFile("file", "a.png", null, exact)).size());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileStorageService.uploadProfilePhoto(new MockMultipartFile("file", "b.png", null, png(101))));
+        assertThrows(IllegalArgumentException.class,
+            () -> fileStorageService.uploadFile(new MockMultipartFile("file", "c.png", null, png(3 * 1024 * 1024 + 1))));
+        assertEquals(List.of(), partFiles());
+    }
+
+    @Test
+    void rejectsUnsupportedTypes() throws IOException {
+        byte[] video = ascii("\0\0\0\u0018ftypisom and then some frames");
+        assertEquals("video/mp4", fileStorageService.uploadFile(new MockMultipartFile("file", "v.mp4", null, video)).contentType());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileStorageService.uploadProfilePhoto(new MockMultipartFile("file", "v.png", "image/png", video)));
+        assertThrows(IllegalArgumentException.class,
+            () -> fileStorageService.uploadFile(new MockMultipartFile("file", "a.jpg", "image/jpeg", ascii("hello world"))));
+        assertEquals(List.of(), partFiles());
+    }
+
+    @Test
+    void repeatedUploadsShareOneFile() throws IOException {
+        byte[] content = png(100);
+        StoredFile first = fileStorageService.uploadFile(new MockMultipartFile("file", "a.png", null, content));
+        StoredFile again = fileStorageService.uploadFile(new MockMultipartFile("file", "copy.png", null, content));
+        StoredFile photo = fileStorageService.uploadProfilePhoto(new MockMultipartFile("file", "me.png", null, content));
+
+        String sha256 = FileStorageService.contentHashOf(first.url());
+        assertEquals(sha256 + ".png", first.filename());
+        assertEquals(first.url(), again.url());
+        // Profile photos are the same file under a server-relative URL
+        assertEquals("/media/" + first.filename(), photo.url());
+        assertEquals(1, storedFiles().size());
+        verify(mediaObjectRepository, times(3)).upsert(eq(sha256), eq(first.filename()), eq("image/png"), eq(100L), any());
+    }
+
+    @Test
+    void stagedFilesAreMovedInUnlessAlreadyStored() throws IOException {
+        byte[] content = png(500);
+        StoredFile uploaded = fileStorageService.uploadFile(new MockMultipartFile("file", "a.png", null, content));
+
+        Path duplicate = Files.write(uploadDir.resolve("duplicate.part"), content);
+        assertEquals(uploaded.url(), fileStorageService.uploadStagedFile(duplicate).url());
+        assertTrue(Files.exists(duplicate));
+
+        Path fresh = Files.write(uploadDir.resolve("fresh.part"), png(501));
+        assertEquals(501, fileStorageService.uploadStagedFile(fresh).size());
+        assertFalse(Files.exists(fresh));
+        assertEquals(2, storedFiles().size());
+    }
+
+    @Test
+    void referencesAreCountedPerContentHash() {
+        String a = "a".repeat(64);
+        String b = "b".repeat(64);
+
+        fileStorageService.retain(List.of("http://localhost/media/" + a + ".png", "/media/" + a + ".png",
+            "http://localhost/media/" + b + ".mp4", "http://localhost/media/123e4567-e89b-12d3-a456-426614174000.jpg"));
+        verify(mediaObjectRepository).adjustRefCount(a, 2);
+        verify(mediaObjectRepository).adjustRefCount(b, 1);
+
+        // Files stored before hashing and derivatives are never counted
+        fileStorageService.release(List.of("/media/" + b + ".mp4", "/media/legacy.png", "/media/" + a + "-w320.png"));
+        verify(mediaObjectRepository).adjustRefCount(b, -1);
+        verify(mediaObjectRepository, times(3)).adjustRefCount(anyString(), anyInt());
+    }
+
+    @Test
+    void collectionHoldsOffUploadsOfTheSameObject() throws Exception {
+        byte[] content = png(100);
+        String sha256 = FileStorageService.contentHashOf(
+            fileStorageService.uploadFile(new MockMultipartFile("file", "a.png", null, content)).url());
+
+        CountDownLatch collecting = new CountDownLatch(1);
+        CountDownLatch collected = new CountDownLatch(1);
+        Thread collector = new Thread(() -> fileStorageService.exclusively(sha256, () -> {
+            collecting.countDown();
+            awaitQuietly(collected);
+            return null;
+        }));
+        collector.start();
+        collecting.await();
+
+        AtomicBoolean stored = new AtomicBoolean();
+        Thread upload = new Thread(() -> {
+            fileStorageService.uploadFile(new MockMultipartFile("file", "b.png", null, content));
+            stored.set(true);
+        });
+        upload.start();
+        upload.join(200);
+        assertFalse(stored.get());
+
+        collected.countDown();
+        upload.join();
+        collector.join();
+        assertTrue(stored.get());
+    }
+
+    @Test
+    void namesOnlyItsOwnUrls() {
+        assertEquals("a.png", fileStorageService.nameOf("http://localhost/media/a.png"));
+        assertEquals("a.png", fileStorageService.nameOf("/media/a.png"));
+        assertNull(fileStorageService.nameOf("https://elsewhere.example.com/a.png"));
+        assertNull(fileStorageService.nameOf("/media/../secret"));
+        assertNull(fileStorageService.nameOf("/media/.hidden"));
+        assertNull(fileStorageService.nameOf(null));
+    }
+
+    private static String sniff(byte[] head) {
+        return FileStorageService.sniff(head, head.length);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    // A PNG signature followed by varied bytes
+    private static byte[] png(int size) {
+        byte[] content = new byte[size];
+        for (int i = PNG_MAGIC.length; i < size; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        System.arraycopy(PNG_MAGIC, 0, content, 0, PNG_MAGIC.length);
+        return content;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<Path> storedFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(Files::isRegularFile).filter(file -> !file.toString().endsWith(".part")).toList();
+        }
+    }
+
+    private List<Path> partFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(file -> file.toString().endsWith(".part")).toList();
+        }
+    }
+}
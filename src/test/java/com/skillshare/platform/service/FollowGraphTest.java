@@ -0,0 +1,90 @@
+package com.skillshare.platform.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FollowGraphTest {
+
+    private final FollowGraph graph = new FollowGraph();
+
+    @Test
+    void edgesAreDirected() {
+        assertTrue(graph.add(1, 2));
+
+        assertTrue(graph.isFollowing(1, 2));
+        assertFalse(graph.isFollowing(2, 1));
+        assertEquals(1, graph.followerCount(2));
+        assertEquals(0, graph.followerCount(1));
+        assertEquals(1, graph.followingCount(1));
+        assertEquals(0, graph.followingCount(2));
+    }
+
+    @Test
+    void addingAndRemovingReportWhetherTheEdgeChanged() {
+        assertTrue(graph.add(1, 2));
+        assertFalse(graph.add(1, 2));
+        assertEquals(1, graph.followerCount(2));
+
+        assertTrue(graph.remove(1, 2));
+        assertFalse(graph.remove(1, 2));
+        assertFalse(graph.remove(5, 6));
+        assertFalse(graph.isFollowing(1, 2));
+        assertEquals(0, graph.followerCount(2));
+        assertEquals(0, graph.followingCount(1));
+    }
+
+    @Test
+    void listsFollowersAndFollowees() {
+        graph.add(1, 9);
+        graph.add(2, 9);
+        graph.add(3, 9);
+        graph.add(9, 1);
+
+        assertArrayEquals(new long[] {1, 2, 3}, sorted(graph.followerIds(9)));
+        assertArrayEquals(new long[] {1}, graph.followingIds(9));
+        assertArrayEquals(new long[0], graph.followingIds(4));
+        assertArrayEquals(new long[0], graph.followerIds(4));
+    }
+
+    @Test
+    void limitsTheFolloweesListed() {
+        for (long followee = 10; followee < 20; followee++) {
+            graph.add(1, followee);
+        }
+
+        long[] some = graph.followingIds(1, 3);
+        assertEquals(3, some.length);
+        assertTrue(Arrays.stream(some).allMatch(id -> graph.isFollowing(1, id)));
+        assertEquals(10, graph.followingIds(1, 50).length);
+        assertEquals(0, graph.followingIds(2, 3).length);
+    }
+
+    @Test
+    void rebuildReplacesTheGraphAndCountsDistinctEdges() {
+        graph.add(7, 8);
+
+        long edges = graph.rebuild(sink -> {
+            sink.accept(1L, 2L);
+            sink.accept(3L, 2L);
+            sink.accept(1L, 2L);
+        });
+
+        assertEquals(2, edges);
+        assertFalse(graph.isFollowing(7, 8));
+        assertEquals(2, graph.followerCount(2));
+        assertEquals(1, graph.followingCount(1));
+        assertTrue(graph.add(2, 1));
+    }
+
+    private static long[] sorted(long[] ids) {
+        long[] copy = ids.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,126 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.FollowCountTotals;
+import com.skillshare.platform.repository.UserRepository.FollowEdge;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FollowServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final FollowGraph followGraph = new FollowGraph();
+    private final FollowService followService = new FollowService(mock(PlatformTransactionManager.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(followService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(followService, "followGraph", followGraph);
+        when(userRepository.streamFollowEdges()).thenAnswer(invocation -> Stream.of(new Edge(1L, 2L), new Edge(3L, 2L)));
+    }
+
+    @Test
+    void followWritesTheEdgeAndBothCounters() {
+        when(userRepository.insertFollower(2L, 1L)).thenReturn(1);
+
+        assertTrue(followService.follow(1L, 2L));
+
+        assertTrue(followService.isFollowing(1L, 2L));
+        verify(userRepository).adjustFollowCounts(eq(1L), eq(2L), eq(1), any());
+        // Already following: nothing is written
+        assertFalse(followService.follow(1L, 2L));
+        verify(userRepository).insertFollower(anyLong(), anyLong());
+    }
+
+    @Test
+    void unfollowAdjustsOnlyWhenAnEdgeWasRemoved() {
+        followService.rebuild();
+        when(userRepository.deleteFollower(2L, 1L)).thenReturn(1);
+
+        assertTrue(followService.unfollow(1L, 2L));
+        assertFalse(followService.unfollow(1L, 5L));
+
+        assertFalse(followService.isFollowing(1L, 2L));
+        verify(userRepository).adjustFollowCounts(eq(1L), eq(2L), eq(-1), any());
+        verify(userRepository, never()).adjustFollowCounts(anyLong(), eq(5L), anyInt(), any());
+    }
+
+    @Test
+    void startupRecountsCountersThatDoNotMatchTheEdges() {
+        // The columns were just added: every counter is zero
+        when(userRepository.sumFollowCounts()).thenReturn(new Totals(0, 0));
+
+        followService.afterSingletonsInstantiated();
+
+        assertTrue(followService.isFollowing(3L, 2L));
+        verify(userRepository).recountFollows();
+    }
+
+    @Test
+    void startupLeavesCountersInStep() {
+        when(userRepository.sumFollowCounts()).thenReturn(new Totals(2, 2));
+
+        followService.afterSingletonsInstantiated();
+
+        verify(userRepository, never()).recountFollows();
+    }
+
+    @Test
+    void recountCanBeForced() {
+        when(userRepository.sumFollowCounts()).thenReturn(new Totals(2, 2));
+        ReflectionTestUtils.setField(followService, "reconcileOnStartup", true);
+
+        followService.afterSingletonsInstantiated();
+
+        verify(userRepository).recountFollows();
+        assertEquals(2, followGraph.followerCount(2L));
+    }
+
+    @Test
+    void edgesLoadIntoTheGraph() {
+        assertEquals(2, followService.rebuild());
+
+        long[] followers = followGraph.followerIds(2L);
+        Arrays.sort(followers);
+        assertArrayEquals(new long[] {1L, 3L}, followers);
+    }
+
+    private record Edge(Long followerId, Long followeeId) implements FollowEdge {
+        public Long getFollowerId() {
+            return followerId;
+        }
+
+        public Long getFolloweeId() {
+            return followeeId;
+        }
+    }
+
+    private record Totals(long followers, long following) implements FollowCountTotals {
+        public long getFollowers() {
+            return followers;
+        }
+
+        public long getFollowing() {
+            return following;
+        }
+    }
+}
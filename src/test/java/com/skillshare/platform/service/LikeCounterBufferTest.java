@@ -0,0 +1,162 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.LikeCountsFlushedEvent;
+import com.skillshare.platform.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeCounterBufferTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final LikeCounterBuffer buffer = new LikeCounterBuffer(mock(PlatformTransactionManager.class));
+
+    // Persisted counters
+    private final Map<Long, Integer> likes = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "postRepository", postRepository);
+        ReflectionTestUtils.setField(buffer, "eventPublisher", eventPublisher);
+        when(postRepository.addLikes(anyLong(), anyInt(), any())).thenAnswer(invocation -> {
+            likes.merge(invocation.getArgument(0), invocation.getArgument(1), Integer::sum);
+            return 1;
+        });
+        when(postRepository.findLikesById(anyLong()))
+            .thenAnswer(invocation -> Optional.of(likes.getOrDefault(invocation.<Long>getArgument(0), 0)));
+    }
+
+    @Test
+    void likeAndUnlikeCancelOut() {
+        long version = buffer.version();
+        buffer.add(1L, 1);
+        buffer.add(1L, -1);
+
+        assertEquals(0, buffer.pendingDelta(1L));
+        assertFalse(buffer.hasPending());
+        assertNotEquals(version, buffer.version());
+        buffer.flush();
+        verify(postRepository, never()).addLikes(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void flushWritesOneDeltaPerPostAndReportsEachStripe() {
+        buffer.add(1L, 1);
+        buffer.add(1L, 1);
+        buffer.add(1L, 1);
+        buffer.add(2L, -1);
+        // Same stripe as post 1
+        buffer.add(17L, 1);
+        assertTrue(buffer.hasPending());
+
+        buffer.flush();
+
+        verify(postRepository).addLikes(eq(1L), eq(3), any());
+        verify(postRepository).addLikes(eq(2L), eq(-1), any());
+        verify(postRepository).addLikes(eq(17L), eq(1), any());
+        verify(eventPublisher).publishEvent(new LikeCountsFlushedEvent(Set.of(1L, 17L)));
+        verify(eventPublisher).publishEvent(new LikeCountsFlushedEvent(Set.of(2L)));
+        assertFalse(buffer.hasPending());
+        assertEquals(3, buffer.currentLikes(1L));
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltasForTheNextOne() {
+        when(postRepository.addLikes(eq(1L), anyInt(), any())).thenThrow(new RuntimeException("lock wait timeout"));
+        buffer.add(1L, 2);
+
+        buffer.flush();
+
+        assertEquals(2, buffer.pendingDelta(1L));
+        verify(eventPublisher, never()).publishEvent(any());
+
+        when(postRepository.addLikes(eq(1L), anyInt(), any())).thenReturn(1);
+        buffer.add(1L, 1);
+        buffer.flush();
+        verify(postRepository).addLikes(eq(1L), eq(3), any());
+        assertEquals(0, buffer.pendingDelta(1L));
+    }
+
+    @Test
+    void likesDuringAFlushAreCountedOnce() {
+        AtomicBoolean first = new AtomicBoolean(true);
+        when(postRepository.addLikes(eq(1L), anyInt(), any())).thenAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                // In flight now: seen by readers, and a new like lands in the pending map
+                assertEquals(2, buffer.pendingDelta(1L));
+                buffer.add(1L, 1);
+            }
+            likes.merge(1L, invocation.getArgument(1), Integer::sum);
+            return 1;
+        });
+        buffer.add(1L, 2);
+
+        buffer.flush();
+
+        assertEquals(1, buffer.pendingDelta(1L));
+        assertEquals(3, buffer.currentLikes(1L));
+        buffer.flush();
+        verify(postRepository, times(2)).addLikes(eq(1L), anyInt(), any());
+        assertEquals(3, likes.get(1L));
+    }
+
+    @Test
+    void concurrentLikesAndFlushesLoseNothing() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                tasks.add(pool.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        buffer.add(7L, 1);
+                    }
+                }));
+            }
+            tasks.add(pool.submit(() -> {
+                for (int i = 0; i < 100; i++) {
+                    buffer.flush();
+                    assertTrue(buffer.currentLikes(7L) <= 20000);
+                }
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(20000, buffer.currentLikes(7L));
+        buffer.flush();
+        assertEquals(20000, likes.get(7L));
+        assertFalse(buffer.hasPending());
+    }
+}
@@ -0,0 +1,75 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.LikeChangedEvent;
+import com.skillshare.platform.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeServiceTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final LikeCounterBuffer likeCounterBuffer = mock(LikeCounterBuffer.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final LikeService likeService = new LikeService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(likeService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(likeService, "likeCounterBuffer", likeCounterBuffer);
+        ReflectionTestUtils.setField(likeService, "eventPublisher", eventPublisher);
+    }
+
+    @Test
+    void togglingLikesAndUnlikes() {
+        when(postRepository.insertLike(1L, 2L)).thenReturn(1);
+        assertTrue(likeService.toggleLike(1L, 2L));
+        verify(likeCounterBuffer).add(1L, 1);
+        verify(eventPublisher).publishEvent(new LikeChangedEvent(1L, 2L, true));
+
+        when(postRepository.deleteLike(1L, 2L)).thenReturn(1);
+        assertFalse(likeService.toggleLike(1L, 2L));
+        verify(likeCounterBuffer).add(1L, -1);
+        verify(eventPublisher).publishEvent(new LikeChangedEvent(1L, 2L, false));
+    }
+
+    @Test
+    void concurrentDuplicateLikeIsNotCounted() {
+        // The edge already exists, inserted by a request that raced this one
+        assertTrue(likeService.toggleLike(1L, 2L));
+
+        verify(likeCounterBuffer, never()).add(anyLong(), anyInt());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void recountIsOptIn() {
+        likeService.afterSingletonsInstantiated();
+        verify(postRepository, never()).recountLikes();
+
+        ReflectionTestUtils.setField(likeService, "reconcileOnStartup", true);
+        likeService.afterSingletonsInstantiated();
+        verify(postRepository).recountLikes();
+    }
+
+    @Test
+    void recountRefusesWhileDeltasAreBuffered() {
+        when(likeCounterBuffer.hasPending()).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, likeService::reconcileCounters);
+        verify(postRepository, never()).recountLikes();
+    }
+}
@@ -0,0 +1,266 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.PostUpdatedEvent;
+import com.skillshare.platform.model.MediaDerivativeJob;
+import com.skillshare.platform.repository.MediaDerivativeJobRepository;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.DerivativesView;
+import com.skillshare.platform.repository.MediaRepository.MediaSourceView;
+import com.skillshare.platform.repository.MediaObjectRepository;
+import com.skillshare.platform.repository.PostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaDerivativeServiceTest {
+
+    private static final String BASE_URL = "http://localhost/media";
+
+    private record Source(Long getId, Long getPostId, String getUrl, String getType) implements MediaSourceView {
+    }
+
+    private record Existing(Integer getWidth, Integer getHeight, String getSrcset, String getPlaceholder)
+        implements DerivativesView {
+    }
+
+    @TempDir
+    private Path uploadDir;
+
+    private final MediaDerivativeJobRepository jobRepository = mock(MediaDerivativeJobRepository.class);
+    private final MediaRepository mediaRepository = mock(MediaRepository.class);
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final LocalMediaStorage mediaStorage = new LocalMediaStorage();
+    private final FileStorageService fileStorageService = new FileStorageService(mock(PlatformTransactionManager.class));
+    private final MediaDerivativeService derivativeService =
+        new MediaDerivativeService(mock(PlatformTransactionManager.class), 2);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mediaStorage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(mediaStorage, "baseUrl", BASE_URL);
+        ReflectionTestUtils.setField(fileStorageService, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", BASE_URL);
+        ReflectionTestUtils.setField(fileStorageService, "mediaObjectRepository", mock(MediaObjectRepository.class));
+        ReflectionTestUtils.setField(fileStorageService, "mediaStorage", mediaStorage);
+
+        ReflectionTestUtils.setField(derivativeService, "jobRepository", jobRepository);
+        ReflectionTestUtils.setField(derivativeService, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(derivativeService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(derivativeService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(derivativeService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(derivativeService, "derivativeExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(derivativeService, "widths", new int[] {320, 640, 1280});
+        ReflectionTestUtils.setField(derivativeService, "quality", 0.8f);
+        ReflectionTestUtils.setField(derivativeService, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(derivativeService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(derivativeService, "lease", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(derivativeService, "retryDelay", Duration.ofMinutes(1));
+
+        when(jobRepository.claim(anyLong(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    void resizesToEachWidthBelowTheSourceAndKeepsTheOriginalInTheSrcset() throws IOException {
+        storeImage("abc.png", 700, 350);
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        verify(mediaRepository).saveDerivatives(eq(10L), eq(700), eq(350),
+            eq(BASE_URL + "/abc-w320.jpg 320w, " + BASE_URL + "/abc-w640.jpg 640w, " + BASE_URL + "/abc.png 700w"),
+            anyString());
+        assertEquals(320, ImageIO.read(mediaStorage.localPath("abc-w320.jpg").toFile()).getWidth());
+        BufferedImage medium = ImageIO.read(mediaStorage.localPath("abc-w640.jpg").toFile());
+        assertEquals(640, medium.getWidth());
+        assertEquals(320, medium.getHeight());
+        assertFalse(mediaStorage.exists("abc-w1280.jpg"));
+        verify(postRepository).touch(eq(100L), any());
+        verify(eventPublisher).publishEvent(new PostUpdatedEvent(100L));
+        verify(jobRepository).deleteById(1L);
+    }
+
+    @Test
+    void sourceNarrowerThanEveryWidthKeepsOnlyTheOriginal() throws IOException {
+        storeImage("small.png", 200, 100);
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        verify(mediaRepository).saveDerivatives(eq(10L), eq(200), eq(100), eq(BASE_URL + "/small.png 200w"), anyString());
+        for (String name : derivativeService.derivativeNames("small.png")) {
+            assertFalse(mediaStorage.exists(name));
+        }
+    }
+
+    @Test
+    void placeholderIsATinyInlineJpeg() throws IOException {
+        storeImage("abc.png", 700, 350);
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        ArgumentCaptor<String> placeholder = ArgumentCaptor.forClass(String.class);
+        verify(mediaRepository).saveDerivatives(eq(10L), anyInt(), anyInt(), anyString(), placeholder.capture());
+        String prefix = "data:image/jpeg;base64,";
+        assertTrue(placeholder.getValue().startsWith(prefix));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+            Base64.getDecoder().decode(placeholder.getValue().substring(prefix.length()))));
+        assertEquals(16, image.getWidth());
+        assertEquals(8, image.getHeight());
+    }
+
+    @Test
+    void reusesDerivativesAlreadyMadeForTheSameUrl() {
+        when(mediaRepository.findSourceById(10L)).thenReturn(Optional.of(new Source(10L, 100L, BASE_URL + "/abc.png", "image")));
+        when(mediaRepository.findDerivativesByUrl(BASE_URL + "/abc.png", PageRequest.of(0, 1)))
+            .thenReturn(List.of(new Existing(700, 350, "srcset", "placeholder")));
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        verify(mediaRepository).saveDerivatives(10L, 700, 350, "srcset", "placeholder");
+        verify(jobRepository).deleteById(1L);
+    }
+
+    @Test
+    void jobClaimedByAnotherPollerIsSkipped() {
+        MediaDerivativeJob job = job(1L, 10L, 0);
+        queue(job);
+        when(jobRepository.claim(eq(1L), eq(job.getRunAfter()), any())).thenReturn(0);
+
+        derivativeService.pollJobs();
+
+        verify(mediaRepository, never()).findSourceById(any());
+        verify(jobRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void failedJobIsRescheduledUntilItRunsOutOfAttempts() {
+        when(mediaRepository.findSourceById(10L)).thenThrow(new RuntimeException("boom"));
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        ArgumentCaptor<LocalDateTime> retryAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(jobRepository).reschedule(eq(1L), retryAt.capture());
+        assertTrue(retryAt.getValue().isAfter(LocalDateTime.now().plusSeconds(30)));
+        verify(jobRepository, never()).deleteById(any());
+
+        queue(job(1L, 10L, 2));
+        derivativeService.pollJobs();
+
+        verify(jobRepository).deleteById(1L);
+        verify(jobRepository, times(1)).reschedule(anyLong(), any());
+    }
+
+    @Test
+    void missingMediaDropsTheJob() {
+        when(mediaRepository.findSourceById(10L)).thenReturn(Optional.empty());
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+
+        verify(mediaRepository, never()).saveDerivatives(any(), any(), any(), any(), any());
+        verify(jobRepository).deleteById(1L);
+    }
+
+    @Test
+    void neverHandsTheExecutorMoreThanItsCapacity() {
+        List<Runnable> accepted = new ArrayList<>();
+        ReflectionTestUtils.setField(derivativeService, "derivativeExecutor", (Executor) accepted::add);
+        List<MediaDerivativeJob> due = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            due.add(job(id, id, 0));
+        }
+        when(jobRepository.findDue(any(), eq(PageRequest.of(0, 4)))).thenReturn(due);
+
+        derivativeService.pollJobs();
+        derivativeService.pollJobs();
+
+        assertEquals(4, accepted.size());
+        verify(jobRepository, times(1)).findDue(any(), any());
+
+        // Finishing one frees one slot
+        when(mediaRepository.findSourceById(1L)).thenReturn(Optional.empty());
+        accepted.get(0).run();
+        when(jobRepository.findDue(any(), eq(PageRequest.of(0, 1)))).thenReturn(List.of(job(5L, 5L, 0)));
+        derivativeService.pollJobs();
+        assertEquals(5, accepted.size());
+    }
+
+    @Test
+    void rejectedJobDoesNotHoldASlot() {
+        ReflectionTestUtils.setField(derivativeService, "derivativeExecutor", (Executor) task -> {
+            throw new RejectedExecutionException("full");
+        });
+        queue(job(1L, 10L, 0));
+
+        derivativeService.pollJobs();
+        derivativeService.pollJobs();
+
+        verify(jobRepository, times(2)).findDue(any(), eq(PageRequest.of(0, 4)));
+    }
+
+    @Test
+    void derivativeNamesFollowTheConfiguredWidths() {
+        assertEquals(List.of("abc-w320.jpg", "abc-w640.jpg", "abc-w1280.jpg"), derivativeService.derivativeNames("abc.png"));
+        assertEquals(List.of("noext-w320.jpg", "noext-w640.jpg", "noext-w1280.jpg"), derivativeService.derivativeNames("noext"));
+        assertEquals("a.b-w320.jpg", MediaDerivativeService.derivativeName("a.b.png", 320));
+    }
+
+    private void storeImage(String name, int width, int height) throws IOException {
+        Path file = Files.createTempFile(uploadDir, "source-", ".png");
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", file.toFile());
+        mediaStorage.put(name, file, "image/png");
+        when(mediaRepository.findSourceById(10L)).thenReturn(Optional.of(new Source(10L, 100L, BASE_URL + "/" + name, "image")));
+    }
+
+    private void queue(MediaDerivativeJob job) {
+        when(jobRepository.findDue(any(), any())).thenReturn(List.of(job));
+    }
+
+    private static MediaDerivativeJob job(Long id, Long mediaId, int attempts) {
+        MediaDerivativeJob job = new MediaDerivativeJob();
+        job.setId(id);
+        job.setMediaId(mediaId);
+        job.setAttempts(attempts);
+        job.setRunAfter(LocalDateTime.now().minusSeconds(1));
+        return job;
+    }
+}
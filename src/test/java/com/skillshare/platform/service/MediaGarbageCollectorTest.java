@@ -0,0 +1,216 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.model.MediaObject;
+import com.skillshare.platform.repository.MediaObjectRepository;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.service.MediaGarbageCollector.Report;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaGarbageCollectorTest {
+
+    private static final Duration GRACE = Duration.ofDays(1);
+
+    @TempDir
+    private Path uploadDir;
+
+    private final MediaRepository mediaRepository = mock(MediaRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MediaObjectRepository mediaObjectRepository = mock(MediaObjectRepository.class);
+    private final MediaDerivativeService mediaDerivativeService = mock(MediaDerivativeService.class);
+    private final HotFileCache hotFileCache = mock(HotFileCache.class);
+    private final LocalMediaStorage mediaStorage = new LocalMediaStorage();
+    private final MediaGarbageCollector collector = new MediaGarbageCollector(mock(PlatformTransactionManager.class));
+
+    // What posts and profiles reference
+    private final List<String> mediaUrls = new ArrayList<>();
+    private final List<String> photoUrls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mediaStorage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(mediaStorage, "baseUrl", "http://localhost/media");
+
+        FileStorageService fileStorageService = new FileStorageService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(fileStorageService, "baseUrl", "http://localhost/media");
+        ReflectionTestUtils.setField(fileStorageService, "mediaStorage", mediaStorage);
+        ReflectionTestUtils.setField(fileStorageService, "mediaObjectRepository", mediaObjectRepository);
+
+        ReflectionTestUtils.setField(collector, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(collector, "userRepository", userRepository);
+        ReflectionTestUtils.setField(collector, "mediaObjectRepository", mediaObjectRepository);
+        ReflectionTestUtils.setField(collector, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(collector, "mediaStorage", mediaStorage);
+        ReflectionTestUtils.setField(collector, "mediaDerivativeService", mediaDerivativeService);
+        ReflectionTestUtils.setField(collector, "hotFileCache", hotFileCache);
+        ReflectionTestUtils.setField(collector, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(collector, "grace", GRACE);
+        ReflectionTestUtils.setField(collector, "ioPerSecond", 100_000);
+
+        when(mediaRepository.streamUrls()).thenAnswer(invocation -> mediaUrls.stream());
+        when(userRepository.streamProfilePhotoUrls()).thenAnswer(invocation -> photoUrls.stream());
+        when(mediaDerivativeService.derivativeNames(anyString())).thenAnswer(invocation ->
+            List.of(MediaDerivativeService.derivativeName(invocation.getArgument(0), 320)));
+    }
+
+    @Test
+    void deletesUnreferencedObjectsWithTheirDerivatives() throws IOException {
+        String sha256 = hash('1');
+        stored(sha256 + ".png", 100, true);
+        stored(sha256 + "-w320.jpg", 10, true);
+        unreferenced(object(sha256));
+        when(mediaObjectRepository.deleteUnreferenced(eq(sha256), any())).thenReturn(1);
+
+        Report report = collector.collect();
+
+        assertEquals(Set.of(), storedNames());
+        assertEquals(1, report.objectsDeleted());
+        assertEquals(110, report.bytesReclaimed());
+        verify(hotFileCache).invalidate(sha256 + ".png");
+        verify(hotFileCache).invalidate(sha256 + "-w320.jpg");
+    }
+
+    @Test
+    void keepsObjectsThatAreStillReferenced() throws IOException {
+        // One counts no references but a post uses it; the other gained a reference after the page was read
+        String used = hash('1');
+        String retained = hash('2');
+        stored(used + ".png", 100, true);
+        stored(retained + ".png", 100, true);
+        mediaUrls.add("http://localhost/media/" + used + ".png");
+        unreferenced(object(used), object(retained));
+        when(mediaObjectRepository.existsById(anyString())).thenReturn(true);
+
+        Report report = collector.collect();
+
+        assertEquals(Set.of(used + ".png", retained + ".png"), storedNames());
+        assertEquals(1, report.keptInUse());
+        assertEquals(0, report.objectsDeleted());
+        verify(mediaObjectRepository, never()).deleteUnreferenced(eq(used), any());
+        verify(mediaObjectRepository).deleteUnreferenced(eq(retained), any());
+    }
+
+    @Test
+    void onlyObjectsPastTheGracePeriodAreAskedFor() {
+        LocalDateTime before = LocalDateTime.now().minus(GRACE);
+        collector.collect();
+        LocalDateTime after = LocalDateTime.now().minus(GRACE);
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(mediaObjectRepository).findUnreferenced(cutoff.capture(), eq(""), any(Pageable.class));
+        assertFalse(cutoff.getValue().isBefore(before));
+        assertFalse(cutoff.getValue().isAfter(after));
+    }
+
+    @Test
+    void readsUnreferencedObjectsInKeysetPages() {
+        List<MediaObject> page = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            page.add(object(String.format("%064x", i)));
+        }
+        when(mediaObjectRepository.findUnreferenced(any(), eq(""), any())).thenReturn(page);
+
+        collector.collect();
+
+        verify(mediaObjectRepository).findUnreferenced(any(), eq(String.format("%064x", 99)), any());
+    }
+
+    @Test
+    void sweepsUnmarkedFilesPastTheGracePeriod() throws IOException {
+        String orphan = hash('3');
+        String withRow = hash('4');
+        stored(orphan + ".png", 50, true);
+        stored(orphan + "-w320.jpg", 5, true);
+        stored(withRow + ".png", 100, true);
+        when(mediaObjectRepository.existsById(withRow)).thenReturn(true);
+        stored("legacy.jpg", 7, true);
+        stored("legacy-w320.jpg", 3, true);
+        photoUrls.add("/media/legacy.jpg");
+        stored("old.jpg", 11, true);
+        stored("new.jpg", 13, false);
+        stored("upload-1.part", 17, true);
+        stored("upload-2.part", 19, false);
+        Path session = Files.createDirectories(uploadDir.resolve(".sessions")).resolve("chunk.part");
+        age(Files.write(session, new byte[23]));
+
+        Report report = collector.collect();
+
+        assertEquals(Set.of(withRow + ".png", "legacy.jpg", "legacy-w320.jpg", "new.jpg", "upload-2.part"), storedNames());
+        assertTrue(Files.exists(session));
+        assertEquals(4, report.filesDeleted());
+        assertEquals(50 + 5 + 11 + 17, report.bytesReclaimed());
+        assertEquals(1, report.marked());
+    }
+
+    private void unreferenced(MediaObject... objects) {
+        when(mediaObjectRepository.findUnreferenced(any(), eq(""), any())).thenReturn(List.of(objects));
+    }
+
+    private static MediaObject object(String sha256) {
+        MediaObject object = new MediaObject();
+        object.setSha256(sha256);
+        object.setFilename(sha256 + ".png");
+        object.setContentType("image/png");
+        object.setSize(100);
+        return object;
+    }
+
+    private static String hash(char c) {
+        return String.valueOf(c).repeat(64);
+    }
+
+    // Where storage keeps the name, older than the grace period when old
+    private void stored(String name, int size, boolean old) throws IOException {
+        Path path = mediaStorage.localPath(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[size]);
+        if (old) {
+            age(path);
+        }
+    }
+
+    private static void age(Path path) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minus(GRACE.multipliedBy(3))));
+    }
+
+    private Set<String> storedNames() throws IOException {
+        try (Stream<Path> files = Files.walk(uploadDir)) {
+            return files.filter(Files::isRegularFile)
+                .filter(file -> !uploadDir.relativize(file).startsWith(".sessions"))
+                .map(file -> file.getFileName().toString())
+                .collect(Collectors.toCollection(TreeSet::new));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.service.FileStorageService.StoredFile;
+import com.skillshare.platform.service.MediaUploadService.StoredMedia;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class MediaUploadServiceTest {
+
+    private final FileStorageService fileStorageService = mock(FileStorageService.class);
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final MediaUploadService mediaUploadService = new MediaUploadService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(mediaUploadService, "fileStorageService", fileStorageService);
+        ReflectionTestUtils.setField(mediaUploadService, "mediaUploadExecutor", executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void storesNonEmptyFilesInTheirOriginalOrder() {
+        MultipartFile photo = file("a.jpg", "image/jpeg");
+        MultipartFile video = file("b.mp4", "video/mp4");
+        when(fileStorageService.uploadFile(photo)).thenAnswer(invocation -> {
+            // Finishes last, and still comes first
+            Thread.sleep(100);
+            return stored("a.jpg", "image/jpeg");
+        });
+        when(fileStorageService.uploadFile(video)).thenReturn(stored("b.mp4", "video/mp4"));
+
+        List<StoredMedia> stored = mediaUploadService.storeAll(new MultipartFile[] {
+            photo, new MockMultipartFile("files", "empty.jpg", "image/jpeg", new byte[0]), video});
+
+        assertEquals(List.of(new StoredMedia("/media/a.jpg", "image"), new StoredMedia("/media/b.mp4", "video")), stored);
+        verify(fileStorageService, times(2)).uploadFile(any());
+    }
+
+    @Test
+    void missingOrEmptyInputStoresNothing() {
+        assertEquals(List.of(), mediaUploadService.storeAll(null));
+        assertEquals(List.of(), mediaUploadService.storeAll(new MultipartFile[0]));
+        verifyNoInteractions(fileStorageService);
+    }
+
+    @Test
+    void oneFailedUploadFailsTheRequestAfterTheOthersFinish() {
+        MultipartFile first = file("a.jpg", "image/jpeg");
+        MultipartFile broken = file("b.jpg", "image/jpeg");
+        MultipartFile slow = file("c.jpg", "image/jpeg");
+        AtomicInteger finished = new AtomicInteger();
+        IllegalArgumentException rejected = new IllegalArgumentException("Unsupported file type");
+        when(fileStorageService.uploadFile(first)).thenAnswer(invocation -> {
+            finished.incrementAndGet();
+            return stored("a.jpg", "image/jpeg");
+        });
+        when(fileStorageService.uploadFile(broken)).thenThrow(rejected);
+        when(fileStorageService.uploadFile(slow)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            finished.incrementAndGet();
+            return stored("c.jpg", "image/jpeg");
+        });
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+            () -> mediaUploadService.storeAll(new MultipartFile[] {first, broken, slow}));
+
+        assertSame(rejected, thrown);
+        assertEquals(2, finished.get());
+        // The stored files are left for garbage collection; their bytes may back other posts
+        verify(fileStorageService, times(3)).uploadFile(any());
+        verifyNoMoreInteractions(fileStorageService);
+    }
+
+    private static MultipartFile file(String name, String contentType) {
+        return new MockMultipartFile("files", name, contentType, new byte[] {1, 2, 3});
+    }
+
+    private static StoredFile stored(String name, String contentType) {
+        return new StoredFile("/media/" + name, name, contentType, 3);
+    }
+}
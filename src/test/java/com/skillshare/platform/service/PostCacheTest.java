@@ -0,0 +1,86 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.event.LikeCountsFlushedEvent;
+import com.skillshare.platform.event.PostUpdatedEvent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostCacheTest {
+
+    private final PostCache cache = new PostCache(100, Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+
+    // Like counts as the database has them
+    private final Map<Long, Integer> likes = new LinkedHashMap<>(Map.of(1L, 0, 2L, 0));
+    private final List<Set<Long>> loads = new ArrayList<>();
+
+    @Test
+    void hitsAreNotReloaded() {
+        assertEquals(List.of(0, 0), likes(cache.getSummaries(List.of(1L, 2L), this::load)));
+        cache.getSummaries(List.of(2L, 1L), this::load);
+
+        assertEquals(1, loads.size());
+    }
+
+    @Test
+    void flushDuringLoadDoesNotLeaveTheStaleCount() {
+        // The loader reads the old count, then a flush commits and invalidates before getAll puts it
+        List<PostDTO> read = cache.getSummaries(List.of(1L, 2L), ids -> {
+            Map<Long, PostDTO> loaded = load(ids);
+            likes.put(1L, 5);
+            cache.onLikeCountsFlushed(new LikeCountsFlushedEvent(Set.of(1L)));
+            return loaded;
+        });
+        assertEquals(List.of(0, 0), likes(read));
+
+        assertEquals(List.of(5, 0), likes(cache.getSummaries(List.of(1L, 2L), this::load)));
+        assertEquals(List.of(Set.of(1L, 2L), Set.of(1L)), loads);
+    }
+
+    @Test
+    void editDuringLoadDoesNotLeaveTheStalePost() {
+        cache.getSummaries(List.of(1L), ids -> {
+            Map<Long, PostDTO> loaded = load(ids);
+            likes.put(1L, 1);
+            cache.onPostUpdated(new PostUpdatedEvent(1L));
+            return loaded;
+        });
+
+        assertEquals(List.of(1), likes(cache.getSummaries(List.of(1L), this::load)));
+    }
+
+    @Test
+    void deletedPostsAreLeftOut() {
+        likes.remove(2L);
+
+        assertEquals(List.of(0), likes(cache.getSummaries(List.of(1L, 2L), this::load)));
+    }
+
+    private Map<Long, PostDTO> load(Collection<Long> ids) {
+        Map<Long, PostDTO> loaded = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (likes.containsKey(id)) {
+                PostDTO post = new PostDTO();
+                post.setId(id);
+                post.setLikes(likes.get(id));
+                loaded.put(id, post);
+            }
+        }
+        loads.add(Set.copyOf(ids));
+        return loaded;
+    }
+
+    private static List<Integer> likes(List<PostDTO> posts) {
+        return posts.stream().map(PostDTO::getLikes).toList();
+    }
+}
@@ -0,0 +1,176 @@
+package com.skillshare.platform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcPropertySet;
+import com.mysql.cj.jdbc.JdbcPropertySetImpl;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.repository.PostRepository;
+
+import jakarta.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.jdbc.Work;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostExportServiceTest {
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final PostMapper postMapper = mock(PostMapper.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Session session = mock(Session.class);
+    private final Connection connection = mock(Connection.class);
+    private final PostExportService exportService = new PostExportService(mock(PlatformTransactionManager.class));
+
+    // The driver's settings of the pooled connection, at their defaults
+    private final JdbcPropertySet properties = new JdbcPropertySetImpl();
+
+    // Sizes of the chunks mapped, and whether the cursor was on when the query ran
+    private final List<Integer> chunks = new ArrayList<>();
+    private final AtomicBoolean cursorAtQuery = new AtomicBoolean();
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(exportService, "postMapper", postMapper);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "entityManager", entityManager);
+        ReflectionTestUtils.setField(exportService, "chunkSize", 2);
+
+        JdbcConnection mysqlConnection = mock(JdbcConnection.class);
+        when(mysqlConnection.getPropertySet()).thenReturn(properties);
+        when(connection.isWrapperFor(JdbcConnection.class)).thenReturn(true);
+        when(connection.unwrap(JdbcConnection.class)).thenReturn(mysqlConnection);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.doReturningWork(any())).thenAnswer(invocation ->
+            invocation.<ReturningWork<?>>getArgument(0).execute(connection));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+
+        when(postRepository.streamAllWithUser()).thenAnswer(invocation -> posts(5));
+        when(postMapper.buildFeedDTOs(anyList())).thenAnswer(invocation -> {
+            List<Post> chunk = invocation.getArgument(0);
+            chunks.add(chunk.size());
+            return chunk.stream().map(PostExportServiceTest::toDTO).toList();
+        });
+        when(postMapper.withUsers(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void writesOneLinePerPostInChunks() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(5, exportService.exportPosts(null, out));
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"id\":1,"));
+        assertTrue(lines.get(4).startsWith("{\"id\":5,"));
+        assertEquals(List.of(2, 2, 1), chunks);
+        // Each chunk is detached once written
+        verify(entityManager, times(3)).clear();
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void exportsOneAuthor() {
+        when(postRepository.streamByUserIdWithUser(7L)).thenAnswer(invocation -> posts(1));
+
+        assertEquals(1, exportService.exportPosts(7L, new ByteArrayOutputStream()));
+        verify(postRepository, never()).streamAllWithUser();
+    }
+
+    @Test
+    void cursorIsOnForTheExportOnly() {
+        exportService.exportPosts(null, new ByteArrayOutputStream());
+
+        assertTrue(cursorAtQuery.get());
+        assertFalse(properties.getBooleanProperty(PropertyKey.useCursorFetch).getValue());
+        assertFalse(properties.getBooleanProperty(PropertyKey.useServerPrepStmts).getValue());
+    }
+
+    @Test
+    void connectionIsRestoredWhenTheClientGoesAway() {
+        OutputStream failing = new OutputStream() {
+            private int lines;
+
+            @Override
+            public void write(int b) throws IOException {
+                // Fails at the end of the third post, in the second chunk
+                if (b == '\n' && ++lines == 3) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        assertThrows(UncheckedIOException.class, () -> exportService.exportPosts(null, failing));
+        verify(entityManager).clear();
+
+        assertTrue(cursorAtQuery.get());
+        assertFalse(properties.getBooleanProperty(PropertyKey.useCursorFetch).getValue());
+        assertFalse(properties.getBooleanProperty(PropertyKey.useServerPrepStmts).getValue());
+        assertTrue(streamClosed.get());
+    }
+
+    @Test
+    void otherDriversAreLeftAlone() throws Exception {
+        when(connection.isWrapperFor(JdbcConnection.class)).thenReturn(false);
+
+        assertEquals(5, exportService.exportPosts(null, new ByteArrayOutputStream()));
+
+        assertFalse(cursorAtQuery.get());
+        verify(session, never()).doWork(any());
+    }
+
+    private Stream<Post> posts(int count) {
+        cursorAtQuery.set(properties.getBooleanProperty(PropertyKey.useCursorFetch).getValue()
+            && properties.getBooleanProperty(PropertyKey.useServerPrepStmts).getValue());
+        return LongStream.rangeClosed(1, count).mapToObj(id -> {
+            Post post = new Post();
+            post.setId(id);
+            post.setContent("post " + id);
+            return post;
+        }).onClose(() -> streamClosed.set(true));
+    }
+
+    private static PostDTO toDTO(Post post) {
+        PostDTO dto = new PostDTO();
+        dto.setId(post.getId());
+        dto.setContent(post.getContent());
+        return dto;
+    }
+}
@@ -0,0 +1,213 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.CommentDTO;
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.dto.SharedPostDTO;
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.model.SharedPost;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.CommentRepository.CommentView;
+import com.skillshare.platform.repository.CommentRepository.PostCommentCount;
+import com.skillshare.platform.repository.MediaRepository;
+import com.skillshare.platform.repository.MediaRepository.PostMediaView;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostMapperTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private record Media(Long getPostId, String getUrl, String getType, Integer getWidth, Integer getHeight,
+                         String getSrcset, String getPlaceholder) implements PostMediaView {
+    }
+
+    private record Comment(Long getPostId, Long getId, String getContent, LocalDateTime getCreatedAt, Long getUserId)
+        implements CommentView {
+    }
+
+    private record CommentCount(Long getPostId, Long getTotal) implements PostCommentCount {
+    }
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final SharedPostRepository sharedPostRepository = mock(SharedPostRepository.class);
+    private final MediaRepository mediaRepository = mock(MediaRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final LikeCounterBuffer likeCounterBuffer = mock(LikeCounterBuffer.class);
+    private final UserSummaryLoader userSummaryLoader = mock(UserSummaryLoader.class);
+    private final PostMapper postMapper = new PostMapper();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postMapper, "postRepository", postRepository);
+        ReflectionTestUtils.setField(postMapper, "sharedPostRepository", sharedPostRepository);
+        ReflectionTestUtils.setField(postMapper, "mediaRepository", mediaRepository);
+        ReflectionTestUtils.setField(postMapper, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(postMapper, "likeCounterBuffer", likeCounterBuffer);
+        ReflectionTestUtils.setField(postMapper, "userSummaryLoader", userSummaryLoader);
+
+        when(userSummaryLoader.loadAll(any())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0)
+            .stream()
+            .collect(Collectors.toMap(Function.identity(), id -> new UserSummaryDTO(id, "user" + id, null))));
+    }
+
+    @Test
+    void pageIsBuiltWithOneQueryPerKind() {
+        List<Post> posts = List.of(post(1, 100), post(2, 100), post(3, 101));
+        when(mediaRepository.findViewsByPostIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(
+            new Media(1L, "/media/a.jpg", "image", 640, 480, null, null),
+            new Media(3L, "/media/b.mp4", "video", null, null, null, null),
+            new Media(1L, "/media/c.jpg", "image", 320, 240, null, null)));
+        when(commentRepository.findLatestIdsPerPost(List.of(1L, 2L, 3L), PostMapper.COMMENT_PREVIEW_SIZE))
+            .thenReturn(List.of(11L, 12L));
+        when(commentRepository.findViewsByIdIn(List.of(11L, 12L))).thenReturn(List.of(
+            new Comment(1L, 11L, "first", T0, 200L),
+            new Comment(1L, 12L, "second", T0, 201L)));
+        when(commentRepository.countByPostIdIn(List.of(1L, 2L, 3L))).thenReturn(List.of(new CommentCount(1L, 5L)));
+
+        List<PostDTO> dtos = postMapper.buildFeedDTOs(posts);
+
+        assertEquals(List.of(1L, 2L, 3L), dtos.stream().map(PostDTO::getId).toList());
+        assertEquals(List.of("/media/a.jpg", "/media/c.jpg"), dtos.get(0).getMediaUrls());
+        assertEquals(List.of(), dtos.get(1).getMediaUrls());
+        assertEquals("video", dtos.get(2).getMedia().get(0).getType());
+        assertEquals(List.of(11L, 12L), dtos.get(0).getComments().stream().map(CommentDTO::getId).toList());
+        assertEquals(List.of(5L, 0L, 0L), dtos.stream().map(PostDTO::getCommentCount).toList());
+        // Viewer-independent: ids only, and nothing about any viewer
+        assertNull(dtos.get(0).getUser().getName());
+        assertEquals(101L, dtos.get(2).getUser().getId());
+        verify(mediaRepository, times(1)).findViewsByPostIdIn(any());
+        verify(commentRepository, times(1)).findLatestIdsPerPost(any(), anyInt());
+        verify(commentRepository, times(1)).findViewsByIdIn(any());
+        verify(commentRepository, times(1)).countByPostIdIn(any());
+    }
+
+    @Test
+    void feedItemsSkipPostsAndSharesThatNoLongerExist() {
+        Post kept = post(1, 100);
+        when(postRepository.findAllWithUserByIdIn(Set.of(1L, 2L))).thenReturn(List.of(kept));
+        when(sharedPostRepository.findWithPostsByIdIn(Set.of(10L, 11L))).thenReturn(List.of(share(10, 300, post(5, 101))));
+        List<Entry> entries = List.of(
+            new Entry(FeedItemDTO.TYPE_SHARE, 10L, T0.plusMinutes(4)),
+            new Entry(FeedItemDTO.TYPE_POST, 2L, T0.plusMinutes(3)),
+            new Entry(FeedItemDTO.TYPE_POST, 1L, T0.plusMinutes(2)),
+            new Entry(FeedItemDTO.TYPE_SHARE, 11L, T0.plusMinutes(1)));
+
+        List<FeedItemDTO> items = postMapper.toFeedItems(entries, 9L);
+
+        assertEquals(2, items.size());
+        assertEquals(FeedItemDTO.TYPE_SHARE, items.get(0).getType());
+        assertEquals(T0.plusMinutes(4), items.get(0).getTimestamp());
+        assertEquals(5L, items.get(0).getSharedPost().getOriginalPost().getId());
+        assertEquals("user300", items.get(0).getSharedPost().getSharerName());
+        assertEquals(1L, items.get(1).getPost().getId());
+        assertEquals("user100", items.get(1).getPost().getUser().getName());
+        // Authors and sharers of the whole page in one lookup
+        verify(userSummaryLoader, times(1)).loadAll(Set.of(100L, 101L, 300L));
+    }
+
+    @Test
+    void personalizeMergesTheViewersLikesAndUnflushedDeltas() {
+        PostDTO first = template(1, 5);
+        PostDTO second = template(2, 7);
+        when(postRepository.findLikedPostIds(9L, List.of(1L, 2L))).thenReturn(Set.of(2L));
+        when(likeCounterBuffer.pendingDelta(1L)).thenReturn(2L);
+        when(likeCounterBuffer.pendingDelta(2L)).thenReturn(-1L);
+
+        List<PostDTO> personalized = postMapper.personalize(List.of(first, second), 9L);
+
+        assertEquals(List.of(false, true), personalized.stream().map(PostDTO::isLiked).toList());
+        assertEquals(List.of(7, 6), personalized.stream().map(PostDTO::getLikes).toList());
+        assertEquals("user100", personalized.get(0).getUser().getName());
+        // The shared templates are left as they were
+        assertFalse(second.isLiked());
+        assertEquals(7, second.getLikes());
+        assertNull(second.getUser().getName());
+    }
+
+    @Test
+    void anonymousViewerLikesNothingAndCostsNoQuery() {
+        List<PostDTO> personalized = postMapper.personalize(List.of(template(1, 5)), null);
+
+        assertFalse(personalized.get(0).isLiked());
+        verify(postRepository, never()).findLikedPostIds(any(), any());
+    }
+
+    @Test
+    void sharedPostsCarryTheSharersLikedFlag() {
+        Post liked = post(1, 100);
+        Post other = post(2, 100);
+        List<SharedPost> shares = List.of(share(10, 300, liked), share(11, 301, liked), share(12, 300, other));
+        when(postRepository.findLikedPostIds(300L, Set.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(postRepository.findLikedPostIds(301L, Set.of(1L))).thenReturn(Set.of());
+
+        List<SharedPostDTO> dtos = postMapper.toSharedPostDTOs(shares);
+
+        assertEquals(List.of(true, false, false), dtos.stream().map(dto -> dto.getOriginalPost().isLiked()).toList());
+        assertEquals(List.of("user300", "user301", "user300"), dtos.stream().map(SharedPostDTO::getSharerName).toList());
+        // One query per distinct sharer, never one per share
+        verify(postRepository, times(2)).findLikedPostIds(any(), any());
+    }
+
+    @Test
+    void emptyPageRunsNoQueries() {
+        assertEquals(List.of(), postMapper.buildFeedDTOs(List.of()));
+        assertEquals(List.of(), postMapper.toFeedItems(List.of(), 9L));
+        verify(mediaRepository, never()).findViewsByPostIdIn(any());
+        verify(postRepository, never()).findAllWithUserByIdIn(any());
+    }
+
+    private static Post post(long id, long authorId) {
+        Post post = new Post();
+        post.setId(id);
+        post.setContent("post " + id);
+        post.setCreatedAt(T0);
+        post.setUser(user(authorId));
+        return post;
+    }
+
+    private static PostDTO template(long id, int likes) {
+        return new PostDTO(id, "post " + id, likes, T0, false, new UserSummaryDTO(100L, null, null),
+            List.of(), List.of(), List.of(), 0);
+    }
+
+    private static SharedPost share(long id, long sharerId, Post original) {
+        SharedPost share = new SharedPost();
+        share.setId(id);
+        share.setSharedAt(T0);
+        share.setUser(user(sharerId));
+        share.setOriginalPost(original);
+        return share;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
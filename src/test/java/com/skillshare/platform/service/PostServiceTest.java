@@ -0,0 +1,171 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.FeedPageDTO;
+import com.skillshare.platform.dto.PostDTO;
+import com.skillshare.platform.event.SharedPostDeletedEvent;
+import com.skillshare.platform.model.Post;
+import com.skillshare.platform.model.SharedPost;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.SharedPostRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class PostServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final SharedPostRepository sharedPostRepository = mock(SharedPostRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final PostMapper postMapper = mock(PostMapper.class);
+    private final PostCache postCache = new PostCache(100, Duration.ofMinutes(10), 100, Duration.ofSeconds(30));
+    private final PostService postService = new PostService(mock(PlatformTransactionManager.class));
+
+    // Newest first, as the feed queries return them
+    private final List<Post> posts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(postService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(postService, "sharedPostRepository", sharedPostRepository);
+        ReflectionTestUtils.setField(postService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(postService, "postMapper", postMapper);
+        ReflectionTestUtils.setField(postService, "postCache", postCache);
+        for (long id = 5; id >= 1; id--) {
+            posts.add(post(id, T0.plusMinutes(id)));
+        }
+        when(postRepository.findFeedFirstPage(any())).thenAnswer(invocation -> limit(posts, invocation.getArgument(0)));
+        when(postRepository.findAllWithUserByIdIn(any())).thenAnswer(invocation -> byId(invocation.getArgument(0)));
+        when(postMapper.buildFeedDTOs(anyList())).thenAnswer(invocation -> toDTOs(invocation.getArgument(0)));
+        when(postMapper.personalize(anyList(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void firstPageLinksToTheNext() {
+        FeedPageDTO<PostDTO> page = postService.findFeedPage(1L, null, 2);
+
+        assertEquals(List.of(5L, 4L), ids(page.getItems()));
+        assertEquals(new FeedCursor(T0.plusMinutes(4), 4L), FeedCursor.decode(page.getNextCursor()));
+        verify(postRepository).findFeedFirstPage(PageRequest.of(0, 3));
+    }
+
+    @Test
+    void nextPageIsReadAfterTheCursor() {
+        String cursor = new FeedCursor(T0.plusMinutes(4), 4L).encode();
+        when(postRepository.findFeedPageAfter(eq(T0.plusMinutes(4)), eq(4L), any()))
+            .thenAnswer(invocation -> limit(posts.subList(2, 5), invocation.getArgument(2)));
+
+        FeedPageDTO<PostDTO> page = postService.findFeedPage(1L, cursor, 3);
+
+        assertEquals(List.of(3L, 2L, 1L), ids(page.getItems()));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pageSizeIsBounded() {
+        assertEquals(1, PostService.feedPageSize(0));
+        assertEquals(20, PostService.feedPageSize(20));
+        assertEquals(50, PostService.feedPageSize(1000));
+        postService.findFeedPage(1L, "", 1000);
+
+        verify(postRepository).findFeedFirstPage(PageRequest.of(0, 51));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> postService.findFeedPage(1L, "%%%", 2));
+    }
+
+    @Test
+    void postsDeletedAfterThePageWasCachedAreSkipped() {
+        postService.findFeedPage(1L, null, 5);
+        posts.remove(1);
+        postCache.evictPost(4L);
+
+        assertEquals(List.of(5L, 3L, 2L, 1L), ids(postService.findFeedPage(1L, null, 5).getItems()));
+    }
+
+    @Test
+    void deletingAShareAnnouncesIt() {
+        SharedPost share = share(7L, 3L, T0);
+        when(sharedPostRepository.findById(7L)).thenReturn(Optional.of(share));
+
+        postService.deleteSharedPost(7L, 3L);
+
+        verify(sharedPostRepository).delete(share);
+        verify(eventPublisher).publishEvent(new SharedPostDeletedEvent(7L, 3L, T0));
+    }
+
+    @Test
+    void onlyTheSharerCanDeleteAShare() {
+        when(sharedPostRepository.findById(7L)).thenReturn(Optional.of(share(7L, 3L, T0)));
+
+        assertThrows(RuntimeException.class, () -> postService.deleteSharedPost(7L, 4L));
+
+        verify(sharedPostRepository, never()).delete(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private List<Post> byId(Collection<Long> ids) {
+        return posts.stream().filter(post -> ids.contains(post.getId())).toList();
+    }
+
+    private static List<Post> limit(List<Post> posts, PageRequest limit) {
+        return new ArrayList<>(posts.subList(0, Math.min(posts.size(), limit.getPageSize())));
+    }
+
+    private static List<PostDTO> toDTOs(List<Post> posts) {
+        return posts.stream().map(post -> {
+            PostDTO dto = new PostDTO();
+            dto.setId(post.getId());
+            return dto;
+        }).toList();
+    }
+
+    private static List<Long> ids(List<PostDTO> posts) {
+        return posts.stream().map(PostDTO::getId).toList();
+    }
+
+    private static Post post(Long id, LocalDateTime createdAt) {
+        Post post = new Post();
+        post.setId(id);
+        post.setCreatedAt(createdAt);
+        return post;
+    }
+
+    private static SharedPost share(Long id, Long sharerId, LocalDateTime sharedAt) {
+        User sharer = new User();
+        sharer.setId(sharerId);
+        SharedPost share = new SharedPost();
+        share.setId(id);
+        share.setUser(sharer);
+        share.setSharedAt(sharedAt);
+        return share;
+    }
+}
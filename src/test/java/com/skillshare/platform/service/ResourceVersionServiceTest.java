@@ -0,0 +1,171 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedCursor;
+import com.skillshare.platform.dto.ResourceVersion;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.PostVersion;
+import com.skillshare.platform.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResourceVersionServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final Long VIEWER = 7L;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final LikeCounterBuffer likeCounterBuffer = mock(LikeCounterBuffer.class);
+    private final ResourceVersionService service = new ResourceVersionService();
+
+    private final List<Row> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "postRepository", postRepository);
+        ReflectionTestUtils.setField(service, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(service, "likeCounterBuffer", likeCounterBuffer);
+        ReflectionTestUtils.setField(service, "commentRepository", commentRepository);
+        for (long id = 1; id <= 3; id++) {
+            rows.add(new Row(id, T0.plusMinutes(id), T0.plusMinutes(id), 0, T0));
+        }
+        when(postRepository.findFeedFirstPageVersions(any())).thenAnswer(invocation -> page(rows, invocation.getArgument(0)));
+        when(postRepository.findLikedPostIds(eq(VIEWER), anyCollection())).thenReturn(Set.of());
+    }
+
+    @Test
+    void unchangedPageKeepsItsTag() {
+        assertEquals(etag(), etag());
+    }
+
+    @Test
+    void changesOutsideThePageKeepItsTag() {
+        // A fourth post tells the page a next one exists; its own state does not show on this page
+        rows.add(new Row(4L, T0, T0, 0, T0));
+        String before = etag();
+
+        rows.set(3, new Row(4L, T0, T0.plusHours(1), 10, T0.plusHours(1)));
+        rows.add(new Row(5L, T0, T0, 0, T0));
+        when(likeCounterBuffer.pendingDelta(4L)).thenReturn(3L);
+
+        assertEquals(before, etag());
+        verify(likeCounterBuffer, never()).version();
+    }
+
+    @Test
+    void bufferedLikeOnThePageChangesItsTag() {
+        String before = etag();
+        when(likeCounterBuffer.pendingDelta(2L)).thenReturn(1L);
+
+        assertNotEquals(before, etag());
+    }
+
+    @Test
+    void rowChangesOnThePageChangeItsTag() {
+        String before = etag();
+        rows.set(1, new Row(2L, T0.plusMinutes(2), T0.plusHours(1), 0, T0));
+        String edited = etag();
+        rows.set(1, new Row(2L, T0.plusMinutes(2), T0.plusHours(1), 0, T0.plusHours(1)));
+        String authorEdited = etag();
+        rows.remove(1);
+        String deleted = etag();
+
+        assertEquals(4, Set.of(before, edited, authorEdited, deleted).size());
+    }
+
+    @Test
+    void viewerLikeChangesItsTag() {
+        String before = etag();
+        when(postRepository.findLikedPostIds(eq(VIEWER), anyCollection())).thenReturn(Set.of(3L));
+
+        assertNotEquals(before, etag());
+    }
+
+    @Test
+    void commenterProfileEditChangesThePageTag() {
+        when(commentRepository.findLastCommenterUpdateByPostIdIn(List.of(1L, 2L, 3L))).thenReturn(T0);
+        String before = etag();
+        when(commentRepository.findLastCommenterUpdateByPostIdIn(List.of(1L, 2L, 3L))).thenReturn(T0.plusHours(1));
+
+        assertNotEquals(before, etag());
+    }
+
+    @Test
+    void commenterProfileEditChangesThePostVersion() {
+        when(postRepository.findVersionById(2L)).thenReturn(Optional.of(rows.get(1)));
+        when(commentRepository.findLastCommenterUpdateByPostIdIn(List.of(2L))).thenReturn(T0);
+        ResourceVersion before = service.forPost(2L, VIEWER).orElseThrow();
+
+        // A commenter renames after the post was last touched; the response shows the new name
+        LocalDateTime renamed = T0.plusHours(1);
+        when(commentRepository.findLastCommenterUpdateByPostIdIn(List.of(2L))).thenReturn(renamed);
+        ResourceVersion after = service.forPost(2L, VIEWER).orElseThrow();
+
+        assertNotEquals(before.getEtag(), after.getEtag());
+        assertEquals(renamed.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), after.getLastModified());
+    }
+
+    @Test
+    void nextPageIsReadAfterTheCursor() {
+        String cursor = new FeedCursor(T0.plusMinutes(3), 3L).encode();
+        when(postRepository.findFeedPageVersionsAfter(eq(T0.plusMinutes(3)), eq(3L), any())).thenReturn(List.of());
+
+        service.forFeedPage(VIEWER, cursor, 2);
+
+        verify(postRepository).findFeedPageVersionsAfter(T0.plusMinutes(3), 3L, PageRequest.of(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> service.forFeedPage(VIEWER, "not a cursor", 2));
+    }
+
+    private String etag() {
+        return service.forFeedPage(VIEWER, null, 3).getEtag();
+    }
+
+    private static List<PostVersion> page(List<Row> rows, PageRequest limit) {
+        return new ArrayList<>(rows.subList(0, Math.min(rows.size(), limit.getPageSize())));
+    }
+
+    private record Row(Long id, LocalDateTime createdAt, LocalDateTime updatedAt, int likes, LocalDateTime authorUpdatedAt)
+            implements PostVersion {
+        public Long getId() {
+            return id;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public int getLikes() {
+            return likes;
+        }
+
+        public LocalDateTime getAuthorUpdatedAt() {
+            return authorUpdatedAt;
+        }
+    }
+}
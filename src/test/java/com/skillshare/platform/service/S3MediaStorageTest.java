@@ -0,0 +1,214 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.config.AsyncConfig;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3MediaStorageTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final String BUCKET = "media";
+
+    @TempDir
+    private Path bucketDir;
+
+    @TempDir
+    private Path uploadDir;
+
+    private RecordingS3Client s3Client;
+    private final ThreadPoolTaskExecutor partExecutor = (ThreadPoolTaskExecutor) new AsyncConfig().s3PartExecutor(2);
+    private final S3MediaStorage storage = new S3MediaStorage(DataSize.ofMegabytes(5), DataSize.ofMegabytes(5));
+
+    /** Records part sizes and how many parts were in flight at once, and can fail one part. */
+    private class RecordingS3Client extends FakeS3Client {
+
+        private final Map<Integer, Long> partSizes = new TreeMap<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final AtomicBoolean partAfterAbort = new AtomicBoolean();
+        private volatile int failingPart;
+
+        RecordingS3Client(Path root) {
+            super(root, Duration.ZERO);
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                synchronized (partSizes) {
+                    partSizes.put(request.partNumber(), request.contentLength());
+                }
+                // Long enough for the other thread to pick up a part meanwhile
+                Thread.sleep(100);
+                if (request.partNumber() == failingPart) {
+                    throw S3Exception.builder().statusCode(500).message("InternalError").build();
+                }
+                return super.uploadPart(request, body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } finally {
+                inFlight.decrementAndGet();
+                if (aborted.get()) {
+                    partAfterAbort.set(true);
+                }
+            }
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborted.set(true);
+            return super.abortMultipartUpload(request);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new RecordingS3Client(bucketDir);
+        ReflectionTestUtils.setField(storage, "s3Client", s3Client);
+        ReflectionTestUtils.setField(storage, "s3PartExecutor", partExecutor);
+        ReflectionTestUtils.setField(storage, "bucket", BUCKET);
+        ReflectionTestUtils.setField(storage, "region", "eu-west-1");
+        ReflectionTestUtils.setField(storage, "publicUrl", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        partExecutor.shutdown();
+    }
+
+    @Test
+    void smallFileIsSentInOnePut() throws IOException {
+        byte[] content = randomBytes(1024);
+        Path file = write(content);
+
+        storage.put("small.jpg", file, "image/jpeg");
+
+        assertEquals(1, s3Client.requestCount());
+        assertTrue(s3Client.partSizes.isEmpty());
+        assertArrayEquals(content, read("small.jpg"));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void largeFileIsSplitIntoPartsAndReassembled() throws IOException {
+        byte[] content = randomBytes((int) (12 * MB + 3));
+        Path file = write(content);
+
+        storage.put("large.mp4", file, "video/mp4");
+
+        assertEquals(Map.of(1, 5 * MB, 2, 5 * MB, 3, 2 * MB + 3), s3Client.partSizes);
+        assertArrayEquals(content, read("large.mp4"));
+        assertFalse(Files.exists(file));
+        assertNoPendingUploads();
+    }
+
+    @Test
+    void partsRunConcurrentlyUpToThePoolSize() throws IOException {
+        Path file = write(randomBytes((int) (25 * MB)));
+
+        storage.put("large.mp4", file, "video/mp4");
+
+        assertEquals(5, s3Client.partSizes.size());
+        assertEquals(2, s3Client.maxInFlight.get());
+    }
+
+    @Test
+    void failedPartAbortsTheUploadAfterTheOthersFinish() throws IOException {
+        s3Client.failingPart = 2;
+        Path file = write(randomBytes((int) (16 * MB)));
+
+        S3Exception thrown = assertThrows(S3Exception.class, () -> storage.put("large.mp4", file, "video/mp4"));
+
+        assertEquals(500, thrown.statusCode());
+        assertTrue(s3Client.aborted.get());
+        assertFalse(s3Client.partAfterAbort.get());
+        assertEquals(4, s3Client.partSizes.size());
+        assertFalse(storage.exists("large.mp4"));
+        assertNoPendingUploads();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void missingObjectIsReportedAsMissing() throws IOException {
+        assertFalse(storage.exists("gone.jpg"));
+        assertThrows(NoSuchFileException.class, () -> storage.open("gone.jpg"));
+
+        storage.put("here.jpg", write(randomBytes(10)), "image/jpeg");
+        assertTrue(storage.exists("here.jpg"));
+        storage.delete("here.jpg");
+        assertFalse(storage.exists("here.jpg"));
+    }
+
+    @Test
+    void urlUsesThePublicUrlWhenSet() {
+        assertEquals("https://media.s3.eu-west-1.amazonaws.com/abc.jpg", storage.urlOf("abc.jpg"));
+
+        ReflectionTestUtils.setField(storage, "publicUrl", "https://cdn.example.com");
+        assertEquals("https://cdn.example.com/abc.jpg", storage.urlOf("abc.jpg"));
+    }
+
+    @Test
+    void partsUnderTheS3MinimumAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new S3MediaStorage(DataSize.ofMegabytes(4), DataSize.ofMegabytes(16)));
+    }
+
+    private Path write(byte[] content) throws IOException {
+        Path file = Files.createTempFile(uploadDir, "upload-", ".part");
+        Files.write(file, content);
+        return file;
+    }
+
+    private byte[] read(String name) throws IOException {
+        try (InputStream in = storage.open(name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private void assertNoPendingUploads() throws IOException {
+        try (Stream<Path> uploads = Files.list(bucketDir.resolve(".uploads"))) {
+            assertEquals(0, uploads.count());
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+}
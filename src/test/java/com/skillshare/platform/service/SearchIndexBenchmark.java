@@ -0,0 +1,101 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.service.SearchIndex.Item;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Query latency of {@link SearchIndex} over a synthetic corpus (1M documents by default).
+ * Excluded from the regular test run; start it with
+ * {@code mvn test -Pbenchmark -Dtest=SearchIndexBenchmark [-Dsearch.benchmark.docs=1000000]}.
+ */
+class SearchIndexBenchmark {
+
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int WORDS_PER_DOCUMENT = 40;
+    private static final int WARMUP_QUERIES = 2_000;
+    private static final int MEASURED_QUERIES = 5_000;
+
+    @TempDir
+    Path indexDir;
+
+    @Test
+    void queryLatency() throws Exception {
+        int documents = Integer.getInteger("search.benchmark.docs", 1_000_000);
+        String[] vocabulary = vocabulary();
+        SplittableRandom random = new SplittableRandom(42);
+
+        try (SearchIndex index = new SearchIndex(indexDir)) {
+            long started = System.nanoTime();
+            index.rebuild(sink -> {
+                StringBuilder text = new StringBuilder();
+                for (long id = 1; id <= documents; id++) {
+                    text.setLength(0);
+                    for (int w = 0; w < WORDS_PER_DOCUMENT; w++) {
+                        text.append(vocabulary[zipf(random)]).append(' ');
+                    }
+                    String type = id % 3 == 0 ? SearchIndex.TYPE_COMMENT : SearchIndex.TYPE_POST;
+                    sink.accept(new Item(type, id, id, id % 1000, LocalDateTime.now(), text.toString()));
+                }
+            });
+            System.out.printf("Indexed %,d documents in %,d ms%n", documents, (System.nanoTime() - started) / 1_000_000);
+
+            assertFalse(index.isEmpty());
+            measure(index, "single term", () -> vocabulary[zipf(random)] + " ", null);
+            measure(index, "two terms", () -> vocabulary[zipf(random)] + " " + vocabulary[zipf(random)] + " ", null);
+            measure(index, "typed prefix", () -> vocabulary[zipf(random)].substring(0, 3), null);
+            measure(index, "term, posts only", () -> vocabulary[zipf(random)] + " ", SearchIndex.TYPE_POST);
+        }
+    }
+
+    private static void measure(SearchIndex index, String name, QuerySource queries, String type) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.search(queries.next(), type, 20);
+        }
+        long[] nanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            String query = queries.next();
+            long started = System.nanoTime();
+            index.search(query, type, 20);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-18s p50 %7.3f ms  p95 %7.3f ms  p99 %7.3f ms  max %7.3f ms%n", name,
+            percentile(nanos, 0.50), percentile(nanos, 0.95), percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))] / 1e6;
+    }
+
+    // Word frequencies in text are roughly Zipf-distributed; approximate with a power law
+    private static int zipf(SplittableRandom random) {
+        return (int) Math.min(VOCABULARY_SIZE - 1, Math.floor(Math.pow(VOCABULARY_SIZE, random.nextDouble())) - 1);
+    }
+
+    private static String[] vocabulary() {
+        String[] words = new String[VOCABULARY_SIZE];
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            char[] word = new char[4 + random.nextInt(6)];
+            for (int c = 0; c < word.length; c++) {
+                word[c] = (char) ('a' + random.nextInt(26));
+            }
+            words[i] = new String(word);
+        }
+        return words;
+    }
+
+    @FunctionalInterface
+    private interface QuerySource {
+        String next();
+    }
+}
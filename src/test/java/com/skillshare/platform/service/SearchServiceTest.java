@@ -0,0 +1,231 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.SearchResultDTO;
+import com.skillshare.platform.repository.CommentRepository;
+import com.skillshare.platform.repository.CommentRepository.CommentSearchSource;
+import com.skillshare.platform.repository.LearningPlanRepository;
+import com.skillshare.platform.repository.LearningPlanRepository.LearningPlanSearchSource;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.PostSearchSource;
+import com.skillshare.platform.service.SearchIndex.Item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SearchServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @TempDir
+    private Path indexDir;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final LearningPlanRepository learningPlanRepository = mock(LearningPlanRepository.class);
+    private final SearchService searchService = new SearchService(mock(PlatformTransactionManager.class));
+
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        searchIndex = new SearchIndex(indexDir);
+        ReflectionTestUtils.setField(searchService, "searchIndex", searchIndex);
+        ReflectionTestUtils.setField(searchService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(searchService, "commentRepository", commentRepository);
+        ReflectionTestUtils.setField(searchService, "learningPlanRepository", learningPlanRepository);
+        ReflectionTestUtils.setField(searchService, "replayMargin", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        searchIndex.close();
+    }
+
+    @Test
+    void replayIndexesChangedRowsAndRemovesDeletedOnes() throws IOException {
+        searchIndex.upsert(post(1L, "gardening basics"));
+        searchIndex.upsert(comment(10L, 1L, "nice gardening"));
+        searchIndex.upsert(post(2L, "pottery wheel"));
+        searchIndex.upsert(post(3L, "watercolor"));
+        searchIndex.upsert(comment(12L, 3L, "watercolor tip"));
+        searchIndex.upsert(new Item(SearchIndex.TYPE_PLAN, 5L, null, 1L, T0, "pottery course"));
+        searchIndex.commit();
+
+        // Since then post 1 was edited, comment 10 replaced by 11, post 2 and plan 5 deleted, plan 6 added
+        when(postRepository.streamSearchSourcesUpdatedSince(T0)).thenReturn(Stream.of(new PostSource(1L, "gardening advanced")));
+        when(commentRepository.streamSearchSourcesOfPostsUpdatedSince(T0))
+            .thenReturn(Stream.of(new CommentSource(11L, 1L, "great gardening")));
+        when(learningPlanRepository.streamSearchSourcesUpdatedSince(T0)).thenReturn(Stream.of(new PlanSource(6L, "gardening plan")));
+        when(postRepository.streamIds()).thenReturn(Stream.of(1L, 3L));
+        when(learningPlanRepository.streamIds()).thenReturn(Stream.of(6L));
+
+        assertEquals(4, searchService.replaySince(T0));
+        searchIndex.refresh();
+
+        assertEquals(Set.of("post:1", "comment:11", "plan:6"), keys(searchIndex.search("gardening", null, 10)));
+        assertEquals(Set.of(), keys(searchIndex.search("pottery", null, 10)));
+        assertEquals(Set.of("post:3", "comment:12"), keys(searchIndex.search("watercolor", null, 10)));
+        assertTrue(searchIndex.search("basics", null, 10).isEmpty());
+    }
+
+    @Test
+    void commitTimeSurvivesReopening() throws IOException {
+        assertNull(searchIndex.lastCommittedAt());
+        searchIndex.upsert(post(1L, "gardening"));
+        LocalDateTime before = LocalDateTime.now();
+        searchIndex.commit();
+        LocalDateTime committedAt = searchIndex.lastCommittedAt();
+        assertNotNull(committedAt);
+        assertFalse(committedAt.isBefore(before));
+
+        searchIndex.close();
+        searchIndex = new SearchIndex(indexDir);
+        assertEquals(committedAt, searchIndex.lastCommittedAt());
+    }
+
+    @Test
+    void startupReplaysFromShortlyBeforeTheLastCommit() throws IOException {
+        searchIndex.upsert(post(1L, "gardening"));
+        searchIndex.commit();
+        LocalDateTime since = searchIndex.lastCommittedAt().minus(Duration.ofMinutes(5));
+        when(postRepository.streamSearchSourcesUpdatedSince(since)).thenReturn(Stream.of());
+        when(commentRepository.streamSearchSourcesOfPostsUpdatedSince(since)).thenReturn(Stream.of());
+        when(learningPlanRepository.streamSearchSourcesUpdatedSince(since)).thenReturn(Stream.of());
+        when(postRepository.streamIds()).thenReturn(Stream.of(1L));
+        when(learningPlanRepository.streamIds()).thenReturn(Stream.of());
+
+        searchService.afterSingletonsInstantiated();
+
+        verify(postRepository).streamSearchSourcesUpdatedSince(since);
+    }
+
+    @Test
+    void emptyIndexIsRebuiltBeforeServing() throws IOException {
+        when(postRepository.streamSearchSources()).thenReturn(Stream.of(new PostSource(1L, "gardening")));
+        when(commentRepository.streamSearchSources()).thenReturn(Stream.of());
+        when(learningPlanRepository.streamSearchSources()).thenReturn(Stream.of());
+
+        searchService.afterSingletonsInstantiated();
+
+        assertEquals(Set.of("post:1"), keys(searchIndex.search("gardening", null, 10)));
+        assertNotNull(searchIndex.lastCommittedAt());
+        verify(postRepository, never()).streamSearchSourcesUpdatedSince(any());
+    }
+
+    @Test
+    void liveRebuildDropsRowsDeletedWhileItRead() throws IOException {
+        // Post 2 is deleted, and its event handled, after the stream read it but before it was added
+        when(postRepository.streamSearchSources()).thenAnswer(invocation -> Stream.of(
+            new PostSource(1L, "gardening"), new PostSource(2L, "gardening tools")));
+        when(commentRepository.streamSearchSources()).thenReturn(Stream.of(new CommentSource(20L, 2L, "gardening too")));
+        when(learningPlanRepository.streamSearchSources()).thenReturn(Stream.of());
+        when(postRepository.streamSearchSourcesUpdatedSince(any())).thenReturn(Stream.of());
+        when(commentRepository.streamSearchSourcesOfPostsUpdatedSince(any())).thenReturn(Stream.of());
+        when(learningPlanRepository.streamSearchSourcesUpdatedSince(any())).thenReturn(Stream.of());
+        when(postRepository.streamIds()).thenReturn(Stream.of(1L));
+        when(learningPlanRepository.streamIds()).thenReturn(Stream.of());
+
+        assertEquals(3, searchService.rebuild());
+        searchIndex.refresh();
+
+        assertEquals(Set.of("post:1"), keys(searchIndex.search("gardening", null, 10)));
+    }
+
+    private static Item post(Long id, String text) {
+        return new Item(SearchIndex.TYPE_POST, id, id, 1L, T0, text);
+    }
+
+    private static Item comment(Long id, Long postId, String text) {
+        return new Item(SearchIndex.TYPE_COMMENT, id, postId, 1L, T0, text);
+    }
+
+    private static Set<String> keys(List<SearchResultDTO> results) {
+        return results.stream().map(result -> result.getType() + ":" + result.getId()).collect(Collectors.toSet());
+    }
+
+    private record PostSource(Long id, String content) implements PostSearchSource {
+        public Long getId() {
+            return id;
+        }
+
+        public Long getAuthorId() {
+            return 1L;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return T0;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    private record CommentSource(Long id, Long postId, String content) implements CommentSearchSource {
+        public Long getId() {
+            return id;
+        }
+
+        public Long getPostId() {
+            return postId;
+        }
+
+        public Long getAuthorId() {
+            return 1L;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return T0;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+
+    private record PlanSource(Long id, String topic) implements LearningPlanSearchSource {
+        public Long getId() {
+            return id;
+        }
+
+        public Long getAuthorId() {
+            return 1L;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return T0;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getResources() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UserSuggestionDTO;
+import com.skillshare.platform.repository.ProgressUpdateRepository;
+import com.skillshare.platform.repository.ProgressUpdateRepository.UserSkills;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserSummaryView;
+import com.skillshare.platform.service.SuggestionService.Candidate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SuggestionServiceTest {
+
+    private record Skills(Long getUserId, String getNewSkills) implements UserSkills {
+    }
+
+    private record Summary(Long getId, String getName, String getProfilePhotoUrl) implements UserSummaryView {
+    }
+
+    private final FollowGraph followGraph = new FollowGraph();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ProgressUpdateRepository progressUpdateRepository = mock(ProgressUpdateRepository.class);
+    private final SuggestionService suggestionService = new SuggestionService(100);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(suggestionService, "followGraph", followGraph);
+        ReflectionTestUtils.setField(suggestionService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(suggestionService, "progressUpdateRepository", progressUpdateRepository);
+        ReflectionTestUtils.setField(suggestionService, "maxFirstHop", 500);
+        ReflectionTestUtils.setField(suggestionService, "maxSecondHop", 500);
+        ReflectionTestUtils.setField(suggestionService, "maxScored", 200);
+        ReflectionTestUtils.setField(suggestionService, "timeBudget", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(suggestionService, "mutualWeight", 1.0);
+        ReflectionTestUtils.setField(suggestionService, "skillWeight", 2.0);
+        ReflectionTestUtils.setField(suggestionService, "activeFor", Duration.ofHours(24));
+
+        when(userRepository.findSummariesByIdIn(any())).thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0)
+            .stream()
+            .map(id -> (UserSummaryView) new Summary(id, "user" + id, null))
+            .toList());
+
+        // User 1 follows 2, 3 and 4; between them they follow 5 three times, 6 twice and 7 once
+        follow(1, 2, 3, 4);
+        follow(2, 1, 3, 5, 6);
+        follow(3, 5, 6, 7);
+        follow(4, 5);
+    }
+
+    @Test
+    void ranksFriendsOfFriendsByMutualFollows() {
+        List<Candidate> candidates = suggestionService.compute(1);
+
+        assertEquals(List.of(5L, 6L, 7L), candidates.stream().map(Candidate::userId).toList());
+        assertEquals(List.of(3, 2, 1), candidates.stream().map(Candidate::mutualFollows).toList());
+    }
+
+    @Test
+    void leavesOutTheUserAndPeopleAlreadyFollowed() {
+        List<Long> ids = suggestionService.compute(1).stream().map(Candidate::userId).toList();
+
+        // 2 follows 1 and 3, which must not come back as suggestions for 1
+        assertTrue(Collections.disjoint(ids, List.of(1L, 2L, 3L, 4L)));
+    }
+
+    @Test
+    void sharedSkillsRaiseTheScore() {
+        when(progressUpdateRepository.findSkillsByUserIdIn(any())).thenReturn(List.of(
+            new Skills(1L, "Java, Spring"),
+            new Skills(7L, "java;Docker")));
+
+        List<Candidate> candidates = suggestionService.compute(1);
+
+        // 7 has one mutual follow and one shared skill: 1 + 2, level with 5 and ahead of it on id
+        assertEquals(List.of(7L, 5L, 6L), candidates.stream().map(Candidate::userId).toList());
+        assertEquals(List.of("java"), candidates.get(0).sharedSkills());
+    }
+
+    @Test
+    void walkStopsAtTheFirstHopCap() {
+        ReflectionTestUtils.setField(suggestionService, "maxFirstHop", 1);
+
+        // Only one followee is expanded, so nobody is reached twice
+        List<Candidate> candidates = suggestionService.compute(1);
+
+        assertFalse(candidates.isEmpty());
+        assertTrue(candidates.stream().allMatch(candidate -> candidate.mutualFollows() == 1));
+    }
+
+    @Test
+    void walkStopsWhenTheTimeBudgetIsSpent() {
+        ReflectionTestUtils.setField(suggestionService, "timeBudget", Duration.ofNanos(-1));
+
+        assertEquals(List.of(), suggestionService.compute(1));
+    }
+
+    @Test
+    void servedSuggestionsSkipPeopleFollowedSinceTheyWereComputed() {
+        List<UserSuggestionDTO> first = suggestionService.getSuggestions(1, 10);
+        assertEquals(List.of(5L, 6L, 7L), first.stream().map(UserSuggestionDTO::getId).toList());
+        assertEquals("user5", first.get(0).getName());
+
+        followGraph.add(1, 5);
+        List<UserSuggestionDTO> second = suggestionService.getSuggestions(1, 10);
+
+        assertEquals(List.of(6L, 7L), second.stream().map(UserSuggestionDTO::getId).toList());
+        // Served from the precomputed list, not walked again
+        verify(progressUpdateRepository, times(1)).findSkillsByUserIdIn(any());
+    }
+
+    @Test
+    void userWhoFollowsNobodyGetsNoSuggestions() {
+        assertEquals(List.of(), suggestionService.getSuggestions(9, 10));
+    }
+
+    private void follow(long followerId, long... followeeIds) {
+        for (long followeeId : followeeIds) {
+            followGraph.add(followerId, followeeId);
+        }
+    }
+}
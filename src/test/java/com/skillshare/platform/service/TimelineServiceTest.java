@@ -0,0 +1,128 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.FeedItemDTO;
+import com.skillshare.platform.event.PostCreatedEvent;
+import com.skillshare.platform.event.PostSharedEvent;
+import com.skillshare.platform.event.SharedPostDeletedEvent;
+import com.skillshare.platform.repository.PostRepository;
+import com.skillshare.platform.repository.PostRepository.TimelineSeed;
+import com.skillshare.platform.repository.SharedPostRepository;
+import com.skillshare.platform.service.TimelineStore.Entry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TimelineServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final Long VIEWER = 1L;
+    private static final Long CELEBRITY = 2L;
+    private static final Long FRIEND = 4L;
+
+    private final PostRepository postRepository = mock(PostRepository.class);
+    private final SharedPostRepository sharedPostRepository = mock(SharedPostRepository.class);
+    private final PostMapper postMapper = mock(PostMapper.class);
+    private final FollowGraph followGraph = new FollowGraph();
+    private final TimelineStore timelineStore = new TimelineStore(2, 10);
+    private final TimelineService timelineService = new TimelineService();
+
+    // Each author's posts in the database
+    private final Map<Long, List<Seed>> posts = Map.of(
+        CELEBRITY, List.of(new Seed(20L, T0.plusMinutes(30))),
+        FRIEND, List.of(new Seed(42L, T0.plusMinutes(2)), new Seed(41L, T0.plusMinutes(1))));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timelineService, "timelineStore", timelineStore);
+        ReflectionTestUtils.setField(timelineService, "postRepository", postRepository);
+        ReflectionTestUtils.setField(timelineService, "sharedPostRepository", sharedPostRepository);
+        ReflectionTestUtils.setField(timelineService, "postMapper", postMapper);
+        ReflectionTestUtils.setField(timelineService, "followGraph", followGraph);
+        ReflectionTestUtils.setField(timelineService, "fanoutMaxFollowers", 1L);
+
+        // More followers than are fanned out to
+        followGraph.add(VIEWER, CELEBRITY);
+        followGraph.add(3L, CELEBRITY);
+        followGraph.add(VIEWER, FRIEND);
+
+        when(postRepository.findTimelineSeeds(anyCollection(), any())).thenAnswer(invocation -> {
+            Collection<Long> authors = invocation.getArgument(0);
+            return authors.stream().flatMap(author -> posts.getOrDefault(author, List.of()).stream())
+                .map(seed -> (TimelineSeed) seed).toList();
+        });
+    }
+
+    @Test
+    void celebrityPostsArePulledIntoAFullResidentTimeline() {
+        // Resident and full from before the celebrity's post
+        timelineStore.getOrLoad(VIEWER, userId -> List.of(
+            new Entry(FeedItemDTO.TYPE_POST, 42L, T0.plusMinutes(2)), new Entry(FeedItemDTO.TYPE_POST, 41L, T0.plusMinutes(1))));
+
+        // One item: the resident timeline fills the page without reading past it
+        timelineService.getTimeline(VIEWER, null, 1);
+
+        // Nothing was posted since startup, so only the follow graph can say who is pulled
+        assertEquals(List.of(20L), servedIds());
+        verify(postRepository).findTimelineSeeds(eq(Set.of(CELEBRITY)), any());
+    }
+
+    @Test
+    void celebrityPostsAreNotPushed() {
+        timelineStore.getOrLoad(VIEWER, userId -> List.of());
+
+        timelineService.onPostCreated(new PostCreatedEvent(21L, CELEBRITY, T0.plusMinutes(40)));
+        timelineService.onPostCreated(new PostCreatedEvent(43L, FRIEND, T0.plusMinutes(3)));
+
+        assertEquals(List.of(43L), timelineStore.getOrLoad(VIEWER, userId -> List.of()).page(null, 10).stream()
+            .map(Entry::id).toList());
+    }
+
+    @Test
+    void deletedShareLeavesTheSharerAndFollowerTimelines() {
+        timelineStore.getOrLoad(VIEWER, userId -> List.of());
+        timelineStore.getOrLoad(FRIEND, userId -> List.of());
+        // Hydrated from the database, as items of pulled-on-read authors are
+        timelineStore.getOrLoad(3L, userId -> List.of(new Entry(FeedItemDTO.TYPE_SHARE, 70L, T0.plusMinutes(9))));
+        timelineService.onPostShared(new PostSharedEvent(60L, 41L, FRIEND, T0.plusMinutes(5)));
+
+        timelineService.onSharedPostDeleted(new SharedPostDeletedEvent(60L, FRIEND, T0.plusMinutes(5)));
+        timelineService.onSharedPostDeleted(new SharedPostDeletedEvent(70L, CELEBRITY, T0.plusMinutes(9)));
+
+        for (Long userId : List.of(VIEWER, FRIEND, 3L)) {
+            assertEquals(List.of(), timelineStore.getOrLoad(userId, id -> List.of()).page(null, 10));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> servedIds() {
+        ArgumentCaptor<List<Entry>> page = ArgumentCaptor.forClass(List.class);
+        verify(postMapper).toFeedItems(page.capture(), eq(VIEWER));
+        return page.getValue().stream().map(Entry::id).toList();
+    }
+
+    private record Seed(Long id, LocalDateTime createdAt) implements TimelineSeed {
+        public Long getId() {
+            return id;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+}
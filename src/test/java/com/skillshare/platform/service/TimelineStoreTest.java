@@ -0,0 +1,171 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.service.TimelineStore.Entry;
+import com.skillshare.platform.service.TimelineStore.Timeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimelineStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final TimelineStore store = new TimelineStore(4, 2);
+
+    @Test
+    void newestFirstWithPostsBeforeSharesAtTheSameInstant() {
+        Timeline timeline = store.getOrLoad(1L, userId -> List.of(
+            share(9L, T0), post(3L, T0.minusMinutes(1)), post(5L, T0), post(4L, T0)));
+
+        assertEquals(List.of(post(5L, T0), post(4L, T0), share(9L, T0), post(3L, T0.minusMinutes(1))),
+            timeline.page(null, 10));
+    }
+
+    @Test
+    void keepsOnlyTheNewestEntriesUpToCapacity() {
+        Timeline timeline = store.getOrLoad(1L, userId -> List.of());
+        for (long id = 1; id <= 6; id++) {
+            timeline.add(post(id, T0.plusMinutes(id)));
+        }
+        // Older than everything kept, so it is dropped at once
+        timeline.add(post(7L, T0));
+
+        assertTrue(timeline.isFull());
+        assertEquals(List.of(6L, 5L, 4L, 3L), ids(timeline.page(null, 10)));
+    }
+
+    @Test
+    void pagesContinueStrictlyAfterTheCursor() {
+        Timeline timeline = store.getOrLoad(1L, userId -> List.of(
+            post(2L, T0), share(2L, T0), post(1L, T0), share(1L, T0.minusMinutes(1))));
+
+        List<Entry> first = timeline.page(null, 2);
+        List<Entry> second = timeline.page(first.get(1), 2);
+
+        assertEquals(List.of(post(2L, T0), post(1L, T0)), first);
+        assertEquals(List.of(share(2L, T0), share(1L, T0.minusMinutes(1))), second);
+        assertEquals(List.of(), timeline.page(second.get(1), 2));
+    }
+
+    @Test
+    void loadsOnceAndPushesOnlyIntoResidentTimelines() {
+        AtomicInteger loads = new AtomicInteger();
+        assertFalse(store.pushIfResident(1L, post(1L, T0)));
+
+        Timeline timeline = store.getOrLoad(1L, userId -> {
+            loads.incrementAndGet();
+            return List.of(post(2L, T0));
+        });
+        assertSame(timeline, store.getOrLoad(1L, userId -> List.of()));
+        assertTrue(store.pushIfResident(1L, post(3L, T0.plusMinutes(1))));
+
+        assertEquals(1, loads.get());
+        assertEquals(List.of(3L, 2L), ids(timeline.page(null, 10)));
+    }
+
+    @Test
+    void concurrentLoadsAreMerged() {
+        Timeline timeline = store.getOrLoad(1L, userId -> {
+            // Another request hydrates the same timeline while this loader runs
+            store.getOrLoad(1L, sameUser -> List.of(post(1L, T0)));
+            return List.of(post(2L, T0.plusMinutes(1)));
+        });
+
+        assertSame(timeline, store.getOrLoad(1L, userId -> List.of()));
+        assertEquals(List.of(2L, 1L), ids(timeline.page(null, 10)));
+    }
+
+    @Test
+    void pushesDuringHydrationAreKept() {
+        Timeline timeline = store.getOrLoad(1L, userId -> {
+            // Committed after the loader's query read, and fanned out before it returned
+            assertTrue(store.pushIfResident(1L, post(3L, T0.plusMinutes(1))));
+            return List.of(post(2L, T0));
+        });
+
+        assertEquals(List.of(3L, 2L), ids(timeline.page(null, 10)));
+    }
+
+    @Test
+    void timelineEvictedWhileLoadingIsNotKept() {
+        AtomicInteger loads = new AtomicInteger();
+        store.getOrLoad(1L, userId -> {
+            loads.incrementAndGet();
+            // The user followed someone while their old timeline loaded
+            store.evict(1L);
+            return List.of(post(2L, T0));
+        });
+
+        assertFalse(store.pushIfResident(1L, post(3L, T0)));
+        store.getOrLoad(1L, userId -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLoadLeavesNothingBehind() {
+        assertThrows(IllegalStateException.class, () -> store.getOrLoad(1L, userId -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        assertFalse(store.pushIfResident(1L, post(1L, T0)));
+        assertEquals(List.of(2L), ids(store.getOrLoad(1L, userId -> List.of(post(2L, T0))).page(null, 10)));
+    }
+
+    @Test
+    void removedEntryDoesNotMakeAFullTimelineLookComplete() {
+        Timeline timeline = store.getOrLoad(1L, userId -> List.of());
+        for (long id = 1; id <= 5; id++) {
+            timeline.add(post(id, T0.plusMinutes(id)));
+        }
+
+        assertTrue(store.removeIfResident(1L, post(4L, T0.plusMinutes(4))));
+
+        assertEquals(List.of(5L, 3L, 2L), ids(timeline.page(null, 10)));
+        // Post 1 was dropped for capacity, so reads past post 2 still need the database
+        assertTrue(timeline.isFull());
+        assertFalse(store.removeIfResident(1L, post(4L, T0.plusMinutes(4))));
+        assertFalse(store.removeIfResident(2L, post(5L, T0.plusMinutes(5))));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyReadTimeline() {
+        store.getOrLoad(1L, userId -> List.of());
+        store.getOrLoad(2L, userId -> List.of());
+        store.getOrLoad(1L, userId -> List.of());
+        store.getOrLoad(3L, userId -> List.of());
+
+        assertTrue(store.pushIfResident(1L, post(1L, T0)));
+        assertFalse(store.pushIfResident(2L, post(1L, T0)));
+        assertTrue(store.pushIfResident(3L, post(1L, T0)));
+
+        store.evict(3L);
+        assertFalse(store.pushIfResident(3L, post(2L, T0)));
+    }
+
+    private static Entry post(Long id, LocalDateTime timestamp) {
+        return new Entry("post", id, timestamp);
+    }
+
+    private static Entry share(Long id, LocalDateTime timestamp) {
+        return new Entry("share", id, timestamp);
+    }
+
+    private static List<Long> ids(List<Entry> entries) {
+        List<Long> ids = new ArrayList<>();
+        entries.forEach(entry -> ids.add(entry.id()));
+        return ids;
+    }
+}
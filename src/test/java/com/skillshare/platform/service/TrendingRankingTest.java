@@ -0,0 +1,126 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.service.TrendingRanking.Interaction;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrendingRankingTest {
+
+    // Close to the landmark the ranking starts with, as in production
+    private static final Instant NOW = Instant.now();
+
+    private final TrendingRanking ranking = new TrendingRanking(3, 0.01);
+
+    @Test
+    void olderInteractionsCountLessPerWindow() {
+        // Three likes two days ago against one like now
+        ranking.record(1L, Interaction.LIKE, 3, 1, NOW.minus(Duration.ofDays(2)));
+        ranking.record(2L, Interaction.LIKE, 1, 1, NOW);
+
+        // Two day half-lives leave 3/4 of a like; two week half-lives leave most of three
+        assertEquals(List.of(2L, 1L), ranking.top("day", 10));
+        assertEquals(List.of(1L, 2L), ranking.top("week", 10));
+        assertEquals(List.of(2L, 1L), ranking.top("hour", 10));
+    }
+
+    @Test
+    void halfLifeHalvesTheWeight() {
+        ranking.record(1L, Interaction.SHARE, 1, 2, NOW.minus(Duration.ofDays(1)));
+        ranking.record(2L, Interaction.LIKE, 1, 1.01, NOW);
+        ranking.record(3L, Interaction.LIKE, 1, 0.99, NOW);
+
+        assertEquals(List.of(2L, 1L, 3L), ranking.top("day", 10));
+    }
+
+    @Test
+    void unlikeTakesBackOnlyWhatLikesAdded() {
+        // An old like, then a fresh comment; the unlike comes now
+        ranking.record(1L, Interaction.LIKE, 1, 1, NOW.minus(Duration.ofDays(3)));
+        ranking.record(1L, Interaction.COMMENT, 1, 3, NOW);
+        ranking.record(2L, Interaction.COMMENT, 1, 2.9, NOW);
+
+        ranking.takeBack(1L, Interaction.LIKE);
+
+        // Weighting the unlike at the current time would have cancelled a third of the comment
+        assertEquals(List.of(1L, 2L), ranking.top("day", 10));
+    }
+
+    @Test
+    void takingBackEverythingLeavesNoScore() {
+        ranking.record(1L, Interaction.LIKE, 1, 1, NOW.minus(Duration.ofHours(5)));
+        ranking.record(1L, Interaction.LIKE, 1, 1, NOW);
+
+        ranking.takeBack(1L, Interaction.LIKE);
+        ranking.takeBack(1L, Interaction.LIKE);
+        // More unlikes than counted likes, e.g. likes older than the seed lookback
+        ranking.takeBack(1L, Interaction.LIKE);
+        ranking.takeBack(2L, Interaction.LIKE);
+
+        assertEquals(List.of(), ranking.top("hour", 10));
+        assertEquals(Map.of("hour", 0, "day", 0, "week", 0), ranking.sizes());
+    }
+
+    @Test
+    void takingBackAnotherKindLeavesTheScore() {
+        ranking.record(1L, Interaction.SHARE, 1, 5, NOW);
+        ranking.record(2L, Interaction.LIKE, 4, 1, NOW);
+
+        ranking.takeBack(1L, Interaction.COMMENT);
+        ranking.takeBack(1L, Interaction.LIKE);
+
+        assertEquals(List.of(1L, 2L), ranking.top("day", 10));
+    }
+
+    @Test
+    void keepsTheBestTopKAsScoresChange() {
+        for (long id = 1; id <= 5; id++) {
+            ranking.record(id, Interaction.LIKE, (int) id, 1, NOW);
+        }
+        assertEquals(List.of(5L, 4L, 3L), ranking.top("day", 10));
+
+        // A drop lets a post from outside the top back in
+        for (int i = 0; i < 4; i++) {
+            ranking.takeBack(5L, Interaction.LIKE);
+        }
+        assertEquals(List.of(4L, 3L, 2L), ranking.top("day", 10));
+
+        ranking.record(1L, Interaction.SHARE, 1, 10, NOW);
+        assertEquals(List.of(1L, 4L, 3L), ranking.top("day", 10));
+        assertEquals(List.of(1L), ranking.top("day", 1));
+
+        ranking.remove(1L);
+        assertEquals(List.of(4L, 3L, 2L), ranking.top("day", 10));
+    }
+
+    @Test
+    void renormalizingKeepsTheOrderAndPrunesDecayedScores() {
+        ranking.record(1L, Interaction.COMMENT, 1, 3, NOW.minus(Duration.ofHours(2)));
+        ranking.record(2L, Interaction.LIKE, 1, 1, NOW);
+        ranking.record(3L, Interaction.LIKE, 1, 1, NOW.minus(Duration.ofDays(30)));
+        List<Long> before = ranking.top("week", 10);
+
+        ranking.renormalize(NOW.plus(Duration.ofHours(1)));
+
+        assertEquals(before.subList(0, 2), ranking.top("week", 10).subList(0, 2));
+        // About 2^-27 of a like is left in the hour window
+        assertEquals(List.of(2L, 1L), ranking.top("hour", 10));
+        assertEquals(2, ranking.sizes().get("day"));
+
+        // Takes back exactly what is left of the decayed like
+        ranking.takeBack(2L, Interaction.LIKE);
+        assertEquals(List.of(1L), ranking.top("day", 10));
+    }
+
+    @Test
+    void rejectsUnknownWindows() {
+        assertThrows(IllegalArgumentException.class, () -> ranking.top("year", 1));
+    }
+}
@@ -0,0 +1,173 @@
+package com.skillshare.platform.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadDirectoryMigratorTest {
+
+    private static final String NAME = "0123abcd.jpg";
+
+    @TempDir
+    private Path uploadDir;
+
+    private final LocalMediaStorage storage = new LocalMediaStorage();
+    private UploadDirectoryMigrator migrator = new UploadDirectoryMigrator();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storage, "baseUrl", "http://localhost/media");
+        configure(migrator, 10);
+    }
+
+    @Test
+    void flatFilesAreServedBeforeTheyAreMoved() throws IOException {
+        Path flat = writeFlat(NAME, "flat");
+
+        assertTrue(storage.exists(NAME));
+        assertEquals(flat, storage.localPath(NAME));
+        assertEquals("flat", read(NAME));
+    }
+
+    @Test
+    void filesAreLinkedIntoShardsAndTheirFlatNamesRemovedABatchLater() throws IOException {
+        Path flat = writeFlat(NAME, "content");
+
+        migrator.migrateBatch();
+
+        Path sharded = storage.shardedPath(NAME);
+        assertEquals(uploadDir.resolve("01").resolve("23").resolve(NAME), sharded);
+        assertTrue(Files.isRegularFile(sharded));
+        // Still there for requests that resolved the flat name before the link
+        assertTrue(Files.exists(flat));
+        assertEquals(sharded, storage.localPath(NAME));
+        assertEquals("content", read(NAME));
+
+        migrator.migrateBatch();
+
+        assertFalse(Files.exists(flat));
+        assertEquals("content", read(NAME));
+    }
+
+    @Test
+    void lookupsStopCheckingTheFlatLayoutOnceEverythingIsMoved() throws IOException {
+        writeFlat(NAME, "content");
+        migrator.migrateBatch();
+        migrator.migrateBatch();
+        migrator.migrateBatch();
+
+        // Not picked up any more, and not served from the top level either
+        writeFlat("late.jpg", "late");
+        migrator.migrateBatch();
+
+        assertThrows(NoSuchFileException.class, () -> storage.open("late.jpg"));
+        assertFalse(storage.exists("late.jpg"));
+        assertTrue(Files.exists(uploadDir.resolve("late.jpg")));
+        assertEquals("content", read(NAME));
+    }
+
+    @Test
+    void movesAtMostABatchAtATime() throws IOException {
+        configure(migrator, 2);
+        for (String name : new String[] {"a.jpg", "b.jpg", "c.jpg"}) {
+            writeFlat(name, name);
+        }
+
+        migrator.migrateBatch();
+        assertEquals(2, countSharded("a.jpg", "b.jpg", "c.jpg"));
+
+        migrator.migrateBatch();
+        assertEquals(3, countSharded("a.jpg", "b.jpg", "c.jpg"));
+        for (String name : new String[] {"a.jpg", "b.jpg", "c.jpg"}) {
+            assertEquals(name, read(name));
+        }
+    }
+
+    @Test
+    void skipsStagedUploadsHiddenFilesAndDirectories() throws IOException {
+        writeFlat("upload-1.part", "partial");
+        writeFlat(".hidden", "hidden");
+        Files.createDirectories(uploadDir.resolve(".sessions"));
+
+        migrator.migrateBatch();
+        migrator.migrateBatch();
+
+        assertTrue(Files.exists(uploadDir.resolve("upload-1.part")));
+        assertTrue(Files.exists(uploadDir.resolve(".hidden")));
+        assertFalse(Files.exists(storage.shardedPath("upload-1.part")));
+    }
+
+    @Test
+    void renamesWhereHardLinksAreNotSupported() throws IOException {
+        migrator = new UploadDirectoryMigrator() {
+            @Override
+            void link(Path link, Path existing) {
+                throw new UnsupportedOperationException("no hard links");
+            }
+        };
+        configure(migrator, 10);
+        Path flat = writeFlat(NAME, "content");
+
+        migrator.migrateBatch();
+
+        assertFalse(Files.exists(flat));
+        assertEquals("content", Files.readString(storage.shardedPath(NAME)));
+        assertEquals("content", read(NAME));
+    }
+
+    @Test
+    void nameAlreadyLinkedBeforeARestartIsTakenAsMoved() throws IOException {
+        Path flat = writeFlat(NAME, "content");
+        Path sharded = storage.shardedPath(NAME);
+        Files.createDirectories(sharded.getParent());
+        Files.createLink(sharded, flat);
+
+        // A fresh migrator, as after a restart between linking and unlinking
+        migrator.migrateBatch();
+        assertTrue(Files.exists(flat));
+
+        migrator.migrateBatch();
+
+        assertFalse(Files.exists(flat));
+        assertEquals("content", Files.readString(sharded));
+    }
+
+    private void configure(UploadDirectoryMigrator target, int batchSize) {
+        ReflectionTestUtils.setField(target, "localMediaStorage", storage);
+        ReflectionTestUtils.setField(target, "batchSize", batchSize);
+    }
+
+    private Path writeFlat(String name, String content) throws IOException {
+        return Files.writeString(uploadDir.resolve(name), content);
+    }
+
+    private String read(String name) throws IOException {
+        try (InputStream in = storage.open(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private long countSharded(String... names) {
+        long count = 0;
+        for (String name : names) {
+            if (Files.exists(storage.shardedPath(name))) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
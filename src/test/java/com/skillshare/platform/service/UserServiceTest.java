@@ -0,0 +1,90 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.event.UserUpdatedEvent;
+import com.skillshare.platform.model.User;
+import com.skillshare.platform.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final UserService userService = new UserService(mock(PlatformTransactionManager.class));
+
+    private final User admin = user(1L, User.ROLE_ADMIN);
+    private final User member = user(2L, User.ROLE_USER);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "eventPublisher", eventPublisher);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(admin));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(member));
+    }
+
+    @Test
+    void adminDeactivatesUser() {
+        userService.setActive(2L, false, 1L);
+
+        assertFalse(member.isActive());
+        verify(userRepository).save(member);
+        verify(eventPublisher).publishEvent(new UserUpdatedEvent(2L));
+    }
+
+    @Test
+    void usersCannotDeactivateAnyone() {
+        User other = user(3L, User.ROLE_USER);
+        when(userRepository.findById(3L)).thenReturn(Optional.of(other));
+
+        assertThrows(AccessDeniedException.class, () -> userService.setActive(3L, false, 2L));
+        assertThrows(AccessDeniedException.class, () -> userService.setActive(1L, false, 2L));
+        assertTrue(other.isActive());
+        assertTrue(admin.isActive());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void rowsWithoutRoleAreNotAdmins() {
+        member.setRole(null);
+
+        assertThrows(AccessDeniedException.class, () -> userService.setActive(1L, false, 2L));
+    }
+
+    @Test
+    void deactivatedAdminIsRefused() {
+        admin.setActive(false);
+
+        assertThrows(AccessDeniedException.class, () -> userService.setActive(2L, false, 1L));
+        assertTrue(member.isActive());
+    }
+
+    @Test
+    void adminCannotDeactivateThemselves() {
+        assertThrows(IllegalArgumentException.class, () -> userService.setActive(1L, false, 1L));
+        assertTrue(admin.isActive());
+    }
+
+    private static User user(Long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,120 @@
+package com.skillshare.platform.service;
+
+import com.skillshare.platform.dto.UserSummaryDTO;
+import com.skillshare.platform.event.UserUpdatedEvent;
+import com.skillshare.platform.repository.UserRepository;
+import com.skillshare.platform.repository.UserRepository.UserSummaryView;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserSummaryLoaderTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserSummaryLoader loader = new UserSummaryLoader(100, Duration.ofMinutes(10));
+
+    // Names as the database has them
+    private final Map<Long, String> names = new HashMap<>(Map.of(1L, "Ann", 2L, "Bo", 3L, "Cy"));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(loader, "userRepository", userRepository);
+        when(userRepository.findSummariesByIdIn(anySet())).thenAnswer(invocation -> {
+            Set<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(names::containsKey).map(id -> (UserSummaryView) new View(id, names.get(id))).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void loadsMissesWithOneQuery() {
+        Map<Long, UserSummaryDTO> found = loader.loadAll(Arrays.asList(1L, 2L, null, 1L, 9L));
+
+        assertEquals(Set.of(1L, 2L), found.keySet());
+        assertEquals("Ann", found.get(1L).getName());
+        verify(userRepository).findSummariesByIdIn(Set.of(1L, 2L, 9L));
+    }
+
+    @Test
+    void callsInOneRequestShareTheirSummaries() {
+        ServletRequestAttributes request = startRequest();
+        loader.loadAll(List.of(1L, 2L));
+
+        // Another request renames user 1 and evicts the shared entry
+        RequestContextHolder.resetRequestAttributes();
+        names.put(1L, "Ann B");
+        loader.onUserUpdated(new UserUpdatedEvent(1L));
+
+        RequestContextHolder.setRequestAttributes(request);
+        Map<Long, UserSummaryDTO> found = loader.loadAll(List.of(2L, 1L, 3L));
+        assertEquals("Ann", found.get(1L).getName());
+        verify(userRepository).findSummariesByIdIn(Set.of(3L));
+
+        startRequest();
+        assertEquals("Ann B", loader.loadAll(List.of(1L)).get(1L).getName());
+        verify(userRepository, times(3)).findSummariesByIdIn(anySet());
+    }
+
+    @Test
+    void anUpdateInTheRequestIsShownByItsResponse() {
+        startRequest();
+        loader.loadAll(List.of(1L, 2L));
+        names.put(1L, "Ann B");
+        loader.onUserUpdated(new UserUpdatedEvent(1L));
+
+        assertEquals("Ann B", loader.loadAll(List.of(1L, 2L)).get(1L).getName());
+        verify(userRepository).findSummariesByIdIn(Set.of(1L));
+    }
+
+    @Test
+    void withoutARequestOnlyTheSharedCacheIsUsed() {
+        loader.loadAll(List.of(1L));
+        names.put(1L, "Ann B");
+        loader.onUserUpdated(new UserUpdatedEvent(1L));
+
+        assertEquals("Ann B", loader.loadAll(List.of(1L)).get(1L).getName());
+    }
+
+    private static ServletRequestAttributes startRequest() {
+        ServletRequestAttributes request = new ServletRequestAttributes(new MockHttpServletRequest());
+        RequestContextHolder.setRequestAttributes(request);
+        return request;
+    }
+
+    private record View(Long id, String name) implements UserSummaryView {
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getProfilePhotoUrl() {
+            return null;
+        }
+    }
+}